@@ -13,17 +13,19 @@ package com.library.domain;
  */
 public class BookFineStrategy implements FineStrategy {
 
+    /**
+     * The default BOOK policy, compiled once.
+     */
+    private static final FineSchedule SCHEDULE = FinePolicy.defaults().get(MediaType.BOOK).compile();
+
     /**
      * Calculates the fine for an overdue book.
      *
      * @param overdueDays the number of days the book is overdue
-     * @return a fixed fine of 10.0 if overdue, otherwise 0.0
+     * @return a fixed fine of 10.00 (in cents) if overdue, otherwise 0
      */
     @Override
-    public double calculateFine(long overdueDays) {
-        if (overdueDays <= 0) {
-            return 0.0;
-        }
-        return 10.0;
+    public long calculateFine(long overdueDays) {
+        return SCHEDULE.calculateFine(overdueDays);
     }
 }
@@ -0,0 +1,103 @@
+package com.library.domain;
+
+import java.time.LocalDate;
+
+/**
+ * A snapshot of the facts that decide whether a user may borrow.
+ * <p>
+ * It holds the user's outstanding fine balance, the earliest due date among
+ * the user's active (not returned) loans, and the number of active loans.
+ * Overdue status is derived from the earliest due date, so a snapshot stays
+ * correct as days pass without any loan being touched.
+ * </p>
+ *
+ * @author Maram
+ * @version 1.0
+ */
+public class BorrowEligibility {
+
+    /**
+     * The user this snapshot describes.
+     */
+    private final String userId;
+
+    /**
+     * Total unpaid fine amount in cents.
+     */
+    private final long outstandingBalance;
+
+    /**
+     * Earliest due date among active loans, or {@code null} if there are none.
+     */
+    private final LocalDate earliestActiveDueDate;
+
+    /**
+     * Number of loans that have not been returned.
+     */
+    private final int activeLoanCount;
+
+    /**
+     * Creates a new eligibility snapshot.
+     *
+     * @param userId                the user ID
+     * @param outstandingBalance    total unpaid fines in cents
+     * @param earliestActiveDueDate earliest due date of an active loan, may be null
+     * @param activeLoanCount       number of active loans
+     */
+    public BorrowEligibility(String userId,
+                             long outstandingBalance,
+                             LocalDate earliestActiveDueDate,
+                             int activeLoanCount) {
+        this.userId = userId;
+        this.outstandingBalance = outstandingBalance;
+        this.earliestActiveDueDate = earliestActiveDueDate;
+        this.activeLoanCount = activeLoanCount;
+    }
+
+    /**
+     * @return the user ID
+     */
+    public String getUserId() {
+        return userId;
+    }
+
+    /**
+     * @return the total unpaid fine amount in cents
+     */
+    public long getOutstandingBalance() {
+        return outstandingBalance;
+    }
+
+    /**
+     * @return the earliest active due date, or null if the user holds no items
+     */
+    public LocalDate getEarliestActiveDueDate() {
+        return earliestActiveDueDate;
+    }
+
+    /**
+     * @return the number of active loans
+     */
+    public int getActiveLoanCount() {
+        return activeLoanCount;
+    }
+
+    /**
+     * Checks whether the user has unpaid fines.
+     *
+     * @return true if the outstanding balance is positive
+     */
+    public boolean hasUnpaidFines() {
+        return outstandingBalance > 0;
+    }
+
+    /**
+     * Checks whether any active loan is overdue as of the given date.
+     *
+     * @param today the date to compare against
+     * @return true if the earliest active due date is before {@code today}
+     */
+    public boolean hasOverdueLoans(LocalDate today) {
+        return earliestActiveDueDate != null && today.isAfter(earliestActiveDueDate);
+    }
+}
@@ -13,17 +13,19 @@ package com.library.domain;
  */
 public class CDFineStrategy implements FineStrategy {
 
+    /**
+     * The default CD policy, compiled once.
+     */
+    private static final FineSchedule SCHEDULE = FinePolicy.defaults().get(MediaType.CD).compile();
+
     /**
      * Calculates the fine for an overdue CD.
      *
      * @param overdueDays the number of overdue days
-     * @return a fixed fine of 20.0 if overdue, otherwise 0.0
+     * @return a fixed fine of 20.00 (in cents) if overdue, otherwise 0
      */
     @Override
-    public double calculateFine(long overdueDays) {
-        if (overdueDays <= 0) {
-            return 0.0;
-        }
-        return 20.0;
+    public long calculateFine(long overdueDays) {
+        return SCHEDULE.calculateFine(overdueDays);
     }
 }
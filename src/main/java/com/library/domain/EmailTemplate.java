@@ -0,0 +1,163 @@
+package com.library.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A text template parsed once into a list of segments.
+ * <p>
+ * Templates contain literal text, variables written {@code {{name}}} and
+ * repeated sections written {@code {{#name}}...{{/name}}}. A section is
+ * rendered once per element of the list bound to its name, with that
+ * element's values in scope. Rendering walks the segment list and appends
+ * straight into the caller's {@link StringBuilder}; the source text is
+ * never scanned again.
+ * </p>
+ *
+ * @author Maram
+ * @version 1.0
+ */
+public final class EmailTemplate {
+
+    /**
+     * Segment kinds.
+     */
+    private static final int TEXT = 0;
+    private static final int VARIABLE = 1;
+    private static final int SECTION = 2;
+
+    /**
+     * Kind of each segment.
+     */
+    private final int[] kinds;
+
+    /**
+     * Literal text or variable/section name of each segment.
+     */
+    private final String[] values;
+
+    /**
+     * Body of each section segment, null for other kinds.
+     */
+    private final EmailTemplate[] sections;
+
+    private EmailTemplate(List<Integer> kinds, List<String> values, List<EmailTemplate> sections) {
+        this.kinds = kinds.stream().mapToInt(Integer::intValue).toArray();
+        this.values = values.toArray(new String[0]);
+        this.sections = sections.toArray(new EmailTemplate[0]);
+    }
+
+    /**
+     * Parses a template.
+     *
+     * @param source template text
+     * @return the compiled template
+     * @throws IllegalArgumentException if a tag is not closed or sections are mismatched
+     */
+    public static EmailTemplate compile(String source) {
+        return parse(source, new int[]{0}, null);
+    }
+
+    /**
+     * Parses segments from {@code pos[0]} until the end of the source or
+     * the closing tag of the given section.
+     */
+    private static EmailTemplate parse(String source, int[] pos, String section) {
+        List<Integer> kinds = new ArrayList<>();
+        List<String> values = new ArrayList<>();
+        List<EmailTemplate> sections = new ArrayList<>();
+
+        while (pos[0] < source.length()) {
+            int open = source.indexOf("{{", pos[0]);
+            if (open < 0) {
+                add(kinds, values, sections, TEXT, source.substring(pos[0]), null);
+                pos[0] = source.length();
+                break;
+            }
+            if (open > pos[0]) {
+                add(kinds, values, sections, TEXT, source.substring(pos[0], open), null);
+            }
+            int close = source.indexOf("}}", open + 2);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed template tag at offset " + open);
+            }
+            String tag = source.substring(open + 2, close).trim();
+            pos[0] = close + 2;
+
+            if (tag.startsWith("#")) {
+                String name = tag.substring(1).trim();
+                add(kinds, values, sections, SECTION, name, parse(source, pos, name));
+            } else if (tag.startsWith("/")) {
+                String name = tag.substring(1).trim();
+                if (!name.equals(section)) {
+                    throw new IllegalArgumentException("Unexpected template tag {{/" + name + "}}");
+                }
+                return new EmailTemplate(kinds, values, sections);
+            } else if (tag.isEmpty()) {
+                throw new IllegalArgumentException("Empty template tag at offset " + open);
+            } else {
+                add(kinds, values, sections, VARIABLE, tag, null);
+            }
+        }
+
+        if (section != null) {
+            throw new IllegalArgumentException("Template section {{#" + section + "}} is not closed");
+        }
+        return new EmailTemplate(kinds, values, sections);
+    }
+
+    private static void add(List<Integer> kinds, List<String> values, List<EmailTemplate> sections,
+                            int kind, String value, EmailTemplate section) {
+        kinds.add(kind);
+        values.add(value);
+        sections.add(section);
+    }
+
+    /**
+     * Renders the template into a buffer.
+     * <p>
+     * Variables with no value render as nothing. A section's value must be a
+     * list of maps; anything else renders the section zero times.
+     * </p>
+     *
+     * @param model values by name
+     * @param out   buffer to append to
+     */
+    public void render(Map<String, ?> model, StringBuilder out) {
+        for (int i = 0; i < kinds.length; i++) {
+            switch (kinds[i]) {
+                case TEXT -> out.append(values[i]);
+                case VARIABLE -> {
+                    Object value = model.get(values[i]);
+                    if (value != null) {
+                        out.append(value);
+                    }
+                }
+                default -> {
+                    if (model.get(values[i]) instanceof List<?> items) {
+                        for (Object item : items) {
+                            if (item instanceof Map<?, ?> m) {
+                                @SuppressWarnings("unchecked")
+                                Map<String, ?> scope = (Map<String, ?>) m;
+                                sections[i].render(scope, out);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Renders the template to a new string.
+     *
+     * @param model values by name
+     * @return the rendered text
+     */
+    public String render(Map<String, ?> model) {
+        StringBuilder out = new StringBuilder();
+        render(model, out);
+        return out.toString();
+    }
+}
@@ -0,0 +1,250 @@
+package com.library.domain;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compiled email templates by kind, media type and language.
+ * <p>
+ * Each template has a subject line and a body, both compiled once into an
+ * {@link EmailTemplate}. A lookup tries the most specific template first and
+ * falls back in this order: kind + media type + language, kind + language,
+ * kind + media type in the default language, and kind alone in the default
+ * language.
+ * </p>
+ *
+ * <p>
+ * Templates can be loaded from a directory of files named
+ * {@code kind[.MEDIA_TYPE][.language].txt}, for example
+ * {@code overdue.txt}, {@code overdue.CD.txt} or {@code overdue.ar.txt}.
+ * The first line of a file is {@code Subject: ...}, followed by a blank
+ * line and the body.
+ * </p>
+ *
+ * @author Maram
+ * @version 1.0
+ */
+public class EmailTemplates {
+
+    /**
+     * Kind of the overdue digest.
+     */
+    public static final String OVERDUE = "overdue";
+
+    /**
+     * Kind of the due-soon digest.
+     */
+    public static final String DUE_SOON = "due-soon";
+
+    /**
+     * Language the fallback templates are written in.
+     */
+    public static final String DEFAULT_LANGUAGE = "en";
+
+    private static final String SUBJECT_PREFIX = "Subject:";
+
+    private static final String OVERDUE_SOURCE = """
+            Subject: Library Overdue Book Reminder
+
+            Dear {{name}},
+
+            This is a reminder that the following loan(s) are overdue:
+            {{#loans}}- Item ID: {{itemId}}, borrowed on {{borrowDate}}, due on {{dueDate}}
+            {{/loans}}
+            Please return the items as soon as possible.
+
+            Best regards,
+            Library System""";
+
+    private static final String DUE_SOON_SOURCE = """
+            Subject: Library Due Date Reminder
+
+            Dear {{name}},
+
+            This is a reminder that the following loan(s) are due soon:
+            {{#loans}}- Item ID: {{itemId}}, borrowed on {{borrowDate}}, due on {{dueDate}}
+            {{/loans}}
+            Please return the items by their due date to avoid a fine.
+
+            Best regards,
+            Library System""";
+
+    /**
+     * A compiled subject and body.
+     */
+    private static final class Compiled {
+        private final EmailTemplate subject;
+        private final EmailTemplate body;
+
+        private Compiled(EmailTemplate subject, EmailTemplate body) {
+            this.subject = subject;
+            this.body = body;
+        }
+    }
+
+    /**
+     * Render buffer reused by each thread.
+     */
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(512));
+
+    /**
+     * Templates by lookup key.
+     */
+    private final Map<String, Compiled> templates = new HashMap<>();
+
+    /**
+     * Language used when none is given.
+     */
+    private final String language;
+
+    /**
+     * Creates a registry holding the built-in English templates.
+     *
+     * @param language language used when none is given
+     */
+    public EmailTemplates(String language) {
+        this.language = language;
+        register(OVERDUE, null, DEFAULT_LANGUAGE, OVERDUE_SOURCE);
+        register(DUE_SOON, null, DEFAULT_LANGUAGE, DUE_SOON_SOURCE);
+    }
+
+    /**
+     * @return a registry with only the built-in English templates
+     */
+    public static EmailTemplates defaults() {
+        return new EmailTemplates(DEFAULT_LANGUAGE);
+    }
+
+    /**
+     * Loads templates from a directory on top of the built-in ones.
+     *
+     * @param dir      directory of template files
+     * @param language language used when none is given
+     * @return the registry
+     * @throws StorageException         if the directory cannot be read
+     * @throws IllegalArgumentException if a template is malformed
+     */
+    public static EmailTemplates load(Path dir, String language) {
+        EmailTemplates templates = new EmailTemplates(language);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.txt")) {
+            for (Path file : files) {
+                String[] parts = file.getFileName().toString().replaceFirst("\\.txt$", "").split("\\.");
+                MediaType type = null;
+                String lang = DEFAULT_LANGUAGE;
+                for (int i = 1; i < parts.length; i++) {
+                    if (isMediaType(parts[i])) {
+                        type = MediaType.valueOf(parts[i]);
+                    } else {
+                        lang = parts[i];
+                    }
+                }
+                templates.register(parts[0], type, lang, Files.readString(file));
+            }
+        } catch (IOException e) {
+            throw new StorageException("Failed to load email templates from " + dir, e);
+        }
+        return templates;
+    }
+
+    /**
+     * Compiles and registers a template.
+     *
+     * @param kind     template kind, for example {@link #OVERDUE}
+     * @param type     media type it applies to, or null for any
+     * @param language language code
+     * @param source   template text starting with a {@code Subject:} line
+     * @throws IllegalArgumentException if the template is malformed
+     */
+    public void register(String kind, MediaType type, String language, String source) {
+        String text = source.replace("\r\n", "\n");
+        int lineEnd = text.indexOf('\n');
+        String first = lineEnd < 0 ? text : text.substring(0, lineEnd);
+        if (!first.startsWith(SUBJECT_PREFIX)) {
+            throw new IllegalArgumentException("Email template " + kind + " must start with a Subject: line");
+        }
+        String body = lineEnd < 0 ? "" : text.substring(lineEnd + 1);
+        if (body.startsWith("\n")) {
+            body = body.substring(1);
+        }
+        templates.put(key(kind, type, language), new Compiled(
+                EmailTemplate.compile(first.substring(SUBJECT_PREFIX.length()).trim()),
+                EmailTemplate.compile(body.stripTrailing())));
+    }
+
+    /**
+     * Renders a message in the registry's language.
+     *
+     * @param kind  template kind
+     * @param type  media type of the message, or null for none
+     * @param to    recipient address
+     * @param model values for the template
+     * @return the rendered message
+     */
+    public EmailMessage render(String kind, MediaType type, String to, Map<String, ?> model) {
+        return render(kind, type, language, to, model);
+    }
+
+    /**
+     * Renders a message.
+     *
+     * @param kind     template kind
+     * @param type     media type of the message, or null for none
+     * @param language language code
+     * @param to       recipient address
+     * @param model    values for the template
+     * @return the rendered message
+     * @throws IllegalArgumentException if no template of that kind exists
+     */
+    public EmailMessage render(String kind, MediaType type, String language, String to, Map<String, ?> model) {
+        Compiled t = find(kind, type, language);
+        StringBuilder out = BUFFER.get();
+
+        out.setLength(0);
+        t.subject.render(model, out);
+        String subject = out.toString();
+
+        out.setLength(0);
+        t.body.render(model, out);
+        return new EmailMessage(to, subject, out.toString());
+    }
+
+    /**
+     * Finds the most specific template for a kind, media type and language.
+     */
+    private Compiled find(String kind, MediaType type, String language) {
+        Compiled t = null;
+        if (type != null) {
+            t = templates.get(key(kind, type, language));
+        }
+        if (t == null) {
+            t = templates.get(key(kind, null, language));
+        }
+        if (t == null && type != null) {
+            t = templates.get(key(kind, type, DEFAULT_LANGUAGE));
+        }
+        if (t == null) {
+            t = templates.get(key(kind, null, DEFAULT_LANGUAGE));
+        }
+        if (t == null) {
+            throw new IllegalArgumentException("No email template for " + kind);
+        }
+        return t;
+    }
+
+    private static String key(String kind, MediaType type, String language) {
+        return kind + '|' + (type == null ? "" : type.name()) + '|' + language;
+    }
+
+    private static boolean isMediaType(String name) {
+        for (MediaType t : MediaType.values()) {
+            if (t.name().equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,21 +1,58 @@
 package com.library.domain;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 /**
  * Handles all file-based persistence for the library system.
  * <p>
  * The FileStorage class is responsible for loading and saving all library data
- * including admins, librarians, users, books, loans, and fines.
+ * including admins, librarians, users, books, CDs, loans, and fines.
  * Data is stored in plain text files inside a base directory.
  * </p>
  *
  * <p>Each record is stored using semicolon-separated format.</p>
  *
+ * <p>
+ * Loans are partitioned: loans.txt holds only active loans, and returned
+ * loans are archived into monthly segment files named after their return
+ * month (for example {@code loans-2025-10.txt}).
+ * </p>
+ *
+ * <p>
+ * Fines are event-sourced: every assessment, payment and waiver is appended
+ * to fine-ledger.txt, and fines.txt is a snapshot of the fines as of a given
+ * ledger line. Loading replays the ledger tail on top of the snapshot.
+ * </p>
+ *
+ * <p>
+ * The email outbox is a journal: outbox.txt gets one line per state change
+ * of an entry and the last line for an ID wins. Subjects and bodies are
+ * Base64-encoded so they can hold separators and line breaks. Entries that
+ * are given up on are copied to outbox-dead.txt.
+ * </p>
+ *
+ * <p>
+ * All public methods are synchronized, so the console and the background
+ * scheduler can share one instance. Files that are replaced rather than
+ * appended to are written to a temporary file first and moved into place,
+ * so a crash mid-write never leaves a truncated file behind.
+ * </p>
+ *
  * @author Maram
  * @version 1.0
  */
@@ -26,6 +63,26 @@ public class FileStorage {
      */
     private final Path baseDir;
 
+    /**
+     * Number of archived loan records, or -1 until first counted.
+     */
+    private long archivedLoanCount = -1;
+
+    /**
+     * Number of ledger entries after which appending takes a new fines snapshot.
+     */
+    static final int FINE_SNAPSHOT_INTERVAL = 500;
+
+    /**
+     * Header prefix recording the ledger position a fines snapshot was taken at.
+     */
+    private static final String LEDGER_OFFSET_HEADER = "#ledger-offset=";
+
+    /**
+     * Number of lines in the fine ledger, or -1 until first counted.
+     */
+    private long fineLedgerSize = -1;
+
     /**
      * Creates a new FileStorage instance.
      *
@@ -67,6 +124,13 @@ public class FileStorage {
         return baseDir.resolve("books.txt");
     }
 
+    /**
+     * @return path to cds.txt file
+     */
+    private Path cdsFile() {
+        return baseDir.resolve("cds.txt");
+    }
+
     /**
      * @return path to loans.txt file
      */
@@ -74,6 +138,14 @@ public class FileStorage {
         return baseDir.resolve("loans.txt");
     }
 
+    /**
+     * @param month the return month of the archived loans
+     * @return path to the loan archive segment for that month
+     */
+    private Path loanSegmentFile(YearMonth month) {
+        return baseDir.resolve("loans-" + month + ".txt");
+    }
+
     /**
      * @return path to fines.txt file
      */
@@ -81,6 +153,55 @@ public class FileStorage {
         return baseDir.resolve("fines.txt");
     }
 
+    /**
+     * @return path to fine-ledger.txt file
+     */
+    private Path fineLedgerFile() {
+        return baseDir.resolve("fine-ledger.txt");
+    }
+
+    /**
+     * @return path to fine-accruals.txt file
+     */
+    private Path fineAccrualsFile() {
+        return baseDir.resolve("fine-accruals.txt");
+    }
+
+    /**
+     * @return path to reminders.txt file
+     */
+    private Path remindersFile() {
+        return baseDir.resolve("reminders.txt");
+    }
+
+    /**
+     * @return path to due-soon-reminders.txt file
+     */
+    private Path dueSoonRemindersFile() {
+        return baseDir.resolve("due-soon-reminders.txt");
+    }
+
+    /**
+     * @return path to watermarks.txt file
+     */
+    private Path watermarksFile() {
+        return baseDir.resolve("watermarks.txt");
+    }
+
+    /**
+     * @return path to outbox.txt file
+     */
+    private Path outboxFile() {
+        return baseDir.resolve("outbox.txt");
+    }
+
+    /**
+     * @return path to outbox-dead.txt file
+     */
+    private Path deadLetterFile() {
+        return baseDir.resolve("outbox-dead.txt");
+    }
+
 
     /* ============================
        Admins
@@ -91,7 +212,7 @@ public class FileStorage {
      *
      * @return list of Admin objects
      */
-    public List<Admin> loadAdmins() {
+    public synchronized List<Admin> loadAdmins() {
         List<Admin> admins = new ArrayList<>();
         try {
             if (!Files.exists(adminsFile())) {
@@ -118,7 +239,7 @@ public class FileStorage {
      *
      * @param admins the admin list to save
      */
-    public void saveAdmins(List<Admin> admins) {
+    public synchronized void saveAdmins(List<Admin> admins) {
         List<String> lines = new ArrayList<>();
         for (Admin a : admins) {
             String line = String.join(";",
@@ -130,10 +251,7 @@ public class FileStorage {
             lines.add(line);
         }
         try {
-            Files.createDirectories(baseDir);
-            Files.write(adminsFile(), lines,
-                    StandardOpenOption.CREATE,
-                    StandardOpenOption.TRUNCATE_EXISTING);
+            writeAtomically(adminsFile(), lines);
         } catch (IOException e) {
             throw new StorageException("Failed to save admins", e);
         }
@@ -149,7 +267,7 @@ public class FileStorage {
      *
      * @return list of Librarian objects
      */
-    public List<Librarian> loadLibrarians() {
+    public synchronized List<Librarian> loadLibrarians() {
         List<Librarian> librarians = new ArrayList<>();
         try {
             if (!Files.exists(librariansFile())) {
@@ -181,7 +299,7 @@ public class FileStorage {
      *
      * @return list of User objects
      */
-    public List<User> loadUsers() {
+    public synchronized List<User> loadUsers() {
         List<User> users = new ArrayList<>();
         try {
             if (!Files.exists(usersFile())) {
@@ -210,7 +328,7 @@ public class FileStorage {
      *
      * @param users list of users to save
      */
-    public void saveUsers(List<User> users) {
+    public synchronized void saveUsers(List<User> users) {
         List<String> lines = new ArrayList<>();
         for (User u : users) {
             String line = String.join(";",
@@ -222,10 +340,7 @@ public class FileStorage {
             lines.add(line);
         }
         try {
-            Files.createDirectories(baseDir);
-            Files.write(usersFile(), lines,
-                    StandardOpenOption.CREATE,
-                    StandardOpenOption.TRUNCATE_EXISTING);
+            writeAtomically(usersFile(), lines);
         } catch (IOException e) {
             throw new StorageException("Failed to save users.txt", e);
         }
@@ -241,7 +356,7 @@ public class FileStorage {
      *
      * @return list of Book objects
      */
-    public List<Book> loadBooks() {
+    public synchronized List<Book> loadBooks() {
         List<Book> books = new ArrayList<>();
         try {
             if (!Files.exists(booksFile())) {
@@ -269,7 +384,7 @@ public class FileStorage {
      *
      * @param books list of books to save
      */
-    public void saveBooks(List<Book> books) {
+    public synchronized void saveBooks(List<Book> books) {
         List<String> lines = new ArrayList<>();
         for (Book b : books) {
             String line = String.join(";",
@@ -282,32 +397,329 @@ public class FileStorage {
             lines.add(line);
         }
         try {
-            Files.createDirectories(baseDir);
-            Files.write(booksFile(), lines,
-                    StandardOpenOption.CREATE,
-                    StandardOpenOption.TRUNCATE_EXISTING);
+            writeAtomically(booksFile(), lines);
         } catch (IOException e) {
             throw new StorageException("Failed to save books", e);
         }
     }
 
 
+    /* ============================
+       CDs
+       ============================ */
+
+    /**
+     * Loads all CDs from cds.txt.
+     *
+     * @return list of CD objects
+     */
+    public synchronized List<CD> loadCds() {
+        List<CD> cds = new ArrayList<>();
+        try {
+            if (!Files.exists(cdsFile())) {
+                return cds;
+            }
+            for (String line : Files.readAllLines(cdsFile())) {
+                if (line.isBlank()) continue;
+                String[] parts = line.split(";");
+                if (parts.length < 4) continue;
+                String id = parts[0];
+                String title = parts[1];
+                String artist = parts[2];
+                boolean borrowed = Boolean.parseBoolean(parts[3]);
+                cds.add(new CD(id, title, artist, borrowed));
+            }
+        } catch (IOException e) {
+            throw new StorageException("Failed to load cds", e);
+        }
+        return cds;
+    }
+
+    /**
+     * Saves all CDs to cds.txt.
+     *
+     * @param cds list of CDs to save
+     */
+    public synchronized void saveCds(List<CD> cds) {
+        List<String> lines = new ArrayList<>();
+        for (CD cd : cds) {
+            String line = String.join(";",
+                    cd.getId(),
+                    cd.getTitle(),
+                    cd.getArtist(),
+                    Boolean.toString(cd.isBorrowed())
+            );
+            lines.add(line);
+        }
+        try {
+            writeAtomically(cdsFile(), lines);
+        } catch (IOException e) {
+            throw new StorageException("Failed to save cds", e);
+        }
+    }
+
+
     /* ============================
        Loans
        ============================ */
 
     /**
-     * Loads all loans from loans.txt.
+     * Loads all loans, active and archived.
+     * <p>
+     * This reads every archive segment; prefer {@link #loadActiveLoans()} or
+     * {@link #loadLoanHistory(LocalDate, LocalDate)} when the full history is
+     * not needed.
+     * </p>
      *
      * @return list of Loan objects
      */
-    public List<Loan> loadLoans() {
+    public synchronized List<Loan> loadLoans() {
+        List<Loan> loans = readLoans(loansFile());
+        for (Path segment : loanSegments().values()) {
+            loans.addAll(readLoans(segment));
+        }
+        return loans;
+    }
+
+    /**
+     * Loads the loans that have not been returned.
+     * <p>
+     * Only the hot file is read, and nothing is written. Returned records left
+     * in it by older versions are skipped; {@link #archiveReturnedLoans()}
+     * moves them to their archive segments.
+     * </p>
+     *
+     * @return list of active loans
+     */
+    public synchronized List<Loan> loadActiveLoans() {
+        List<Loan> active = new ArrayList<>();
+        for (Loan loan : readLoans(loansFile())) {
+            if (!loan.isReturned()) {
+                active.add(loan);
+            }
+        }
+        return active;
+    }
+
+    /**
+     * Moves returned records left in loans.txt by older versions to their
+     * archive segments.
+     *
+     * @return number of records moved out of loans.txt
+     */
+    public synchronized int archiveReturnedLoans() {
+        List<Loan> hot = readLoans(loansFile());
+        int returned = 0;
+        for (Loan loan : hot) {
+            if (loan.isReturned()) {
+                returned++;
+            }
+        }
+        if (returned > 0) {
+            saveActiveLoans(hot);
+        }
+        return returned;
+    }
+
+    /**
+     * Loads returned loans whose return date falls within a date range.
+     * <p>
+     * Segments whose month lies outside the range are not opened.
+     * </p>
+     *
+     * @param from first return date to include
+     * @param to   last return date to include
+     * @return list of archived loans returned between {@code from} and {@code to}
+     */
+    public synchronized List<Loan> loadLoanHistory(LocalDate from, LocalDate to) {
+        YearMonth first = YearMonth.from(from);
+        YearMonth last = YearMonth.from(to);
+
+        List<Loan> history = new ArrayList<>();
+        for (Map.Entry<YearMonth, Path> segment : loanSegments().entrySet()) {
+            YearMonth month = segment.getKey();
+            if (month.isBefore(first) || month.isAfter(last)) {
+                continue;
+            }
+            for (Loan loan : readLoans(segment.getValue())) {
+                LocalDate returned = loan.getReturnDate();
+                if (returned != null && !returned.isBefore(from) && !returned.isAfter(to)) {
+                    history.add(loan);
+                }
+            }
+        }
+        return history;
+    }
+
+    /**
+     * Returns the number of archived (returned) loans.
+     * <p>
+     * The count is taken once and then kept up to date by the save methods.
+     * </p>
+     *
+     * @return number of loan records in the archive segments
+     */
+    public synchronized long countArchivedLoans() {
+        if (archivedLoanCount < 0) {
+            long count = 0;
+            try {
+                for (Path segment : loanSegments().values()) {
+                    try (var lines = Files.lines(segment)) {
+                        count += lines.filter(line -> !line.isBlank()).count();
+                    }
+                }
+            } catch (IOException e) {
+                throw new StorageException("Failed to count archived loans", e);
+            }
+            archivedLoanCount = count;
+        }
+        return archivedLoanCount;
+    }
+
+    /**
+     * Replaces all loans, active and archived.
+     * <p>
+     * Active loans are written to loans.txt; returned loans are written to
+     * their monthly segments. Each file is replaced atomically, and segments
+     * no longer needed are removed only after all new ones are written, so a
+     * failure part way through never loses loan history.
+     * </p>
+     *
+     * @param loans list of Loan objects to save
+     */
+    public synchronized void saveLoans(List<Loan> loans) {
+        List<Loan> active = new ArrayList<>();
+        Map<YearMonth, List<Loan>> archived = new TreeMap<>();
+        for (Loan loan : loans) {
+            if (loan.isReturned()) {
+                archived.computeIfAbsent(YearMonth.from(loan.getReturnDate()), m -> new ArrayList<>())
+                        .add(loan);
+            } else {
+                active.add(loan);
+            }
+        }
+
+        Map<YearMonth, Path> stale = loanSegments();
+        long count = 0;
+        for (Map.Entry<YearMonth, List<Loan>> entry : archived.entrySet()) {
+            writeLoans(loanSegmentFile(entry.getKey()), entry.getValue(), false);
+            stale.remove(entry.getKey());
+            count += entry.getValue().size();
+        }
+        writeLoans(loansFile(), active, false);
+
+        try {
+            for (Path segment : stale.values()) {
+                Files.delete(segment);
+            }
+        } catch (IOException e) {
+            throw new StorageException("Failed to save loans", e);
+        }
+        archivedLoanCount = count;
+    }
+
+    /**
+     * Saves the active loan set.
+     * <p>
+     * Loans in the list that have been returned are appended to their archive
+     * segment; the rest are written to loans.txt. The segments are written
+     * first, so a crash in between leaves the returned loan in loans.txt as
+     * well; loans already in their segment are therefore not appended again.
+     * </p>
+     *
+     * @param loans the current active loans, including any just returned
+     */
+    public synchronized void saveActiveLoans(List<Loan> loans) {
+        List<Loan> active = new ArrayList<>();
+        Map<YearMonth, List<Loan>> returned = new TreeMap<>();
+        for (Loan loan : loans) {
+            if (loan.isReturned()) {
+                returned.computeIfAbsent(YearMonth.from(loan.getReturnDate()), m -> new ArrayList<>())
+                        .add(loan);
+            } else {
+                active.add(loan);
+            }
+        }
+
+        long count = countArchivedLoans();
+        for (Map.Entry<YearMonth, List<Loan>> entry : returned.entrySet()) {
+            Path segment = loanSegmentFile(entry.getKey());
+            Set<String> archived = readLoanIds(segment);
+            List<Loan> toAppend = new ArrayList<>();
+            for (Loan loan : entry.getValue()) {
+                if (archived.add(loan.getId())) {
+                    toAppend.add(loan);
+                }
+            }
+            if (!toAppend.isEmpty()) {
+                writeLoans(segment, toAppend, true);
+                count += toAppend.size();
+            }
+        }
+        archivedLoanCount = count;
+        writeLoans(loansFile(), active, false);
+    }
+
+    /**
+     * Reads the IDs of the loans in a loan file without parsing the rest of
+     * each record.
+     *
+     * @param file the loan file
+     * @return loan IDs, empty if the file does not exist
+     */
+    private Set<String> readLoanIds(Path file) {
+        Set<String> ids = new HashSet<>();
+        if (!Files.exists(file)) {
+            return ids;
+        }
+        try (var lines = Files.lines(file)) {
+            lines.filter(line -> !line.isBlank())
+                    .forEach(line -> ids.add(line.substring(0, Math.max(0, line.indexOf(';')))));
+        } catch (IOException e) {
+            throw new StorageException("Failed to load loans", e);
+        }
+        return ids;
+    }
+
+    /**
+     * Lists the loan archive segments ordered by month.
+     *
+     * @return map from segment month to file path
+     */
+    private Map<YearMonth, Path> loanSegments() {
+        Map<YearMonth, Path> segments = new TreeMap<>();
+        if (!Files.isDirectory(baseDir)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(baseDir, "loans-*.txt")) {
+            for (Path p : stream) {
+                String name = p.getFileName().toString();
+                try {
+                    YearMonth month = YearMonth.parse(name.substring("loans-".length(), name.length() - 4));
+                    segments.put(month, p);
+                } catch (DateTimeParseException e) {
+                    // not a segment file
+                }
+            }
+        } catch (IOException e) {
+            throw new StorageException("Failed to list loan segments", e);
+        }
+        return segments;
+    }
+
+    /**
+     * Reads loan records from a single file.
+     *
+     * @param file the file to read
+     * @return list of Loan objects, empty if the file does not exist
+     */
+    private List<Loan> readLoans(Path file) {
         List<Loan> loans = new ArrayList<>();
         try {
-            if (!Files.exists(loansFile())) {
+            if (!Files.exists(file)) {
                 return loans;
             }
-            for (String line : Files.readAllLines(loansFile())) {
+            for (String line : Files.readAllLines(file)) {
                 if (line.isBlank()) continue;
 
                 String[] parts = line.split(";", -1);
@@ -334,11 +746,13 @@ public class FileStorage {
     }
 
     /**
-     * Saves all loans to loans.txt.
+     * Writes loan records to a single file.
      *
-     * @param loans list of Loan objects to save
+     * @param file   the file to write
+     * @param loans  the loans to write
+     * @param append true to append, false to replace the file
      */
-    public void saveLoans(List<Loan> loans) {
+    private void writeLoans(Path file, List<Loan> loans, boolean append) {
         List<String> lines = new ArrayList<>();
         for (Loan loan : loans) {
             String returnDateStr = (loan.getReturnDate() == null)
@@ -357,10 +771,12 @@ public class FileStorage {
             lines.add(line);
         }
         try {
-            Files.createDirectories(baseDir);
-            Files.write(loansFile(), lines,
-                    StandardOpenOption.CREATE,
-                    StandardOpenOption.TRUNCATE_EXISTING);
+            if (append) {
+                Files.createDirectories(baseDir);
+                Files.write(file, lines, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } else {
+                writeAtomically(file, lines);
+            }
         } catch (IOException e) {
             throw new StorageException("Failed to save loans", e);
         }
@@ -372,58 +788,578 @@ public class FileStorage {
        ============================ */
 
     /**
-     * Loads all fines from fines.txt.
+     * Loads all fines.
+     * <p>
+     * The fines.txt snapshot is read first, then every ledger entry written
+     * after the snapshot is applied on top of it. Ledger lines before the
+     * snapshot's position are skipped without being parsed.
+     * </p>
      *
      * @return list of Fine objects
      */
-    public List<Fine> loadFines() {
-        List<Fine> fines = new ArrayList<>();
+    public synchronized List<Fine> loadFines() {
+        Map<String, Fine> fines = new LinkedHashMap<>();
+        long offset = 0;
         try {
-            if (!Files.exists(finesFile())) {
-                return fines;
-            }
-            for (String line : Files.readAllLines(finesFile())) {
-                if (line.isBlank()) continue;
-                String[] parts = line.split(";");
-                if (parts.length < 4) continue;
+            if (Files.exists(finesFile())) {
+                for (String line : Files.readAllLines(finesFile())) {
+                    if (line.isBlank()) continue;
+                    if (line.startsWith(LEDGER_OFFSET_HEADER)) {
+                        offset = Long.parseLong(line.substring(LEDGER_OFFSET_HEADER.length()).trim());
+                        continue;
+                    }
+                    String[] parts = line.split(";");
+                    if (parts.length < 4) continue;
 
-                String id = parts[0];
-                String userId = parts[1];
-                double amount = Double.parseDouble(parts[2]);
-                boolean paid = Boolean.parseBoolean(parts[3]);
+                    String id = parts[0];
+                    String userId = parts[1];
+                    long amount = Money.parse(parts[2]);
+                    boolean paid = Boolean.parseBoolean(parts[3]);
+                    String loanId = (parts.length >= 5 && !parts[4].isBlank()) ? parts[4] : null;
 
-                fines.add(new Fine(id, userId, amount, paid));
+                    fines.put(id, new Fine(id, userId, amount, paid, loanId));
+                }
             }
         } catch (IOException e) {
             throw new StorageException("Failed to load fines.txt", e);
         }
-        return fines;
+
+        for (FineLedgerEntry entry : readFineLedger(offset)) {
+            applyLedgerEntry(fines, entry);
+        }
+        return new ArrayList<>(fines.values());
     }
 
     /**
-     * Saves all fines to fines.txt.
+     * Replaces the fines snapshot.
+     * <p>
+     * The snapshot is stamped with the current number of ledger lines, so
+     * entries already in the ledger are not applied again on load.
+     * </p>
      *
      * @param fines list of fines to save
      */
-    public void saveFines(List<Fine> fines) {
+    public synchronized void saveFines(List<Fine> fines) {
         List<String> lines = new ArrayList<>();
+        lines.add(LEDGER_OFFSET_HEADER + fineLedgerSize());
         for (Fine fine : fines) {
             String line = String.join(";",
                     fine.getId(),
                     fine.getUserId(),
-                    Double.toString(fine.getAmount()),
-                    Boolean.toString(fine.isPaid())
+                    Money.format(fine.getAmount()),
+                    Boolean.toString(fine.isPaid()),
+                    fine.getLoanId() == null ? "" : fine.getLoanId()
             );
             lines.add(line);
         }
+        try {
+            writeAtomically(finesFile(), lines);
+        } catch (IOException e) {
+            throw new StorageException("Failed to save fines.txt", e);
+        }
+    }
+
+    /**
+     * Loads every entry of the fine ledger in the order it was written.
+     *
+     * @return list of ledger entries
+     */
+    public synchronized List<FineLedgerEntry> loadFineLedger() {
+        return readFineLedger(0);
+    }
+
+    /**
+     * Reads the fine ledger from the given line on.
+     * <p>
+     * Positions count every line of the file, blank or malformed ones
+     * included, so they agree with {@link #fineLedgerSize()}. Lines before
+     * {@code fromLine} are skipped without being parsed, and malformed lines
+     * after it are ignored.
+     * </p>
+     *
+     * @param fromLine number of lines to skip
+     * @return the ledger entries after {@code fromLine}
+     */
+    private List<FineLedgerEntry> readFineLedger(long fromLine) {
+        List<FineLedgerEntry> entries = new ArrayList<>();
+        if (!Files.exists(fineLedgerFile())) {
+            fineLedgerSize = 0;
+            return entries;
+        }
+        long lineCount = 0;
+        try (BufferedReader reader = Files.newBufferedReader(fineLedgerFile())) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (lineCount++ < fromLine || line.isBlank()) continue;
+                String[] parts = line.split(";", -1);
+                if (parts.length < 6) continue;
+
+                entries.add(new FineLedgerEntry(
+                        FineLedgerEntry.Type.valueOf(parts[1]),
+                        parts[2],
+                        parts[3],
+                        Money.parse(parts[4]),
+                        parts[5].isBlank() ? null : parts[5],
+                        LocalDate.parse(parts[0])));
+            }
+        } catch (IOException e) {
+            throw new StorageException("Failed to load fine-ledger.txt", e);
+        }
+        fineLedgerSize = lineCount;
+        return entries;
+    }
+
+    /**
+     * Appends entries to the fine ledger.
+     * <p>
+     * Existing records are never rewritten. Once
+     * {@value #FINE_SNAPSHOT_INTERVAL} entries have built up since the last
+     * snapshot, a new fines.txt snapshot is taken.
+     * </p>
+     *
+     * @param entries the entries to append
+     */
+    public synchronized void appendFineLedger(List<FineLedgerEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        List<String> lines = new ArrayList<>();
+        for (FineLedgerEntry e : entries) {
+            lines.add(String.join(";",
+                    e.getDate().toString(),
+                    e.getType().name(),
+                    e.getFineId(),
+                    e.getUserId(),
+                    Money.format(e.getAmount()),
+                    e.getLoanId() == null ? "" : e.getLoanId()));
+        }
+        long size = fineLedgerSize();
         try {
             Files.createDirectories(baseDir);
-            Files.write(finesFile(), lines,
+            Files.write(fineLedgerFile(), lines,
                     StandardOpenOption.CREATE,
-                    StandardOpenOption.TRUNCATE_EXISTING);
+                    StandardOpenOption.APPEND);
         } catch (IOException e) {
-            throw new StorageException("Failed to save fines.txt", e);
+            throw new StorageException("Failed to append to fine-ledger.txt", e);
+        }
+        fineLedgerSize = size + entries.size();
+
+        if (fineLedgerSize - fineSnapshotOffset() >= FINE_SNAPSHOT_INTERVAL) {
+            saveFines(loadFines());
+        }
+    }
+
+    /**
+     * Returns the number of lines in the fine ledger, which is the position
+     * a snapshot taken now is stamped with.
+     *
+     * @return ledger size, counted once and then kept up to date
+     */
+    private long fineLedgerSize() {
+        if (fineLedgerSize < 0) {
+            if (!Files.exists(fineLedgerFile())) {
+                fineLedgerSize = 0;
+            } else {
+                try (var lines = Files.lines(fineLedgerFile())) {
+                    fineLedgerSize = lines.count();
+                } catch (IOException e) {
+                    throw new StorageException("Failed to read fine-ledger.txt", e);
+                }
+            }
+        }
+        return fineLedgerSize;
+    }
+
+    /**
+     * Reads the ledger position recorded in the fines.txt header.
+     *
+     * @return ledger offset of the snapshot, 0 if it has no header
+     */
+    private long fineSnapshotOffset() {
+        if (!Files.exists(finesFile())) {
+            return 0;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(finesFile())) {
+            String first = reader.readLine();
+            if (first != null && first.startsWith(LEDGER_OFFSET_HEADER)) {
+                return Long.parseLong(first.substring(LEDGER_OFFSET_HEADER.length()).trim());
+            }
+            return 0;
+        } catch (IOException e) {
+            throw new StorageException("Failed to read fines.txt", e);
+        }
+    }
+
+    /**
+     * Applies one ledger entry to the fines being rebuilt.
+     * A fine whose remaining amount reaches zero is marked paid.
+     *
+     * @param fines fines by ID
+     * @param entry the entry to apply
+     */
+    private static void applyLedgerEntry(Map<String, Fine> fines, FineLedgerEntry entry) {
+        if (entry.getType() == FineLedgerEntry.Type.ASSESSED) {
+            fines.putIfAbsent(entry.getFineId(), new Fine(entry.getFineId(), entry.getUserId(),
+                    entry.getAmount(), false, entry.getLoanId()));
+            return;
+        }
+        Fine fine = fines.get(entry.getFineId());
+        if (fine == null || fine.isPaid()) {
+            return;
+        }
+        long remaining = fine.getAmount() - entry.getAmount();
+        if (remaining <= 0) {
+            fine.setAmount(0);
+            fine.setPaid(true);
+        } else {
+            fine.setAmount(remaining);
+        }
+    }
+
+    /**
+     * Loads the fine accrual state of active loans.
+     *
+     * @return list of accrual records, empty if none have been saved
+     */
+    public synchronized List<FineAccrual> loadFineAccruals() {
+        List<FineAccrual> accruals = new ArrayList<>();
+        try {
+            if (!Files.exists(fineAccrualsFile())) {
+                return accruals;
+            }
+            for (String line : Files.readAllLines(fineAccrualsFile())) {
+                if (line.isBlank()) continue;
+                String[] parts = line.split(";", -1);
+                if (parts.length < 4) continue;
+
+                accruals.add(new FineAccrual(
+                        parts[0],
+                        parts[1].isEmpty() ? null : LocalDate.parse(parts[1]),
+                        Money.parse(parts[2]),
+                        parts[3].isEmpty() ? null : LocalDate.parse(parts[3])));
+            }
+        } catch (IOException e) {
+            throw new StorageException("Failed to load fine-accruals.txt", e);
+        }
+        return accruals;
+    }
+
+    /**
+     * Saves the fine accrual state of active loans.
+     *
+     * @param accruals accrual records to save
+     */
+    public synchronized void saveFineAccruals(List<FineAccrual> accruals) {
+        List<String> lines = new ArrayList<>();
+        for (FineAccrual a : accruals) {
+            lines.add(String.join(";",
+                    a.getLoanId(),
+                    a.getLastAccruedDate() == null ? "" : a.getLastAccruedDate().toString(),
+                    Money.format(a.getAccruedCents()),
+                    a.getNextBoundary() == null ? "" : a.getNextBoundary().toString()));
+        }
+        try {
+            writeAtomically(fineAccrualsFile(), lines);
+        } catch (IOException e) {
+            throw new StorageException("Failed to save fine-accruals.txt", e);
+        }
+    }
+
+    /* ============================
+       Reminder log
+       ============================ */
+
+    /**
+     * Loads the reminder history of overdue loans.
+     *
+     * @return list of reminder records, empty if none have been saved
+     */
+    public synchronized List<ReminderRecord> loadReminderLog() {
+        List<ReminderRecord> records = new ArrayList<>();
+        try {
+            if (!Files.exists(remindersFile())) {
+                return records;
+            }
+            for (String line : Files.readAllLines(remindersFile())) {
+                if (line.isBlank()) continue;
+                String[] parts = line.split(";", -1);
+                if (parts.length < 3) continue;
+
+                records.add(new ReminderRecord(
+                        parts[0],
+                        LocalDate.parse(parts[1]),
+                        Integer.parseInt(parts[2])));
+            }
+        } catch (IOException e) {
+            throw new StorageException("Failed to load reminders.txt", e);
+        }
+        return records;
+    }
+
+    /**
+     * Saves the reminder history of overdue loans.
+     *
+     * @param records reminder records to save
+     */
+    public synchronized void saveReminderLog(List<ReminderRecord> records) {
+        List<String> lines = new ArrayList<>();
+        for (ReminderRecord r : records) {
+            lines.add(String.join(";",
+                    r.getLoanId(),
+                    r.getLastSentDate().toString(),
+                    String.valueOf(r.getCount())));
+        }
+        try {
+            writeAtomically(remindersFile(), lines);
+        } catch (IOException e) {
+            throw new StorageException("Failed to save reminders.txt", e);
+        }
+    }
+
+    /**
+     * Loads the date each loan was last sent a due-soon reminder.
+     *
+     * @return reminder dates by loan ID, empty if none have been saved
+     */
+    public synchronized Map<String, LocalDate> loadDueSoonReminders() {
+        Map<String, LocalDate> sent = new LinkedHashMap<>();
+        try {
+            if (!Files.exists(dueSoonRemindersFile())) {
+                return sent;
+            }
+            for (String line : Files.readAllLines(dueSoonRemindersFile())) {
+                if (line.isBlank()) continue;
+                String[] parts = line.split(";", -1);
+                if (parts.length < 2) continue;
+
+                sent.put(parts[0], LocalDate.parse(parts[1]));
+            }
+        } catch (IOException e) {
+            throw new StorageException("Failed to load due-soon-reminders.txt", e);
+        }
+        return sent;
+    }
+
+    /**
+     * Saves the date each loan was last sent a due-soon reminder.
+     *
+     * @param sent reminder dates by loan ID
+     */
+    public synchronized void saveDueSoonReminders(Map<String, LocalDate> sent) {
+        List<String> lines = new ArrayList<>(sent.size());
+        for (Map.Entry<String, LocalDate> entry : sent.entrySet()) {
+            lines.add(entry.getKey() + ";" + entry.getValue());
+        }
+        try {
+            writeAtomically(dueSoonRemindersFile(), lines);
+        } catch (IOException e) {
+            throw new StorageException("Failed to save due-soon-reminders.txt", e);
+        }
+    }
+
+    /* ============================
+       Job watermarks
+       ============================ */
+
+    /**
+     * Loads the date each scheduled job last processed up to.
+     *
+     * @return watermark dates by job name, empty if none have been saved
+     */
+    public synchronized Map<String, LocalDate> loadWatermarks() {
+        Map<String, LocalDate> watermarks = new LinkedHashMap<>();
+        try {
+            if (!Files.exists(watermarksFile())) {
+                return watermarks;
+            }
+            for (String line : Files.readAllLines(watermarksFile())) {
+                if (line.isBlank()) continue;
+                String[] parts = line.split(";", -1);
+                if (parts.length < 2) continue;
+
+                watermarks.put(parts[0], LocalDate.parse(parts[1]));
+            }
+        } catch (IOException e) {
+            throw new StorageException("Failed to load watermarks.txt", e);
+        }
+        return watermarks;
+    }
+
+    /**
+     * Saves the date each scheduled job last processed up to.
+     *
+     * @param watermarks watermark dates by job name
+     */
+    public synchronized void saveWatermarks(Map<String, LocalDate> watermarks) {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, LocalDate> w : watermarks.entrySet()) {
+            lines.add(w.getKey() + ";" + w.getValue());
+        }
+        try {
+            writeAtomically(watermarksFile(), lines);
+        } catch (IOException e) {
+            throw new StorageException("Failed to save watermarks.txt", e);
+        }
+    }
+
+    /* ============================
+       Email outbox
+       ============================ */
+
+    /**
+     * Loads the outbox entries still waiting to be delivered, in the order
+     * they were queued.
+     *
+     * @return pending outbox entries
+     */
+    public synchronized List<OutboxEntry> loadOutbox() {
+        Map<String, OutboxEntry> pending = new LinkedHashMap<>();
+        try {
+            if (!Files.exists(outboxFile())) {
+                return new ArrayList<>();
+            }
+            for (String line : Files.readAllLines(outboxFile())) {
+                if (line.isBlank()) continue;
+                String[] parts = line.split(";", -1);
+                if (parts.length < 7) continue;
+
+                OutboxEntry.Status status = OutboxEntry.Status.valueOf(parts[0]);
+                if (status != OutboxEntry.Status.PENDING) {
+                    pending.remove(parts[1]);
+                    continue;
+                }
+                pending.put(parts[1], new OutboxEntry(
+                        parts[1],
+                        new EmailMessage(parts[4], decode(parts[5]), decode(parts[6])),
+                        status,
+                        Integer.parseInt(parts[2]),
+                        Instant.ofEpochMilli(Long.parseLong(parts[3]))));
+            }
+        } catch (IOException e) {
+            throw new StorageException("Failed to load outbox.txt", e);
+        }
+        return new ArrayList<>(pending.values());
+    }
+
+    /**
+     * Appends the current state of each entry to the outbox journal.
+     * Sent and dead entries are written without their message.
+     *
+     * @param entries entries whose state changed
+     */
+    public synchronized void appendOutbox(List<OutboxEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        writeOutbox(entries, true);
+    }
+
+    /**
+     * Replaces the outbox journal with one line per pending entry,
+     * dropping the history of delivered entries.
+     *
+     * @param pending entries still waiting to be delivered
+     */
+    public synchronized void rewriteOutbox(List<OutboxEntry> pending) {
+        writeOutbox(pending, false);
+    }
+
+    /**
+     * Appends outbox lines, or replaces the journal with them.
+     */
+    private void writeOutbox(List<OutboxEntry> entries, boolean append) {
+        List<String> lines = new ArrayList<>();
+        for (OutboxEntry e : entries) {
+            boolean pending = e.getStatus() == OutboxEntry.Status.PENDING;
+            EmailMessage m = e.getMessage();
+            lines.add(String.join(";",
+                    e.getStatus().name(),
+                    e.getId(),
+                    String.valueOf(e.getAttempts()),
+                    String.valueOf(e.getNextAttemptAt().toEpochMilli()),
+                    pending ? m.getTo() : "",
+                    pending ? encode(m.getSubject()) : "",
+                    pending ? encode(m.getBody()) : ""));
+        }
+        try {
+            if (append) {
+                Files.createDirectories(baseDir);
+                Files.write(outboxFile(), lines, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } else {
+                writeAtomically(outboxFile(), lines);
+            }
+        } catch (IOException e) {
+            throw new StorageException("Failed to write outbox.txt", e);
+        }
+    }
+
+    /**
+     * Appends an entry that will not be retried to outbox-dead.txt.
+     *
+     * @param entry the dead entry
+     * @param error description of the last failure
+     */
+    public synchronized void appendDeadLetter(OutboxEntry entry, String error) {
+        EmailMessage m = entry.getMessage();
+        String line = String.join(";",
+                Instant.now().toString(),
+                entry.getId(),
+                String.valueOf(entry.getAttempts()),
+                m.getTo(),
+                encode(m.getSubject()),
+                encode(m.getBody()),
+                error == null ? "" : error.replaceAll("[;\\r\\n]+", " "));
+        try {
+            Files.createDirectories(baseDir);
+            Files.write(deadLetterFile(), List.of(line),
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new StorageException("Failed to append to outbox-dead.txt", e);
+        }
+    }
+
+    /**
+     * Loads the entries in the dead-letter file.
+     *
+     * @return dead entries, with the time they were given up on as next attempt time
+     */
+    public synchronized List<OutboxEntry> loadDeadLetters() {
+        List<OutboxEntry> dead = new ArrayList<>();
+        try {
+            if (!Files.exists(deadLetterFile())) {
+                return dead;
+            }
+            for (String line : Files.readAllLines(deadLetterFile())) {
+                if (line.isBlank()) continue;
+                String[] parts = line.split(";", -1);
+                if (parts.length < 6) continue;
+
+                dead.add(new OutboxEntry(
+                        parts[1],
+                        new EmailMessage(parts[3], decode(parts[4]), decode(parts[5])),
+                        OutboxEntry.Status.DEAD,
+                        Integer.parseInt(parts[2]),
+                        Instant.parse(parts[0])));
+            }
+        } catch (IOException e) {
+            throw new StorageException("Failed to load outbox-dead.txt", e);
         }
+        return dead;
+    }
+
+    /**
+     * Encodes free text for a single-line record.
+     */
+    private static String encode(String text) {
+        return Base64.getEncoder().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes text written by {@link #encode(String)}.
+     */
+    private static String decode(String text) {
+        return new String(Base64.getDecoder().decode(text), StandardCharsets.UTF_8);
     }
 
     /**
@@ -431,7 +1367,7 @@ public class FileStorage {
      *
      * @param librarians list of librarians
      */
-    public void saveLibrarians(List<Librarian> librarians) {
+    public synchronized void saveLibrarians(List<Librarian> librarians) {
         List<String> lines = new ArrayList<>();
         for (Librarian l : librarians) {
             String line = String.join(";",
@@ -443,13 +1379,29 @@ public class FileStorage {
             lines.add(line);
         }
         try {
-            Files.createDirectories(baseDir);
-            Files.write(librariansFile(), lines,
-                    StandardOpenOption.CREATE,
-                    StandardOpenOption.TRUNCATE_EXISTING);
+            writeAtomically(librariansFile(), lines);
         } catch (IOException e) {
             throw new StorageException("Failed to save librarians", e);
         }
     }
 
+    /**
+     * Replaces a file with the given lines. The lines are written to a
+     * temporary file in the same directory which is then moved over the
+     * target, so readers see either the old or the new file, never a partial one.
+     *
+     * @param file  the file to replace
+     * @param lines the new content
+     * @throws IOException if the file cannot be written
+     */
+    private void writeAtomically(Path file, List<String> lines) throws IOException {
+        Files.createDirectories(baseDir);
+        Path tmp = Files.createTempFile(baseDir, file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(tmp, lines);
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
 }
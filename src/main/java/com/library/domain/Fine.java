@@ -4,9 +4,12 @@ package com.library.domain;
  * Represents a fine issued to a user for overdue library items.
  * <p>
  * A fine contains an ID, the user it belongs to, the amount owed,
- * and whether the fine has been paid.
+ * and whether the fine has been paid. Fines assessed for an overdue
+ * loan also carry the ID of that loan.
  * </p>
  *
+ * <p>Amounts are held in cents; see {@link Money}.</p>
+ *
  * @author Maram
  * @version 1.0
  */
@@ -23,28 +26,47 @@ public class Fine {
     private final String userId;
 
     /**
-     * The monetary amount of the fine.
+     * The amount still owed, in cents.
      */
-    private double amount;
+    private long amount;
 
     /**
      * Indicates whether the fine has been paid.
      */
     private boolean paid;
 
+    /**
+     * The ID of the loan that caused the fine, or {@code null} if not linked to a loan.
+     */
+    private final String loanId;
+
+    /**
+     * Creates a new Fine instance that is not linked to a loan.
+     *
+     * @param id     the unique fine ID
+     * @param userId the ID of the fined user
+     * @param amount the fine amount in cents
+     * @param paid   whether the fine is already paid
+     */
+    public Fine(String id, String userId, long amount, boolean paid) {
+        this(id, userId, amount, paid, null);
+    }
+
     /**
      * Creates a new Fine instance.
      *
      * @param id     the unique fine ID
      * @param userId the ID of the fined user
-     * @param amount the fine amount
+     * @param amount the fine amount in cents
      * @param paid   whether the fine is already paid
+     * @param loanId the loan that caused the fine, may be null
      */
-    public Fine(String id, String userId, double amount, boolean paid) {
+    public Fine(String id, String userId, long amount, boolean paid, String loanId) {
         this.id = id;
         this.userId = userId;
         this.amount = amount;
         this.paid = paid;
+        this.loanId = loanId;
     }
 
     /**
@@ -65,12 +87,21 @@ public class Fine {
         return userId;
     }
 
+    /**
+     * Gets the ID of the loan that caused the fine.
+     *
+     * @return the loan ID, or {@code null} if the fine is not linked to a loan
+     */
+    public String getLoanId() {
+        return loanId;
+    }
+
     /**
      * Gets the fine amount.
      *
-     * @return the amount owed
+     * @return the amount owed in cents
      */
-    public double getAmount() {
+    public long getAmount() {
         return amount;
     }
 
@@ -86,9 +117,9 @@ public class Fine {
     /**
      * Updates the fine amount.
      *
-     * @param amount the new amount
+     * @param amount the new amount in cents
      */
-    public void setAmount(double amount) {
+    public void setAmount(long amount) {
         this.amount = amount;
     }
 
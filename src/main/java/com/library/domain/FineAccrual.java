@@ -0,0 +1,94 @@
+package com.library.domain;
+
+import java.time.LocalDate;
+
+/**
+ * Accrual state of one active loan.
+ * <p>
+ * Records how much fine has been posted for the loan so far, the date it was
+ * last accrued on and the next date on which its fine can change. A loan
+ * whose fine can no longer grow (for example a flat fee already charged, or
+ * a capped fine) has no next boundary.
+ * </p>
+ *
+ * @author Maram
+ * @version 1.0
+ */
+public class FineAccrual {
+
+    /**
+     * The loan being accrued.
+     */
+    private final String loanId;
+
+    /**
+     * Date of the last accrual, or null if never accrued.
+     */
+    private LocalDate lastAccruedDate;
+
+    /**
+     * Total fine posted for the loan so far, in cents.
+     */
+    private long accruedCents;
+
+    /**
+     * Next date the fine can change, or null if it never will.
+     */
+    private LocalDate nextBoundary;
+
+    /**
+     * Creates an accrual record.
+     *
+     * @param loanId          the loan ID
+     * @param lastAccruedDate date of the last accrual, may be null
+     * @param accruedCents    fine posted so far, in cents
+     * @param nextBoundary    next date the fine can change, may be null
+     */
+    public FineAccrual(String loanId, LocalDate lastAccruedDate, long accruedCents, LocalDate nextBoundary) {
+        this.loanId = loanId;
+        this.lastAccruedDate = lastAccruedDate;
+        this.accruedCents = accruedCents;
+        this.nextBoundary = nextBoundary;
+    }
+
+    /**
+     * @return the loan ID
+     */
+    public String getLoanId() {
+        return loanId;
+    }
+
+    /**
+     * @return date of the last accrual, or null
+     */
+    public LocalDate getLastAccruedDate() {
+        return lastAccruedDate;
+    }
+
+    /**
+     * @return fine posted so far, in cents
+     */
+    public long getAccruedCents() {
+        return accruedCents;
+    }
+
+    /**
+     * @return next date the fine can change, or null
+     */
+    public LocalDate getNextBoundary() {
+        return nextBoundary;
+    }
+
+    /**
+     * Records an accrual.
+     *
+     * @param date         the accrual date
+     * @param accruedCents new total posted for the loan, in cents
+     * @param nextBoundary next date the fine can change, may be null
+     */
+    public void accrue(LocalDate date, long accruedCents, LocalDate nextBoundary) {
+        this.lastAccruedDate = date;
+        this.accruedCents = accruedCents;
+        this.nextBoundary = nextBoundary;
+    }
+}
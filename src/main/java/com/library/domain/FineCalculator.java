@@ -1,20 +1,21 @@
 package com.library.domain;
 
-import java.util.EnumMap;
+import java.nio.file.Path;
 import java.util.Map;
 
 /**
- * Calculates fines for different media types using a strategy pattern.
+ * Calculates fines for different media types.
  * <p>
- * The {@code FineCalculator} maps each {@link MediaType} to a corresponding
- * {@link FineStrategy} implementation. This allows flexible fine calculation
- * depending on the borrowed media (e.g., Book vs CD).
+ * Each {@link MediaType} has a {@link FinePolicy} that is compiled into a
+ * {@link FineSchedule} when the calculator is created. Schedules are held in
+ * an array indexed by the media type's ordinal, so a calculation is an array
+ * read plus a table lookup.
  * </p>
  *
- * <p>Currently supports:</p>
+ * <p>Without a config file the built-in policies are used:</p>
  * <ul>
- *   <li>{@link MediaType#BOOK} → {@link BookFineStrategy}</li>
- *   <li>{@link MediaType#CD}   → {@link CDFineStrategy}</li>
+ *   <li>{@link MediaType#BOOK} → flat 10.00, as {@link BookFineStrategy}</li>
+ *   <li>{@link MediaType#CD}   → flat 20.00, as {@link CDFineStrategy}</li>
  * </ul>
  *
  * @author Maram
@@ -23,17 +24,38 @@ import java.util.Map;
 public class FineCalculator {
 
     /**
-     * A mapping between media types and their fine calculation strategies.
+     * Compiled schedule per media type, indexed by {@link MediaType#ordinal()}.
      */
-    private final Map<MediaType, FineStrategy> strategies = new EnumMap<>(MediaType.class);
+    private final FineSchedule[] schedules = new FineSchedule[MediaType.values().length];
 
     /**
-     * Initializes the calculator and registers fine strategies
-     * for all supported media types.
+     * Initializes the calculator with the built-in fine policies.
      */
     public FineCalculator() {
-        strategies.put(MediaType.BOOK, new BookFineStrategy());
-        strategies.put(MediaType.CD, new CDFineStrategy());
+        this(FinePolicy.defaults());
+    }
+
+    /**
+     * Initializes the calculator with the given fine policies.
+     *
+     * @param policies policy per media type; types without one cannot be priced
+     */
+    public FineCalculator(Map<MediaType, FinePolicy> policies) {
+        for (Map.Entry<MediaType, FinePolicy> entry : policies.entrySet()) {
+            schedules[entry.getKey().ordinal()] = entry.getValue().compile();
+        }
+    }
+
+    /**
+     * Creates a calculator from a fine policy properties file.
+     *
+     * @param configFile the properties file, see {@link FinePolicy}
+     * @return the configured calculator
+     * @throws StorageException         if the file cannot be read
+     * @throws IllegalArgumentException if a policy is malformed
+     */
+    public static FineCalculator load(Path configFile) {
+        return new FineCalculator(FinePolicy.load(configFile));
     }
 
     /**
@@ -41,14 +63,83 @@ public class FineCalculator {
      *
      * @param type         the type of borrowed media (e.g., BOOK or CD)
      * @param overdueDays  number of days the item is overdue
-     * @return the calculated fine amount
-     * @throws IllegalArgumentException if no strategy exists for the given media type
+     * @return the calculated fine amount in cents
+     * @throws IllegalArgumentException if no schedule exists for the given media type
+     */
+    public long calculate(MediaType type, long overdueDays) {
+        return scheduleFor(type).calculateFine(overdueDays);
+    }
+
+    /**
+     * Calculates fines for a batch of items.
+     *
+     * @param types       media type per item
+     * @param overdueDays overdue days per item
+     * @param outCents    receives the fine in cents per item
+     * @throws IllegalArgumentException if the arrays differ in length or a media type has no schedule
+     */
+    public void calculateAll(MediaType[] types, long[] overdueDays, long[] outCents) {
+        if (types.length != overdueDays.length || types.length != outCents.length) {
+            throw new IllegalArgumentException("Batch arrays must have the same length");
+        }
+        calculateAll(types, overdueDays, outCents, 0, types.length);
+    }
+
+    /**
+     * Calculates fines for a range of a batch.
+     * <p>
+     * Consecutive items of the same media type are priced as one run against
+     * that type's table, so sorted or grouped input costs one schedule lookup
+     * per run rather than per item.
+     * </p>
+     *
+     * @param types       media type per item
+     * @param overdueDays overdue days per item
+     * @param outCents    receives the fine in cents per item
+     * @param from        first index, inclusive
+     * @param to          last index, exclusive
+     * @throws IllegalArgumentException if a media type has no schedule
+     */
+    public void calculateAll(MediaType[] types, long[] overdueDays, long[] outCents, int from, int to) {
+        int start = from;
+        while (start < to) {
+            MediaType type = types[start];
+            int end = start + 1;
+            while (end < to && types[end] == type) {
+                end++;
+            }
+            scheduleFor(type).calculateAll(overdueDays, outCents, start, end);
+            start = end;
+        }
+    }
+
+    /**
+     * Calculates fines for a column of items that share one media type.
+     *
+     * @param type        media type of every item
+     * @param overdueDays overdue days per item
+     * @param outCents    receives the fine in cents per item
+     * @throws IllegalArgumentException if the arrays differ in length or the type has no schedule
+     */
+    public void calculateAll(MediaType type, long[] overdueDays, long[] outCents) {
+        if (overdueDays.length != outCents.length) {
+            throw new IllegalArgumentException("Batch arrays must have the same length");
+        }
+        scheduleFor(type).calculateAll(overdueDays, outCents, 0, overdueDays.length);
+    }
+
+    /**
+     * Returns the compiled schedule for a media type.
+     *
+     * @param type the media type
+     * @return the schedule
+     * @throws IllegalArgumentException if no schedule exists for the given media type
      */
-    public double calculate(MediaType type, long overdueDays) {
-        FineStrategy strategy = strategies.get(type);
-        if (strategy == null) {
-            throw new IllegalArgumentException("No fine strategy for media type " + type);
+    public FineSchedule scheduleFor(MediaType type) {
+        FineSchedule schedule = (type == null) ? null : schedules[type.ordinal()];
+        if (schedule == null) {
+            throw new IllegalArgumentException("No fine schedule for media type " + type);
         }
-        return strategy.calculateFine(overdueDays);
+        return schedule;
     }
 }
@@ -0,0 +1,122 @@
+package com.library.domain;
+
+import java.time.LocalDate;
+
+/**
+ * An immutable record in the fine ledger.
+ * <p>
+ * Every change to a fine is written as a new entry: {@link Type#ASSESSED}
+ * when the fine is created, {@link Type#PAID} when a payment is applied to it
+ * and {@link Type#WAIVED} when a librarian cancels what is left of it.
+ * Replaying the entries in order gives the current state of every fine.
+ * </p>
+ *
+ * @author Maram
+ * @version 1.0
+ */
+public class FineLedgerEntry {
+
+    /**
+     * Kind of change recorded by an entry.
+     */
+    public enum Type {
+        /** A new fine was issued for the given amount. */
+        ASSESSED,
+        /** A payment of the given amount was applied to the fine. */
+        PAID,
+        /** The given remaining amount of the fine was cancelled. */
+        WAIVED
+    }
+
+    /**
+     * The kind of change.
+     */
+    private final Type type;
+
+    /**
+     * The fine the entry applies to.
+     */
+    private final String fineId;
+
+    /**
+     * The user who owns the fine.
+     */
+    private final String userId;
+
+    /**
+     * Amount assessed, paid or waived, in cents.
+     */
+    private final long amount;
+
+    /**
+     * Loan that caused the fine, only set on linked ASSESSED entries.
+     */
+    private final String loanId;
+
+    /**
+     * Date the entry was recorded.
+     */
+    private final LocalDate date;
+
+    /**
+     * Creates a ledger entry.
+     *
+     * @param type   the kind of change
+     * @param fineId the fine ID
+     * @param userId the fine owner's user ID
+     * @param amount amount assessed, paid or waived, in cents
+     * @param loanId the loan that caused the fine, may be null
+     * @param date   the date the entry was recorded
+     */
+    public FineLedgerEntry(Type type, String fineId, String userId,
+                           long amount, String loanId, LocalDate date) {
+        this.type = type;
+        this.fineId = fineId;
+        this.userId = userId;
+        this.amount = amount;
+        this.loanId = loanId;
+        this.date = date;
+    }
+
+    /**
+     * @return the kind of change
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return the fine ID
+     */
+    public String getFineId() {
+        return fineId;
+    }
+
+    /**
+     * @return the fine owner's user ID
+     */
+    public String getUserId() {
+        return userId;
+    }
+
+    /**
+     * @return the amount assessed, paid or waived, in cents
+     */
+    public long getAmount() {
+        return amount;
+    }
+
+    /**
+     * @return the loan that caused the fine, or null
+     */
+    public String getLoanId() {
+        return loanId;
+    }
+
+    /**
+     * @return the date the entry was recorded
+     */
+    public LocalDate getDate() {
+        return date;
+    }
+}
@@ -0,0 +1,277 @@
+package com.library.domain;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Describes how overdue fines are charged for one media type.
+ * <p>
+ * A policy has a flat fee charged once an item is overdue, a per-day rate,
+ * a number of grace days, an optional cap and optional rate tiers. Grace
+ * days are free: an item overdue by {@code d} days is charged for
+ * {@code d - graceDays} days, and nothing at all while {@code d <= graceDays}.
+ * A tier changes the per-day rate from a given charged day onwards.
+ * All amounts are in cents.
+ * </p>
+ *
+ * <p>
+ * Policies are read from a properties file with one group of keys per
+ * media type, for example:
+ * </p>
+ * <pre>
+ * BOOK.flatFee=10.00
+ * BOOK.ratePerDay=0
+ * BOOK.graceDays=0
+ * BOOK.cap=
+ * BOOK.tiers=8:0.50,30:1.00
+ * </pre>
+ *
+ * <p>Policies are compiled into a {@link FineSchedule} before use.</p>
+ *
+ * @author Maram
+ * @version 1.0
+ */
+public class FinePolicy {
+
+    /**
+     * Largest grace period or tier start day, which bounds the compiled table size.
+     */
+    public static final int MAX_SCHEDULE_DAYS = 3650;
+
+    /**
+     * Fee charged once an item is past its grace period.
+     */
+    private final long flatFee;
+
+    /**
+     * Per-day rate before the first tier.
+     */
+    private final long ratePerDay;
+
+    /**
+     * Number of overdue days that are not charged.
+     */
+    private final int graceDays;
+
+    /**
+     * Highest total fine, or 0 for no cap.
+     */
+    private final long cap;
+
+    /**
+     * Charged day on which each tier starts, ascending.
+     */
+    private final int[] tierStartDays;
+
+    /**
+     * Per-day rate of each tier.
+     */
+    private final long[] tierRates;
+
+    /**
+     * Creates a policy without tiers.
+     *
+     * @param flatFee    fee charged once overdue, in cents
+     * @param ratePerDay per-day rate, in cents
+     * @param graceDays  number of free overdue days
+     * @param cap        highest total fine in cents, or 0 for no cap
+     */
+    public FinePolicy(long flatFee, long ratePerDay, int graceDays, long cap) {
+        this(flatFee, ratePerDay, graceDays, cap, new int[0], new long[0]);
+    }
+
+    /**
+     * Creates a policy.
+     *
+     * @param flatFee       fee charged once overdue, in cents
+     * @param ratePerDay    per-day rate before the first tier, in cents
+     * @param graceDays     number of free overdue days
+     * @param cap           highest total fine in cents, or 0 for no cap
+     * @param tierStartDays charged day each tier starts on (1-based, ascending)
+     * @param tierRates     per-day rate of each tier, in cents
+     * @throws IllegalArgumentException if any value is negative or the tiers are inconsistent
+     */
+    public FinePolicy(long flatFee, long ratePerDay, int graceDays, long cap,
+                      int[] tierStartDays, long[] tierRates) {
+        if (flatFee < 0 || ratePerDay < 0 || graceDays < 0 || cap < 0) {
+            throw new IllegalArgumentException("Fine policy values must not be negative");
+        }
+        if (graceDays > MAX_SCHEDULE_DAYS) {
+            throw new IllegalArgumentException("Grace period cannot exceed " + MAX_SCHEDULE_DAYS + " days");
+        }
+        if (tierStartDays.length != tierRates.length) {
+            throw new IllegalArgumentException("Each fine tier needs a start day and a rate");
+        }
+        for (int i = 0; i < tierStartDays.length; i++) {
+            if (tierStartDays[i] < 1 || tierStartDays[i] > MAX_SCHEDULE_DAYS || tierRates[i] < 0
+                    || (i > 0 && tierStartDays[i] <= tierStartDays[i - 1])) {
+                throw new IllegalArgumentException(
+                        "Fine tiers must start on ascending days from 1 to " + MAX_SCHEDULE_DAYS);
+            }
+        }
+        this.flatFee = flatFee;
+        this.ratePerDay = ratePerDay;
+        this.graceDays = graceDays;
+        this.cap = cap;
+        this.tierStartDays = tierStartDays.clone();
+        this.tierRates = tierRates.clone();
+    }
+
+    /**
+     * Returns the built-in policies: a flat 10.00 for books and 20.00 for CDs.
+     *
+     * @return default policy per media type
+     */
+    public static Map<MediaType, FinePolicy> defaults() {
+        Map<MediaType, FinePolicy> policies = new EnumMap<>(MediaType.class);
+        policies.put(MediaType.BOOK, new FinePolicy(Money.ofUnits(10), 0, 0, 0));
+        policies.put(MediaType.CD, new FinePolicy(Money.ofUnits(20), 0, 0, 0));
+        return policies;
+    }
+
+    /**
+     * Loads policies from a properties file.
+     * <p>
+     * Media types with no {@code flatFee} or {@code ratePerDay} key keep their
+     * default policy.
+     * </p>
+     *
+     * @param configFile the properties file
+     * @return policy per media type
+     * @throws StorageException         if the file cannot be read
+     * @throws IllegalArgumentException if a value is malformed
+     */
+    public static Map<MediaType, FinePolicy> load(Path configFile) {
+        Properties props = new Properties();
+        try (Reader reader = Files.newBufferedReader(configFile)) {
+            props.load(reader);
+        } catch (IOException e) {
+            throw new StorageException("Failed to load fine policies from " + configFile, e);
+        }
+
+        Map<MediaType, FinePolicy> policies = defaults();
+        for (MediaType type : MediaType.values()) {
+            String prefix = type.name() + ".";
+            if (!props.containsKey(prefix + "flatFee") && !props.containsKey(prefix + "ratePerDay")) {
+                continue;
+            }
+            try {
+                policies.put(type, parse(props, prefix));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid fine policy for " + type + ": " + e.getMessage(), e);
+            }
+        }
+        return policies;
+    }
+
+    /**
+     * Reads the keys of one media type.
+     */
+    private static FinePolicy parse(Properties props, String prefix) {
+        long flatFee = amount(props, prefix + "flatFee");
+        long ratePerDay = amount(props, prefix + "ratePerDay");
+        long cap = amount(props, prefix + "cap");
+        String grace = props.getProperty(prefix + "graceDays", "").trim();
+        int graceDays = grace.isEmpty() ? 0 : Integer.parseInt(grace);
+
+        String tiers = props.getProperty(prefix + "tiers", "").trim();
+        String[] parts = tiers.isEmpty() ? new String[0] : tiers.split(",");
+        int[] starts = new int[parts.length];
+        long[] rates = new long[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            String[] tier = parts[i].split(":");
+            if (tier.length != 2) {
+                throw new IllegalArgumentException("Invalid fine tier '" + parts[i] + "', expected day:rate");
+            }
+            starts[i] = Integer.parseInt(tier[0].trim());
+            rates[i] = Money.parse(tier[1]);
+        }
+        return new FinePolicy(flatFee, ratePerDay, graceDays, cap, starts, rates);
+    }
+
+    /**
+     * Reads an optional amount, treating a missing or blank key as 0.
+     */
+    private static long amount(Properties props, String key) {
+        String value = props.getProperty(key, "").trim();
+        return value.isEmpty() ? 0 : Money.parse(value);
+    }
+
+    /**
+     * Compiles the policy into a lookup table.
+     *
+     * @return the compiled schedule
+     */
+    public FineSchedule compile() {
+        return new FineSchedule(this);
+    }
+
+    /**
+     * @return fee charged once overdue, in cents
+     */
+    public long getFlatFee() {
+        return flatFee;
+    }
+
+    /**
+     * @return per-day rate before the first tier, in cents
+     */
+    public long getRatePerDay() {
+        return ratePerDay;
+    }
+
+    /**
+     * @return number of free overdue days
+     */
+    public int getGraceDays() {
+        return graceDays;
+    }
+
+    /**
+     * @return highest total fine in cents, or 0 for no cap
+     */
+    public long getCap() {
+        return cap;
+    }
+
+    /**
+     * @return the charged day each tier starts on
+     */
+    public int[] getTierStartDays() {
+        return tierStartDays.clone();
+    }
+
+    /**
+     * @return the per-day rate of each tier, in cents
+     */
+    public long[] getTierRates() {
+        return tierRates.clone();
+    }
+
+    /**
+     * Returns the per-day rate for a charged day.
+     *
+     * @param chargedDay 1-based charged day
+     * @return the rate in cents
+     */
+    long rateOn(long chargedDay) {
+        int i = Arrays.binarySearch(tierStartDays, (int) Math.min(chargedDay, Integer.MAX_VALUE));
+        if (i < 0) {
+            i = -i - 2;
+        }
+        return i < 0 ? ratePerDay : tierRates[i];
+    }
+
+    /**
+     * @return the charged day after which the per-day rate no longer changes
+     */
+    int lastTierStart() {
+        return tierStartDays.length == 0 ? 1 : tierStartDays[tierStartDays.length - 1];
+    }
+}
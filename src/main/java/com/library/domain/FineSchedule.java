@@ -0,0 +1,127 @@
+package com.library.domain;
+
+/**
+ * A {@link FinePolicy} compiled into a dense lookup table.
+ * <p>
+ * {@code table[d]} holds the fine for an item overdue by {@code d} days, up
+ * to the day from which the per-day rate stops changing. Past the end of the
+ * table the fine grows linearly at the final rate, so any overdue duration is
+ * priced with one array read or one multiply, never a loop over days.
+ * </p>
+ *
+ * @author Maram
+ * @version 1.0
+ */
+public final class FineSchedule implements FineStrategy {
+
+    /**
+     * Fine per overdue day, in cents, for days {@code 0..table.length-1}.
+     */
+    private final long[] table;
+
+    /**
+     * For each table day, the next day on which the fine changes, or -1 if it never does.
+     */
+    private final long[] nextChange;
+
+    /**
+     * Per-day rate after the end of the table.
+     */
+    private final long finalRate;
+
+    /**
+     * Highest total fine, or {@link Long#MAX_VALUE} for no cap.
+     */
+    private final long cap;
+
+    /**
+     * Compiles a policy.
+     *
+     * @param policy the policy to compile
+     */
+    FineSchedule(FinePolicy policy) {
+        this.cap = policy.getCap() == 0 ? Long.MAX_VALUE : policy.getCap();
+        int grace = policy.getGraceDays();
+        int lastDay = grace + policy.lastTierStart();
+
+        table = new long[lastDay + 1];
+        long total = policy.getFlatFee();
+        for (int d = grace + 1; d <= lastDay; d++) {
+            total += policy.rateOn(d - grace);
+            table[d] = Math.min(total, cap);
+        }
+        finalRate = policy.rateOn(policy.lastTierStart());
+
+        nextChange = new long[lastDay + 1];
+        nextChange[lastDay] = (finalRate > 0 && table[lastDay] < cap) ? lastDay + 1 : -1;
+        for (int d = lastDay - 1; d >= 0; d--) {
+            nextChange[d] = (table[d + 1] != table[d]) ? d + 1 : nextChange[d + 1];
+        }
+    }
+
+    /**
+     * Returns the fine for an item overdue by the given number of days.
+     *
+     * @param overdueDays the number of overdue days
+     * @return the fine in cents
+     */
+    @Override
+    public long calculateFine(long overdueDays) {
+        if (overdueDays <= 0) {
+            return 0;
+        }
+        int last = table.length - 1;
+        if (overdueDays <= last) {
+            return table[(int) overdueDays];
+        }
+        long base = table[last];
+        long extraDays = overdueDays - last;
+        if (finalRate == 0 || base >= cap) {
+            return base;
+        }
+        if (extraDays > (cap - base) / finalRate) {
+            return cap;
+        }
+        return base + extraDays * finalRate;
+    }
+
+    /**
+     * Returns the first overdue day after the given one on which the fine is
+     * different.
+     *
+     * @param overdueDays the current number of overdue days (negative if not yet due)
+     * @return the next overdue day the fine changes on, or -1 if it never changes again
+     */
+    public long nextChangeAfter(long overdueDays) {
+        long d = Math.max(overdueDays, 0);
+        int last = table.length - 1;
+        if (d < last) {
+            return nextChange[(int) d];
+        }
+        return (finalRate > 0 && calculateFine(d) < cap) ? d + 1 : -1;
+    }
+
+    /**
+     * Prices a range of overdue durations in one loop.
+     *
+     * @param overdueDays overdue days per item
+     * @param outCents    receives the fine in cents per item
+     * @param from        first index, inclusive
+     * @param to          last index, exclusive
+     */
+    public void calculateAll(long[] overdueDays, long[] outCents, int from, int to) {
+        long[] t = table;
+        int last = t.length - 1;
+        for (int i = from; i < to; i++) {
+            long d = overdueDays[i];
+            outCents[i] = (d <= 0) ? 0 : (d <= last) ? t[(int) d] : calculateFine(d);
+        }
+    }
+
+    /**
+     * @return number of precomputed days, including day 0
+     */
+    public int tableSize() {
+        return table.length;
+    }
+}
@@ -18,7 +18,7 @@ public interface FineStrategy {
      * Calculates the fine for an overdue item.
      *
      * @param overdueDays the number of overdue days
-     * @return the calculated fine amount
+     * @return the calculated fine amount in cents
      */
-    double calculateFine(long overdueDays);
+    long calculateFine(long overdueDays);
 }
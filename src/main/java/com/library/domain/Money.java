@@ -0,0 +1,136 @@
+package com.library.domain;
+
+/**
+ * Helpers for money amounts held as a whole number of cents in a {@code long}.
+ * <p>
+ * Fine amounts are stored as cents so that partial payments are exact and
+ * never leave residues such as {@code 9.999999}. This class converts between
+ * cents and the decimal text used in data files and on screen.
+ * </p>
+ *
+ * @author Maram
+ * @version 1.0
+ */
+public final class Money {
+
+    /**
+     * Number of cents in one unit of currency.
+     */
+    public static final long CENTS_PER_UNIT = 100;
+
+    private Money() {
+    }
+
+    /**
+     * Converts a whole number of currency units to cents.
+     *
+     * @param units amount in whole units
+     * @return the amount in cents
+     */
+    public static long ofUnits(long units) {
+        return units * CENTS_PER_UNIT;
+    }
+
+    /**
+     * Parses a decimal amount such as {@code "12"}, {@code "12.5"} or {@code "-0.75"}.
+     * <p>
+     * Digits are read directly without going through {@code double}. Digits
+     * past the second decimal place are rounded half up. Values written in
+     * exponent form by older versions are also accepted.
+     * </p>
+     *
+     * @param text the decimal text
+     * @return the amount in cents
+     * @throws NumberFormatException if the text is not a decimal number or
+     *                               the amount does not fit in a {@code long}
+     */
+    public static long parse(String text) {
+        try {
+            return parseCents(text);
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("amount too large: " + text);
+        }
+    }
+
+    /**
+     * Parses a decimal amount, failing with an {@link ArithmeticException}
+     * when it overflows.
+     */
+    private static long parseCents(String text) {
+        String s = text.trim();
+        int len = s.length();
+        int i = 0;
+        boolean negative = false;
+        if (i < len && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+            negative = s.charAt(i) == '-';
+            i++;
+        }
+
+        long units = 0;
+        int digits = 0;
+        while (i < len && isDigit(s.charAt(i))) {
+            units = Math.addExact(Math.multiplyExact(units, 10), s.charAt(i) - '0');
+            digits++;
+            i++;
+        }
+
+        long fraction = 0;
+        int fractionDigits = 0;
+        boolean roundUp = false;
+        if (i < len && s.charAt(i) == '.') {
+            i++;
+            while (i < len && isDigit(s.charAt(i))) {
+                int d = s.charAt(i) - '0';
+                if (fractionDigits < 2) {
+                    fraction = fraction * 10 + d;
+                } else if (fractionDigits == 2) {
+                    roundUp = d >= 5;
+                }
+                fractionDigits++;
+                digits++;
+                i++;
+            }
+        }
+
+        if (i < len && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+            double cents = Double.parseDouble(s) * CENTS_PER_UNIT;
+            if (Math.abs(cents) >= Long.MAX_VALUE) {
+                throw new ArithmeticException("long overflow");
+            }
+            return Math.round(cents);
+        }
+        if (digits == 0 || i != len) {
+            throw new NumberFormatException("Invalid amount: " + text);
+        }
+
+        if (fractionDigits == 1) {
+            fraction *= 10;
+        }
+        long cents = Math.addExact(Math.multiplyExact(units, CENTS_PER_UNIT), fraction + (roundUp ? 1 : 0));
+        return negative ? -cents : cents;
+    }
+
+    /**
+     * Formats cents as a decimal with two places, for example {@code "12.50"}.
+     *
+     * @param cents the amount in cents
+     * @return the decimal text
+     */
+    public static String format(long cents) {
+        StringBuilder sb = new StringBuilder(24);
+        long abs = Math.abs(cents);
+        if (cents < 0) {
+            sb.append('-');
+        }
+        long rest = abs % CENTS_PER_UNIT;
+        sb.append(abs / CENTS_PER_UNIT).append('.');
+        if (rest < 10) {
+            sb.append('0');
+        }
+        return sb.append(rest).toString();
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,133 @@
+package com.library.domain;
+
+import java.time.Instant;
+
+/**
+ * An email waiting in the outbox, with its delivery state.
+ * <p>
+ * An entry starts {@link Status#PENDING}. Each failed delivery increases the
+ * attempt count and moves the next attempt further out; an entry ends up
+ * {@link Status#SENT}, or {@link Status#DEAD} once it runs out of attempts.
+ * </p>
+ *
+ * @author Maram
+ * @version 1.0
+ */
+public class OutboxEntry {
+
+    /**
+     * Delivery state of an entry.
+     */
+    public enum Status {
+        /** Waiting to be sent or retried. */
+        PENDING,
+        /** Delivered. */
+        SENT,
+        /** Given up on and moved to the dead-letter file. */
+        DEAD
+    }
+
+    /**
+     * Unique entry ID.
+     */
+    private final String id;
+
+    /**
+     * The email to deliver.
+     */
+    private final EmailMessage message;
+
+    /**
+     * Current delivery state.
+     */
+    private Status status;
+
+    /**
+     * Number of failed delivery attempts.
+     */
+    private int attempts;
+
+    /**
+     * Earliest time of the next delivery attempt.
+     */
+    private Instant nextAttemptAt;
+
+    /**
+     * Creates an entry.
+     *
+     * @param id            unique entry ID
+     * @param message       the email to deliver
+     * @param status        delivery state
+     * @param attempts      number of failed attempts so far
+     * @param nextAttemptAt earliest time of the next attempt
+     */
+    public OutboxEntry(String id, EmailMessage message, Status status, int attempts, Instant nextAttemptAt) {
+        this.id = id;
+        this.message = message;
+        this.status = status;
+        this.attempts = attempts;
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    /**
+     * Records a failed attempt and schedules the next one.
+     *
+     * @param nextAttemptAt earliest time of the next attempt
+     */
+    public void retryAt(Instant nextAttemptAt) {
+        this.attempts++;
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    /**
+     * Moves the next attempt without counting a failed one, for a message
+     * that could not be attempted.
+     *
+     * @param nextAttemptAt earliest time of the next attempt
+     */
+    public void deferTo(Instant nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    /**
+     * @return unique entry ID
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return the email to deliver
+     */
+    public EmailMessage getMessage() {
+        return message;
+    }
+
+    /**
+     * @return current delivery state
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @param status new delivery state
+     */
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    /**
+     * @return number of failed delivery attempts
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * @return earliest time of the next delivery attempt
+     */
+    public Instant getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+}
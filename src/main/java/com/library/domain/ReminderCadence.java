@@ -0,0 +1,111 @@
+package com.library.domain;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Rules for how often an overdue loan is reminded.
+ * <p>
+ * The first reminder goes out as soon as a loan is overdue. After the
+ * {@code n}-th reminder the next one waits {@code intervalDays[n-1]} days;
+ * once the list runs out its last interval repeats. An optional maximum
+ * stops reminders for a loan altogether.
+ * </p>
+ *
+ * @author Maram
+ * @version 1.0
+ */
+public class ReminderCadence {
+
+    /**
+     * Days to wait after each reminder; the last value repeats.
+     */
+    private final int[] intervalDays;
+
+    /**
+     * Most reminders per loan, or 0 for no limit.
+     */
+    private final int maxReminders;
+
+    /**
+     * Creates a cadence.
+     *
+     * @param intervalDays days to wait after each reminder, the last value repeating
+     * @param maxReminders most reminders per loan, or 0 for no limit
+     * @throws IllegalArgumentException if no interval is given or any value is out of range
+     */
+    public ReminderCadence(int[] intervalDays, int maxReminders) {
+        if (intervalDays.length == 0 || maxReminders < 0) {
+            throw new IllegalArgumentException("Reminder cadence needs at least one interval");
+        }
+        for (int d : intervalDays) {
+            if (d < 1) {
+                throw new IllegalArgumentException("Reminder intervals must be at least 1 day");
+            }
+        }
+        this.intervalDays = intervalDays.clone();
+        this.maxReminders = maxReminders;
+    }
+
+    /**
+     * Returns the built-in cadence: remind again after 3 days, then weekly,
+     * at most 5 times.
+     *
+     * @return default cadence
+     */
+    public static ReminderCadence defaults() {
+        return new ReminderCadence(new int[]{3, 7}, 5);
+    }
+
+    /**
+     * Parses a cadence from a comma-separated list of intervals.
+     *
+     * @param intervals    intervals in days, for example {@code "3,7"}
+     * @param maxReminders most reminders per loan, or 0 for no limit
+     * @return the cadence
+     * @throws IllegalArgumentException if the list is malformed
+     */
+    public static ReminderCadence parse(String intervals, int maxReminders) {
+        try {
+            int[] days = Arrays.stream(intervals.split(","))
+                    .map(String::trim)
+                    .mapToInt(Integer::parseInt)
+                    .toArray();
+            return new ReminderCadence(days, maxReminders);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid reminder intervals '" + intervals + "'", e);
+        }
+    }
+
+    /**
+     * Tells whether a loan with the given history should be reminded today.
+     *
+     * @param record the loan's reminder history, or null if never reminded
+     * @param today  the current date
+     * @return true if a reminder is due
+     */
+    public boolean isDue(ReminderRecord record, LocalDate today) {
+        if (record == null || record.getCount() == 0) {
+            return true;
+        }
+        if (maxReminders > 0 && record.getCount() >= maxReminders) {
+            return false;
+        }
+        int wait = intervalDays[Math.min(record.getCount(), intervalDays.length) - 1];
+        return !today.isBefore(record.getLastSentDate().plusDays(wait));
+    }
+
+    /**
+     * @return days to wait after each reminder
+     */
+    public int[] getIntervalDays() {
+        return intervalDays.clone();
+    }
+
+    /**
+     * @return most reminders per loan, or 0 for no limit
+     */
+    public int getMaxReminders() {
+        return maxReminders;
+    }
+}
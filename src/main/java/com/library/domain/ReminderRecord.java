@@ -0,0 +1,71 @@
+package com.library.domain;
+
+import java.time.LocalDate;
+
+/**
+ * Reminder history of one loan: when it was last reminded and how often.
+ *
+ * @author Maram
+ * @version 1.0
+ */
+public class ReminderRecord {
+
+    /**
+     * The reminded loan.
+     */
+    private final String loanId;
+
+    /**
+     * Date of the last reminder.
+     */
+    private LocalDate lastSentDate;
+
+    /**
+     * Number of reminders sent so far.
+     */
+    private int count;
+
+    /**
+     * Creates a record.
+     *
+     * @param loanId       the loan ID
+     * @param lastSentDate date of the last reminder
+     * @param count        number of reminders sent
+     */
+    public ReminderRecord(String loanId, LocalDate lastSentDate, int count) {
+        this.loanId = loanId;
+        this.lastSentDate = lastSentDate;
+        this.count = count;
+    }
+
+    /**
+     * Records a reminder sent on the given date.
+     *
+     * @param date the date it was sent
+     */
+    public void sent(LocalDate date) {
+        this.lastSentDate = date;
+        this.count++;
+    }
+
+    /**
+     * @return the loan ID
+     */
+    public String getLoanId() {
+        return loanId;
+    }
+
+    /**
+     * @return date of the last reminder
+     */
+    public LocalDate getLastSentDate() {
+        return lastSentDate;
+    }
+
+    /**
+     * @return number of reminders sent so far
+     */
+    public int getCount() {
+        return count;
+    }
+}
@@ -3,6 +3,7 @@ package com.library.presentation;
 import com.library.domain.*;
 import com.library.service.*;
 
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Scanner;
 
@@ -33,10 +34,12 @@ public class ConsoleMenu {
     private final AuthService authService;
     private final UserService userService;
     private final BookService bookService;
+    private final CDService cdService;
     private final LoanService loanService;
     private final FineService fineService;
     private final BorrowingService borrowingService;
     private final ReminderService reminderService;
+    private final BulkReturnProcessor bulkReturnProcessor;
 
     private final Scanner scanner = new Scanner(System.in);
 
@@ -46,26 +49,32 @@ public class ConsoleMenu {
      * @param authService     authentication and role service
      * @param userService     user registration and login service
      * @param bookService     book management service
+     * @param cdService       CD catalog service
      * @param loanService     loan handling service
      * @param fineService     fine calculation and payment service
+     * @param eligibilityService per-user borrow eligibility records
      * @param reminderService overdue email reminder service
      */
 
     public ConsoleMenu(AuthService authService,
                        UserService userService,
                        BookService bookService,
+                       CDService cdService,
                        LoanService loanService,
                        FineService fineService,
+                       EligibilityService eligibilityService,
                        ReminderService reminderService) {
 
         this.authService = authService;
         this.userService = userService;
         this.bookService = bookService;
+        this.cdService = cdService;
         this.loanService = loanService;
         this.fineService = fineService;
         this.reminderService = reminderService;
 
-        this.borrowingService = new BorrowingService(loanService, fineService);
+        this.borrowingService = new BorrowingService(loanService, eligibilityService);
+        this.bulkReturnProcessor = new BulkReturnProcessor(loanService);
     }
 
     /**
@@ -118,6 +127,12 @@ public class ConsoleMenu {
                     handleUnregisterUser();
                     break;
                 case "13":
+                    handleBulkReturn();
+                    break;
+                case "14":
+                    handleSendDueSoonReminders();
+                    break;
+                case "15":
                     System.out.println("Exiting... Goodbye!");
                     running = false;
                     break;
@@ -143,14 +158,16 @@ public class ConsoleMenu {
         System.out.println("3. User sign up");
         System.out.println("4. User login");
         System.out.println("5. Logout");
-        System.out.println("6. Add book (admin only)");
-        System.out.println("7. Search book");
+        System.out.println("6. Add book/CD (admin only)");
+        System.out.println("7. Search book/CD");
         System.out.println("8. Borrow book/CD (user only)");
         System.out.println("9. View overdue loans (librarian only)");
         System.out.println("10. Pay fine");
         System.out.println("11. Send overdue reminders");
         System.out.println("12. Unregister user (admin only)");
-        System.out.println("13. Exit");
+        System.out.println("13. Process drop-box returns from file (librarian only)");
+        System.out.println("14. Send due-soon reminders (admin only)");
+        System.out.println("15. Exit");
         System.out.print("Choose option: ");
     }
 
@@ -304,13 +321,14 @@ public class ConsoleMenu {
     }
 
     /**
-     * Handles adding a new book to the system.
+     * Handles adding a new book or CD to the system.
      * <p>
-     * Only admins may perform this operation. Prompts for title, author,
+     * Only admins may perform this operation. For books, prompts for title, author,
      * and ISBN, then delegates book creation to {@link BookService#addBook(String, String, String)}.
+     * For CDs, prompts for title and artist and delegates to {@link CDService#addCd(String, String)}.
      * </p>
      * <p>
-     * Displays success or failure messages depending on whether the book already exists.
+     * Displays success or failure messages depending on whether the item already exists.
      * </p>
      */
 
@@ -320,6 +338,31 @@ public class ConsoleMenu {
             return;
         }
 
+        System.out.println("Choose media type:");
+        System.out.println("1. Book");
+        System.out.println("2. CD");
+        System.out.print("Enter choice (1 or 2): ");
+        String typeChoice = scanner.nextLine().trim();
+
+        if ("2".equals(typeChoice)) {
+            System.out.print("Enter CD title: ");
+            String title = scanner.nextLine().trim();
+
+            System.out.print("Enter CD artist: ");
+            String artist = scanner.nextLine().trim();
+
+            CD cd = cdService.addCd(title, artist);
+            if (cd == null) {
+                System.out.println("This CD already exists. No CD added.");
+            } else {
+                System.out.println("CD added successfully with ID: " + cd.getId());
+            }
+            return;
+        } else if (!"1".equals(typeChoice)) {
+            System.out.println("Invalid media type choice.");
+            return;
+        }
+
         System.out.print("Enter book title: ");
         String title = scanner.nextLine().trim();
 
@@ -338,10 +381,10 @@ public class ConsoleMenu {
     }
 
     /**
-     * Handles book searching by title, author, or ISBN.
+     * Handles searching books by title, author, or ISBN, and CDs by title or artist.
      * <p>
      * Prompts the user for a search mode and delegates search work to
-     * the appropriate {@link BookService} method.
+     * the appropriate {@link BookService} or {@link CDService} method.
      * </p>
      */
 
@@ -350,6 +393,8 @@ public class ConsoleMenu {
         System.out.println("1. Title");
         System.out.println("2. Author");
         System.out.println("3. ISBN");
+        System.out.println("4. CD title");
+        System.out.println("5. CD artist");
         System.out.print("Choose option: ");
 
         String choice = scanner.nextLine().trim();
@@ -372,6 +417,14 @@ public class ConsoleMenu {
                     System.out.println("No book found with that ISBN.");
                 }
                 break;
+            case "4":
+                System.out.print("Enter part of CD title: ");
+                searchAndPrintCds(cdService.searchByTitle(scanner.nextLine().trim()));
+                break;
+            case "5":
+                System.out.print("Enter part of artist name: ");
+                searchAndPrintCds(cdService.searchByArtist(scanner.nextLine().trim()));
+                break;
             default:
                 System.out.println("Invalid choice.");
         }
@@ -394,6 +447,26 @@ public class ConsoleMenu {
         }
     }
 
+    /**
+     * Prints a list of CDs to the console.
+     *
+     * @param cds the list of matching CDs
+     */
+
+    private void searchAndPrintCds(List<CD> cds) {
+        if (cds.isEmpty()) {
+            System.out.println("No matching CDs found.");
+            return;
+        }
+        System.out.println("\n=== Search Results ===");
+        for (CD cd : cds) {
+            System.out.println("- ID: " + cd.getId()
+                    + " | Title: " + cd.getTitle()
+                    + " | Artist: " + cd.getArtist()
+                    + " | Borrowed: " + (cd.isBorrowed() ? "Yes" : "No"));
+        }
+    }
+
     /**
      * Prints a single book's details in a formatted line.
      *
@@ -509,7 +582,7 @@ public class ConsoleMenu {
      * Handles fine payment for logged-in users.
      * <p>
      * Prompts the user for payment amount, processes it through
-     * {@link FineService#payFine(String, double)}, and displays updated balances.
+     * {@link FineService#payFine(String, long)}, and displays updated balances.
      * </p>
      * <p>
      * If the user has no outstanding fines or is not logged in, a message is shown.
@@ -526,26 +599,26 @@ public class ConsoleMenu {
 
         String userId = authService.getCurrentUser().getId();
 
-        double balance = fineService.getUserOutstandingBalance(userId);
+        long balance = fineService.getUserOutstandingBalance(userId);
         if (balance <= 0) {
             System.out.println("You have no outstanding fines.txt.");
             return;
         }
 
-        System.out.println("Your current outstanding fines.txt = " + balance + " NIS");
+        System.out.println("Your current outstanding fines.txt = " + Money.format(balance) + " NIS");
         System.out.print("Enter amount to pay: ");
 
         String input = scanner.nextLine().trim();
-        double amount;
+        long amount;
         try {
-            amount = Double.parseDouble(input);
+            amount = Money.parse(input);
         } catch (NumberFormatException e) {
             System.out.println("Invalid amount.");
             return;
         }
 
-        double newBalance = fineService.payFine(userId, amount);
-        System.out.println("Payment processed. Remaining balance = " + newBalance + " NIS");
+        long newBalance = fineService.payFine(userId, amount);
+        System.out.println("Payment processed. Remaining balance = " + Money.format(newBalance) + " NIS");
 
         if (newBalance == 0) {
             System.out.println("All fines.txt are fully paid. You have regained borrowing rights.");
@@ -561,7 +634,7 @@ public class ConsoleMenu {
      * overdue loans and dispatches reminder emails.
      * </p>
      * <p>
-     * Displays the number of reminders sent or appropriate error messages
+     * Displays the number of reminders queued or appropriate error messages
      * if something fails.
      * </p>
      */
@@ -576,15 +649,78 @@ public class ConsoleMenu {
         try {
             int count = reminderService.sendOverdueReminders();
             if (count == 0) {
-                System.out.println("No overdue loans found. No emails were sent.");
+                System.out.println("No overdue reminders are due. No emails were sent.");
+            } else {
+                System.out.println("Queued " + count + " reminder email(s) for delivery.");
+            }
+        } catch (Exception e) {
+            System.out.println("Failed to send reminders: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Sends reminder emails for loans due within a number of days.
+     * <p>
+     * This operation is restricted to admins only. The window is read from
+     * the console and passed to {@link ReminderService#sendDueSoonReminders(int)}.
+     * </p>
+     */
+
+    private void handleSendDueSoonReminders() {
+        if (!authService.isAdminLoggedIn()) {
+            System.out.println("You must login as admin to send due-soon reminders.");
+            return;
+        }
+
+        System.out.print("Remind loans due within how many days? ");
+        String input = scanner.nextLine().trim();
+
+        try {
+            int count = reminderService.sendDueSoonReminders(Integer.parseInt(input));
+            if (count == 0) {
+                System.out.println("No loans due soon. No emails were sent.");
             } else {
-                System.out.println("Successfully sent " + count + " reminder email(s).");
+                System.out.println("Queued " + count + " reminder email(s) for delivery.");
             }
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid number of days.");
         } catch (Exception e) {
             System.out.println("Failed to send reminders: " + e.getMessage());
         }
     }
 
+    /**
+     * Processes a drop-box batch of returns from a file of scanned IDs.
+     * <p>
+     * This operation is restricted to librarians only. Each line of the file
+     * holds a loan ID or an item ID; the batch is handled by
+     * {@link BulkReturnProcessor#process(Path)} and committed at once.
+     * </p>
+     * <p>
+     * Displays the number of returned items and every line that failed.
+     * </p>
+     */
+
+    private void handleBulkReturn() {
+        if (!authService.isLibrarianLoggedIn()) {
+            System.out.println("You must login as librarian to process returns.");
+            return;
+        }
+
+        System.out.print("Enter path to the scanned IDs file: ");
+        String path = scanner.nextLine().trim();
+
+        try {
+            BulkReturnReport report = bulkReturnProcessor.process(Path.of(path));
+            System.out.println("Returned " + report.getReturned().size() + " item(s).");
+            for (BulkReturnReport.Failure f : report.getFailures()) {
+                System.out.println("- Line " + f.getLineNumber() + " (" + f.getScannedId() + "): " + f.getReason());
+            }
+        } catch (StorageException e) {
+            System.out.println("Could not process returns: " + e.getMessage());
+        }
+    }
+
     /**
      * Displays all loans associated with the currently logged-in user.
      * <p>
@@ -1,9 +1,16 @@
 package com.library.presentation;
 
+import com.library.domain.EmailTemplates;
 import com.library.domain.FileStorage;
+import com.library.domain.FineCalculator;
+import com.library.domain.ReminderCadence;
 import com.library.service.*;
 import io.github.cdimascio.dotenv.Dotenv;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
 /**
  * Entry point of the Library Management System application.
  * <p>
@@ -15,9 +22,10 @@ import io.github.cdimascio.dotenv.Dotenv;
  * The main responsibilities of this class:
  * <ul>
  *     <li>Create the FileStorage instance</li>
+ *     <li>Load fine policies from fine-policies.properties</li>
  *     <li>Initialize all service classes</li>
  *     <li>Load email credentials from environment variables</li>
- *     <li>Set up the reminder system</li>
+ *     <li>Set up the reminder system and its background scheduler</li>
  *     <li>Launch the console-based menu interface</li>
  * </ul>
 
@@ -44,8 +52,13 @@ public class Main {
 
         AuthService authService     = new AuthService(storage);
         BookService bookService     = new BookService(storage);
+        CDService cdService         = new CDService(storage);
         LoanService loanService     = new LoanService(storage);
-        FineService fineService     = new FineService(storage);
+        Path finePolicies = Path.of("src/main/resources/fine-policies.properties");
+        FineCalculator fineCalculator = Files.exists(finePolicies)
+                ? FineCalculator.load(finePolicies)
+                : new FineCalculator();
+        FineService fineService     = new FineService(storage, fineCalculator);
         UserService userService     = new UserService(storage);
 
         // Load email credentials from .env
@@ -53,25 +66,103 @@ public class Main {
         String email = dotenv.get("EMAIL_USERNAME");
         String appPassword = dotenv.get("EMAIL_PASSWORD");
 
-        EmailService emailService = new EmailService(email, appPassword);
+        int maxConcurrent = Integer.parseInt(dotenv.get("EMAIL_MAX_CONCURRENT",
+                String.valueOf(EmailOutbox.DEFAULT_CONCURRENCY)));
+        double sendsPerSecond = Double.parseDouble(dotenv.get("EMAIL_SENDS_PER_SECOND",
+                String.valueOf(EmailOutbox.DEFAULT_SENDS_PER_SECOND)));
+
+        // Bound email to its own threads and fail fast while the relay is down
+        CircuitBreaker breaker = new CircuitBreaker(
+                Integer.parseInt(dotenv.get("EMAIL_BREAKER_FAILURES",
+                        String.valueOf(ResilientEmailTransport.DEFAULT_FAILURE_THRESHOLD))),
+                Duration.ofSeconds(Long.parseLong(dotenv.get("EMAIL_BREAKER_OPEN_SECONDS",
+                        String.valueOf(ResilientEmailTransport.DEFAULT_OPEN_DURATION.toSeconds())))));
+        Duration sendTimeout = Duration.ofSeconds(Long.parseLong(dotenv.get("EMAIL_SEND_TIMEOUT_SECONDS",
+                String.valueOf(ResilientEmailTransport.DEFAULT_SEND_TIMEOUT.toSeconds()))));
+        EmailService emailService = new EmailService(new ResilientEmailTransport(
+                createTransport(dotenv, email, appPassword, maxConcurrent),
+                breaker, maxConcurrent, ResilientEmailTransport.DEFAULT_QUEUE_CAPACITY, sendTimeout));
+        EmailOutbox outbox = new EmailOutbox(storage, emailService, maxConcurrent,
+                new RateLimiter(sendsPerSecond), EmailOutbox.DEFAULT_MAX_ATTEMPTS, EmailOutbox.DEFAULT_BASE_DELAY);
+        outbox.start();
+
+        String reminderIntervals = dotenv.get("REMINDER_INTERVAL_DAYS");
+        ReminderCadence reminderCadence = reminderIntervals == null
+                ? ReminderCadence.defaults()
+                : ReminderCadence.parse(reminderIntervals,
+                        Integer.parseInt(dotenv.get("REMINDER_MAX_COUNT", "0")));
+
+        Path templateDir = Path.of("src/main/resources/templates");
+        String language = dotenv.get("LIBRARY_LANGUAGE", EmailTemplates.DEFAULT_LANGUAGE);
+        EmailTemplates templates = Files.isDirectory(templateDir)
+                ? EmailTemplates.load(templateDir, language)
+                : new EmailTemplates(language);
 
         // Create reminder service
         ReminderService reminderService = new ReminderService(
                 loanService,
                 userService,
-                emailService
+                emailService,
+                outbox,
+                new ReminderLog(storage, reminderCadence, loanService),
+                templates
         );
 
+        // Run reminders, the nightly fine assessment and fine accrual in the background;
+        // 0 minutes disables the scheduler
+        long scheduleMinutes = Long.parseLong(dotenv.get("REMINDER_SCHEDULE_MINUTES",
+                String.valueOf(ReminderScheduler.DEFAULT_INTERVAL.toMinutes())));
+        ReminderScheduler scheduler = null;
+        if (scheduleMinutes > 0) {
+            scheduler = new ReminderScheduler(storage, reminderService,
+                    new FineAssessmentJob(loanService, fineService),
+                    new FineAccrualService(storage, loanService, fineService),
+                    Duration.ofMinutes(scheduleMinutes));
+            scheduler.start();
+        }
+
         // Initialize console menu and start application
         ConsoleMenu menu = new ConsoleMenu(
                 authService,
                 userService,
                 bookService,
+                cdService,
                 loanService,
                 fineService,
+                new EligibilityService(loanService, fineService),
                 reminderService
         );
 
         menu.run();
+        if (scheduler != null) {
+            scheduler.close();
+        }
+        outbox.close();
+        emailService.close();
+    }
+
+    /**
+     * Creates the email transport named by {@code EMAIL_TRANSPORT}:
+     * {@code smtp} (the default), {@code spool} or {@code memory}.
+     *
+     * @param dotenv   environment settings
+     * @param email    sender account
+     * @param password sender password
+     * @param poolSize number of SMTP connections kept open
+     * @return the transport
+     * @throws IllegalArgumentException if the transport name is unknown
+     */
+    private static EmailTransport createTransport(Dotenv dotenv, String email, String password, int poolSize) {
+        String kind = dotenv.get("EMAIL_TRANSPORT", "smtp").trim().toLowerCase();
+        return switch (kind) {
+            case "smtp" -> new SmtpEmailTransport(
+                    dotenv.get("SMTP_HOST", EmailService.DEFAULT_HOST),
+                    Integer.parseInt(dotenv.get("SMTP_PORT", String.valueOf(EmailService.DEFAULT_PORT))),
+                    email, password, poolSize);
+            case "spool" -> new FileSpoolEmailTransport(
+                    Path.of(dotenv.get("EMAIL_SPOOL_DIR", "src/main/resources/DB/spool")), email);
+            case "memory" -> new InMemoryEmailTransport();
+            default -> throw new IllegalArgumentException("Unknown EMAIL_TRANSPORT: " + kind);
+        };
     }
-}
\ No newline at end of file
+}
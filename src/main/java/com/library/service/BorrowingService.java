@@ -1,6 +1,11 @@
 package com.library.service;
 
+import com.library.domain.BorrowEligibility;
 import com.library.domain.Loan;
+import com.library.domain.Money;
+
+import java.time.LocalDate;
+import java.util.List;
 
 /**
  * Handles borrowing operations for users.
@@ -28,19 +33,19 @@ public class BorrowingService {
     private final LoanService loanService;
 
     /**
-     * Service responsible for calculating and checking user fines.
+     * Per-user eligibility records used by the borrowing gate.
      */
-    private final FineService fineService;
+    private final EligibilityService eligibilityService;
 
     /**
-     * Creates a new BorrowingService instance.
+     * Creates a new BorrowingService that shares the application's eligibility service.
      *
-     * @param loanService service managing book/CD loans
-     * @param fineService service for calculating fines and balances
+     * @param loanService        service managing book/CD loans
+     * @param eligibilityService per-user eligibility records
      */
-    public BorrowingService(LoanService loanService, FineService fineService) {
+    public BorrowingService(LoanService loanService, EligibilityService eligibilityService) {
         this.loanService = loanService;
-        this.fineService = fineService;
+        this.eligibilityService = eligibilityService;
     }
 
     /**
@@ -62,18 +67,7 @@ public class BorrowingService {
      */
     public Loan borrowBook(String userId, String bookId) {
 
-        double outstanding = fineService.getUserOutstandingBalance(userId);
-        if (outstanding > 0) {
-            throw new IllegalStateException(
-                    "User has unpaid fines (" + outstanding + "). Borrowing not allowed."
-            );
-        }
-
-        if (loanService.hasOverdueLoans(userId)) {
-            throw new IllegalStateException(
-                    "User has overdue loans. Borrowing not allowed until overdue items are returned."
-            );
-        }
+        checkEligibility(userId);
 
         return loanService.borrowBook(userId, bookId);
     }
@@ -96,20 +90,50 @@ public class BorrowingService {
      */
     public Loan borrowCd(String userId, String cdId) {
 
-        double outstanding = fineService.getUserOutstandingBalance(userId);
-        if (outstanding > 0) {
+        checkEligibility(userId);
+
+        return loanService.borrowCd(userId, cdId);
+    }
+
+    /**
+     * Allows a user to borrow several books or CDs at once, e.g. from a self-checkout kiosk.
+     * <p>
+     * The fine and overdue checks run once for the whole batch, and the loans are
+     * created by {@link LoanService#borrowMany(String, List)} as a single unit.
+     * </p>
+     *
+     * @param userId  the ID of the borrowing user
+     * @param itemIds the IDs of the books or CDs being borrowed
+     * @return the newly created loans
+     * @throws IllegalStateException if the user is not allowed to borrow
+     */
+    public List<Loan> borrowMany(String userId, List<String> itemIds) {
+
+        checkEligibility(userId);
+
+        return loanService.borrowMany(userId, itemIds);
+    }
+
+    /**
+     * Applies the borrowing rules using the user's eligibility record.
+     *
+     * @param userId the ID of the borrowing user
+     * @throws IllegalStateException if the user has unpaid fines or overdue loans
+     */
+    private void checkEligibility(String userId) {
+        BorrowEligibility eligibility = eligibilityService.getEligibility(userId);
+
+        if (eligibility.hasUnpaidFines()) {
             throw new IllegalStateException(
-                    "User has unpaid fines (" + outstanding + "). Borrowing not allowed."
+                    "User has unpaid fines (" + Money.format(eligibility.getOutstandingBalance()) + "). Borrowing not allowed."
             );
         }
 
-        if (loanService.hasOverdueLoans(userId)) {
+        if (eligibility.hasOverdueLoans(LocalDate.now())) {
             throw new IllegalStateException(
                     "User has overdue loans. Borrowing not allowed until overdue items are returned."
             );
         }
-
-        return loanService.borrowCd(userId, cdId);
     }
 
 }
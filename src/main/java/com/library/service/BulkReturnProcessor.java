@@ -0,0 +1,109 @@
+package com.library.service;
+
+import com.library.domain.Loan;
+import com.library.domain.StorageException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Processes a drop-box batch of returned items in one pass.
+ * <p>
+ * The input is a text file with one scanned ID per line; each ID may be either
+ * a loan ID or the ID of the borrowed item. IDs are resolved against in-memory
+ * indexes of the active loans, the file is streamed line by line, and all
+ * resolved loans are returned with a single {@link LoanService#returnMany(List)}
+ * call. Unresolved lines are reported instead of aborting the batch.
+ * </p>
+ *
+ * @author Maram
+ * @version 1.0
+ */
+public class BulkReturnProcessor {
+
+    /**
+     * Service used to read active loans and commit the returns.
+     */
+    private final LoanService loanService;
+
+    /**
+     * Creates a new bulk return processor.
+     *
+     * @param loanService loan management service
+     */
+    public BulkReturnProcessor(LoanService loanService) {
+        this.loanService = loanService;
+    }
+
+    /**
+     * Processes a file of scanned loan or item IDs.
+     *
+     * @param scanFile path to the file of scanned IDs
+     * @return report of returned loans and rejected lines
+     * @throws StorageException if the file cannot be read
+     */
+    public BulkReturnReport process(Path scanFile) {
+        try (BufferedReader reader = Files.newBufferedReader(scanFile)) {
+            return process(reader);
+        } catch (IOException e) {
+            throw new StorageException("Failed to read return batch " + scanFile, e);
+        }
+    }
+
+    /**
+     * Processes scanned loan or item IDs from a reader, one ID per line.
+     * Blank lines are ignored.
+     *
+     * @param input source of scanned IDs
+     * @return report of returned loans and rejected lines
+     * @throws IOException if reading fails
+     */
+    public BulkReturnReport process(Reader input) throws IOException {
+        Map<String, Loan> byLoanId = new HashMap<>();
+        Map<String, Loan> byItemId = new HashMap<>();
+        for (Loan loan : loanService.getActiveLoans()) {
+            byLoanId.put(loan.getId(), loan);
+            byItemId.putIfAbsent(loan.getBookId(), loan);
+        }
+
+        BulkReturnReport report = new BulkReturnReport();
+        List<String> toReturn = new ArrayList<>();
+        Set<String> resolved = new HashSet<>();
+
+        BufferedReader reader = (input instanceof BufferedReader br) ? br : new BufferedReader(input);
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            String scannedId = line.trim();
+            if (scannedId.isEmpty()) continue;
+
+            Loan loan = byLoanId.get(scannedId);
+            if (loan == null) {
+                loan = byItemId.get(scannedId);
+            }
+
+            if (loan == null) {
+                report.addFailure(lineNumber, scannedId, "No active loan for this ID");
+            } else if (!resolved.add(loan.getId())) {
+                report.addFailure(lineNumber, scannedId, "Loan " + loan.getId() + " already scanned in this batch");
+            } else {
+                toReturn.add(loan.getId());
+            }
+        }
+
+        for (Loan loan : loanService.returnMany(toReturn)) {
+            report.addReturned(loan);
+        }
+        return report;
+    }
+}
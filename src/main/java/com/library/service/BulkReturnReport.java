@@ -0,0 +1,120 @@
+package com.library.service;
+
+import com.library.domain.Loan;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a bulk return run by {@link BulkReturnProcessor}.
+ * <p>
+ * Lists the loans that were returned and every scanned entry that could not
+ * be resolved, with its line number and the reason.
+ * </p>
+ *
+ * @author Maram
+ * @version 1.0
+ */
+public class BulkReturnReport {
+
+    /**
+     * A scanned entry that could not be processed.
+     */
+    public static final class Failure {
+
+        /** 1-based line number in the scanned file. */
+        private final int lineNumber;
+
+        /** The scanned ID as read from the file. */
+        private final String scannedId;
+
+        /** Why the entry was rejected. */
+        private final String reason;
+
+        /**
+         * Creates a failure record.
+         *
+         * @param lineNumber 1-based line number
+         * @param scannedId  the scanned ID
+         * @param reason     why the entry was rejected
+         */
+        public Failure(int lineNumber, String scannedId, String reason) {
+            this.lineNumber = lineNumber;
+            this.scannedId = scannedId;
+            this.reason = reason;
+        }
+
+        /**
+         * @return the 1-based line number
+         */
+        public int getLineNumber() {
+            return lineNumber;
+        }
+
+        /**
+         * @return the scanned ID
+         */
+        public String getScannedId() {
+            return scannedId;
+        }
+
+        /**
+         * @return why the entry was rejected
+         */
+        public String getReason() {
+            return reason;
+        }
+    }
+
+    /**
+     * Loans returned by the run.
+     */
+    private final List<Loan> returned = new ArrayList<>();
+
+    /**
+     * Entries that could not be processed.
+     */
+    private final List<Failure> failures = new ArrayList<>();
+
+    /**
+     * Records a returned loan.
+     *
+     * @param loan the returned loan
+     */
+    void addReturned(Loan loan) {
+        returned.add(loan);
+    }
+
+    /**
+     * Records a rejected entry.
+     *
+     * @param lineNumber 1-based line number
+     * @param scannedId  the scanned ID
+     * @param reason     why the entry was rejected
+     */
+    void addFailure(int lineNumber, String scannedId, String reason) {
+        failures.add(new Failure(lineNumber, scannedId, reason));
+    }
+
+    /**
+     * @return the loans returned by the run
+     */
+    public List<Loan> getReturned() {
+        return Collections.unmodifiableList(returned);
+    }
+
+    /**
+     * @return the entries that could not be processed
+     */
+    public List<Failure> getFailures() {
+        return Collections.unmodifiableList(failures);
+    }
+
+    /**
+     * @return true if every scanned entry was processed
+     */
+    public boolean isSuccessful() {
+        return failures.isEmpty();
+    }
+}
@@ -0,0 +1,113 @@
+package com.library.service;
+
+import com.library.domain.CD;
+import com.library.domain.FileStorage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Provides operations for managing CDs in the library system.
+ * <p>
+ * This service interacts with {@link FileStorage} to load, save, search,
+ * and add CDs. It supports searching by title and by artist.
+ * </p>
+ *
+ * <p>
+ * All CD data is persisted in cds.txt, next to the book catalog.
+ * </p>
+ *
+ * @author Maram
+ * @version 1.0
+ */
+public class CDService {
+
+    /**
+     * Storage handler used to load and save CD data.
+     */
+    private final FileStorage storage;
+
+    /**
+     * Creates a new CDService instance.
+     *
+     * @param storage the storage backend used for CD persistence
+     */
+    public CDService(FileStorage storage) {
+        this.storage = storage;
+    }
+
+    /**
+     * Adds a new CD to the library.
+     * <p>
+     * A CD with the same title and artist is treated as a duplicate and
+     * the method returns {@code null}.
+     * </p>
+     *
+     * @param title  the CD title
+     * @param artist the artist name
+     * @return the newly added {@link CD}, or {@code null} if it already exists
+     */
+    public CD addCd(String title, String artist) {
+        List<CD> cds = storage.loadCds();
+
+        for (CD cd : cds) {
+            if (cd.getTitle().equalsIgnoreCase(title) && cd.getArtist().equalsIgnoreCase(artist)) {
+                return null; // Duplicate, do not add
+            }
+        }
+
+        String id = "CD" + (cds.size() + 1);
+
+        CD newCd = new CD(id, title, artist, false);
+        cds.add(newCd);
+
+        storage.saveCds(cds);
+
+        return newCd;
+    }
+
+    /**
+     * Searches for CDs whose titles contain the given keyword.
+     *
+     * @param titlePart a partial or full title keyword
+     * @return list of CDs matching the search term
+     */
+    public List<CD> searchByTitle(String titlePart) {
+        List<CD> result = new ArrayList<>();
+        String keyword = titlePart.toLowerCase();
+
+        for (CD cd : storage.loadCds()) {
+            if (cd.getTitle().toLowerCase().contains(keyword)) {
+                result.add(cd);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Searches for CDs based on the artist's name.
+     *
+     * @param artistPart a partial or full artist name keyword
+     * @return list of CDs whose artist names contain the keyword
+     */
+    public List<CD> searchByArtist(String artistPart) {
+        List<CD> result = new ArrayList<>();
+        String keyword = artistPart.toLowerCase();
+
+        for (CD cd : storage.loadCds()) {
+            if (cd.getArtist().toLowerCase().contains(keyword)) {
+                result.add(cd);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Retrieves all CDs currently stored in the system.
+     *
+     * @return list of all CDs
+     */
+    public List<CD> getAllCds() {
+        return storage.loadCds();
+    }
+}
@@ -0,0 +1,191 @@
+package com.library.service;
+
+import java.time.Duration;
+
+/**
+ * Circuit breaker guarding calls to an unreliable dependency.
+ * <p>
+ * The breaker starts {@link State#CLOSED} and lets every call through.
+ * After {@code failureThreshold} consecutive failures it
+ * {@link State#OPEN opens} and refuses calls for {@code openDuration}, so
+ * callers fail at once instead of waiting on a dependency that is down.
+ * It then lets a single trial call through ({@link State#HALF_OPEN}): a
+ * success closes the breaker, a failure opens it again.
+ * </p>
+ *
+ * <p>
+ * Each permit is tagged with the generation of the breaker it was granted
+ * in; the generation moves on whenever the state changes. The outcome of a
+ * call granted in an earlier generation is ignored, so a slow call that
+ * started while the breaker was closed cannot close it again once it has
+ * opened.
+ * </p>
+ *
+ * @author Maram
+ * @version 1.0
+ */
+public class CircuitBreaker {
+
+    /**
+     * State of the breaker.
+     */
+    public enum State {
+        /** Calls go through; failures are counted. */
+        CLOSED,
+        /** Calls are refused until the open period ends. */
+        OPEN,
+        /** One trial call is allowed to decide whether to close again. */
+        HALF_OPEN
+    }
+
+    /**
+     * Returned by {@link #tryAcquire()} when the call is refused.
+     */
+    public static final long NO_PERMIT = -1;
+
+    /**
+     * Consecutive failures that open the breaker.
+     */
+    private final int failureThreshold;
+
+    /**
+     * Time the breaker stays open.
+     */
+    private final long openNanos;
+
+    /**
+     * Current state.
+     */
+    private State state = State.CLOSED;
+
+    /**
+     * Number of state changes so far; tags the permits granted.
+     */
+    private long generation;
+
+    /**
+     * Consecutive failures while closed.
+     */
+    private int failures;
+
+    /**
+     * Time the breaker last opened, from {@link System#nanoTime()}.
+     */
+    private long openedAt;
+
+    /**
+     * Whether the trial call of the half-open state is in progress.
+     */
+    private boolean trialInProgress;
+
+    /**
+     * Creates a breaker.
+     *
+     * @param failureThreshold consecutive failures that open the breaker
+     * @param openDuration     time the breaker stays open before a trial call
+     * @throws IllegalArgumentException if the threshold is less than 1 or the duration is negative
+     */
+    public CircuitBreaker(int failureThreshold, Duration openDuration) {
+        if (failureThreshold < 1 || openDuration.isNegative()) {
+            throw new IllegalArgumentException("Failure threshold must be at least 1 and open duration not negative");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+    }
+
+    /**
+     * Asks to make a call. Every permit granted must be handed back to
+     * {@link #recordSuccess(long)}, {@link #recordFailure(long)} or, if the
+     * call was not made after all, {@link #release(long)}.
+     *
+     * @return the permit, or {@link #NO_PERMIT} if the call may not go ahead
+     */
+    public synchronized long tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                return NO_PERMIT;
+            }
+            moveTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInProgress) {
+                return NO_PERMIT;
+            }
+            trialInProgress = true;
+        }
+        return generation;
+    }
+
+    /**
+     * Records a successful call. The trial call of the half-open state closes
+     * the breaker; a call made while closed resets the failure count.
+     *
+     * @param permit the permit the call was made with
+     */
+    public synchronized void recordSuccess(long permit) {
+        if (permit != generation) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            moveTo(State.CLOSED);
+        }
+        failures = 0;
+    }
+
+    /**
+     * Records a failed call, opening the breaker if the threshold is reached
+     * or the trial call failed.
+     *
+     * @param permit the permit the call was made with
+     */
+    public synchronized void recordFailure(long permit) {
+        if (permit != generation) {
+            return;
+        }
+        if (state == State.HALF_OPEN || ++failures >= failureThreshold) {
+            moveTo(State.OPEN);
+            openedAt = System.nanoTime();
+        }
+    }
+
+    /**
+     * Gives back a permit whose call was never made, without judging the
+     * dependency.
+     *
+     * @param permit the permit to give back
+     */
+    public synchronized void release(long permit) {
+        if (permit == generation) {
+            trialInProgress = false;
+        }
+    }
+
+    /**
+     * @return the current state
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * @return time until an open breaker allows a trial call, zero if it is not open
+     */
+    public synchronized Duration getRetryAfter() {
+        if (state != State.OPEN) {
+            return Duration.ZERO;
+        }
+        long remaining = openNanos - (System.nanoTime() - openedAt);
+        return Duration.ofNanos(Math.max(0, remaining));
+    }
+
+    /**
+     * Changes state, starting a new generation so that permits granted
+     * before the change no longer count.
+     */
+    private void moveTo(State next) {
+        state = next;
+        generation++;
+        failures = 0;
+        trialInProgress = false;
+    }
+}
@@ -0,0 +1,151 @@
+package com.library.service;
+
+import com.library.domain.Loan;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps the active loans ordered by due date.
+ * <p>
+ * The index is built once from the active loans and then maintained from
+ * {@link LoanService} events, so a query for the loans due in a date window
+ * is a range lookup over the active set only; loan history is never read.
+ * Loans can also be looked up by ID.
+ * </p>
+ *
+ * @author Maram
+ * @version 1.0
+ */
+public class DueDateIndex implements LoanListener {
+
+    /**
+     * Source of active loans for the initial build.
+     */
+    private final LoanService loanService;
+
+    /**
+     * Active loans by due date, then by loan ID, or null until first use.
+     */
+    private TreeMap<LocalDate, Map<String, Loan>> byDueDate;
+
+    /**
+     * Active loans by loan ID, built and dropped together with {@code byDueDate}.
+     */
+    private Map<String, Loan> byId;
+
+    /**
+     * Creates the index and registers it for loan events.
+     *
+     * @param loanService loan service to observe
+     */
+    public DueDateIndex(LoanService loanService) {
+        this.loanService = loanService;
+        loanService.addListener(this);
+    }
+
+    /**
+     * Returns the active loans due within a date window, earliest due date first.
+     *
+     * @param from first due date, inclusive
+     * @param to   last due date, inclusive
+     * @return loans due in the window; empty if {@code to} is before {@code from}
+     */
+    public synchronized List<Loan> getLoansDueBetween(LocalDate from, LocalDate to) {
+        List<Loan> due = new ArrayList<>();
+        if (to.isBefore(from)) {
+            return due;
+        }
+        for (Map<String, Loan> loans : index().subMap(from, true, to, true).values()) {
+            due.addAll(loans.values());
+        }
+        return due;
+    }
+
+    /**
+     * Returns the given loans that are still active.
+     *
+     * @param loanIds loan IDs to look up
+     * @return the active loans among them; IDs of returned or unknown loans are skipped
+     */
+    public synchronized List<Loan> getLoans(Collection<String> loanIds) {
+        index();
+        List<Loan> loans = new ArrayList<>();
+        for (String id : loanIds) {
+            Loan loan = byId.get(id);
+            if (loan != null) {
+                loans.add(loan);
+            }
+        }
+        return loans;
+    }
+
+    /**
+     * @return number of active loans in the index
+     */
+    public synchronized int size() {
+        index();
+        return byId.size();
+    }
+
+    /**
+     * Drops the index so it is rebuilt from storage on next use.
+     * Needed only if data files are changed outside the services.
+     */
+    public synchronized void refresh() {
+        byDueDate = null;
+        byId = null;
+    }
+
+    @Override
+    public synchronized void loanCreated(Loan loan) {
+        if (byDueDate != null && !loan.isReturned()) {
+            add(loan);
+        }
+    }
+
+    @Override
+    public synchronized void loanReturned(Loan loan) {
+        if (byDueDate == null) {
+            return;
+        }
+        byId.remove(loan.getId());
+        Map<String, Loan> loans = byDueDate.get(loan.getDueDate());
+        if (loans != null) {
+            loans.remove(loan.getId());
+            if (loans.isEmpty()) {
+                byDueDate.remove(loan.getDueDate());
+            }
+        }
+    }
+
+    /**
+     * Returns the index, building it from the active loans on first use.
+     */
+    private TreeMap<LocalDate, Map<String, Loan>> index() {
+        if (byDueDate == null) {
+            byDueDate = new TreeMap<>();
+            byId = new HashMap<>();
+            for (Loan loan : loanService.getActiveLoans()) {
+                if (!loan.isReturned()) {
+                    add(loan);
+                }
+            }
+        }
+        return byDueDate;
+    }
+
+    /**
+     * Files a loan under its due date.
+     */
+    private void add(Loan loan) {
+        byDueDate.computeIfAbsent(loan.getDueDate(), d -> new LinkedHashMap<>()).put(loan.getId(), loan);
+        byId.put(loan.getId(), loan);
+    }
+}
@@ -0,0 +1,129 @@
+package com.library.service;
+
+import com.library.domain.BorrowEligibility;
+import com.library.domain.Loan;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps a per-user borrow-eligibility record up to date.
+ * <p>
+ * The loan part of each record is built once from the stored loans, then
+ * maintained incrementally from {@link LoanService} events. The outstanding
+ * balance is read from {@link FineService}, which already keeps it per user,
+ * so there is only one balance to keep right. Checking whether a user may
+ * borrow is two map lookups instead of a scan of loans.txt and fines.txt.
+ * </p>
+ *
+ * @author Maram
+ * @version 1.0
+ */
+public class EligibilityService implements LoanListener {
+
+    /**
+     * Source of loans for the initial build.
+     */
+    private final LoanService loanService;
+
+    /**
+     * Source of outstanding balances.
+     */
+    private final FineService fineService;
+
+    /**
+     * Per-user records, or null until first use.
+     */
+    private Map<String, Entry> entries;
+
+    /**
+     * Mutable per-user loan state behind a {@link BorrowEligibility} snapshot.
+     */
+    private static final class Entry {
+        private int activeLoans;
+        private final TreeMap<LocalDate, Integer> activeDueDates = new TreeMap<>();
+
+        private void addDueDate(LocalDate dueDate) {
+            activeLoans++;
+            activeDueDates.merge(dueDate, 1, Integer::sum);
+        }
+
+        private void removeDueDate(LocalDate dueDate) {
+            activeLoans--;
+            activeDueDates.computeIfPresent(dueDate, (d, n) -> n > 1 ? n - 1 : null);
+        }
+    }
+
+    /**
+     * Creates the service and registers it for loan events.
+     * Create one per application and share it.
+     *
+     * @param loanService loan service to observe
+     * @param fineService fine service the balances are read from
+     */
+    public EligibilityService(LoanService loanService, FineService fineService) {
+        this.loanService = loanService;
+        this.fineService = fineService;
+        loanService.addListener(this);
+    }
+
+    /**
+     * Returns the current eligibility record for a user.
+     *
+     * @param userId user ID
+     * @return eligibility snapshot; users with no history get an empty record
+     */
+    public synchronized BorrowEligibility getEligibility(String userId) {
+        long balance = fineService.getUserOutstandingBalance(userId);
+        Entry e = entries().get(userId.trim());
+        if (e == null) {
+            return new BorrowEligibility(userId, balance, null, 0);
+        }
+        LocalDate earliest = e.activeDueDates.isEmpty() ? null : e.activeDueDates.firstKey();
+        return new BorrowEligibility(userId, balance, earliest, e.activeLoans);
+    }
+
+    /**
+     * Drops all records so they are rebuilt from storage on next use.
+     * Needed only if data files are changed outside the services.
+     */
+    public synchronized void refresh() {
+        entries = null;
+    }
+
+    @Override
+    public synchronized void loanCreated(Loan loan) {
+        if (entries != null && !loan.isReturned()) {
+            entry(loan.getUserId()).addDueDate(loan.getDueDate());
+        }
+    }
+
+    @Override
+    public synchronized void loanReturned(Loan loan) {
+        if (entries != null) {
+            entry(loan.getUserId()).removeDueDate(loan.getDueDate());
+        }
+    }
+
+    /**
+     * Returns the record map, building it from storage on first use.
+     */
+    private Map<String, Entry> entries() {
+        if (entries == null) {
+            entries = new HashMap<>();
+            for (Loan loan : loanService.getActiveLoans()) {
+                entry(loan.getUserId()).addDueDate(loan.getDueDate());
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Returns the record for a user, creating an empty one if needed.
+     */
+    private Entry entry(String userId) {
+        return entries.computeIfAbsent(userId.trim(), id -> new Entry());
+    }
+}
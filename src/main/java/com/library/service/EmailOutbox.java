@@ -0,0 +1,469 @@
+package com.library.service;
+
+import com.library.domain.EmailMessage;
+import com.library.domain.FileStorage;
+import com.library.domain.OutboxEntry;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persistent queue of outgoing emails, delivered in the background.
+ * <p>
+ * Queuing a message only appends it to the outbox journal and returns.
+ * A dispatcher thread takes messages when they are due and sends each one
+ * through {@link EmailService} on its own virtual thread. At most
+ * {@code maxConcurrent} sends are in flight at once, and a
+ * {@link RateLimiter} keeps the send rate within the relay's limit. A failed
+ * message is retried with exponential backoff; after {@code maxAttempts}
+ * failures it is moved to the dead-letter file. A message refused without
+ * being attempted, because the relay's circuit is open, is put back
+ * without using up an attempt.
+ * Messages still pending when the application stops are picked up again
+ * from the journal on the next start.
+ * </p>
+ *
+ * <p>
+ * Delivery is at least once: a message sent just before a crash, whose
+ * result was not yet written, is sent again after restart.
+ * </p>
+ *
+ * @author Maram
+ * @version 1.0
+ */
+public class EmailOutbox implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(EmailOutbox.class.getName());
+
+    /**
+     * Number of sends in flight at once by default.
+     */
+    public static final int DEFAULT_CONCURRENCY = 4;
+
+    /**
+     * Sends per second allowed by default.
+     */
+    public static final double DEFAULT_SENDS_PER_SECOND = 10;
+
+    /**
+     * Number of delivery attempts before a message is given up on.
+     */
+    public static final int DEFAULT_MAX_ATTEMPTS = 5;
+
+    /**
+     * Delay before the first retry; each further retry waits twice as long.
+     */
+    public static final Duration DEFAULT_BASE_DELAY = Duration.ofSeconds(30);
+
+    /**
+     * Longest delay between two attempts.
+     */
+    static final Duration MAX_DELAY = Duration.ofHours(1);
+
+    /**
+     * Shortest delay before retrying a message the email service refused.
+     */
+    static final Duration MIN_DEFER = Duration.ofMillis(100);
+
+    /**
+     * Number of finished messages after which the journal is compacted.
+     */
+    static final int COMPACT_INTERVAL = 500;
+
+    /**
+     * Storage for the journal and dead-letter file.
+     */
+    private final FileStorage storage;
+
+    /**
+     * Sender used for delivery.
+     */
+    private final EmailService emailService;
+
+    /**
+     * Bounds the number of sends in flight.
+     */
+    private final Semaphore inFlight;
+
+    /**
+     * Limits the send rate.
+     */
+    private final RateLimiter rateLimiter;
+
+    /**
+     * Number of attempts before a message is dead.
+     */
+    private final int maxAttempts;
+
+    /**
+     * Delay before the first retry.
+     */
+    private final Duration baseDelay;
+
+    /**
+     * Messages ordered by their next attempt time.
+     */
+    private final DelayQueue<Scheduled> queue = new DelayQueue<>();
+
+    /**
+     * Guards the pending map and all storage access.
+     */
+    private final Object lock = new Object();
+
+    /**
+     * Pending entries by ID, or null until loaded from the journal.
+     */
+    private Map<String, OutboxEntry> pending;
+
+    /**
+     * Finished entries since the journal was last compacted.
+     */
+    private int finishedSinceCompaction;
+
+    /**
+     * Virtual-thread executor running the sends, or null when stopped.
+     */
+    private ExecutorService executor;
+
+    /**
+     * Thread feeding due messages to the executor, or null when stopped.
+     */
+    private Thread dispatcher;
+
+    /**
+     * An entry waiting in the delay queue.
+     */
+    private static final class Scheduled implements Delayed {
+        private final OutboxEntry entry;
+        private final long dueNanos;
+
+        private Scheduled(OutboxEntry entry) {
+            this.entry = entry;
+            this.dueNanos = System.nanoTime()
+                    + Duration.between(Instant.now(), entry.getNextAttemptAt()).toNanos();
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueNanos, ((Scheduled) other).dueNanos);
+        }
+    }
+
+    /**
+     * Creates an outbox with the default concurrency, rate, attempts and backoff.
+     *
+     * @param storage      storage for the journal
+     * @param emailService sender used for delivery
+     */
+    public EmailOutbox(FileStorage storage, EmailService emailService) {
+        this(storage, emailService, DEFAULT_CONCURRENCY, new RateLimiter(DEFAULT_SENDS_PER_SECOND),
+                DEFAULT_MAX_ATTEMPTS, DEFAULT_BASE_DELAY);
+    }
+
+    /**
+     * Creates an outbox.
+     *
+     * @param storage       storage for the journal
+     * @param emailService  sender used for delivery
+     * @param maxConcurrent number of sends in flight at once
+     * @param rateLimiter   limiter every send waits on
+     * @param maxAttempts   number of attempts before a message is dead
+     * @param baseDelay     delay before the first retry
+     * @throws IllegalArgumentException if {@code maxConcurrent} or {@code maxAttempts} is less than 1
+     */
+    public EmailOutbox(FileStorage storage, EmailService emailService, int maxConcurrent,
+                       RateLimiter rateLimiter, int maxAttempts, Duration baseDelay) {
+        if (maxConcurrent < 1 || maxAttempts < 1) {
+            throw new IllegalArgumentException("Outbox needs at least one concurrent send and one attempt");
+        }
+        this.storage = storage;
+        this.emailService = emailService;
+        this.inFlight = new Semaphore(maxConcurrent);
+        this.rateLimiter = rateLimiter;
+        this.maxAttempts = maxAttempts;
+        this.baseDelay = baseDelay;
+    }
+
+    /**
+     * Queues one message for delivery.
+     *
+     * @param message the message
+     * @return the outbox entry ID
+     */
+    public String enqueue(EmailMessage message) {
+        return enqueueAll(List.of(message)).get(0);
+    }
+
+    /**
+     * Queues messages for delivery with a single journal write.
+     *
+     * @param messages the messages
+     * @return the outbox entry IDs, in order
+     */
+    public List<String> enqueueAll(List<EmailMessage> messages) {
+        List<OutboxEntry> entries = new ArrayList<>(messages.size());
+        Instant now = Instant.now();
+        for (EmailMessage m : messages) {
+            entries.add(new OutboxEntry(UUID.randomUUID().toString(), m,
+                    OutboxEntry.Status.PENDING, 0, now));
+        }
+
+        synchronized (lock) {
+            ensureLoaded();
+            storage.appendOutbox(entries);
+            for (OutboxEntry e : entries) {
+                pending.put(e.getId(), e);
+            }
+        }
+
+        List<String> ids = new ArrayList<>(entries.size());
+        for (OutboxEntry e : entries) {
+            queue.add(new Scheduled(e));
+            ids.add(e.getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Starts background delivery. Messages left in the journal by an earlier
+     * run are queued again.
+     */
+    public synchronized void start() {
+        if (dispatcher != null) {
+            return;
+        }
+        synchronized (lock) {
+            ensureLoaded();
+        }
+        ExecutorService sends = Executors.newVirtualThreadPerTaskExecutor();
+        executor = sends;
+        dispatcher = new Thread(() -> dispatch(sends), "email-outbox-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    /**
+     * Delivers every message that is due now on the calling thread, one at a
+     * time and within the rate limit, including retries that become due
+     * while flushing.
+     *
+     * @return number of messages delivered
+     */
+    public int flush() {
+        synchronized (lock) {
+            ensureLoaded();
+        }
+        int sent = 0;
+        Scheduled s;
+        while ((s = queue.poll()) != null) {
+            try {
+                rateLimiter.acquire();
+            } catch (InterruptedException e) {
+                queue.add(s);
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (deliver(s.entry)) {
+                sent++;
+            }
+        }
+        return sent;
+    }
+
+    /**
+     * Stops dispatching and waits for sends in flight to finish.
+     * Undelivered messages stay in the journal.
+     */
+    @Override
+    public synchronized void close() {
+        if (dispatcher == null) {
+            return;
+        }
+        dispatcher.interrupt();
+        executor.shutdown();
+        try {
+            dispatcher.join(TimeUnit.SECONDS.toMillis(10));
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        dispatcher = null;
+        executor = null;
+    }
+
+    /**
+     * @return number of messages waiting to be delivered
+     */
+    public int getPendingCount() {
+        synchronized (lock) {
+            ensureLoaded();
+            return pending.size();
+        }
+    }
+
+    /**
+     * @return messages that were given up on
+     */
+    public List<OutboxEntry> getDeadLetters() {
+        synchronized (lock) {
+            return storage.loadDeadLetters();
+        }
+    }
+
+    /**
+     * Dispatcher loop: waits for the next due message, a free send slot and
+     * a rate-limit token, then sends the message on a virtual thread.
+     * Runs until interrupted, or until the executor is shut down under it;
+     * a message the executor rejects goes back on the queue, still pending.
+     */
+    void dispatch(ExecutorService sends) {
+        while (!Thread.currentThread().isInterrupted()) {
+            Scheduled s = null;
+            try {
+                s = queue.take();
+                inFlight.acquire();
+                try {
+                    rateLimiter.acquire();
+                } catch (InterruptedException e) {
+                    inFlight.release();
+                    throw e;
+                }
+            } catch (InterruptedException e) {
+                if (s != null) {
+                    queue.add(s);
+                }
+                return;
+            }
+
+            OutboxEntry entry = s.entry;
+            try {
+                sends.execute(() -> {
+                    try {
+                        deliver(entry);
+                    } catch (RuntimeException e) {
+                        LOGGER.log(Level.SEVERE, "Email outbox delivery failed", e);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // close() shut the executor down; the entry was never attempted
+                inFlight.release();
+                queue.add(s);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Attempts one delivery and records the result.
+     *
+     * @return true if the message was sent
+     */
+    private boolean deliver(OutboxEntry entry) {
+        EmailMessage m = entry.getMessage();
+        try {
+            emailService.sendEmail(m.getTo(), m.getSubject(), m.getBody());
+        } catch (EmailUnavailableException e) {
+            deferred(entry, e.getRetryAfter());
+            return false;
+        } catch (RuntimeException e) {
+            failed(entry, e);
+            return false;
+        }
+        synchronized (lock) {
+            entry.setStatus(OutboxEntry.Status.SENT);
+            storage.appendOutbox(List.of(entry));
+            finished(entry);
+        }
+        return true;
+    }
+
+    /**
+     * Schedules a retry for a failed message, or moves it to the
+     * dead-letter file once it is out of attempts.
+     */
+    private void failed(OutboxEntry entry, RuntimeException error) {
+        String reason = error.getCause() != null ? error.getCause().getMessage() : error.getMessage();
+        synchronized (lock) {
+            entry.retryAt(Instant.now().plus(backoff(entry.getAttempts() + 1)));
+            if (entry.getAttempts() >= maxAttempts) {
+                LOGGER.warning("Giving up on email to " + entry.getMessage().getTo()
+                        + " after " + entry.getAttempts() + " attempt(s): " + reason);
+                entry.setStatus(OutboxEntry.Status.DEAD);
+                storage.appendDeadLetter(entry, reason);
+                storage.appendOutbox(List.of(entry));
+                finished(entry);
+                return;
+            }
+            storage.appendOutbox(List.of(entry));
+        }
+        queue.add(new Scheduled(entry));
+    }
+
+    /**
+     * Puts back a message the email service refused without attempting it,
+     * for example while the relay's circuit is open. No attempt is counted,
+     * so an outage does not use up a message's attempts.
+     */
+    private void deferred(OutboxEntry entry, Duration retryAfter) {
+        Duration delay = retryAfter.compareTo(MIN_DEFER) < 0 ? MIN_DEFER : retryAfter;
+        entry.deferTo(Instant.now().plus(delay));
+        queue.add(new Scheduled(entry));
+    }
+
+    /**
+     * Returns the delay before the given attempt number: the base delay
+     * doubled for each earlier failure, up to {@link #MAX_DELAY}.
+     */
+    private Duration backoff(int attempt) {
+        Duration delay = baseDelay.multipliedBy(1L << Math.min(attempt - 1, 20));
+        return delay.compareTo(MAX_DELAY) > 0 ? MAX_DELAY : delay;
+    }
+
+    /**
+     * Drops a finished entry and compacts the journal every
+     * {@value #COMPACT_INTERVAL} entries. Caller holds the lock.
+     */
+    private void finished(OutboxEntry entry) {
+        pending.remove(entry.getId());
+        if (++finishedSinceCompaction >= COMPACT_INTERVAL) {
+            storage.rewriteOutbox(new ArrayList<>(pending.values()));
+            finishedSinceCompaction = 0;
+        }
+    }
+
+    /**
+     * Loads the pending entries from the journal on first use and queues
+     * them. Caller holds the lock.
+     */
+    private void ensureLoaded() {
+        if (pending != null) {
+            return;
+        }
+        pending = new LinkedHashMap<>();
+        for (OutboxEntry e : storage.loadOutbox()) {
+            pending.put(e.getId(), e);
+            queue.add(new Scheduled(e));
+        }
+    }
+}
@@ -1,62 +1,104 @@
 package com.library.service;
-import java.util.logging.Logger;
-import javax.mail.*;
-import javax.mail.internet.InternetAddress;
-import javax.mail.internet.MimeMessage;
-import java.util.Properties;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+
+import com.library.domain.EmailMessage;
+
+import java.util.List;
 
 /**
- * Service responsible for sending email notifications using SMTP.
+ * Service responsible for sending email notifications.
+ * <p>
+ * The service hands messages to an {@link EmailTransport}, which decides
+ * where they go: an SMTP relay by default, or a spool directory or memory
+ * when configured. Callers only depend on this class, so the transport can
+ * be swapped without touching reminders or the outbox.
+ * </p>
+ *
+ * @author Maram
+ * @version 1.0
  */
-public class EmailService {
+public class EmailService implements AutoCloseable {
 
-    private static final Logger LOGGER = Logger.getLogger(EmailService.class.getName());
+    /**
+     * SMTP relay used when none is configured.
+     */
+    public static final String DEFAULT_HOST = "smtp.gmail.com";
 
-    private final String username;
-    private final String password;
+    /**
+     * SMTP port used when none is configured.
+     */
+    public static final int DEFAULT_PORT = 587;
 
+    /**
+     * Transport messages are handed to.
+     */
+    private final EmailTransport transport;
+
+    /**
+     * Creates a service sending through the default SMTP relay, keeping up to
+     * {@link SmtpEmailTransport#DEFAULT_POOL_SIZE} idle connections.
+     *
+     * @param username sender account
+     * @param password sender password
+     */
     public EmailService(String username, String password) {
-        this.username = username;
-        this.password = password;
+        this(username, password, SmtpEmailTransport.DEFAULT_POOL_SIZE);
     }
 
-    public void sendEmail(String to, String subject, String body) {
-
-        Properties props = new Properties();
-        props.put("mail.smtp.auth", "true");
-        props.put("mail.smtp.starttls.enable", "true");
-        props.put("mail.smtp.host", "smtp.gmail.com");
-        props.put("mail.smtp.port", "587");
-        props.put("mail.smtp.ssl.trust", "smtp.gmail.com");
-        props.put("mail.smtp.ssl.protocols", "TLSv1.2");
-
-        Session session = Session.getInstance(props, new Authenticator() {
-            @Override
-            protected PasswordAuthentication getPasswordAuthentication() {
-                return new PasswordAuthentication(username, password);
-            }
-        });
-
-        try {
-            Message message = new MimeMessage(session);
-            message.setFrom(new InternetAddress(username));
-            message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(to));
-            message.setSubject(subject);
-            message.setText(body);
+    /**
+     * Creates a service sending through the default SMTP relay.
+     *
+     * @param username sender account
+     * @param password sender password
+     * @param poolSize maximum number of idle connections kept open
+     * @throws IllegalArgumentException if {@code poolSize} is less than 1
+     */
+    public EmailService(String username, String password, int poolSize) {
+        this(new SmtpEmailTransport(DEFAULT_HOST, DEFAULT_PORT, username, password, poolSize));
+    }
 
-            Transport.send(message);
+    /**
+     * Creates a service sending through the given transport.
+     *
+     * @param transport transport messages are handed to
+     */
+    public EmailService(EmailTransport transport) {
+        this.transport = transport;
+    }
 
-            // Replaced System.out.println
-            LOGGER.info("Email sent successfully to " + to);
+    /**
+     * Sends one email.
+     *
+     * @param to      recipient address
+     * @param subject email subject
+     * @param body    email body
+     * @throws RuntimeException if the message cannot be sent
+     */
+    public void sendEmail(String to, String subject, String body) {
+        transport.send(new EmailMessage(to, subject, body));
+    }
 
-        } catch (MessagingException e) {
+    /**
+     * Sends a batch of emails, continuing past failures.
+     *
+     * @param messages messages to send
+     * @return the messages that could not be sent, in order
+     */
+    public List<EmailMessage> sendAll(List<EmailMessage> messages) {
+        return transport.sendAll(messages);
+    }
 
-            // Replaced printStackTrace
-            LOGGER.log(Level.SEVERE, "Failed to send email", e);
+    /**
+     * Closes the transport, releasing connections or flushing buffered messages.
+     */
+    @Override
+    public void close() {
+        transport.close();
+    }
 
-            throw new RuntimeException("Failed to send email", e);
-        }
+    /**
+     * @return transport messages are handed to
+     */
+    public EmailTransport getTransport() {
+        return transport;
     }
 }
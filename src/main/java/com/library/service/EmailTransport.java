@@ -0,0 +1,56 @@
+package com.library.service;
+
+import com.library.domain.EmailMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Destination that {@link EmailService} hands finished messages to.
+ * <p>
+ * Implementations decide how a message leaves the application: over SMTP
+ * ({@link SmtpEmailTransport}), as {@code .eml} files in a spool directory
+ * ({@link FileSpoolEmailTransport}), or into memory
+ * ({@link InMemoryEmailTransport}). Implementations must be safe to call
+ * from several threads.
+ * </p>
+ *
+ * @author Maram
+ * @version 1.0
+ */
+public interface EmailTransport extends AutoCloseable {
+
+    /**
+     * Delivers one message.
+     *
+     * @param message the message
+     * @throws RuntimeException if the message cannot be delivered
+     */
+    void send(EmailMessage message);
+
+    /**
+     * Delivers a batch of messages, continuing past failures.
+     * The default sends them one at a time.
+     *
+     * @param messages the messages
+     * @return the messages that could not be delivered, in order
+     */
+    default List<EmailMessage> sendAll(List<EmailMessage> messages) {
+        List<EmailMessage> failed = new ArrayList<>();
+        for (EmailMessage m : messages) {
+            try {
+                send(m);
+            } catch (RuntimeException e) {
+                failed.add(m);
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Releases connections or other resources. Does nothing by default.
+     */
+    @Override
+    default void close() {
+    }
+}
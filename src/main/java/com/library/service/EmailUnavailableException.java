@@ -0,0 +1,40 @@
+package com.library.service;
+
+import java.time.Duration;
+
+/**
+ * Thrown when an email is refused without being attempted, because the
+ * circuit to the mail relay is open or the email bulkhead is full.
+ * <p>
+ * The message was not sent and can safely be tried again after
+ * {@link #getRetryAfter()}.
+ * </p>
+ *
+ * @author Maram
+ * @version 1.0
+ */
+public class EmailUnavailableException extends RuntimeException {
+
+    /**
+     * Time after which a new attempt may succeed.
+     */
+    private final Duration retryAfter;
+
+    /**
+     * Creates the exception.
+     *
+     * @param message    reason the email was refused
+     * @param retryAfter time after which a new attempt may succeed
+     */
+    public EmailUnavailableException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * @return time after which a new attempt may succeed
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
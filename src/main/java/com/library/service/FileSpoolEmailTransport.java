@@ -0,0 +1,223 @@
+package com.library.service;
+
+import com.library.domain.EmailMessage;
+import com.library.domain.StorageException;
+
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link EmailTransport} that writes each message as an {@code .eml} file.
+ * <p>
+ * Each file is written under a temporary name, forced to disk and then
+ * moved into place, so a reader of the spool directory never sees a partial
+ * message. {@link #send(EmailMessage)} returns only once its message is
+ * durable; {@link #sendAll(List)} writes the whole batch and syncs the
+ * directory once per {@code batchSize} messages instead of once per message.
+ * </p>
+ *
+ * @author Maram
+ * @version 1.0
+ */
+public class FileSpoolEmailTransport implements EmailTransport {
+
+    /**
+     * Number of messages written per directory sync by default.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 50;
+
+    /**
+     * Directory the files are written to.
+     */
+    private final Path spoolDir;
+
+    /**
+     * Sender address written into every message.
+     */
+    private final String from;
+
+    /**
+     * Number of messages written between directory syncs in a batch.
+     */
+    private final int batchSize;
+
+    /**
+     * Session used only to build MIME messages; nothing is sent through it.
+     */
+    private final Session session = Session.getInstance(new Properties());
+
+    /**
+     * Sequence number giving each file a unique name.
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Prefix shared by the files of this transport instance.
+     */
+    private final String prefix = Long.toString(System.currentTimeMillis());
+
+    /**
+     * Creates a transport with the default batch size.
+     *
+     * @param spoolDir directory to write to
+     * @param from     sender address
+     */
+    public FileSpoolEmailTransport(Path spoolDir, String from) {
+        this(spoolDir, from, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Creates a transport.
+     *
+     * @param spoolDir  directory to write to
+     * @param from      sender address
+     * @param batchSize number of messages written between directory syncs
+     * @throws IllegalArgumentException if {@code batchSize} is less than 1
+     */
+    public FileSpoolEmailTransport(Path spoolDir, String from, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+        this.spoolDir = spoolDir;
+        this.from = from;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Writes a message and returns once it is on disk.
+     *
+     * @param message the message
+     * @throws StorageException if the message cannot be written
+     */
+    @Override
+    public void send(EmailMessage message) {
+        if (!write(List.of(message)).isEmpty()) {
+            throw new StorageException("Failed to spool email to " + spoolDir);
+        }
+    }
+
+    /**
+     * Writes a batch of messages and returns once they are on disk.
+     *
+     * @param messages the messages
+     * @return the messages that could not be written
+     * @throws StorageException if the spool directory cannot be created or synced
+     */
+    @Override
+    public List<EmailMessage> sendAll(List<EmailMessage> messages) {
+        return write(messages);
+    }
+
+    /**
+     * Nothing is held back, so there is nothing to release.
+     */
+    @Override
+    public void close() {
+    }
+
+    /**
+     * @return the spool directory
+     */
+    public Path getSpoolDir() {
+        return spoolDir;
+    }
+
+    /**
+     * Writes messages to the spool directory, syncing the directory after
+     * every {@code batchSize} files and after the last one.
+     *
+     * @return the messages that could not be written
+     */
+    private List<EmailMessage> write(List<EmailMessage> batch) {
+        List<EmailMessage> failed = new ArrayList<>();
+        if (batch.isEmpty()) {
+            return failed;
+        }
+        try {
+            Files.createDirectories(spoolDir);
+        } catch (IOException e) {
+            throw new StorageException("Failed to create spool directory " + spoolDir, e);
+        }
+        int unsynced = 0;
+        for (EmailMessage m : batch) {
+            if (writeFile(m)) {
+                unsynced++;
+            } else {
+                failed.add(m);
+            }
+            if (unsynced == batchSize) {
+                syncDirectory();
+                unsynced = 0;
+            }
+        }
+        if (unsynced > 0) {
+            syncDirectory();
+        }
+        return failed;
+    }
+
+    /**
+     * Writes one message under a temporary name, forces it to disk and moves
+     * it into place. The temporary file is removed if anything fails.
+     *
+     * @return true if the message was written
+     */
+    private boolean writeFile(EmailMessage m) {
+        String name = prefix + "-" + sequence.incrementAndGet();
+        Path tmp = spoolDir.resolve(name + ".tmp");
+        try {
+            MimeMessage mime = toMime(m);
+            try (FileChannel channel = FileChannel.open(tmp,
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                mime.writeTo(Channels.newOutputStream(channel));
+                channel.force(true);
+            }
+            Files.move(tmp, spoolDir.resolve(name + ".eml"), StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException | MessagingException e) {
+            try {
+                Files.deleteIfExists(tmp);
+            } catch (IOException ignored) {
+                // the message is reported as failed either way
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Forces the directory entries of the moved files to disk.
+     */
+    private void syncDirectory() {
+        try (FileChannel dir = FileChannel.open(spoolDir, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            throw new StorageException("Failed to sync spool directory " + spoolDir, e);
+        }
+    }
+
+    /**
+     * Builds the MIME form of a message.
+     */
+    private MimeMessage toMime(EmailMessage m) throws MessagingException {
+        MimeMessage message = new MimeMessage(session);
+        message.setFrom(new InternetAddress(from));
+        message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(m.getTo()));
+        message.setSubject(m.getSubject());
+        message.setText(m.getBody());
+        return message;
+    }
+}
@@ -0,0 +1,317 @@
+package com.library.service;
+
+import com.library.domain.FileStorage;
+import com.library.domain.Fine;
+import com.library.domain.FineAccrual;
+import com.library.domain.FineCalculator;
+import com.library.domain.FineSchedule;
+import com.library.domain.Loan;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Accrues overdue fines incrementally, one boundary at a time.
+ * <p>
+ * Every active loan has a {@link FineAccrual} record holding the amount posted
+ * so far and the next date its fine can change under the loan's
+ * {@link FineSchedule}. A run only visits loans whose boundary has been
+ * reached, posts the difference between the new fine and what was already
+ * posted through {@link FineService#createLoanFines(Map)}, and files each
+ * loan under its next boundary. Loans whose fine can no longer change are
+ * never visited again.
+ * </p>
+ *
+ * <p>
+ * Records are kept in fine-accruals.txt. New loans are picked up from
+ * {@link LoanService} events, returned loans are dropped, and the first use
+ * reconciles the file against the active loans once.
+ * </p>
+ *
+ * <p>
+ * Loan fines posted elsewhere, for example by {@link FineAssessmentJob}, are
+ * picked up from {@link FineService} events and counted as already accrued,
+ * so the loan is not charged for them a second time.
+ * </p>
+ *
+ * @author Maram
+ * @version 1.0
+ */
+public class FineAccrualService implements LoanListener, FineListener {
+
+    /**
+     * Storage for the accrual records.
+     */
+    private final FileStorage storage;
+
+    /**
+     * Source of active loans for the initial reconciliation.
+     */
+    private final LoanService loanService;
+
+    /**
+     * Service the accrued deltas are posted to.
+     */
+    private final FineService fineService;
+
+    /**
+     * Calculator whose schedules define the boundaries.
+     */
+    private final FineCalculator fineCalculator;
+
+    /**
+     * Tracked loans by ID, or null until first use.
+     */
+    private Map<String, Loan> loans;
+
+    /**
+     * Accrual record per tracked loan ID.
+     */
+    private Map<String, FineAccrual> accruals;
+
+    /**
+     * Loan IDs filed under their next boundary date.
+     */
+    private TreeMap<LocalDate, Set<String>> byBoundary;
+
+    /**
+     * Loan fines created since they were last counted. Fine events are
+     * queued rather than applied under this service's lock, because they
+     * arrive while {@link FineService} holds its own.
+     */
+    private final ConcurrentLinkedQueue<Fine> createdFines = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Creates the service and registers it for loan and fine events.
+     *
+     * @param storage     storage for accrual records
+     * @param loanService loan service to observe
+     * @param fineService fine service to post accruals to
+     */
+    public FineAccrualService(FileStorage storage, LoanService loanService, FineService fineService) {
+        this.storage = storage;
+        this.loanService = loanService;
+        this.fineService = fineService;
+        this.fineCalculator = fineService.getFineCalculator();
+        loanService.addListener(this);
+        fineService.addListener(this);
+    }
+
+    /**
+     * Accrues fines as of today.
+     *
+     * @return the fines posted by this run
+     */
+    public List<Fine> run() {
+        return run(LocalDate.now());
+    }
+
+    /**
+     * Accrues fines for every loan whose boundary falls on or before the given date.
+     *
+     * @param today the accrual date
+     * @return the fines posted by this run
+     */
+    public synchronized List<Fine> run(LocalDate today) {
+        ensureLoaded();
+        countCreatedFines(Set.of());
+
+        Map<Loan, Long> deltas = new LinkedHashMap<>();
+        while (!byBoundary.isEmpty() && !byBoundary.firstKey().isAfter(today)) {
+            for (String loanId : byBoundary.pollFirstEntry().getValue()) {
+                Loan loan = loans.get(loanId);
+                FineAccrual accrual = accruals.get(loanId);
+                FineSchedule schedule = fineCalculator.scheduleFor(loan.getMediaType());
+
+                long overdueDays = ChronoUnit.DAYS.between(loan.getDueDate(), today);
+                long amount = schedule.calculateFine(overdueDays);
+                long delta = amount - accrual.getAccruedCents();
+                if (delta > 0) {
+                    deltas.put(loan, delta);
+                }
+                accrual.accrue(today, Math.max(amount, accrual.getAccruedCents()),
+                        nextBoundary(loan, overdueDays));
+                index(accrual);
+            }
+        }
+
+        List<Fine> posted = fineService.createLoanFines(deltas);
+        Set<String> postedIds = new HashSet<>();
+        for (Fine fine : posted) {
+            postedIds.add(fine.getId());
+        }
+        countCreatedFines(postedIds);
+        storage.saveFineAccruals(new ArrayList<>(accruals.values()));
+        return posted;
+    }
+
+    /**
+     * Returns the accrual record of a tracked loan.
+     *
+     * @param loanId loan ID
+     * @return the record, or null if the loan is not tracked
+     */
+    public synchronized FineAccrual getAccrual(String loanId) {
+        ensureLoaded();
+        countCreatedFines(Set.of());
+        return accruals.get(loanId);
+    }
+
+    @Override
+    public void fineCreated(Fine fine) {
+        if (fine.getLoanId() != null) {
+            createdFines.add(fine);
+        }
+    }
+
+    @Override
+    public void finePaid(String userId, long amount) {
+    }
+
+    @Override
+    public void fineWaived(String userId, long amount) {
+    }
+
+    @Override
+    public synchronized void loanCreated(Loan loan) {
+        if (loans != null && !loan.isReturned()) {
+            track(loan, new FineAccrual(loan.getId(), null, 0, null));
+        }
+    }
+
+    @Override
+    public synchronized void loanReturned(Loan loan) {
+        if (loans == null) {
+            return;
+        }
+        loans.remove(loan.getId());
+        FineAccrual accrual = accruals.remove(loan.getId());
+        if (accrual != null && accrual.getNextBoundary() != null) {
+            Set<String> ids = byBoundary.get(accrual.getNextBoundary());
+            if (ids != null) {
+                ids.remove(loan.getId());
+                if (ids.isEmpty()) {
+                    byBoundary.remove(accrual.getNextBoundary());
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds the in-memory state on first use from the saved records and the
+     * active loans. Active loans with no record start from the amount already
+     * assessed for them; records of loans no longer active are dropped.
+     * Loan fines queued before this point are newer than the saved records
+     * and still count towards them, but are already part of the assessed
+     * amounts.
+     */
+    private void ensureLoaded() {
+        if (loans != null) {
+            return;
+        }
+        loans = new HashMap<>();
+        accruals = new LinkedHashMap<>();
+        byBoundary = new TreeMap<>();
+
+        Map<String, FineAccrual> saved = new HashMap<>();
+        for (FineAccrual a : storage.loadFineAccruals()) {
+            saved.put(a.getLoanId(), a);
+        }
+
+        List<Loan> active = loanService.getActiveLoans();
+        Map<String, Long> assessed = Map.of();
+        List<Fine> pending = new ArrayList<>();
+        if (!saved.keySet().containsAll(active.stream().map(Loan::getId).toList())) {
+            // Holding the fine service's lock keeps fines from being created
+            // between draining the queue and reading the assessed amounts.
+            synchronized (fineService) {
+                for (Fine fine; (fine = createdFines.poll()) != null; ) {
+                    pending.add(fine);
+                }
+                assessed = fineService.getAssessedAmountsByLoan();
+            }
+        }
+
+        for (Loan loan : active) {
+            FineAccrual accrual = saved.get(loan.getId());
+            if (accrual == null) {
+                accrual = new FineAccrual(loan.getId(), null, assessed.getOrDefault(loan.getId(), 0L), null);
+            }
+            track(loan, accrual);
+        }
+        for (Fine fine : pending) {
+            if (saved.containsKey(fine.getLoanId())) {
+                count(fine);
+            }
+        }
+    }
+
+    /**
+     * Adds the loan fines created since the last call to the accrued amount
+     * of their loans, skipping the ones this service posted itself.
+     *
+     * @param ownFineIds IDs of fines posted by the current run
+     */
+    private void countCreatedFines(Set<String> ownFineIds) {
+        Fine fine;
+        while ((fine = createdFines.poll()) != null) {
+            if (!ownFineIds.contains(fine.getId())) {
+                count(fine);
+            }
+        }
+    }
+
+    /**
+     * Adds a loan fine to the accrued amount of its loan, if tracked.
+     */
+    private void count(Fine fine) {
+        FineAccrual accrual = accruals.get(fine.getLoanId());
+        if (accrual != null) {
+            accrual.accrue(accrual.getLastAccruedDate(),
+                    accrual.getAccruedCents() + fine.getAmount(), accrual.getNextBoundary());
+        }
+    }
+
+    /**
+     * Starts tracking a loan. A record without a boundary gets the first
+     * date on which the loan's fine changes.
+     */
+    private void track(Loan loan, FineAccrual accrual) {
+        loans.put(loan.getId(), loan);
+        accruals.put(loan.getId(), accrual);
+        if (accrual.getNextBoundary() == null && accrual.getLastAccruedDate() == null) {
+            accrual.accrue(null, accrual.getAccruedCents(), nextBoundary(loan, 0));
+        }
+        index(accrual);
+    }
+
+    /**
+     * Files a record under its next boundary, if it has one.
+     */
+    private void index(FineAccrual accrual) {
+        if (accrual.getNextBoundary() != null) {
+            byBoundary.computeIfAbsent(accrual.getNextBoundary(), d -> new LinkedHashSet<>())
+                    .add(accrual.getLoanId());
+        }
+    }
+
+    /**
+     * Returns the next date after the given overdue day on which the loan's fine changes.
+     *
+     * @return the boundary date, or null if the fine never changes again
+     */
+    private LocalDate nextBoundary(Loan loan, long overdueDays) {
+        long next = fineCalculator.scheduleFor(loan.getMediaType()).nextChangeAfter(overdueDays);
+        return next < 0 ? null : loan.getDueDate().plusDays(next);
+    }
+}
@@ -0,0 +1,169 @@
+package com.library.service;
+
+import com.library.domain.Fine;
+import com.library.domain.FineCalculator;
+import com.library.domain.Loan;
+import com.library.domain.MediaType;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Nightly batch job that assesses fines for all overdue loans.
+ * <p>
+ * The overdue loans are split across a {@link ForkJoinPool}, each part pricing
+ * its range with one {@link FineCalculator#calculateAll} call. All resulting fines are then
+ * created with a single write by {@link FineService#createLoanFines(Map)}.
+ * </p>
+ *
+ * <p>
+ * The job is idempotent: a loan that already has a fine is skipped, so running
+ * it again on the same day creates no duplicates.
+ * </p>
+ *
+ * @author Maram
+ * @version 1.0
+ */
+public class FineAssessmentJob {
+
+    /**
+     * Below this many loans a task computes amounts directly instead of splitting.
+     */
+    private static final int SEQUENTIAL_THRESHOLD = 512;
+
+    /**
+     * Source of overdue loans.
+     */
+    private final LoanService loanService;
+
+    /**
+     * Service used to create the fines.
+     */
+    private final FineService fineService;
+
+    /**
+     * Calculator used to price each overdue loan.
+     */
+    private final FineCalculator fineCalculator;
+
+    /**
+     * Pool the assessment work is split across.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a job using the fine service's calculator and the common pool.
+     *
+     * @param loanService loan management service
+     * @param fineService fine management service
+     */
+    public FineAssessmentJob(LoanService loanService, FineService fineService) {
+        this(loanService, fineService, fineService.getFineCalculator(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a job with a custom calculator and pool.
+     *
+     * @param loanService    loan management service
+     * @param fineService    fine management service
+     * @param fineCalculator calculator for fine amounts
+     * @param pool           pool to run the assessment on
+     */
+    public FineAssessmentJob(LoanService loanService,
+                             FineService fineService,
+                             FineCalculator fineCalculator,
+                             ForkJoinPool pool) {
+        this.loanService = loanService;
+        this.fineService = fineService;
+        this.fineCalculator = fineCalculator;
+        this.pool = pool;
+    }
+
+    /**
+     * Assesses fines for loans overdue as of today.
+     *
+     * @return the fines created by this run
+     */
+    public List<Fine> run() {
+        return run(LocalDate.now());
+    }
+
+    /**
+     * Assesses fines for loans overdue as of the given date.
+     *
+     * @param today the assessment date
+     * @return the fines created by this run
+     */
+    public synchronized List<Fine> run(LocalDate today) {
+        Set<String> alreadyFined = fineService.getFinedLoanIds();
+
+        List<Loan> pending = new ArrayList<>();
+        for (Loan loan : loanService.getOverdueLoans(today)) {
+            if (!alreadyFined.contains(loan.getId())) {
+                pending.add(loan);
+            }
+        }
+
+        if (pending.isEmpty()) {
+            return List.of();
+        }
+
+        int n = pending.size();
+        MediaType[] types = new MediaType[n];
+        long[] overdueDays = new long[n];
+        for (int i = 0; i < n; i++) {
+            Loan loan = pending.get(i);
+            types[i] = loan.getMediaType();
+            overdueDays[i] = ChronoUnit.DAYS.between(loan.getDueDate(), today);
+        }
+
+        long[] amounts = new long[n];
+        pool.invoke(new AssessTask(types, overdueDays, amounts, 0, n));
+
+        Map<Loan, Long> toCreate = new LinkedHashMap<>();
+        for (int i = 0; i < amounts.length; i++) {
+            if (amounts[i] > 0) {
+                toCreate.put(pending.get(i), amounts[i]);
+            }
+        }
+        return fineService.createLoanFines(toCreate);
+    }
+
+    /**
+     * Computes fine amounts for a range of loans, splitting large ranges in half.
+     */
+    private final class AssessTask extends RecursiveAction {
+
+        private final MediaType[] types;
+        private final long[] overdueDays;
+        private final long[] amounts;
+        private final int from;
+        private final int to;
+
+        private AssessTask(MediaType[] types, long[] overdueDays, long[] amounts, int from, int to) {
+            this.types = types;
+            this.overdueDays = overdueDays;
+            this.amounts = amounts;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                fineCalculator.calculateAll(types, overdueDays, amounts, from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new AssessTask(types, overdueDays, amounts, from, mid),
+                    new AssessTask(types, overdueDays, amounts, mid, to));
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.library.service;
+
+import com.library.domain.Fine;
+
+/**
+ * Receives fine events from {@link FineService}.
+ * <p>
+ * Events are fired after the change has been written to storage.
+ * </p>
+ *
+ * @author Maram
+ * @version 1.0
+ */
+public interface FineListener {
+
+    /**
+     * Called when a new fine has been created.
+     *
+     * @param fine the created fine
+     */
+    void fineCreated(Fine fine);
+
+    /**
+     * Called when a payment has been applied to a user's fines.
+     *
+     * @param userId the paying user
+     * @param amount the amount actually applied to open fines, in cents
+     */
+    void finePaid(String userId, long amount);
+
+    /**
+     * Called when the remainder of a fine has been waived.
+     *
+     * @param userId the fine owner
+     * @param amount the amount waived, in cents
+     */
+    void fineWaived(String userId, long amount);
+}
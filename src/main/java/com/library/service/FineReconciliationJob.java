@@ -0,0 +1,278 @@
+package com.library.service;
+
+import com.library.domain.Fine;
+import com.library.domain.FineAccrual;
+import com.library.domain.FineCalculator;
+import com.library.domain.Loan;
+import com.library.service.FineReconciliationReport.Discrepancy;
+import com.library.service.FineReconciliationReport.Type;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Checks loan history against the loan-linked fines.
+ * <p>
+ * Loans and fines are read once and split into partitions by user ID. Each
+ * partition is reconciled on its own on a {@link ForkJoinPool}: its loans are
+ * put in a hash table by loan ID and its fines are joined against it. A fine
+ * and the loan it points to always land in the same partition when they
+ * belong to the same user, so no partition needs another partition's data.
+ * </p>
+ *
+ * <p>The job reports:</p>
+ * <ul>
+ *     <li>overdue loans with no fine ({@link Type#MISSING})</li>
+ *     <li>loans with several fines totalling more than the schedule allows ({@link Type#DUPLICATE})</li>
+ *     <li>loans with a single fine above the schedule ({@link Type#OVERCHARGED})</li>
+ *     <li>fined loans whose fines total less than the schedule ({@link Type#UNDERCHARGED})</li>
+ *     <li>fines whose loan does not exist for the fined user ({@link Type#ORPHANED})</li>
+ * </ul>
+ * <p>Fines that are not linked to a loan are not checked. When a
+ * {@link FineAccrualService} is given, an active loan is judged as of the
+ * date it was last accrued, so fines that are simply not due yet are not
+ * reported.</p>
+ *
+ * @author Maram
+ * @version 1.0
+ */
+public class FineReconciliationJob {
+
+    /**
+     * Source of the loan history.
+     */
+    private final LoanService loanService;
+
+    /**
+     * Source of the fines and their assessed amounts.
+     */
+    private final FineService fineService;
+
+    /**
+     * Calculator giving each loan's expected fine.
+     */
+    private final FineCalculator fineCalculator;
+
+    /**
+     * Source of the date each active loan was last accrued, may be null.
+     */
+    private final FineAccrualService fineAccrualService;
+
+    /**
+     * Pool the partitions run on.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a job using the fine service's calculator and the common pool.
+     *
+     * @param loanService loan management service
+     * @param fineService fine management service
+     */
+    public FineReconciliationJob(LoanService loanService, FineService fineService) {
+        this(loanService, fineService, fineService.getFineCalculator(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a job that judges active loans as of their last accrual.
+     *
+     * @param loanService        loan management service
+     * @param fineService        fine management service
+     * @param fineAccrualService accrual engine posting the loan fines
+     */
+    public FineReconciliationJob(LoanService loanService, FineService fineService,
+                                 FineAccrualService fineAccrualService) {
+        this(loanService, fineService, fineAccrualService,
+                fineService.getFineCalculator(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a job with a custom calculator and pool.
+     *
+     * @param loanService    loan management service
+     * @param fineService    fine management service
+     * @param fineCalculator calculator for expected fines
+     * @param pool           pool to run the partitions on
+     */
+    public FineReconciliationJob(LoanService loanService,
+                                 FineService fineService,
+                                 FineCalculator fineCalculator,
+                                 ForkJoinPool pool) {
+        this(loanService, fineService, null, fineCalculator, pool);
+    }
+
+    /**
+     * Creates a job with an accrual engine, a custom calculator and pool.
+     *
+     * @param loanService        loan management service
+     * @param fineService        fine management service
+     * @param fineAccrualService accrual engine posting the loan fines, may be null
+     * @param fineCalculator     calculator for expected fines
+     * @param pool               pool to run the partitions on
+     */
+    public FineReconciliationJob(LoanService loanService,
+                                 FineService fineService,
+                                 FineAccrualService fineAccrualService,
+                                 FineCalculator fineCalculator,
+                                 ForkJoinPool pool) {
+        this.loanService = loanService;
+        this.fineService = fineService;
+        this.fineAccrualService = fineAccrualService;
+        this.fineCalculator = fineCalculator;
+        this.pool = pool;
+    }
+
+    /**
+     * Reconciles loans and fines as of today.
+     *
+     * @return the reconciliation report
+     */
+    public FineReconciliationReport run() {
+        return run(LocalDate.now());
+    }
+
+    /**
+     * Reconciles loans and fines. Active loans are judged as of the date
+     * they were last accrued, or the given date if that is not known;
+     * returned loans are judged as of their return date.
+     *
+     * @param asOf the date active loans are judged on when not accrued
+     * @return the reconciliation report
+     */
+    public FineReconciliationReport run(LocalDate asOf) {
+        int partitions = Math.max(1, pool.getParallelism());
+        List<List<Loan>> loansByPart = new ArrayList<>(partitions);
+        List<List<Fine>> finesByPart = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            loansByPart.add(new ArrayList<>());
+            finesByPart.add(new ArrayList<>());
+        }
+
+        Map<String, LocalDate> accruedOn = new HashMap<>();
+        for (Loan loan : loanService.getAllLoans()) {
+            loansByPart.get(partitionOf(loan.getUserId(), partitions)).add(loan);
+            if (fineAccrualService != null && !loan.isReturned()) {
+                FineAccrual accrual = fineAccrualService.getAccrual(loan.getId());
+                if (accrual != null && accrual.getLastAccruedDate() != null) {
+                    accruedOn.put(loan.getId(), accrual.getLastAccruedDate());
+                }
+            }
+        }
+        for (Fine fine : fineService.getAllFines()) {
+            if (fine.getLoanId() != null) {
+                finesByPart.get(partitionOf(fine.getUserId(), partitions)).add(fine);
+            }
+        }
+        Map<String, Long> assessed = fineService.getAssessedAmounts();
+
+        List<Callable<List<Discrepancy>>> tasks = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            List<Loan> loans = loansByPart.get(i);
+            List<Fine> fines = finesByPart.get(i);
+            tasks.add(() -> reconcile(loans, fines, assessed, accruedOn, asOf));
+        }
+
+        FineReconciliationReport report = new FineReconciliationReport();
+        List<Future<List<Discrepancy>>> results = pool.invokeAll(tasks);
+        for (int i = 0; i < partitions; i++) {
+            report.addPartition(join(results.get(i)), loansByPart.get(i).size(), finesByPart.get(i).size());
+        }
+        return report;
+    }
+
+    /**
+     * Reconciles one partition.
+     *
+     * @param loans    the partition's loans
+     * @param fines    the partition's loan-linked fines
+     * @param assessed  assessed cents per fine ID
+     * @param accruedOn last accrual date per active loan ID
+     * @param asOf      date active loans without an accrual date are judged on
+     * @return discrepancies found
+     */
+    private List<Discrepancy> reconcile(List<Loan> loans, List<Fine> fines, Map<String, Long> assessed,
+                                        Map<String, LocalDate> accruedOn, LocalDate asOf) {
+        Map<String, Loan> loansById = new HashMap<>(loans.size() * 2);
+        for (Loan loan : loans) {
+            loansById.put(loan.getId(), loan);
+        }
+
+        List<Discrepancy> found = new ArrayList<>();
+        Map<String, List<Fine>> finesByLoan = new LinkedHashMap<>();
+        for (Fine fine : fines) {
+            Loan loan = loansById.get(fine.getLoanId());
+            if (loan == null || !loan.getUserId().trim().equals(fine.getUserId().trim())) {
+                found.add(new Discrepancy(Type.ORPHANED, fine.getUserId(), fine.getLoanId(),
+                        List.of(fine.getId()), 0, assessed.getOrDefault(fine.getId(), fine.getAmount())));
+            } else {
+                finesByLoan.computeIfAbsent(loan.getId(), id -> new ArrayList<>()).add(fine);
+            }
+        }
+
+        for (Loan loan : loans) {
+            LocalDate judgedOn = loan.isReturned()
+                    ? loan.getReturnDate()
+                    : accruedOn.getOrDefault(loan.getId(), asOf);
+            long expected = fineCalculator.calculate(loan.getMediaType(),
+                    ChronoUnit.DAYS.between(loan.getDueDate(), judgedOn));
+            List<Fine> linked = finesByLoan.get(loan.getId());
+
+            if (linked == null) {
+                if (expected > 0) {
+                    found.add(new Discrepancy(Type.MISSING, loan.getUserId(), loan.getId(),
+                            List.of(), expected, 0));
+                }
+                continue;
+            }
+
+            long total = 0;
+            List<String> fineIds = new ArrayList<>(linked.size());
+            for (Fine fine : linked) {
+                total += assessed.getOrDefault(fine.getId(), fine.getAmount());
+                fineIds.add(fine.getId());
+            }
+            if (total > expected) {
+                Type type = linked.size() > 1 ? Type.DUPLICATE : Type.OVERCHARGED;
+                found.add(new Discrepancy(type, loan.getUserId(), loan.getId(), fineIds, expected, total));
+            } else if (total < expected) {
+                found.add(new Discrepancy(Type.UNDERCHARGED, loan.getUserId(), loan.getId(),
+                        fineIds, expected, total));
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Maps a user ID to its partition.
+     */
+    private static int partitionOf(String userId, int partitions) {
+        return Math.floorMod(userId.trim().hashCode(), partitions);
+    }
+
+    /**
+     * Waits for a partition result, rethrowing its failure unchecked.
+     */
+    private static List<Discrepancy> join(Future<List<Discrepancy>> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reconciliation interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException("Reconciliation failed", cause);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.library.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a {@link FineReconciliationJob} run.
+ * <p>
+ * Lists every loan-linked fine problem found: overdue loans with no fine,
+ * loans charged more than their schedule allows by several fines, and fines
+ * that point at a loan the fined user does not have.
+ * </p>
+ *
+ * @author Maram
+ * @version 1.0
+ */
+public class FineReconciliationReport {
+
+    /**
+     * Kinds of discrepancy.
+     */
+    public enum Type {
+        /** An overdue loan has no fine. */
+        MISSING,
+        /** A loan has several fines totalling more than its expected fine. */
+        DUPLICATE,
+        /** A loan's single fine is more than its expected fine. */
+        OVERCHARGED,
+        /** A loan's fines total less than its expected fine. */
+        UNDERCHARGED,
+        /** A fine refers to a loan that does not exist for its user. */
+        ORPHANED
+    }
+
+    /**
+     * A single problem found by the reconciliation.
+     */
+    public static final class Discrepancy {
+
+        /** The kind of problem. */
+        private final Type type;
+
+        /** The user involved. */
+        private final String userId;
+
+        /** The loan involved. */
+        private final String loanId;
+
+        /** The fines involved, empty for a missing fine. */
+        private final List<String> fineIds;
+
+        /** Fine the loan should have, in cents; 0 for orphaned fines. */
+        private final long expectedCents;
+
+        /** Total assessed by the fines, in cents. */
+        private final long assessedCents;
+
+        /**
+         * Creates a discrepancy.
+         *
+         * @param type          the kind of problem
+         * @param userId        the user involved
+         * @param loanId        the loan involved
+         * @param fineIds       the fines involved
+         * @param expectedCents fine the loan should have, in cents
+         * @param assessedCents total assessed by the fines, in cents
+         */
+        public Discrepancy(Type type, String userId, String loanId, List<String> fineIds,
+                           long expectedCents, long assessedCents) {
+            this.type = type;
+            this.userId = userId;
+            this.loanId = loanId;
+            this.fineIds = List.copyOf(fineIds);
+            this.expectedCents = expectedCents;
+            this.assessedCents = assessedCents;
+        }
+
+        /**
+         * @return the kind of problem
+         */
+        public Type getType() {
+            return type;
+        }
+
+        /**
+         * @return the user involved
+         */
+        public String getUserId() {
+            return userId;
+        }
+
+        /**
+         * @return the loan involved
+         */
+        public String getLoanId() {
+            return loanId;
+        }
+
+        /**
+         * @return the fines involved
+         */
+        public List<String> getFineIds() {
+            return fineIds;
+        }
+
+        /**
+         * @return the fine the loan should have, in cents
+         */
+        public long getExpectedCents() {
+            return expectedCents;
+        }
+
+        /**
+         * @return the total assessed by the fines, in cents
+         */
+        public long getAssessedCents() {
+            return assessedCents;
+        }
+    }
+
+    /**
+     * Problems found, in partition order.
+     */
+    private final List<Discrepancy> discrepancies = new ArrayList<>();
+
+    /**
+     * Number of loans checked.
+     */
+    private int loansChecked;
+
+    /**
+     * Number of loan-linked fines checked.
+     */
+    private int finesChecked;
+
+    /**
+     * Merges the findings of one partition into this report.
+     *
+     * @param found        discrepancies found in the partition
+     * @param loans        loans checked in the partition
+     * @param fines        fines checked in the partition
+     */
+    void addPartition(List<Discrepancy> found, int loans, int fines) {
+        discrepancies.addAll(found);
+        loansChecked += loans;
+        finesChecked += fines;
+    }
+
+    /**
+     * @return every discrepancy found
+     */
+    public List<Discrepancy> getDiscrepancies() {
+        return Collections.unmodifiableList(discrepancies);
+    }
+
+    /**
+     * Returns the discrepancies of one kind.
+     *
+     * @param type the kind to select
+     * @return matching discrepancies
+     */
+    public List<Discrepancy> getDiscrepancies(Type type) {
+        List<Discrepancy> result = new ArrayList<>();
+        for (Discrepancy d : discrepancies) {
+            if (d.getType() == type) {
+                result.add(d);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return number of loans checked
+     */
+    public int getLoansChecked() {
+        return loansChecked;
+    }
+
+    /**
+     * @return number of loan-linked fines checked
+     */
+    public int getFinesChecked() {
+        return finesChecked;
+    }
+
+    /**
+     * @return true if no discrepancy was found
+     */
+    public boolean isClean() {
+        return discrepancies.isEmpty();
+    }
+}
@@ -3,18 +3,53 @@ package com.library.service;
 import com.library.domain.FileStorage;
 import com.library.domain.Fine;
 import com.library.domain.FineCalculator;
+import com.library.domain.FineLedgerEntry;
+import com.library.domain.Loan;
 import com.library.domain.MediaType;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.logging.Level;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Logger;
 
 /**
  * Service responsible for managing fines within the library system.
+ * <p>
+ * Fines are never rewritten in place: assessments, payments and waivers are
+ * appended to the fine ledger through {@link FileStorage#appendFineLedger(List)}.
+ * </p>
+ *
+ * <p>
+ * The open fines and outstanding balance of each user are kept in memory.
+ * They are built from storage on first use and then adjusted by every fine
+ * created, paid or waived, so balance checks never scan fines.txt.
+ * </p>
+ *
+ * <p>
+ * Each user's open fines are held in a priority queue ordered by the
+ * configured {@link PaymentOrder}. A payment takes fines from the head of the
+ * queue, so it only touches the fines it settles.
+ * </p>
  */
 public class FineService {
 
+    /**
+     * Order in which a payment is allocated to a user's open fines.
+     */
+    public enum PaymentOrder {
+        /** Oldest fine (lowest fine number) first. */
+        OLDEST_FIRST,
+        /** Largest remaining amount first; equal amounts oldest first. */
+        HIGHEST_FIRST
+    }
+
     /**
      * Logger for diagnostic information instead of System.out.
      */
@@ -30,6 +65,36 @@ public class FineService {
      */
     private final FineCalculator fineCalculator;
 
+    /**
+     * Listeners notified after fines are created or paid.
+     */
+    private final List<FineListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Running unpaid total per (trimmed) user ID, or null until first use.
+     */
+    private Map<String, Long> balances;
+
+    /**
+     * Unpaid fines per (trimmed) user ID in payment order, or null until first use.
+     */
+    private Map<String, PriorityQueue<Fine>> openFines;
+
+    /**
+     * Unpaid fines by fine ID, or null until first use.
+     */
+    private Map<String, Fine> openById;
+
+    /**
+     * Allocation order applied by {@link #payFine(String, long)}.
+     */
+    private final Comparator<Fine> paymentOrder;
+
+    /**
+     * Number of fines ever issued, used to number new fines.
+     */
+    private int fineCount;
+
     /**
      * Creates a FineService with a default {@link FineCalculator}.
      *
@@ -46,8 +111,51 @@ public class FineService {
      * @param fineCalculator strategy calculator for fines
      */
     public FineService(FileStorage storage, FineCalculator fineCalculator) {
+        this(storage, fineCalculator, PaymentOrder.OLDEST_FIRST);
+    }
+
+    /**
+     * Creates a FineService with a custom fine calculator and payment order.
+     *
+     * @param storage        file storage backend
+     * @param fineCalculator strategy calculator for fines
+     * @param paymentOrder   order in which payments settle open fines
+     */
+    public FineService(FileStorage storage, FineCalculator fineCalculator, PaymentOrder paymentOrder) {
         this.storage = storage;
         this.fineCalculator = fineCalculator;
+        Comparator<Fine> oldestFirst = Comparator.comparingLong(FineService::fineNumber)
+                .thenComparing(Fine::getId);
+        this.paymentOrder = (paymentOrder == PaymentOrder.HIGHEST_FIRST)
+                ? Comparator.comparingLong(Fine::getAmount).reversed().thenComparing(oldestFirst)
+                : oldestFirst;
+    }
+
+    /**
+     * Returns the calculator used to price overdue items.
+     *
+     * @return the fine calculator
+     */
+    public FineCalculator getFineCalculator() {
+        return fineCalculator;
+    }
+
+    /**
+     * Registers a listener for fine events.
+     *
+     * @param listener the listener to notify
+     */
+    public void addListener(FineListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Retrieves all fines in the system.
+     *
+     * @return list of every stored fine
+     */
+    public List<Fine> getAllFines() {
+        return storage.loadFines();
     }
 
     /**
@@ -71,51 +179,147 @@ public class FineService {
      * Calculates the total outstanding (unpaid) fine balance for a user.
      *
      * @param userId user ID
-     * @return total unpaid amount
+     * @return total unpaid amount in cents
      */
-    public double getUserOutstandingBalance(String userId) {
-        double total = 0.0;
+    public synchronized long getUserOutstandingBalance(String userId) {
+        ensureLoaded();
+        return balances.getOrDefault(userId.trim(), 0L);
+    }
 
-        for (Fine f : storage.loadFines()) {
+    /**
+     * Drops the cached balances so they are rebuilt from storage on next use.
+     * Needed only if the fine files are changed outside this service.
+     */
+    public synchronized void refresh() {
+        balances = null;
+        openFines = null;
+        openById = null;
+    }
 
-            // بدل System.out debug نستخدم لوجر بمستوى FINE
-            LOGGER.fine(() ->
-                    "Checking fine: id=" + f.getId()
-                            + ", userId=[" + f.getUserId() + "]"
-                            + ", amount=" + f.getAmount()
-                            + ", paid=" + f.isPaid()
-            );
+    /**
+     * Creates a new fine with a specific amount.
+     *
+     * @param userId user ID
+     * @param amount fine amount in cents
+     * @return the created fine
+     */
+    public synchronized Fine createFine(String userId, long amount) {
+        ensureLoaded();
+        String id = "F" + (fineCount + 1);
 
-            if (f.getUserId().trim().equals(userId.trim()) && !f.isPaid()) {
-                total += f.getAmount();
+        Fine fine = new Fine(id, userId, amount, false);
+        storage.appendFineLedger(List.of(assessed(fine)));
+        track(fine);
+        for (FineListener l : listeners) {
+            l.fineCreated(fine);
+        }
+        return fine;
+    }
+
+    /**
+     * Creates fines for several overdue loans with a single ledger append.
+     * Each fine is linked to the loan that caused it.
+     *
+     * @param amountsByLoan fine amount in cents per loan, in the order fines should be numbered
+     * @return the created fines
+     */
+    public synchronized List<Fine> createLoanFines(Map<Loan, Long> amountsByLoan) {
+        if (amountsByLoan.isEmpty()) {
+            return List.of();
+        }
+
+        ensureLoaded();
+        List<Fine> created = new ArrayList<>();
+        List<FineLedgerEntry> entries = new ArrayList<>();
+        for (Map.Entry<Loan, Long> entry : amountsByLoan.entrySet()) {
+            Loan loan = entry.getKey();
+            String id = "F" + (fineCount + created.size() + 1);
+            Fine fine = new Fine(id, loan.getUserId(), entry.getValue(), false, loan.getId());
+            created.add(fine);
+            entries.add(assessed(fine));
+        }
+        storage.appendFineLedger(entries);
+
+        for (Fine fine : created) {
+            track(fine);
+            for (FineListener l : listeners) {
+                l.fineCreated(fine);
             }
         }
+        return created;
+    }
 
-        // بدل System.out.println
-        LOGGER.log(Level.INFO, "Total outstanding for user {0} = {1}", new Object[]{userId, total});
+    /**
+     * Returns the IDs of all loans that already have a fine.
+     *
+     * @return set of fined loan IDs
+     */
+    public Set<String> getFinedLoanIds() {
+        Set<String> loanIds = new HashSet<>();
+        for (Fine f : storage.loadFines()) {
+            if (f.getLoanId() != null) {
+                loanIds.add(f.getLoanId());
+            }
+        }
+        return loanIds;
+    }
 
-        return total;
+    /**
+     * Returns the amount each fine was originally assessed at.
+     * <p>
+     * Amounts come from the ASSESSED ledger entries; fines that predate the
+     * ledger count with their stored amount.
+     * </p>
+     *
+     * @return assessed cents per fine ID
+     */
+    public Map<String, Long> getAssessedAmounts() {
+        return assessedAmounts(storage.loadFines());
     }
 
     /**
-     * Creates a new fine with a specific amount.
+     * Returns the total fine amount ever assessed per loan.
+     *
+     * @return assessed cents per loan ID, for loans that have been fined
+     * @see #getAssessedAmounts()
      */
-    public Fine createFine(String userId, double amount) {
+    public Map<String, Long> getAssessedAmountsByLoan() {
         List<Fine> fines = storage.loadFines();
-        String id = "F" + (fines.size() + 1);
+        Map<String, Long> byFine = assessedAmounts(fines);
+        Map<String, Long> byLoan = new HashMap<>();
+        for (Fine f : fines) {
+            if (f.getLoanId() != null) {
+                byLoan.merge(f.getLoanId(), byFine.get(f.getId()), Long::sum);
+            }
+        }
+        return byLoan;
+    }
 
-        Fine fine = new Fine(id, userId, amount, false);
-        fines.add(fine);
-        storage.saveFines(fines);
-        return fine;
+    /**
+     * Reads the assessed amount of each fine from a single pass over the ledger.
+     *
+     * @param fines the current fines, used for those that predate the ledger
+     * @return assessed cents per fine ID
+     */
+    private Map<String, Long> assessedAmounts(List<Fine> fines) {
+        Map<String, Long> assessed = new HashMap<>();
+        for (FineLedgerEntry e : storage.loadFineLedger()) {
+            if (e.getType() == FineLedgerEntry.Type.ASSESSED) {
+                assessed.put(e.getFineId(), e.getAmount());
+            }
+        }
+        for (Fine f : fines) {
+            assessed.putIfAbsent(f.getId(), f.getAmount());
+        }
+        return assessed;
     }
 
     /**
      * Creates a fine for an overdue item based on media type and number of overdue days.
      */
     public Fine createFineForOverdue(String userId, MediaType mediaType, long overdueDays) {
-        double amount = fineCalculator.calculate(mediaType, overdueDays);
-        if (amount <= 0.0) {
+        long amount = fineCalculator.calculate(mediaType, overdueDays);
+        if (amount <= 0) {
             return null;
         }
         return createFine(userId, amount);
@@ -123,39 +327,82 @@ public class FineService {
 
     /**
      * Pays a portion or all of a user's outstanding fines.
+     * The payment is applied in the configured {@link PaymentOrder} and
+     * recorded as one ledger entry per fine it touches.
+     *
+     * @param userId      user ID
+     * @param amountToPay payment in cents
+     * @return the remaining balance in cents
      */
-    public double payFine(String userId, double amountToPay) {
+    public synchronized long payFine(String userId, long amountToPay) {
         if (amountToPay <= 0) {
             return getUserOutstandingBalance(userId);
         }
+        ensureLoaded();
 
-        List<Fine> fines = storage.loadFines();
-        double remainingToPay = amountToPay;
-
-        for (Fine fine : fines) {
-            if (!fine.getUserId().equals(userId) || fine.isPaid()) {
-                continue;
-            }
-
-            if (remainingToPay <= 0) break;
+        PriorityQueue<Fine> open = openFines.get(userId.trim());
+        List<Fine> touched = new ArrayList<>();
+        List<FineLedgerEntry> entries = new ArrayList<>();
+        long remainingToPay = amountToPay;
 
-            double fineAmount = fine.getAmount();
+        while (remainingToPay > 0 && open != null && !open.isEmpty()) {
+            Fine fine = open.poll();
+            long part = Math.min(remainingToPay, fine.getAmount());
+            touched.add(fine);
+            entries.add(new FineLedgerEntry(FineLedgerEntry.Type.PAID, fine.getId(),
+                    fine.getUserId(), part, null, LocalDate.now()));
+            remainingToPay -= part;
+        }
 
-            if (remainingToPay >= fineAmount) {
-                remainingToPay -= fineAmount;
-                fine.setAmount(0);
-                fine.setPaid(true);
-            } else {
-                fine.setAmount(fineAmount - remainingToPay);
-                remainingToPay = 0;
+        try {
+            storage.appendFineLedger(entries);
+        } catch (RuntimeException e) {
+            if (open != null) {
+                open.addAll(touched);
             }
+            throw e;
+        }
+        for (int i = 0; i < touched.size(); i++) {
+            settle(touched.get(i), entries.get(i).getAmount());
         }
 
-        storage.saveFines(fines);
+        long applied = amountToPay - remainingToPay;
+        if (applied > 0) {
+            adjustBalance(userId, -applied);
+            for (FineListener l : listeners) {
+                l.finePaid(userId, applied);
+            }
+        }
 
         return getUserOutstandingBalance(userId);
     }
 
+    /**
+     * Waives whatever is left of an open fine.
+     *
+     * @param fineId ID of the fine to waive
+     * @return the amount that was waived, in cents
+     * @throws IllegalArgumentException if no open fine has that ID
+     */
+    public synchronized long waiveFine(String fineId) {
+        ensureLoaded();
+        Fine fine = openById.get(fineId);
+        if (fine == null) {
+            throw new IllegalArgumentException("No open fine with ID " + fineId);
+        }
+
+        long amount = fine.getAmount();
+        storage.appendFineLedger(List.of(new FineLedgerEntry(FineLedgerEntry.Type.WAIVED, fineId,
+                fine.getUserId(), amount, null, LocalDate.now())));
+        openFines.get(fine.getUserId().trim()).remove(fine);
+        settle(fine, amount);
+        adjustBalance(fine.getUserId(), -amount);
+        for (FineListener l : listeners) {
+            l.fineWaived(fine.getUserId(), amount);
+        }
+        return amount;
+    }
+
     /**
      * Checks whether a user has any unpaid fines.
      *
@@ -163,6 +410,117 @@ public class FineService {
      * @return true if the user still owes money
      */
     public boolean hasUnpaidFines(String userId) {
-        return getUserOutstandingBalance(userId) > 0.0;
+        return getUserOutstandingBalance(userId) > 0;
+    }
+
+    /**
+     * Builds the per-user open fines and balances from storage on first use.
+     */
+    private void ensureLoaded() {
+        if (balances != null) {
+            return;
+        }
+        List<Fine> fines = storage.loadFines();
+        fineCount = fines.size();
+        balances = new HashMap<>();
+        openFines = new HashMap<>();
+        openById = new HashMap<>();
+        for (Fine f : fines) {
+            if (!f.isPaid()) {
+                balances.merge(f.getUserId().trim(), f.getAmount(), Long::sum);
+                open(f);
+            }
+        }
+        LOGGER.fine(() -> "Loaded outstanding balances for " + balances.size() + " users");
+    }
+
+    /**
+     * Adds a newly issued fine to the in-memory state.
+     * A private copy is kept so callers cannot change it.
+     *
+     * @param fine the new fine
+     */
+    private void track(Fine fine) {
+        fineCount++;
+        open(new Fine(fine.getId(), fine.getUserId(), fine.getAmount(), false, fine.getLoanId()));
+        adjustBalance(fine.getUserId(), fine.getAmount());
+    }
+
+    /**
+     * Adds an unpaid fine to its user's queue and the ID index.
+     *
+     * @param fine the unpaid fine
+     */
+    private void open(Fine fine) {
+        openFines.computeIfAbsent(fine.getUserId().trim(), k -> new PriorityQueue<>(paymentOrder)).add(fine);
+        openById.put(fine.getId(), fine);
+    }
+
+    /**
+     * Applies a payment or waiver to a fine already taken off its queue.
+     * A fine with money left goes back on the queue; a settled one is closed.
+     *
+     * @param fine   the fine
+     * @param amount amount paid or waived, in cents
+     */
+    private void settle(Fine fine, long amount) {
+        long remaining = fine.getAmount() - amount;
+        if (remaining <= 0) {
+            fine.setAmount(0);
+            fine.setPaid(true);
+            openById.remove(fine.getId());
+        } else {
+            fine.setAmount(remaining);
+            openFines.get(fine.getUserId().trim()).add(fine);
+        }
+    }
+
+    /**
+     * Returns the numeric part of a fine ID such as {@code F12}, used to order
+     * fines by age.
+     *
+     * @param fine the fine
+     * @return the fine number, or {@link Long#MAX_VALUE} if the ID has none
+     */
+    private static long fineNumber(Fine fine) {
+        String id = fine.getId();
+        long n = 0;
+        boolean digits = false;
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c >= '0' && c <= '9') {
+                n = n * 10 + (c - '0');
+                digits = true;
+            }
+        }
+        return digits ? n : Long.MAX_VALUE;
+    }
+
+    /**
+     * Builds the ledger entry recording a new fine.
+     *
+     * @param fine the new fine
+     * @return the ASSESSED entry
+     */
+    private static FineLedgerEntry assessed(Fine fine) {
+        return new FineLedgerEntry(FineLedgerEntry.Type.ASSESSED, fine.getId(), fine.getUserId(),
+                fine.getAmount(), fine.getLoanId(), LocalDate.now());
+    }
+
+    /**
+     * Adds a delta to a user's running balance.
+     * A balance that reaches zero is dropped from the map.
+     *
+     * @param userId user ID
+     * @param delta  amount in cents to add (negative for payments)
+     */
+    private void adjustBalance(String userId, long delta) {
+        String key = userId.trim();
+        long updated = balances.getOrDefault(key, 0L) + delta;
+        if (updated > 0) {
+            balances.put(key, updated);
+        } else {
+            balances.remove(key);
+        }
     }
 }
@@ -0,0 +1,84 @@
+package com.library.service;
+
+import com.library.domain.EmailMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link EmailTransport} that keeps messages in memory.
+ * <p>
+ * Used to measure reminder throughput without a network or disk in the
+ * way. Messages can optionally be discarded after counting, so long
+ * benchmark runs do not grow the heap.
+ * </p>
+ *
+ * @author Maram
+ * @version 1.0
+ */
+public class InMemoryEmailTransport implements EmailTransport {
+
+    /**
+     * Delivered messages, in delivery order.
+     */
+    private final Queue<EmailMessage> messages = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Number of messages delivered.
+     */
+    private final AtomicLong count = new AtomicLong();
+
+    /**
+     * Whether delivered messages are kept.
+     */
+    private final boolean retain;
+
+    /**
+     * Creates a transport that keeps every message.
+     */
+    public InMemoryEmailTransport() {
+        this(true);
+    }
+
+    /**
+     * Creates a transport.
+     *
+     * @param retain true to keep messages, false to only count them
+     */
+    public InMemoryEmailTransport(boolean retain) {
+        this.retain = retain;
+    }
+
+    @Override
+    public void send(EmailMessage message) {
+        if (retain) {
+            messages.add(message);
+        }
+        count.incrementAndGet();
+    }
+
+    /**
+     * @return the kept messages, in delivery order
+     */
+    public List<EmailMessage> getMessages() {
+        return new ArrayList<>(messages);
+    }
+
+    /**
+     * @return number of messages delivered
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Forgets all delivered messages.
+     */
+    public void clear() {
+        messages.clear();
+        count.set(0);
+    }
+}
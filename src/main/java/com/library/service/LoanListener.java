@@ -0,0 +1,29 @@
+package com.library.service;
+
+import com.library.domain.Loan;
+
+/**
+ * Receives loan events from {@link LoanService}.
+ * <p>
+ * Events are fired after the change has been written to storage.
+ * </p>
+ *
+ * @author Maram
+ * @version 1.0
+ */
+public interface LoanListener {
+
+    /**
+     * Called when a new loan has been created.
+     *
+     * @param loan the created loan
+     */
+    void loanCreated(Loan loan);
+
+    /**
+     * Called when a loan has been returned.
+     *
+     * @param loan the returned loan
+     */
+    void loanReturned(Loan loan);
+}
@@ -1,13 +1,19 @@
 package com.library.service;
 
 import com.library.domain.Book;
+import com.library.domain.CD;
 import com.library.domain.FileStorage;
 import com.library.domain.Loan;
 import com.library.domain.MediaType;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Service responsible for managing the borrowing, returning, and
@@ -21,6 +27,11 @@ import java.util.List;
  *     <li>Returning a book resets its availability</li>
  *     <li>Overdue loans can be detected</li>
  * </ul>
+ *
+ * <p>
+ * Checkouts and returns of books and CDs are serialized on this service, so
+ * an item can never be handed out twice by concurrent callers.
+ * </p>
 
  *
  * <p>
@@ -37,6 +48,16 @@ public class LoanService {
      */
     private final FileStorage storage;
 
+    /**
+     * Listeners notified after loans are created or returned.
+     */
+    private final List<LoanListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Whether returned records left in loans.txt have been archived.
+     */
+    private volatile boolean hotFileArchived;
+
     /**
      * Creates a LoanService instance.
      *
@@ -46,6 +67,15 @@ public class LoanService {
         this.storage = storage;
     }
 
+    /**
+     * Registers a listener for loan events.
+     *
+     * @param listener the listener to notify
+     */
+    public void addListener(LoanListener listener) {
+        listeners.add(listener);
+    }
+
     /**
      * Retrieves all loans belonging to a specific user.
      *
@@ -79,7 +109,7 @@ public class LoanService {
      * @throws IllegalArgumentException if the book ID does not exist
      * @throws IllegalStateException    if the book is already borrowed
      */
-    public Loan borrowBook(String userId, String bookId) {
+    public synchronized Loan borrowBook(String userId, String bookId) {
 
         List<Book> books = storage.loadBooks();
 
@@ -102,8 +132,8 @@ public class LoanService {
         target.setBorrowed(true);
         storage.saveBooks(books);
 
-        List<Loan> loans = storage.loadLoans();
-        String loanId = "L" + (loans.size() + 1);
+        List<Loan> loans = activeLoans();
+        String loanId = nextLoanId(loans);
 
         LocalDate borrowDate = LocalDate.now();
         LocalDate dueDate = borrowDate.plusDays(28);
@@ -120,7 +150,8 @@ public class LoanService {
         );
 
         loans.add(loan);
-        storage.saveLoans(loans);
+        storage.saveActiveLoans(loans);
+        fireLoanCreated(loan);
 
         return loan;
     }
@@ -131,15 +162,15 @@ public class LoanService {
      * Updates:
      * <ul>
      *     <li>Loan return date = today</li>
-     *     <li>Book availability = true</li>
+     *     <li>Book or CD availability = true</li>
      * </ul>
      *
      * @param loanId ID of the loan to return
      *
      * @throws IllegalArgumentException if the loan does not exist
      */
-    public void returnBook(String loanId) {
-        List<Loan> loans = storage.loadLoans();
+    public synchronized void returnBook(String loanId) {
+        List<Loan> loans = activeLoans();
         Loan targetLoan = null;
 
         for (Loan loan : loans) {
@@ -150,24 +181,167 @@ public class LoanService {
         }
 
         if (targetLoan == null) {
+            if (isArchived(loanId)) {
+                return; // Already returned
+            }
             throw new IllegalArgumentException("Loan with id " + loanId + " not found");
         }
 
-        if (targetLoan.isReturned()) {
-            return; // Already returned
-        }
-
         targetLoan.markReturned(LocalDate.now());
-        storage.saveLoans(loans);
+        storage.saveActiveLoans(loans);
+
+        releaseItems(List.of(targetLoan));
+        fireLoanReturned(targetLoan);
+    }
+
+    /**
+     * Borrows several items (books or CDs) for a user in a single operation.
+     * <p>
+     * Each ID is looked up in the book catalog first, then in the CD catalog.
+     * All items are validated before anything is changed: if any item does not
+     * exist, is already borrowed, or appears twice in the request, no loan is
+     * created. On success, each catalog file and loans.txt are written once.
+     * </p>
+     *
+     * @param userId  user who is borrowing
+     * @param itemIds IDs of the books or CDs to borrow
+     * @return the created loans, in the same order as {@code itemIds}
+     *
+     * @throws IllegalArgumentException if an item ID does not exist or is repeated
+     * @throws IllegalStateException    if an item is already borrowed
+     */
+    public synchronized List<Loan> borrowMany(String userId, List<String> itemIds) {
+        if (itemIds.isEmpty()) {
+            return List.of();
+        }
 
         List<Book> books = storage.loadBooks();
-        for (Book book : books) {
-            if (book.getId().equals(targetLoan.getBookId())) {
-                book.setBorrowed(false);
-                break;
+        Map<String, Book> booksById = new HashMap<>();
+        for (Book b : books) {
+            booksById.putIfAbsent(b.getId(), b);
+        }
+        List<CD> cds = null;
+        Map<String, CD> cdsById = new HashMap<>();
+
+        List<MediaType> types = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (String itemId : itemIds) {
+            if (!seen.add(itemId)) {
+                throw new IllegalArgumentException("Item with id " + itemId + " requested more than once");
             }
+
+            Book book = booksById.get(itemId);
+            if (book != null) {
+                if (book.isBorrowed()) {
+                    throw new IllegalStateException("Book " + itemId + " is already borrowed");
+                }
+                types.add(MediaType.BOOK);
+                continue;
+            }
+
+            if (cds == null) {
+                cds = storage.loadCds();
+                for (CD c : cds) {
+                    cdsById.putIfAbsent(c.getId(), c);
+                }
+            }
+            CD cd = cdsById.get(itemId);
+            if (cd == null) {
+                throw new IllegalArgumentException("Item with id " + itemId + " not found");
+            }
+            if (cd.isBorrowed()) {
+                throw new IllegalStateException("CD " + itemId + " is already borrowed");
+            }
+            types.add(MediaType.CD);
         }
-        storage.saveBooks(books);
+
+        List<Loan> loans = activeLoans();
+        LocalDate borrowDate = LocalDate.now();
+
+        List<Loan> created = new ArrayList<>();
+        for (int i = 0; i < itemIds.size(); i++) {
+            String itemId = itemIds.get(i);
+            MediaType type = types.get(i);
+            LocalDate dueDate;
+            if (type == MediaType.CD) {
+                cdsById.get(itemId).setBorrowed(true);
+                dueDate = borrowDate.plusDays(7);
+            } else {
+                booksById.get(itemId).setBorrowed(true);
+                dueDate = borrowDate.plusDays(28);
+            }
+
+            String loanId = nextLoanId(loans);
+            Loan loan = new Loan(loanId, userId, itemId, borrowDate, dueDate, null, type);
+            loans.add(loan);
+            created.add(loan);
+        }
+
+        if (types.contains(MediaType.BOOK)) {
+            storage.saveBooks(books);
+        }
+        if (cds != null) {
+            storage.saveCds(cds);
+        }
+        storage.saveActiveLoans(loans);
+        created.forEach(this::fireLoanCreated);
+
+        return created;
+    }
+
+    /**
+     * Returns several loans in a single operation.
+     * <p>
+     * Every loan ID is checked before anything is changed; an unknown ID aborts
+     * the whole batch. Loans that are already returned are skipped. On success,
+     * loans.txt and each affected catalog file are written exactly once.
+     * </p>
+     *
+     * @param loanIds IDs of the loans to return
+     * @return the loans that were returned by this call
+     *
+     * @throws IllegalArgumentException if any loan does not exist
+     */
+    public synchronized List<Loan> returnMany(List<String> loanIds) {
+        if (loanIds.isEmpty()) {
+            return List.of();
+        }
+
+        List<Loan> loans = activeLoans();
+        Map<String, Loan> loansById = new HashMap<>();
+        for (Loan loan : loans) {
+            loansById.putIfAbsent(loan.getId(), loan);
+        }
+
+        List<Loan> toReturn = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (String loanId : loanIds) {
+            Loan loan = loansById.get(loanId);
+            if (loan == null) {
+                if (isArchived(loanId)) {
+                    continue; // Already returned
+                }
+                throw new IllegalArgumentException("Loan with id " + loanId + " not found");
+            }
+            if (seen.add(loanId)) {
+                toReturn.add(loan);
+            }
+        }
+
+        if (toReturn.isEmpty()) {
+            return List.of();
+        }
+
+        LocalDate today = LocalDate.now();
+        for (Loan loan : toReturn) {
+            loan.markReturned(today);
+        }
+        storage.saveActiveLoans(loans);
+
+        releaseItems(toReturn);
+        toReturn.forEach(this::fireLoanReturned);
+
+        return toReturn;
     }
 
     /**
@@ -176,8 +350,17 @@ public class LoanService {
      * @return list of overdue loans
      */
     public List<Loan> getOverdueLoans() {
-        LocalDate today = LocalDate.now();
-        List<Loan> loans = storage.loadLoans();
+        return getOverdueLoans(LocalDate.now());
+    }
+
+    /**
+     * Returns a list of all loans overdue as of a given date.
+     *
+     * @param today the date to check against
+     * @return list of overdue loans
+     */
+    public List<Loan> getOverdueLoans(LocalDate today) {
+        List<Loan> loans = activeLoans();
         List<Loan> overdue = new ArrayList<>();
 
         for (Loan loan : loans) {
@@ -197,6 +380,30 @@ public class LoanService {
         return storage.loadLoans();
     }
 
+    /**
+     * Retrieves the loans that have not been returned.
+     * <p>
+     * Only the active partition is read, so the cost does not grow with
+     * loan history.
+     * </p>
+     *
+     * @return list of active loans
+     */
+    public List<Loan> getActiveLoans() {
+        return activeLoans();
+    }
+
+    /**
+     * Retrieves loans returned within a date range.
+     *
+     * @param from first return date to include
+     * @param to   last return date to include
+     * @return list of loans returned between {@code from} and {@code to}
+     */
+    public List<Loan> getLoanHistory(LocalDate from, LocalDate to) {
+        return storage.loadLoanHistory(from, to);
+    }
+
     /**
      * Checks whether a user has at least one overdue loan.
      *
@@ -205,7 +412,7 @@ public class LoanService {
      */
     public boolean hasOverdueLoans(String userId) {
         LocalDate today = LocalDate.now();
-        List<Loan> loans = storage.loadLoans();
+        List<Loan> loans = activeLoans();
 
         for (Loan loan : loans) {
 
@@ -232,7 +439,7 @@ public class LoanService {
      * @return true if the user currently holds items
      */
     public boolean hasActiveLoans(String userId) {
-        List<Loan> loans = storage.loadLoans();
+        List<Loan> loans = activeLoans();
 
         for (Loan loan : loans) {
             if (!loan.getUserId().equals(userId)) {
@@ -250,6 +457,11 @@ public class LoanService {
     /**
      * Creates a loan for a CD.
      * <p>
+     * Validates:
+     * <ul>
+     *     <li>The CD exists in the catalog</li>
+     *     <li>The CD is not already borrowed</li>
+     * </ul>
      * CD borrowing rules:
      * <ul>
      *     <li>Borrow period = 7 days</li>
@@ -258,11 +470,35 @@ public class LoanService {
      * @param userId user borrowing the CD
      * @param cdId   CD ID
      * @return the created CD {@link Loan}
+     *
+     * @throws IllegalArgumentException if the CD ID does not exist
+     * @throws IllegalStateException    if the CD is already borrowed
      */
-    public Loan borrowCd(String userId, String cdId) {
+    public synchronized Loan borrowCd(String userId, String cdId) {
+
+        List<CD> cds = storage.loadCds();
+
+        CD target = null;
+        for (CD cd : cds) {
+            if (cd.getId().equals(cdId)) {
+                target = cd;
+                break;
+            }
+        }
+
+        if (target == null) {
+            throw new IllegalArgumentException("CD with id " + cdId + " not found");
+        }
+
+        if (target.isBorrowed()) {
+            throw new IllegalStateException("CD is already borrowed");
+        }
 
-        List<Loan> loans = storage.loadLoans();
-        String loanId = "L" + (loans.size() + 1);
+        target.setBorrowed(true);
+        storage.saveCds(cds);
+
+        List<Loan> loans = activeLoans();
+        String loanId = nextLoanId(loans);
 
         LocalDate borrowDate = LocalDate.now();
         LocalDate dueDate = borrowDate.plusDays(7);
@@ -278,8 +514,114 @@ public class LoanService {
         );
 
         loans.add(loan);
-        storage.saveLoans(loans);
+        storage.saveActiveLoans(loans);
+        fireLoanCreated(loan);
 
         return loan;
     }
+
+    /**
+     * Loads the active loans, first archiving any returned records that older
+     * versions left in loans.txt.
+     *
+     * @return list of active loans
+     */
+    private List<Loan> activeLoans() {
+        if (!hotFileArchived) {
+            storage.archiveReturnedLoans();
+            hotFileArchived = true;
+        }
+        return storage.loadActiveLoans();
+    }
+
+    /**
+     * Marks the items of returned loans as available again.
+     * <p>
+     * Each catalog file is read and written at most once.
+     * </p>
+     *
+     * @param returned the loans that were just returned
+     */
+    private void releaseItems(List<Loan> returned) {
+        Set<String> bookIds = new HashSet<>();
+        Set<String> cdIds = new HashSet<>();
+        for (Loan loan : returned) {
+            if (loan.getMediaType() == MediaType.CD) {
+                cdIds.add(loan.getBookId());
+            } else {
+                bookIds.add(loan.getBookId());
+            }
+        }
+
+        if (!bookIds.isEmpty()) {
+            List<Book> books = storage.loadBooks();
+            for (Book book : books) {
+                if (bookIds.contains(book.getId())) {
+                    book.setBorrowed(false);
+                }
+            }
+            storage.saveBooks(books);
+        }
+
+        if (!cdIds.isEmpty()) {
+            List<CD> cds = storage.loadCds();
+            for (CD cd : cds) {
+                if (cdIds.contains(cd.getId())) {
+                    cd.setBorrowed(false);
+                }
+            }
+            storage.saveCds(cds);
+        }
+    }
+
+    /**
+     * Generates the next loan ID from the active and archived loan counts.
+     *
+     * @param activeLoans the active loans currently held in memory
+     * @return a new loan ID
+     */
+    private String nextLoanId(List<Loan> activeLoans) {
+        return "L" + (activeLoans.size() + storage.countArchivedLoans() + 1);
+    }
+
+    /**
+     * Checks whether a loan ID belongs to an already returned loan.
+     * <p>
+     * Reads the full history, so it is only used when a loan ID is not found
+     * among the active loans.
+     * </p>
+     *
+     * @param loanId loan ID
+     * @return true if an archived loan has this ID
+     */
+    private boolean isArchived(String loanId) {
+        for (Loan loan : storage.loadLoans()) {
+            if (loan.getId().equals(loanId) && loan.isReturned()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Notifies listeners that a loan was created.
+     *
+     * @param loan the new loan
+     */
+    private void fireLoanCreated(Loan loan) {
+        for (LoanListener l : listeners) {
+            l.loanCreated(loan);
+        }
+    }
+
+    /**
+     * Notifies listeners that a loan was returned.
+     *
+     * @param loan the returned loan
+     */
+    private void fireLoanReturned(Loan loan) {
+        for (LoanListener l : listeners) {
+            l.loanReturned(loan);
+        }
+    }
 }
@@ -0,0 +1,104 @@
+package com.library.service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token-bucket rate limiter.
+ * <p>
+ * The bucket holds up to {@code burst} tokens and refills at
+ * {@code permitsPerSecond}. Each send takes one token. When the bucket is
+ * empty, {@link #acquire()} reserves the next token and sleeps until it is
+ * due, so waiting callers are served in order at the configured rate.
+ * </p>
+ *
+ * @author Maram
+ * @version 1.0
+ */
+public class RateLimiter {
+
+    /**
+     * Time to refill one token.
+     */
+    private final double nanosPerToken;
+
+    /**
+     * Largest number of tokens the bucket holds.
+     */
+    private final double burst;
+
+    /**
+     * Tokens available; negative when callers hold reservations.
+     */
+    private double tokens;
+
+    /**
+     * Time of the last refill, from {@link System#nanoTime()}.
+     */
+    private long lastRefill;
+
+    /**
+     * Creates a limiter allowing a burst of one second's worth of permits.
+     *
+     * @param permitsPerSecond sustained rate
+     */
+    public RateLimiter(double permitsPerSecond) {
+        this(permitsPerSecond, Math.max(1, (int) permitsPerSecond));
+    }
+
+    /**
+     * Creates a limiter. The bucket starts full.
+     *
+     * @param permitsPerSecond sustained rate
+     * @param burst            number of permits that can be taken at once
+     * @throws IllegalArgumentException if the rate is not positive or the burst is less than 1
+     */
+    public RateLimiter(double permitsPerSecond, int burst) {
+        if (!(permitsPerSecond > 0) || burst < 1) {
+            throw new IllegalArgumentException("Rate must be positive and burst at least 1");
+        }
+        this.nanosPerToken = TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+        this.burst = burst;
+        this.tokens = burst;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Takes a permit, waiting until one is available.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void acquire() throws InterruptedException {
+        long waitNanos;
+        synchronized (this) {
+            refill();
+            tokens -= 1;
+            waitNanos = tokens >= 0 ? 0 : (long) (-tokens * nanosPerToken);
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Takes a permit if one is available now.
+     *
+     * @return true if a permit was taken
+     */
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    /**
+     * Adds the tokens earned since the last refill. Caller holds the lock.
+     */
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - lastRefill) / nanosPerToken);
+        lastRefill = now;
+    }
+}
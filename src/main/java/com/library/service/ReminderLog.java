@@ -0,0 +1,265 @@
+package com.library.service;
+
+import com.library.domain.FileStorage;
+import com.library.domain.Loan;
+import com.library.domain.ReminderCadence;
+import com.library.domain.ReminderRecord;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Remembers which overdue loans were reminded and when.
+ * <p>
+ * The records are loaded from reminders.txt on first use and kept in a map
+ * by loan ID, so deciding whether a loan is due for another reminder under
+ * the {@link ReminderCadence} is a single lookup. Records of loans that are
+ * no longer overdue are dropped, which keeps the file as small as the
+ * overdue list.
+ * </p>
+ *
+ * <p>
+ * Given a {@link LoanService}, the log also drops records on its own: on
+ * load it keeps only records of active loans, and it forgets a loan as soon
+ * as the loan is returned. That covers loans that stop being reminded, for
+ * example once they reach the cadence's limit.
+ * </p>
+ *
+ * <p>
+ * The log also remembers the day each loan was last sent a due-soon
+ * reminder, kept in due-soon-reminders.txt, so a restart on the same day
+ * does not remind the loan again. Only the current day's entries are kept.
+ * </p>
+ *
+ * @author Maram
+ * @version 1.0
+ */
+public class ReminderLog implements LoanListener {
+
+    /**
+     * Storage for the reminder records.
+     */
+    private final FileStorage storage;
+
+    /**
+     * Rules for how often a loan is reminded.
+     */
+    private final ReminderCadence cadence;
+
+    /**
+     * Source of the active loans whose records are kept, may be null.
+     */
+    private final LoanService loanService;
+
+    /**
+     * Records by loan ID, or null until first use.
+     */
+    private Map<String, ReminderRecord> records;
+
+    /**
+     * Date of the last due-soon reminder by loan ID, or null until first use.
+     */
+    private Map<String, LocalDate> dueSoonSent;
+
+    /**
+     * Creates a log using the default cadence.
+     *
+     * @param storage storage for the records
+     */
+    public ReminderLog(FileStorage storage) {
+        this(storage, ReminderCadence.defaults());
+    }
+
+    /**
+     * Creates a log.
+     *
+     * @param storage storage for the records
+     * @param cadence rules for how often a loan is reminded
+     */
+    public ReminderLog(FileStorage storage, ReminderCadence cadence) {
+        this(storage, cadence, null);
+    }
+
+    /**
+     * Creates a log that drops the records of returned loans and registers
+     * it for loan events.
+     *
+     * @param storage     storage for the records
+     * @param cadence     rules for how often a loan is reminded
+     * @param loanService loan service to observe, may be null
+     */
+    public ReminderLog(FileStorage storage, ReminderCadence cadence, LoanService loanService) {
+        this.storage = storage;
+        this.cadence = cadence;
+        this.loanService = loanService;
+        if (loanService != null) {
+            loanService.addListener(this);
+        }
+    }
+
+    /**
+     * Tells whether a loan should be reminded today.
+     *
+     * @param loanId the loan ID
+     * @param today  the current date
+     * @return true if a reminder is due under the cadence
+     */
+    public synchronized boolean isDue(String loanId, LocalDate today) {
+        return cadence.isDue(records().get(loanId), today);
+    }
+
+    /**
+     * Records that the given loans were reminded.
+     *
+     * @param loanIds the reminded loans
+     * @param today   the date they were reminded
+     */
+    public synchronized void recordSent(Collection<String> loanIds, LocalDate today) {
+        Map<String, ReminderRecord> r = records();
+        for (String id : loanIds) {
+            r.computeIfAbsent(id, k -> new ReminderRecord(k, today, 0)).sent(today);
+        }
+    }
+
+    /**
+     * Drops the records of every loan not in the given set.
+     *
+     * @param loanIds loans whose records are kept
+     */
+    public synchronized void retainOnly(Set<String> loanIds) {
+        records().keySet().retainAll(loanIds);
+    }
+
+    /**
+     * Returns the loans already reminded whose next reminder is due.
+     *
+     * @param today the current date
+     * @return IDs of loans due for a repeat reminder
+     */
+    public synchronized List<String> getDueRepeats(LocalDate today) {
+        List<String> due = new ArrayList<>();
+        for (ReminderRecord r : records().values()) {
+            if (cadence.isDue(r, today)) {
+                due.add(r.getLoanId());
+            }
+        }
+        return due;
+    }
+
+    /**
+     * Drops the records of the given loans.
+     *
+     * @param loanIds loans whose records are dropped
+     */
+    public synchronized void forget(Collection<String> loanIds) {
+        records().keySet().removeAll(loanIds);
+    }
+
+    @Override
+    public void loanCreated(Loan loan) {
+    }
+
+    @Override
+    public synchronized void loanReturned(Loan loan) {
+        if (records != null) {
+            records.remove(loan.getId());
+        }
+        if (dueSoonSent != null) {
+            dueSoonSent.remove(loan.getId());
+        }
+    }
+
+    /**
+     * Tells whether a loan was already sent a due-soon reminder today.
+     *
+     * @param loanId the loan ID
+     * @param today  the current date
+     * @return true if the loan was reminded on or after today
+     */
+    public synchronized boolean wasDueSoonSent(String loanId, LocalDate today) {
+        LocalDate sent = dueSoonSent().get(loanId);
+        return sent != null && !sent.isBefore(today);
+    }
+
+    /**
+     * Records that the given loans were sent a due-soon reminder, dropping
+     * the entries of earlier days.
+     *
+     * @param loanIds the reminded loans
+     * @param today   the date they were reminded
+     */
+    public synchronized void recordDueSoonSent(Collection<String> loanIds, LocalDate today) {
+        Map<String, LocalDate> sent = dueSoonSent();
+        sent.values().removeIf(date -> date.isBefore(today));
+        for (String id : loanIds) {
+            sent.put(id, today);
+        }
+    }
+
+    /**
+     * Returns the IDs of all loans with a record.
+     *
+     * @return loan IDs
+     */
+    public synchronized Set<String> getLoanIds() {
+        return new HashSet<>(records().keySet());
+    }
+
+    /**
+     * Returns the record of a loan.
+     *
+     * @param loanId the loan ID
+     * @return the record, or null if the loan was never reminded
+     */
+    public synchronized ReminderRecord get(String loanId) {
+        return records().get(loanId);
+    }
+
+    /**
+     * Writes the records and due-soon reminder dates to storage.
+     */
+    public synchronized void save() {
+        if (records != null) {
+            storage.saveReminderLog(new ArrayList<>(records.values()));
+        }
+        if (dueSoonSent != null) {
+            storage.saveDueSoonReminders(dueSoonSent);
+        }
+    }
+
+    /**
+     * Returns the records, loading them on first use.
+     */
+    private Map<String, ReminderRecord> records() {
+        if (records == null) {
+            records = new HashMap<>();
+            for (ReminderRecord r : storage.loadReminderLog()) {
+                records.put(r.getLoanId(), r);
+            }
+            if (loanService != null && !records.isEmpty()) {
+                Set<String> active = new HashSet<>();
+                for (Loan loan : loanService.getActiveLoans()) {
+                    active.add(loan.getId());
+                }
+                records.keySet().retainAll(active);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Returns the due-soon reminder dates, loading them on first use.
+     */
+    private Map<String, LocalDate> dueSoonSent() {
+        if (dueSoonSent == null) {
+            dueSoonSent = new HashMap<>(storage.loadDueSoonReminders());
+        }
+        return dueSoonSent;
+    }
+}
@@ -0,0 +1,214 @@
+package com.library.service;
+
+import com.library.domain.FileStorage;
+import com.library.domain.Fine;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs the overdue reminder and fine jobs in the background on a fixed cadence.
+ * <p>
+ * Once a day, the first run assesses fines for newly overdue loans with the
+ * nightly {@link FineAssessmentJob}. Each run then accrues fines through
+ * {@link FineAccrualService}, which only visits loans whose fine can change
+ * and counts the job's fines as already charged, and then sends overdue
+ * reminders for the loans that became overdue since the previous run. The date of the last
+ * run is kept as a watermark in watermarks.txt, so after a restart the
+ * scheduler carries on where it stopped. The first run, with no watermark,
+ * sends reminders for the full overdue set once.
+ * </p>
+ *
+ * <p>
+ * A run that fails is logged and retried on the next tick; the watermark
+ * only moves after the reminders have been handed off.
+ * </p>
+ *
+ * @author Maram
+ * @version 1.0
+ */
+public class ReminderScheduler implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(ReminderScheduler.class.getName());
+
+    /**
+     * Time between two runs by default.
+     */
+    public static final Duration DEFAULT_INTERVAL = Duration.ofHours(1);
+
+    /**
+     * Watermark name of the overdue reminder job.
+     */
+    static final String OVERDUE_REMINDERS = "overdue-reminders";
+
+    /**
+     * Watermark name of the nightly fine assessment job.
+     */
+    static final String FINE_ASSESSMENT = "fine-assessment";
+
+    /**
+     * Storage for the watermarks.
+     */
+    private final FileStorage storage;
+
+    /**
+     * Service sending the reminders.
+     */
+    private final ReminderService reminderService;
+
+    /**
+     * Service accruing the fines, may be null.
+     */
+    private final FineAccrualService fineAccrualService;
+
+    /**
+     * Job assessing fines once a day, may be null.
+     */
+    private final FineAssessmentJob fineAssessmentJob;
+
+    /**
+     * Time between two runs.
+     */
+    private final Duration interval;
+
+    /**
+     * Executor running the jobs, or null when stopped.
+     */
+    private ScheduledExecutorService executor;
+
+    /**
+     * Creates a scheduler.
+     *
+     * @param storage            storage for the watermarks
+     * @param reminderService    service sending the reminders
+     * @param fineAccrualService service accruing the fines, may be null to skip fines
+     * @param interval           time between two runs
+     * @throws IllegalArgumentException if {@code interval} is not positive
+     */
+    public ReminderScheduler(FileStorage storage, ReminderService reminderService,
+                             FineAccrualService fineAccrualService, Duration interval) {
+        this(storage, reminderService, null, fineAccrualService, interval);
+    }
+
+    /**
+     * Creates a scheduler that also runs the nightly fine assessment.
+     *
+     * @param storage            storage for the watermarks
+     * @param reminderService    service sending the reminders
+     * @param fineAssessmentJob  job run on the first run of each day, may be null
+     * @param fineAccrualService service accruing the fines, may be null to skip fines
+     * @param interval           time between two runs
+     * @throws IllegalArgumentException if {@code interval} is not positive
+     */
+    public ReminderScheduler(FileStorage storage, ReminderService reminderService,
+                             FineAssessmentJob fineAssessmentJob, FineAccrualService fineAccrualService,
+                             Duration interval) {
+        if (interval.isZero() || interval.isNegative()) {
+            throw new IllegalArgumentException("Scheduler interval must be positive");
+        }
+        this.storage = storage;
+        this.reminderService = reminderService;
+        this.fineAccrualService = fineAccrualService;
+        this.fineAssessmentJob = fineAssessmentJob;
+        this.interval = interval;
+    }
+
+    /**
+     * Starts running the jobs, the first run immediately.
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "reminder-scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.scheduleWithFixedDelay(this::runSafely, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the scheduler, letting a run in progress finish.
+     */
+    @Override
+    public synchronized void close() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor = null;
+    }
+
+    /**
+     * Runs the fine and reminder jobs once as of the given date.
+     *
+     * @param today the current date
+     * @return number of reminder emails sent, or queued when an outbox is used
+     */
+    public synchronized int runOnce(LocalDate today) {
+        if (fineAssessmentJob != null) {
+            Map<String, LocalDate> watermarks = storage.loadWatermarks();
+            LocalDate assessed = watermarks.get(FINE_ASSESSMENT);
+            if (assessed == null || today.isAfter(assessed)) {
+                List<Fine> fines = fineAssessmentJob.run(today);
+                if (!fines.isEmpty()) {
+                    LOGGER.info("Assessed " + fines.size() + " fine(s)");
+                }
+                watermarks.put(FINE_ASSESSMENT, today);
+                storage.saveWatermarks(watermarks);
+            }
+        }
+        if (fineAccrualService != null) {
+            List<Fine> fines = fineAccrualService.run(today);
+            if (!fines.isEmpty()) {
+                LOGGER.info("Posted " + fines.size() + " accrued fine(s)");
+            }
+        }
+
+        Map<String, LocalDate> watermarks = storage.loadWatermarks();
+        LocalDate since = watermarks.get(OVERDUE_REMINDERS);
+        int sent = since == null
+                ? reminderService.sendOverdueReminders(today)
+                : reminderService.sendOverdueRemindersSince(since, today);
+
+        if (since == null || today.isAfter(since)) {
+            watermarks.put(OVERDUE_REMINDERS, today);
+            storage.saveWatermarks(watermarks);
+        }
+        if (sent > 0) {
+            LOGGER.info("Sent " + sent + " overdue reminder(s)");
+        }
+        return sent;
+    }
+
+    /**
+     * @return the date the reminder job last processed up to, or null if it never ran
+     */
+    public LocalDate getWatermark() {
+        return storage.loadWatermarks().get(OVERDUE_REMINDERS);
+    }
+
+    /**
+     * Runs the jobs as of today, logging any failure so later runs still happen.
+     */
+    private void runSafely() {
+        try {
+            runOnce(LocalDate.now());
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Scheduled reminder run failed", e);
+        }
+    }
+}
@@ -1,24 +1,41 @@
 package com.library.service;
 
+import com.library.domain.EmailMessage;
+import com.library.domain.EmailTemplates;
 import com.library.domain.Loan;
+import com.library.domain.MediaType;
 import com.library.domain.User;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Service responsible for sending reminder emails to users
- * who have overdue loans.
+ * who have overdue loans or loans coming due.
  * <p>
  * This class collaborates with:
  * <ul>
  *     <li>{@link LoanService} – to retrieve overdue loans</li>
  *     <li>{@link UserService} – to look up user information</li>
  *     <li>{@link EmailService} – to send the email notifications</li>
+ *     <li>{@link EmailOutbox} – optionally, to queue them for concurrent, rate-limited background delivery</li>
  * </ul>
 
  *
  * <p>
- * Each overdue loan generates exactly one email notice.
+ * Each run sends one digest email per user listing all of that user's
+ * matching loans, with the users looked up in a single read. Due-soon
+ * notices are found through a {@link DueDateIndex} and cover each loan at
+ * most once per day, so the run can be repeated hourly. Overdue reminders
+ * can be throttled by a {@link ReminderLog}, so rerunning them only reaches
+ * loans whose next reminder is due. Email text comes from
+ * {@link EmailTemplates}.
  * </p>
  *
  * @author Maram
@@ -41,6 +58,32 @@ public class ReminderService {
      */
     private final EmailService emailService;
 
+    /**
+     * Outbox reminders are queued on, or null to send them inline.
+     */
+    private final EmailOutbox outbox;
+
+    /**
+     * Active loans ordered by due date, for due-soon reminders.
+     */
+    private final DueDateIndex dueDateIndex;
+
+    /**
+     * Date a due-soon reminder was last sent, per loan ID, when there is no
+     * {@link ReminderLog} to keep it.
+     */
+    private final Map<String, LocalDate> dueSoonSent = new HashMap<>();
+
+    /**
+     * History of overdue reminders, or null to remind every overdue loan on every run.
+     */
+    private final ReminderLog reminderLog;
+
+    /**
+     * Templates the digests are rendered from.
+     */
+    private final EmailTemplates templates;
+
     /**
      * Creates a new ReminderService using the given dependencies.
      *
@@ -49,48 +92,297 @@ public class ReminderService {
      * @param emailService email sending service
      */
     public ReminderService(LoanService loanService, UserService userService, EmailService emailService) {
+        this(loanService, userService, emailService, null);
+    }
+
+    /**
+     * Creates a ReminderService that queues reminders on an outbox instead of
+     * sending them inline, so a run returns without waiting for SMTP.
+     *
+     * @param loanService  loan management service
+     * @param userService  user management service
+     * @param emailService email sending service, used when {@code outbox} is null
+     * @param outbox       outbox to queue reminders on, may be null
+     */
+    public ReminderService(LoanService loanService, UserService userService,
+                           EmailService emailService, EmailOutbox outbox) {
+        this(loanService, userService, emailService, outbox, null);
+    }
+
+    /**
+     * Creates a ReminderService that consults a reminder log so repeated
+     * runs only remind loans whose next reminder is due.
+     *
+     * @param loanService  loan management service
+     * @param userService  user management service
+     * @param emailService email sending service, used when {@code outbox} is null
+     * @param outbox       outbox to queue reminders on, may be null
+     * @param reminderLog  history of overdue reminders, may be null
+     */
+    public ReminderService(LoanService loanService, UserService userService,
+                           EmailService emailService, EmailOutbox outbox, ReminderLog reminderLog) {
+        this(loanService, userService, emailService, outbox, reminderLog, EmailTemplates.defaults());
+    }
+
+    /**
+     * Creates a ReminderService rendering its emails from the given templates.
+     *
+     * @param loanService  loan management service
+     * @param userService  user management service
+     * @param emailService email sending service, used when {@code outbox} is null
+     * @param outbox       outbox to queue reminders on, may be null
+     * @param reminderLog  history of overdue reminders, may be null
+     * @param templates    templates for the reminder emails
+     */
+    public ReminderService(LoanService loanService, UserService userService,
+                           EmailService emailService, EmailOutbox outbox, ReminderLog reminderLog,
+                           EmailTemplates templates) {
         this.loanService = loanService;
         this.userService = userService;
         this.emailService = emailService;
+        this.outbox = outbox;
+        this.reminderLog = reminderLog;
+        this.templates = templates;
+        this.dueDateIndex = new DueDateIndex(loanService);
     }
 
     /**
-     * Sends reminder emails for all overdue loans.
+     * Sends one digest email per user listing all of the user's overdue loans.
      * <p>
      * Steps:
      * <ol>
-     *     <li>Fetch all overdue loans</li>
-     *     <li>Find the user for each overdue loan</li>
-     *     <li>Send a personalized reminder email</li>
-     *     <li>Count how many reminders were sent</li>
+     *     <li>Fetch all overdue loans and keep those due for a reminder</li>
+     *     <li>Group them by user</li>
+     *     <li>Look up all those users with one read</li>
+     *     <li>Send each user a digest of their overdue items</li>
+     *     <li>Count how many digests were sent</li>
      * </ol>
 
      *
-     * @return number of reminder emails successfully sent
+     * @return number of reminder emails sent, or queued when an outbox is used
+     * @see #sendOverdueReminders(LocalDate)
      */
     public int sendOverdueReminders() {
+        return sendOverdueReminders(LocalDate.now());
+    }
 
-        List<Loan> overdue = loanService.getOverdueLoans();
-        int count = 0;
+    /**
+     * Sends overdue digests as of the given date.
+     * <p>
+     * With a {@link ReminderLog}, a loan is only included when its cadence
+     * says a reminder is due, and the log is updated and saved after the
+     * digests are handed off. Records of loans no longer overdue are dropped.
+     * </p>
+     *
+     * @param today the current date
+     * @return number of reminder emails sent, or queued when an outbox is used
+     */
+    public synchronized int sendOverdueReminders(LocalDate today) {
+        List<Loan> overdue = loanService.getOverdueLoans(today);
+        if (reminderLog != null) {
+            Set<String> overdueIds = new HashSet<>();
+            List<Loan> due = new ArrayList<>();
+            for (Loan loan : overdue) {
+                overdueIds.add(loan.getId());
+                if (reminderLog.isDue(loan.getId(), today)) {
+                    due.add(loan);
+                }
+            }
+            reminderLog.retainOnly(overdueIds);
+            overdue = due;
+        }
+        return remindOverdue(overdue, today);
+    }
 
-        for (Loan loan : overdue) {
+    /**
+     * Sends overdue digests for loans that became overdue after the given
+     * date, without reading the full overdue set.
+     * <p>
+     * A loan is overdue from the day after its due date, so the loans that
+     * became overdue since {@code since} are those due from {@code since}
+     * to the day before {@code today}; they are found with a range lookup
+     * on the {@link DueDateIndex}. With a {@link ReminderLog}, loans the log
+     * says are due for a repeat reminder are included too, looked up by ID.
+     * Every run also drops the log's records of loans that are no longer
+     * active, whether or not they are due for a repeat.
+     * </p>
+     *
+     * @param since the date of the previous run
+     * @param today the current date
+     * @return number of reminder emails sent, or queued when an outbox is used
+     */
+    public synchronized int sendOverdueRemindersSince(LocalDate since, LocalDate today) {
+        Map<String, Loan> candidates = new LinkedHashMap<>();
+        for (Loan loan : dueDateIndex.getLoansDueBetween(since, today.minusDays(1))) {
+            candidates.put(loan.getId(), loan);
+        }
+
+        if (reminderLog != null) {
+            Set<String> returned = reminderLog.getLoanIds();
+            for (Loan loan : dueDateIndex.getLoans(returned)) {
+                returned.remove(loan.getId());
+            }
+            reminderLog.forget(returned);
+
+            List<String> repeats = reminderLog.getDueRepeats(today);
+            for (Loan loan : dueDateIndex.getLoans(repeats)) {
+                candidates.putIfAbsent(loan.getId(), loan);
+            }
+            candidates.values().removeIf(loan -> !reminderLog.isDue(loan.getId(), today));
+        }
+        return remindOverdue(new ArrayList<>(candidates.values()), today);
+    }
 
-            User user = userService.findById(loan.getUserId());
-            if (user == null) continue;
+    /**
+     * Sends one overdue digest per user for the given loans and records them
+     * in the reminder log.
+     */
+    private int remindOverdue(List<Loan> overdue, LocalDate today) {
+        Map<User, List<Loan>> digests = groupByUser(overdue);
+
+        List<EmailMessage> messages = new ArrayList<>(digests.size());
+        for (Map.Entry<User, List<Loan>> digest : digests.entrySet()) {
+            messages.add(digest(EmailTemplates.OVERDUE, digest.getKey(), digest.getValue()));
+        }
 
-            String subject = "Library Overdue Book Reminder";
-            String body =
-                    "Dear " + user.getName() + ",\n\n" +
-                            "This is a reminder that your loan (Book ID: " + loan.getBookId() + ") is overdue.\n" +
-                            "Borrowed on: " + loan.getBorrowDate() + "\n" +
-                            "Due on: " + loan.getDueDate() + "\n\n" +
-                            "Please return the book as soon as possible.\n\n" +
-                            "Best regards,\nLibrary System";
+        deliver(messages);
+        if (reminderLog != null) {
+            List<String> reminded = new ArrayList<>();
+            for (List<Loan> loans : digests.values()) {
+                for (Loan loan : loans) {
+                    reminded.add(loan.getId());
+                }
+            }
+            reminderLog.recordSent(reminded, today);
+            reminderLog.save();
+        }
+        return messages.size();
+    }
+
+    /**
+     * Sends reminder emails for loans due within the next given number of days.
+     *
+     * @param days size of the window after today, in days
+     * @return number of reminder emails sent or queued
+     * @see #sendDueSoonReminders(int, LocalDate)
+     */
+    public int sendDueSoonReminders(int days) {
+        return sendDueSoonReminders(days, LocalDate.now());
+    }
+
+    /**
+     * Sends reminder emails for loans due between today and
+     * {@code today + days}, inclusive.
+     * <p>
+     * Loans are taken from a range query on the due-date index rather than a
+     * scan of all loans. A loan already reminded today is skipped, so repeated
+     * runs on the same day only reach loans that entered the window since.
+     * With a {@link ReminderLog}, the reminded loans are saved with it and
+     * stay skipped after a restart.
+     * </p>
+     *
+     * @param days  size of the window after today, in days
+     * @param today the date the window starts on
+     * @return number of reminder emails sent or queued
+     * @throws IllegalArgumentException if {@code days} is negative
+     */
+    public synchronized int sendDueSoonReminders(int days, LocalDate today) {
+        if (days < 0) {
+            throw new IllegalArgumentException("Reminder window cannot be negative");
+        }
+        dueSoonSent.values().removeIf(sent -> sent.isBefore(today));
 
-            emailService.sendEmail(user.getEmail(), subject, body);
-            count++;
+        List<Loan> due = new ArrayList<>();
+        for (Loan loan : dueDateIndex.getLoansDueBetween(today, today.plusDays(days))) {
+            boolean sent = reminderLog != null
+                    ? reminderLog.wasDueSoonSent(loan.getId(), today)
+                    : dueSoonSent.containsKey(loan.getId());
+            if (!sent) {
+                due.add(loan);
+            }
         }
 
-        return count;
+        List<EmailMessage> messages = new ArrayList<>();
+        List<String> reminded = new ArrayList<>();
+        for (Map.Entry<User, List<Loan>> digest : groupByUser(due).entrySet()) {
+            messages.add(digest(EmailTemplates.DUE_SOON, digest.getKey(), digest.getValue()));
+            for (Loan loan : digest.getValue()) {
+                reminded.add(loan.getId());
+            }
+        }
+
+        deliver(messages);
+        if (reminderLog != null) {
+            reminderLog.recordDueSoonSent(reminded, today);
+            reminderLog.save();
+        } else {
+            for (String loanId : reminded) {
+                dueSoonSent.put(loanId, today);
+            }
+        }
+        return messages.size();
+    }
+
+    /**
+     * Groups loans by user, resolving all users with one lookup.
+     * Loans whose user no longer exists are dropped.
+     *
+     * @param loans loans to group
+     * @return loans per user, in order of each user's first loan
+     */
+    private Map<User, List<Loan>> groupByUser(List<Loan> loans) {
+        Map<String, List<Loan>> byUserId = new LinkedHashMap<>();
+        for (Loan loan : loans) {
+            byUserId.computeIfAbsent(loan.getUserId(), id -> new ArrayList<>()).add(loan);
+        }
+
+        Map<String, User> users = userService.findByIds(byUserId.keySet());
+        Map<User, List<Loan>> byUser = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Loan>> e : byUserId.entrySet()) {
+            User user = users.get(e.getKey());
+            if (user != null) {
+                byUser.put(user, e.getValue());
+            }
+        }
+        return byUser;
+    }
+
+    /**
+     * Renders a digest email listing a user's loans. The media-type template
+     * is used when all loans share a media type.
+     */
+    private EmailMessage digest(String kind, User user, List<Loan> loans) {
+        MediaType type = loans.get(0).getMediaType();
+        List<Map<String, Object>> items = new ArrayList<>(loans.size());
+        for (Loan loan : loans) {
+            if (loan.getMediaType() != type) {
+                type = null;
+            }
+            items.add(Map.of(
+                    "itemId", loan.getBookId(),
+                    "borrowDate", loan.getBorrowDate(),
+                    "dueDate", loan.getDueDate(),
+                    "mediaType", loan.getMediaType()));
+        }
+        return templates.render(kind, type, user.getEmail(), Map.of(
+                "name", user.getName(),
+                "loans", items));
+    }
+
+    /**
+     * Queues reminders on the outbox with one journal write, or sends them
+     * inline if there is no outbox.
+     */
+    private void deliver(List<EmailMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        if (outbox != null) {
+            outbox.enqueueAll(messages);
+        } else {
+            for (EmailMessage m : messages) {
+                emailService.sendEmail(m.getTo(), m.getSubject(), m.getBody());
+            }
+        }
     }
 }
@@ -0,0 +1,277 @@
+package com.library.service;
+
+import com.library.domain.EmailMessage;
+
+import com.sun.mail.smtp.SMTPSendFailedException;
+
+import javax.mail.SendFailedException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link EmailTransport} that keeps a slow or failing mail relay from
+ * stalling its callers.
+ * <p>
+ * Sends run on a dedicated, bounded pool of threads (a bulkhead), so email
+ * can never take more than {@code maxConcurrent} threads plus a short
+ * queue. A caller waits at most {@code sendTimeout} for its send. A
+ * {@link CircuitBreaker} counts failed and timed-out sends; while it is
+ * open, sends are refused at once.
+ * </p>
+ *
+ * <p>
+ * A refused send (circuit open or bulkhead full) throws
+ * {@link EmailUnavailableException}. The message was not attempted, so the
+ * caller can queue it for later. Rejected addresses are problems with the
+ * message, not the relay, and do not count against the breaker.
+ * </p>
+ *
+ * @author Maram
+ * @version 1.0
+ */
+public class ResilientEmailTransport implements EmailTransport {
+
+    /**
+     * Consecutive failures that open the circuit by default.
+     */
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+
+    /**
+     * Time the circuit stays open by default.
+     */
+    public static final Duration DEFAULT_OPEN_DURATION = Duration.ofSeconds(30);
+
+    /**
+     * Longest time a caller waits for a send by default.
+     */
+    public static final Duration DEFAULT_SEND_TIMEOUT = Duration.ofSeconds(15);
+
+    /**
+     * Sends that may wait for a bulkhead thread by default.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 16;
+
+    /**
+     * Delay suggested to callers refused because the bulkhead is full.
+     */
+    static final Duration BULKHEAD_RETRY_AFTER = Duration.ofSeconds(1);
+
+    /**
+     * Transport doing the actual delivery.
+     */
+    private final EmailTransport delegate;
+
+    /**
+     * Breaker tracking the health of the relay.
+     */
+    private final CircuitBreaker breaker;
+
+    /**
+     * Longest time a caller waits for a send.
+     */
+    private final Duration sendTimeout;
+
+    /**
+     * Bounded pool the sends run on.
+     */
+    private final ThreadPoolExecutor bulkhead;
+
+    /**
+     * Creates a transport with the default threshold, open duration, timeout and queue.
+     *
+     * @param delegate      transport doing the actual delivery
+     * @param maxConcurrent number of sends running at once
+     */
+    public ResilientEmailTransport(EmailTransport delegate, int maxConcurrent) {
+        this(delegate, new CircuitBreaker(DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_DURATION),
+                maxConcurrent, DEFAULT_QUEUE_CAPACITY, DEFAULT_SEND_TIMEOUT);
+    }
+
+    /**
+     * Creates a transport.
+     *
+     * @param delegate      transport doing the actual delivery
+     * @param breaker       breaker tracking the health of the relay
+     * @param maxConcurrent number of sends running at once
+     * @param queueCapacity number of sends that may wait for a thread
+     * @param sendTimeout   longest time a caller waits for a send
+     * @throws IllegalArgumentException if {@code maxConcurrent} is less than 1,
+     *                                  {@code queueCapacity} is negative or the timeout is not positive
+     */
+    public ResilientEmailTransport(EmailTransport delegate, CircuitBreaker breaker, int maxConcurrent,
+                                   int queueCapacity, Duration sendTimeout) {
+        if (maxConcurrent < 1 || queueCapacity < 0 || sendTimeout.isZero() || sendTimeout.isNegative()) {
+            throw new IllegalArgumentException(
+                    "Bulkhead needs at least one thread, a non-negative queue and a positive timeout");
+        }
+        this.delegate = delegate;
+        this.breaker = breaker;
+        this.sendTimeout = sendTimeout;
+
+        AtomicInteger threads = new AtomicInteger();
+        this.bulkhead = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 60, TimeUnit.SECONDS,
+                queueCapacity == 0 ? new SynchronousQueue<>() : new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "email-bulkhead-" + threads.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.bulkhead.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Sends a message through the bulkhead, waiting at most the send timeout.
+     *
+     * @param message the message
+     * @throws EmailUnavailableException if the circuit is open or the bulkhead is full
+     * @throws RuntimeException          if the send fails or times out
+     */
+    @Override
+    public void send(EmailMessage message) {
+        long permit = acquire();
+        Future<?> result = submit(permit, () -> {
+            delegate.send(message);
+            return null;
+        });
+
+        try {
+            result.get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            breaker.recordSuccess(permit);
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            breaker.recordFailure(permit);
+            throw new RuntimeException("Email send timed out after " + sendTimeout.toMillis() + " ms", e);
+        } catch (ExecutionException e) {
+            RuntimeException cause = e.getCause() instanceof RuntimeException r
+                    ? r : new RuntimeException("Failed to send email", e.getCause());
+            if (isRejectedAddress(cause)) {
+                breaker.recordSuccess(permit);
+            } else {
+                breaker.recordFailure(permit);
+            }
+            throw cause;
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            breaker.release(permit);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while sending email", e);
+        }
+    }
+
+    /**
+     * Sends a batch as one call through the breaker and the bulkhead, so the
+     * delegate can reuse its connection for the whole batch. The caller
+     * waits at most the send timeout for each message. The batch counts as
+     * a single failure against the breaker if no message got through.
+     * <p>
+     * If the batch is refused, times out or is interrupted, every message is
+     * reported as not delivered, even though some may have been.
+     * </p>
+     *
+     * @param messages the messages
+     * @return the messages that could not be delivered, in order
+     */
+    @Override
+    public List<EmailMessage> sendAll(List<EmailMessage> messages) {
+        if (messages.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Future<List<EmailMessage>> result;
+        long permit;
+        try {
+            permit = acquire();
+            result = submit(permit, () -> delegate.sendAll(messages));
+        } catch (EmailUnavailableException e) {
+            return new ArrayList<>(messages);
+        }
+
+        try {
+            List<EmailMessage> failed = result.get(
+                    sendTimeout.toMillis() * messages.size(), TimeUnit.MILLISECONDS);
+            if (failed.size() < messages.size()) {
+                breaker.recordSuccess(permit);
+            } else {
+                breaker.recordFailure(permit);
+            }
+            return failed;
+        } catch (TimeoutException | ExecutionException e) {
+            result.cancel(true);
+            breaker.recordFailure(permit);
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            breaker.release(permit);
+            Thread.currentThread().interrupt();
+        }
+        return new ArrayList<>(messages);
+    }
+
+    /**
+     * Stops the bulkhead, waiting briefly for sends in progress, and closes
+     * the underlying transport.
+     */
+    @Override
+    public void close() {
+        bulkhead.shutdown();
+        try {
+            bulkhead.awaitTermination(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        delegate.close();
+    }
+
+    /**
+     * @return breaker tracking the health of the relay
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return breaker;
+    }
+
+    /**
+     * Asks the breaker for a permit.
+     *
+     * @throws EmailUnavailableException if the circuit is open
+     */
+    private long acquire() {
+        long permit = breaker.tryAcquire();
+        if (permit == CircuitBreaker.NO_PERMIT) {
+            throw new EmailUnavailableException("Email relay circuit is open", breaker.getRetryAfter());
+        }
+        return permit;
+    }
+
+    /**
+     * Hands a send to the bulkhead, giving the permit back if it is full.
+     *
+     * @throws EmailUnavailableException if the bulkhead is full
+     */
+    private <T> Future<T> submit(long permit, Callable<T> send) {
+        try {
+            return bulkhead.submit(send);
+        } catch (RejectedExecutionException e) {
+            breaker.release(permit);
+            throw new EmailUnavailableException("Email bulkhead is full", BULKHEAD_RETRY_AFTER);
+        }
+    }
+
+    /**
+     * Tells whether a failure was the relay refusing the message's
+     * addresses, which says nothing about the relay's health. A send failure
+     * with no reply code is a dropped connection, not a refusal.
+     */
+    private static boolean isRejectedAddress(RuntimeException e) {
+        return e.getCause() instanceof SendFailedException failed
+                && !(failed instanceof SMTPSendFailedException smtp && smtp.getReturnCode() < 0);
+    }
+}
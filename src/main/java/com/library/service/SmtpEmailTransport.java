@@ -0,0 +1,400 @@
+package com.library.service;
+
+import com.library.domain.EmailMessage;
+
+import com.sun.mail.smtp.SMTPSendFailedException;
+
+import javax.mail.*;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * {@link EmailTransport} that delivers through an SMTP relay using STARTTLS.
+ * <p>
+ * One mail {@link Session} is created for the life of the transport, and
+ * connected {@link Transport} objects are kept in a small pool so that many
+ * messages are sent over each connection instead of opening a new TLS
+ * connection per message. A connection that fails while sending is closed
+ * and replaced, and the message is retried once on the new connection.
+ * </p>
+ *
+ * <p>
+ * The pool size caps the connections open at once, idle or in use; a sender
+ * that finds them all busy waits for one to be returned. Once the transport
+ * is closed, returned connections are closed too and no new ones are opened.
+ * </p>
+ *
+ * @author Maram
+ * @version 1.0
+ */
+public class SmtpEmailTransport implements EmailTransport {
+
+    private static final Logger LOGGER = Logger.getLogger(SmtpEmailTransport.class.getName());
+
+    /**
+     * Number of connections kept open by default.
+     */
+    public static final int DEFAULT_POOL_SIZE = 2;
+
+    /**
+     * Connect, read and write timeout of the SMTP socket. Without it JavaMail
+     * waits forever on a relay that stops answering.
+     */
+    static final int SOCKET_TIMEOUT_MILLIS = 10_000;
+
+    /**
+     * How long a sender waiting for a connection sleeps between checks.
+     */
+    private static final long WAIT_SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final String username;
+    private final String password;
+
+    /**
+     * SMTP relay host.
+     */
+    private final String host;
+
+    /**
+     * SMTP relay port.
+     */
+    private final int port;
+
+    /**
+     * Mail session shared by all messages and connections.
+     */
+    private final Session session;
+
+    /**
+     * Connected transports waiting to be reused.
+     */
+    private final BlockingQueue<Transport> idle;
+
+    /**
+     * One permit per connection that may still be opened.
+     */
+    private final Semaphore permits;
+
+    /**
+     * Set once {@link #close()} has been called.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Creates a transport.
+     *
+     * @param host     SMTP relay host
+     * @param port     SMTP relay port
+     * @param username sender account
+     * @param password sender password
+     * @param poolSize maximum number of connections open at once
+     * @throws IllegalArgumentException if {@code poolSize} is less than 1
+     */
+    public SmtpEmailTransport(String host, int port, String username, String password, int poolSize) {
+        if (poolSize < 1) {
+            throw new IllegalArgumentException("Connection pool size must be at least 1");
+        }
+        this.host = host;
+        this.port = port;
+        this.username = username;
+        this.password = password;
+        this.idle = new LinkedBlockingQueue<>(poolSize);
+        this.permits = new Semaphore(poolSize);
+        this.session = Session.getInstance(smtpProperties(host, port), new Authenticator() {
+            @Override
+            protected PasswordAuthentication getPasswordAuthentication() {
+                return new PasswordAuthentication(username, password);
+            }
+        });
+    }
+
+    /**
+     * Sends one email over a pooled connection.
+     *
+     * @param email the message
+     * @throws RuntimeException if the message cannot be sent
+     */
+    @Override
+    public void send(EmailMessage email) {
+        try {
+            Message message = createMessage(email.getTo(), email.getSubject(), email.getBody());
+            release(send(acquire(), message));
+        } catch (MessagingException e) {
+            LOGGER.log(Level.SEVERE, "Failed to send email", e);
+            throw new RuntimeException("Failed to send email", e);
+        }
+    }
+
+    /**
+     * Sends a batch of emails over one pooled connection.
+     * <p>
+     * A message that still fails after a reconnect is logged and skipped; the
+     * rest of the batch continues.
+     * </p>
+     *
+     * @param messages messages to send
+     * @return the messages that could not be sent, in order
+     */
+    @Override
+    public List<EmailMessage> sendAll(List<EmailMessage> messages) {
+        List<EmailMessage> failed = new ArrayList<>();
+        if (messages.isEmpty()) {
+            return failed;
+        }
+
+        Transport transport = null;
+        try {
+            for (EmailMessage m : messages) {
+                try {
+                    Message message = createMessage(m.getTo(), m.getSubject(), m.getBody());
+                    Transport current = (transport != null) ? transport : acquire();
+                    transport = null; // send() has disposed of it if it throws
+                    transport = send(current, message);
+                } catch (MessagingException e) {
+                    LOGGER.log(Level.WARNING, "Failed to send email to " + m.getTo(), e);
+                    failed.add(m);
+                }
+            }
+        } finally {
+            release(transport);
+        }
+
+        LOGGER.info("Sent " + (messages.size() - failed.size()) + " of " + messages.size() + " email(s)");
+        return failed;
+    }
+
+    /**
+     * Closes all idle connections. Connections in use are closed when they
+     * are returned, and later sends fail.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        drainIdle();
+    }
+
+    /**
+     * Opens and connects a new JavaMail transport on the shared session.
+     * Overridden in tests to avoid a network connection.
+     *
+     * @return a connected transport
+     * @throws MessagingException if the connection fails
+     */
+    protected Transport openTransport() throws MessagingException {
+        Transport transport = session.getTransport("smtp");
+        transport.connect(username, password);
+        return transport;
+    }
+
+    /**
+     * Sends a message, reconnecting and retrying once if the connection fails
+     * or the server closes it. Address errors are not retried. If sending fails, the transport has
+     * already been returned to the pool or closed.
+     *
+     * @return the transport to keep using
+     */
+    private Transport send(Transport transport, Message message) throws MessagingException {
+        try {
+            transport.sendMessage(message, message.getAllRecipients());
+            return transport;
+        } catch (SendFailedException e) {
+            if (!connectionLost(e)) {
+                release(transport);
+                throw e;
+            }
+            LOGGER.log(Level.WARNING, "SMTP connection closed by server, reconnecting", e);
+            discard(transport);
+        } catch (MessagingException e) {
+            LOGGER.log(Level.WARNING, "SMTP connection failed, reconnecting", e);
+            discard(transport);
+        }
+
+        Transport fresh = connect();
+        try {
+            fresh.sendMessage(message, message.getAllRecipients());
+            return fresh;
+        } catch (SendFailedException e) {
+            release(fresh);
+            throw e;
+        } catch (MessagingException e) {
+            discard(fresh);
+            throw e;
+        }
+    }
+
+    /**
+     * JavaMail reports a connection the server closed mid-transaction as a
+     * send failure with no reply code; that is a connection problem, not a
+     * rejected address.
+     */
+    private static boolean connectionLost(SendFailedException e) {
+        return e instanceof SMTPSendFailedException smtp && smtp.getReturnCode() < 0;
+    }
+
+    /**
+     * Builds a message from the sender account.
+     */
+    private Message createMessage(String to, String subject, String body) throws MessagingException {
+        Message message = new MimeMessage(session);
+        message.setFrom(new InternetAddress(username));
+        message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(to));
+        message.setSubject(subject);
+        message.setText(body);
+        return message;
+    }
+
+    /**
+     * Takes a transport from the pool, or opens a new one. Pooled
+     * connections are not probed; a dropped one is replaced on first use.
+     *
+     * @throws IllegalStateException if the transport has been closed
+     */
+    private Transport acquire() throws MessagingException {
+        return take(true);
+    }
+
+    /**
+     * Opens a new connection, closing an idle one if the pool is full.
+     *
+     * @throws IllegalStateException if the transport has been closed
+     */
+    private Transport connect() throws MessagingException {
+        return take(false);
+    }
+
+    /**
+     * Waits up to {@link #SOCKET_TIMEOUT_MILLIS} for a connection: an idle
+     * one when {@code reuse} is set, otherwise a newly opened one once the
+     * pool has room for it.
+     *
+     * @param reuse whether an idle connection may be handed out
+     * @throws IllegalStateException if the transport has been closed
+     * @throws MessagingException    if no connection frees up in time or connecting fails
+     */
+    private Transport take(boolean reuse) throws MessagingException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SOCKET_TIMEOUT_MILLIS);
+        try {
+            while (true) {
+                if (closed) {
+                    throw new IllegalStateException("SMTP transport is closed");
+                }
+                if (reuse) {
+                    Transport t = idle.poll();
+                    if (t != null) {
+                        return t;
+                    }
+                }
+                if (permits.tryAcquire()) {
+                    return open();
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new MessagingException("No SMTP connection available");
+                }
+                // wake up for a returned connection, or recheck for a closed one
+                Transport t = idle.poll(Math.min(remaining, WAIT_SLICE_NANOS), TimeUnit.NANOSECONDS);
+                if (t != null && reuse) {
+                    return t;
+                }
+                if (t != null) {
+                    discard(t);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interrupted waiting for an SMTP connection", e);
+        }
+    }
+
+    /**
+     * Opens a connection on an already acquired permit, giving the permit
+     * back if connecting fails.
+     */
+    private Transport open() throws MessagingException {
+        try {
+            return openTransport();
+        } catch (MessagingException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a transport to the pool, closing it if the pool is full or the
+     * transport has been closed.
+     */
+    private void release(Transport transport) {
+        if (transport == null) {
+            return;
+        }
+        if (closed || !idle.offer(transport)) {
+            discard(transport);
+        } else if (closed) {
+            // close() may have drained the pool before the offer
+            drainIdle();
+        }
+    }
+
+    /**
+     * Closes every idle connection.
+     */
+    private void drainIdle() {
+        Transport t;
+        while ((t = idle.poll()) != null) {
+            discard(t);
+        }
+    }
+
+    /**
+     * Closes a transport, ignoring errors, and frees its place in the pool.
+     */
+    private void discard(Transport transport) {
+        try {
+            transport.close();
+        } catch (MessagingException e) {
+            LOGGER.log(Level.FINE, "Failed to close SMTP connection", e);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * @return SMTP relay host
+     */
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * @return SMTP relay port
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * @return SMTP settings for the relay
+     */
+    private static Properties smtpProperties(String host, int port) {
+        Properties props = new Properties();
+        props.put("mail.smtp.auth", "true");
+        props.put("mail.smtp.starttls.enable", "true");
+        props.put("mail.smtp.host", host);
+        props.put("mail.smtp.port", String.valueOf(port));
+        props.put("mail.smtp.ssl.trust", host);
+        props.put("mail.smtp.ssl.protocols", "TLSv1.2");
+        props.put("mail.smtp.connectiontimeout", String.valueOf(SOCKET_TIMEOUT_MILLIS));
+        props.put("mail.smtp.timeout", String.valueOf(SOCKET_TIMEOUT_MILLIS));
+        props.put("mail.smtp.writetimeout", String.valueOf(SOCKET_TIMEOUT_MILLIS));
+        return props;
+    }
+}
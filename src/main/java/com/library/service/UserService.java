@@ -3,7 +3,12 @@ package com.library.service;
 import com.library.domain.FileStorage;
 import com.library.domain.User;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Service responsible for managing user accounts in the library system.
@@ -168,6 +173,26 @@ public class UserService {
                 .orElse(null);
     }
 
+    /**
+     * Looks up several users with a single read of users.txt.
+     *
+     * @param userIds IDs to search for
+     * @return the users found, by ID; IDs with no user are left out
+     */
+    public Map<String, User> findByIds(Collection<String> userIds) {
+        Set<String> wanted = new HashSet<>(userIds);
+        Map<String, User> found = new HashMap<>();
+        if (wanted.isEmpty()) {
+            return found;
+        }
+        for (User u : storage.loadUsers()) {
+            if (wanted.contains(u.getId())) {
+                found.put(u.getId(), u);
+            }
+        }
+        return found;
+    }
+
     /**
      * Unregisters (deletes) a user from the system.
      * <p>
@@ -195,7 +220,7 @@ public class UserService {
             );
         }
 
-        if (fineService != null && fineService.getUserOutstandingBalance(userId) > 0.0) {
+        if (fineService != null && fineService.getUserOutstandingBalance(userId) > 0) {
             throw new IllegalStateException(
                     "User has unpaid fines. Cannot unregister until all fines are paid."
             );
@@ -9,15 +9,15 @@ class BookFineStrategyTest {
     void calculateFine_returnsZeroWhenNotOverdue() {
         BookFineStrategy s = new BookFineStrategy();
 
-        assertEquals(0.0, s.calculateFine(0));
-        assertEquals(0.0, s.calculateFine(-3));
+        assertEquals(0, s.calculateFine(0));
+        assertEquals(0, s.calculateFine(-3));
     }
 
     @Test
     void calculateFine_returnsFlatTenWhenOverdue() {
         BookFineStrategy s = new BookFineStrategy();
 
-        assertEquals(10.0, s.calculateFine(1));
-        assertEquals(10.0, s.calculateFine(10));
+        assertEquals(1000, s.calculateFine(1));
+        assertEquals(1000, s.calculateFine(10));
     }
 }
@@ -0,0 +1,31 @@
+package com.library.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BorrowEligibilityTest {
+
+    @Test
+    void emptyRecord_allowsBorrowing() {
+        BorrowEligibility e = new BorrowEligibility("U1", 0, null, 0);
+
+        assertEquals("U1", e.getUserId());
+        assertFalse(e.hasUnpaidFines());
+        assertFalse(e.hasOverdueLoans(LocalDate.now()));
+        assertEquals(0, e.getActiveLoanCount());
+    }
+
+    @Test
+    void hasOverdueLoans_comparesEarliestDueDate() {
+        LocalDate due = LocalDate.of(2025, 1, 10);
+        BorrowEligibility e = new BorrowEligibility("U1", 500, due, 2);
+
+        assertTrue(e.hasUnpaidFines());
+        assertFalse(e.hasOverdueLoans(due));
+        assertTrue(e.hasOverdueLoans(due.plusDays(1)));
+        assertEquals(due, e.getEarliestActiveDueDate());
+    }
+}
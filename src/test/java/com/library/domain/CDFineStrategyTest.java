@@ -9,15 +9,15 @@ class CDFineStrategyTest {
     void calculateFine_returnsZeroWhenNotOverdue() {
         CDFineStrategy s = new CDFineStrategy();
 
-        assertEquals(0.0, s.calculateFine(0));
-        assertEquals(0.0, s.calculateFine(-5));
+        assertEquals(0, s.calculateFine(0));
+        assertEquals(0, s.calculateFine(-5));
     }
 
     @Test
     void calculateFine_returnsFlatTwentyWhenOverdue() {
         CDFineStrategy s = new CDFineStrategy();
 
-        assertEquals(20.0, s.calculateFine(1));
-        assertEquals(20.0, s.calculateFine(30));
+        assertEquals(2000, s.calculateFine(1));
+        assertEquals(2000, s.calculateFine(30));
     }
 }
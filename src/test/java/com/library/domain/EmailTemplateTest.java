@@ -0,0 +1,49 @@
+package com.library.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmailTemplateTest {
+
+    @Test
+    void render_substitutesVariables() {
+        EmailTemplate t = EmailTemplate.compile("Dear {{ name }}, you owe {{amount}}.");
+
+        assertEquals("Dear Dana, you owe 12.50.", t.render(Map.of("name", "Dana", "amount", "12.50")));
+    }
+
+    @Test
+    void render_missingVariable_rendersEmpty() {
+        assertEquals("Hi !", EmailTemplate.compile("Hi {{name}}!").render(Map.of()));
+    }
+
+    @Test
+    void render_repeatsSectionPerItem() {
+        EmailTemplate t = EmailTemplate.compile("Items:{{#items}} [{{id}}]{{/items}} done");
+
+        String out = t.render(Map.of("items", List.of(Map.of("id", "B1"), Map.of("id", "B2"))));
+
+        assertEquals("Items: [B1] [B2] done", out);
+    }
+
+    @Test
+    void render_appendsToGivenBuffer() {
+        StringBuilder out = new StringBuilder("> ");
+
+        EmailTemplate.compile("{{x}}").render(Map.of("x", 1), out);
+
+        assertEquals("> 1", out.toString());
+    }
+
+    @Test
+    void compile_rejectsMalformedTemplates() {
+        assertThrows(IllegalArgumentException.class, () -> EmailTemplate.compile("Hi {{name"));
+        assertThrows(IllegalArgumentException.class, () -> EmailTemplate.compile("{{#items}}x"));
+        assertThrows(IllegalArgumentException.class, () -> EmailTemplate.compile("x{{/items}}"));
+        assertThrows(IllegalArgumentException.class, () -> EmailTemplate.compile("{{}}"));
+    }
+}
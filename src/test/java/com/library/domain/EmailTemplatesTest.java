@@ -0,0 +1,72 @@
+package com.library.domain;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmailTemplatesTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static final Map<String, Object> MODEL = Map.of(
+            "name", "Dana",
+            "loans", List.of(Map.of("itemId", "B1", "borrowDate", "2025-01-01", "dueDate", "2025-01-29")));
+
+    @Test
+    void defaults_renderOverdueDigest() {
+        EmailMessage m = EmailTemplates.defaults().render(EmailTemplates.OVERDUE, null, "dana@example.com", MODEL);
+
+        assertEquals("dana@example.com", m.getTo());
+        assertEquals("Library Overdue Book Reminder", m.getSubject());
+        assertTrue(m.getBody().startsWith("Dear Dana,\n\n"));
+        assertTrue(m.getBody().contains("- Item ID: B1, borrowed on 2025-01-01, due on 2025-01-29\n"));
+        assertTrue(m.getBody().endsWith("Library System"));
+    }
+
+    @Test
+    void render_prefersMediaTypeAndLanguageThenFallsBack() {
+        EmailTemplates templates = new EmailTemplates("fr");
+        templates.register(EmailTemplates.OVERDUE, MediaType.CD, "en", "Subject: CD {{name}}\n\nbody");
+        templates.register(EmailTemplates.OVERDUE, null, "fr", "Subject: Rappel {{name}}\n\ncorps");
+
+        assertEquals("Rappel Dana",
+                templates.render(EmailTemplates.OVERDUE, MediaType.CD, "d@x", MODEL).getSubject());
+        assertEquals("CD Dana",
+                templates.render(EmailTemplates.OVERDUE, MediaType.CD, "de", "d@x", MODEL).getSubject());
+        assertEquals("Library Overdue Book Reminder",
+                templates.render(EmailTemplates.OVERDUE, MediaType.BOOK, "de", "d@x", MODEL).getSubject());
+    }
+
+    @Test
+    void load_readsTypeAndLanguageFromFileName() throws IOException {
+        Files.writeString(tempDir.resolve("overdue.CD.ar.txt"), "Subject: CD-ar\n\nbody");
+        Files.writeString(tempDir.resolve("due-soon.txt"), "Subject: Soon {{name}}\n\nSee you, {{name}}.\n");
+
+        EmailTemplates templates = EmailTemplates.load(tempDir, "ar");
+
+        assertEquals("CD-ar", templates.render(EmailTemplates.OVERDUE, MediaType.CD, "d@x", MODEL).getSubject());
+        EmailMessage soon = templates.render(EmailTemplates.DUE_SOON, null, "d@x", MODEL);
+        assertEquals("Soon Dana", soon.getSubject());
+        assertEquals("See you, Dana.", soon.getBody());
+    }
+
+    @Test
+    void register_requiresSubjectLine() {
+        assertThrows(IllegalArgumentException.class,
+                () -> EmailTemplates.defaults().register("x", null, "en", "no subject"));
+    }
+
+    @Test
+    void render_unknownKind_throws() {
+        assertThrows(IllegalArgumentException.class,
+                () -> EmailTemplates.defaults().render("missing", null, "d@x", MODEL));
+    }
+}
@@ -6,8 +6,13 @@ import org.junit.jupiter.api.io.TempDir;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -130,7 +135,7 @@ class FileStorageTest {
     @Test
     void saveAndLoadFines_roundTrip() {
         FileStorage storage = newStorage();
-        Fine fine = new Fine("F1", "U1", 30.5, false);
+        Fine fine = new Fine("F1", "U1", 3050, false);
 
         storage.saveFines(List.of(fine));
         List<Fine> loaded = storage.loadFines();
@@ -139,7 +144,7 @@ class FileStorageTest {
         Fine f = loaded.get(0);
         assertEquals("F1", f.getId());
         assertEquals("U1", f.getUserId());
-        assertEquals(30.5, f.getAmount());
+        assertEquals(3050, f.getAmount());
         assertFalse(f.isPaid());
     }
 
@@ -319,9 +324,383 @@ class FileStorageTest {
         );
     }
 
+    @Test
+    void saveLoans_partitionsReturnedLoansByReturnMonth() {
+        FileStorage storage = newStorage();
+        LocalDate borrow = LocalDate.of(2025, 9, 1);
+
+        storage.saveLoans(List.of(
+                new Loan("L1", "U1", "B1", borrow, borrow.plusDays(28), LocalDate.of(2025, 9, 20)),
+                new Loan("L2", "U1", "B2", borrow, borrow.plusDays(28), LocalDate.of(2025, 10, 3)),
+                new Loan("L3", "U2", "B3", borrow, borrow.plusDays(28), null)
+        ));
+
+        assertTrue(Files.exists(tempDir.resolve("loans-2025-09.txt")));
+        assertTrue(Files.exists(tempDir.resolve("loans-2025-10.txt")));
+        assertEquals(3, storage.loadLoans().size());
+        assertEquals(2, storage.countArchivedLoans());
+
+        List<Loan> active = storage.loadActiveLoans();
+        assertEquals(1, active.size());
+        assertEquals("L3", active.get(0).getId());
+    }
+
+    @Test
+    void saveLoans_removesOnlySegmentsNoLongerNeeded() throws IOException {
+        FileStorage storage = newStorage();
+        LocalDate borrow = LocalDate.of(2025, 9, 1);
+        storage.saveLoans(List.of(
+                new Loan("L1", "U1", "B1", borrow, borrow.plusDays(28), LocalDate.of(2025, 9, 20)),
+                new Loan("L2", "U1", "B2", borrow, borrow.plusDays(28), LocalDate.of(2025, 10, 3))
+        ));
+
+        storage.saveLoans(List.of(
+                new Loan("L2", "U1", "B2", borrow, borrow.plusDays(28), LocalDate.of(2025, 10, 3))
+        ));
+
+        assertFalse(Files.exists(tempDir.resolve("loans-2025-09.txt")));
+        assertEquals(1, storage.loadLoans().size());
+        try (var files = Files.list(tempDir)) {
+            assertTrue(files.noneMatch(p -> p.toString().endsWith(".tmp")));
+        }
+    }
+
+    @Test
+    void saveLoans_whenASegmentCannotBeWritten_keepsExistingHistory() throws IOException {
+        FileStorage storage = newStorage();
+        LocalDate borrow = LocalDate.of(2025, 9, 1);
+        Loan september = new Loan("L1", "U1", "B1", borrow, borrow.plusDays(28), LocalDate.of(2025, 9, 20));
+        storage.saveLoans(List.of(september));
+        // a directory in place of the October segment makes writing it fail
+        Files.createDirectories(tempDir.resolve("loans-2025-10.txt").resolve("blocker"));
+
+        assertThrows(StorageException.class, () -> storage.saveLoans(List.of(
+                september,
+                new Loan("L2", "U1", "B2", borrow, borrow.plusDays(28), LocalDate.of(2025, 10, 3))
+        )));
+
+        List<Loan> history = storage.loadLoanHistory(LocalDate.of(2025, 9, 1), LocalDate.of(2025, 9, 30));
+        assertEquals(1, history.size());
+        assertEquals("L1", history.get(0).getId());
+    }
+
+    @Test
+    void loadLoanHistory_readsOnlyMatchingPartitions() throws IOException {
+        FileStorage storage = newStorage();
+        LocalDate borrow = LocalDate.of(2025, 9, 1);
+
+        storage.saveLoans(List.of(
+                new Loan("L1", "U1", "B1", borrow, borrow.plusDays(28), LocalDate.of(2025, 9, 20)),
+                new Loan("L2", "U1", "B2", borrow, borrow.plusDays(28), LocalDate.of(2025, 10, 3))
+        ));
+        // A corrupt September segment must not be touched by an October query
+        Files.writeString(tempDir.resolve("loans-2025-09.txt"), "L1;U1;B1;not-a-date;x;y");
+
+        List<Loan> october = storage.loadLoanHistory(
+                LocalDate.of(2025, 10, 1), LocalDate.of(2025, 10, 31));
+
+        assertEquals(1, october.size());
+        assertEquals("L2", october.get(0).getId());
+    }
+
+    @Test
+    void saveActiveLoans_movesReturnedLoansToSegment() throws IOException {
+        FileStorage storage = newStorage();
+        LocalDate borrow = LocalDate.of(2025, 10, 1);
+        Loan loan = new Loan("L1", "U1", "B1", borrow, borrow.plusDays(28), null);
+        storage.saveActiveLoans(List.of(loan));
+
+        loan.markReturned(LocalDate.of(2025, 10, 15));
+        storage.saveActiveLoans(List.of(loan));
+
+        assertTrue(Files.readAllLines(tempDir.resolve("loans.txt")).isEmpty());
+        assertEquals(1, Files.readAllLines(tempDir.resolve("loans-2025-10.txt")).size());
+        assertEquals(1, storage.countArchivedLoans());
+    }
+
+    @Test
+    void archiveReturnedLoans_movesReturnedRowsOutOfHotFile() throws IOException {
+        Files.writeString(tempDir.resolve("loans.txt"),
+                "L1;U1;B1;2024-01-01;2024-01-10;2024-01-20;BOOK\n"
+                        + "L2;U1;B2;2024-01-01;2024-01-10;;BOOK");
+        FileStorage storage = newStorage();
+
+        List<Loan> active = storage.loadActiveLoans();
+
+        assertEquals(1, active.size());
+        assertEquals("L2", active.get(0).getId());
+        assertFalse(Files.exists(tempDir.resolve("loans-2024-01.txt")));
+
+        assertEquals(1, storage.archiveReturnedLoans());
+
+        assertTrue(Files.exists(tempDir.resolve("loans-2024-01.txt")));
+        assertEquals(1, Files.readAllLines(tempDir.resolve("loans.txt")).size());
+        assertEquals(2, storage.loadLoans().size());
+    }
+
+    @Test
+    void saveActiveLoans_afterCrashBetweenWrites_doesNotArchiveTwice() throws IOException {
+        String returned = "L1;U1;B1;2024-01-01;2024-01-10;2024-01-20;BOOK";
+        // the segment append finished but loans.txt was not rewritten yet
+        Files.writeString(tempDir.resolve("loans-2024-01.txt"), returned + "\n");
+        Files.writeString(tempDir.resolve("loans.txt"), returned + "\n"
+                + "L2;U1;B2;2024-01-01;2024-01-10;;BOOK");
+        FileStorage storage = newStorage();
+
+        storage.archiveReturnedLoans();
+
+        assertEquals(1, Files.readAllLines(tempDir.resolve("loans-2024-01.txt")).size());
+        assertEquals(1, storage.countArchivedLoans());
+        assertEquals(2, newStorage().loadLoans().size());
+    }
+
+    @Test
+    void saveAndLoadCds_roundTrip() {
+        FileStorage storage = newStorage();
+
+        storage.saveCds(List.of(new CD("CD1", "Thriller", "Michael Jackson", true)));
+        List<CD> loaded = storage.loadCds();
+
+        assertEquals(1, loaded.size());
+        CD cd = loaded.get(0);
+        assertEquals("CD1", cd.getId());
+        assertEquals("Thriller", cd.getTitle());
+        assertEquals("Michael Jackson", cd.getArtist());
+        assertTrue(cd.isBorrowed());
+    }
+
+    @Test
+    void loadCds_skipsInvalidLine() throws IOException {
+        Files.writeString(tempDir.resolve("cds.txt"), "CD1;Title");
+
+        assertTrue(newStorage().loadCds().isEmpty());
+    }
+
+    @Test
+    void saveAndLoadFines_roundTripsOptionalLoanId() {
+        FileStorage storage = newStorage();
+
+        storage.saveFines(List.of(
+                new Fine("F1", "U1", 1000, false, "L7"),
+                new Fine("F2", "U1", 500, false)
+        ));
+        List<Fine> loaded = storage.loadFines();
+
+        assertEquals("L7", loaded.get(0).getLoanId());
+        assertNull(loaded.get(1).getLoanId());
+    }
+
+    @Test
+    void loadFines_replaysLedgerOnTopOfSnapshot() {
+        FileStorage storage = newStorage();
+        LocalDate today = LocalDate.of(2025, 3, 1);
+        storage.saveFines(List.of(new Fine("F1", "U1", 1000, false)));
+
+        storage.appendFineLedger(List.of(
+                new FineLedgerEntry(FineLedgerEntry.Type.ASSESSED, "F2", "U2", 800, "L3", today),
+                new FineLedgerEntry(FineLedgerEntry.Type.PAID, "F1", "U1", 400, null, today),
+                new FineLedgerEntry(FineLedgerEntry.Type.WAIVED, "F2", "U2", 800, null, today)
+        ));
+        List<Fine> loaded = storage.loadFines();
+
+        assertEquals(2, loaded.size());
+        assertEquals(600, loaded.get(0).getAmount());
+        assertFalse(loaded.get(0).isPaid());
+        assertEquals("L3", loaded.get(1).getLoanId());
+        assertTrue(loaded.get(1).isPaid());
+    }
+
+    @Test
+    void saveFines_snapshotIsNotReplayedTwice() {
+        FileStorage storage = newStorage();
+        LocalDate today = LocalDate.of(2025, 3, 1);
+        storage.appendFineLedger(List.of(
+                new FineLedgerEntry(FineLedgerEntry.Type.ASSESSED, "F1", "U1", 1000, null, today),
+                new FineLedgerEntry(FineLedgerEntry.Type.PAID, "F1", "U1", 400, null, today)
+        ));
+
+        storage.saveFines(storage.loadFines());
+        List<Fine> reloaded = newStorage().loadFines();
+
+        assertEquals(1, reloaded.size());
+        assertEquals(600, reloaded.get(0).getAmount());
+        assertEquals(2, newStorage().loadFineLedger().size());
+    }
+
+    @Test
+    void loadFines_malformedLedgerLineBeforeSnapshotDoesNotShiftOffset() throws IOException {
+        FileStorage storage = newStorage();
+        LocalDate today = LocalDate.of(2025, 3, 1);
+        storage.appendFineLedger(List.of(
+                new FineLedgerEntry(FineLedgerEntry.Type.ASSESSED, "F1", "U1", 1000, null, today)));
+        Files.write(tempDir.resolve("fine-ledger.txt"), List.of("garbled"), StandardOpenOption.APPEND);
+
+        FileStorage reopened = newStorage();
+        reopened.saveFines(reopened.loadFines());
+        reopened.appendFineLedger(List.of(
+                new FineLedgerEntry(FineLedgerEntry.Type.ASSESSED, "F2", "U1", 500, null, today)));
+
+        List<Fine> fines = newStorage().loadFines();
+        assertEquals(2, fines.size());
+        assertEquals(1500, fines.stream().mapToLong(Fine::getAmount).sum());
+        assertEquals("#ledger-offset=2", Files.readAllLines(tempDir.resolve("fines.txt")).get(0));
+    }
+
+    @Test
+    void loadFines_doesNotParseLedgerLinesCoveredBySnapshot() throws IOException {
+        Files.write(tempDir.resolve("fine-ledger.txt"), List.of(
+                "2025-03-01;NOT_A_TYPE;F0;U1;1.00;",
+                "2025-03-01;ASSESSED;F2;U1;5.00;"));
+        Files.write(tempDir.resolve("fines.txt"), List.of(
+                "#ledger-offset=1",
+                "F1;U1;10.00;false;"));
 
+        List<Fine> fines = newStorage().loadFines();
 
+        assertEquals(List.of("F1", "F2"), fines.stream().map(Fine::getId).toList());
+    }
+
+    @Test
+    void appendFineLedger_takesSnapshotAfterInterval() throws IOException {
+        FileStorage storage = newStorage();
+        LocalDate today = LocalDate.of(2025, 3, 1);
+        List<FineLedgerEntry> entries = new ArrayList<>();
+        for (int i = 1; i <= FileStorage.FINE_SNAPSHOT_INTERVAL; i++) {
+            entries.add(new FineLedgerEntry(FineLedgerEntry.Type.ASSESSED, "F" + i, "U1", 100, null, today));
+        }
+
+        storage.appendFineLedger(entries);
+
+        List<String> snapshot = Files.readAllLines(tempDir.resolve("fines.txt"));
+        assertEquals("#ledger-offset=" + FileStorage.FINE_SNAPSHOT_INTERVAL, snapshot.get(0));
+        assertEquals(FileStorage.FINE_SNAPSHOT_INTERVAL + 1, snapshot.size());
+        assertEquals(FileStorage.FINE_SNAPSHOT_INTERVAL, storage.loadFines().size());
+    }
 
+    @Test
+    void appendFineLedger_fromSeveralThreads_keepsSnapshotConsistent() throws InterruptedException {
+        FileStorage storage = newStorage();
+        LocalDate today = LocalDate.of(2025, 3, 1);
+        int perThread = FileStorage.FINE_SNAPSHOT_INTERVAL / 2 + 50;
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            String prefix = "T" + t + "-";
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    storage.appendFineLedger(List.of(new FineLedgerEntry(
+                            FineLedgerEntry.Type.ASSESSED, prefix + i, "U1", 100, null, today)));
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(4 * perThread, newStorage().loadFineLedger().size());
+        assertEquals(4 * perThread, newStorage().loadFines().size());
+    }
 
+    @Test
+    void saveAndLoadFineAccruals_roundTrip() {
+        FileStorage storage = newStorage();
+        LocalDate date = LocalDate.of(2025, 3, 4);
+
+        storage.saveFineAccruals(List.of(
+                new FineAccrual("L1", date, 150, date.plusDays(1)),
+                new FineAccrual("L2", null, 0, null)
+        ));
+        List<FineAccrual> loaded = storage.loadFineAccruals();
+
+        assertEquals(2, loaded.size());
+        assertEquals(date, loaded.get(0).getLastAccruedDate());
+        assertEquals(150, loaded.get(0).getAccruedCents());
+        assertEquals(date.plusDays(1), loaded.get(0).getNextBoundary());
+        assertNull(loaded.get(1).getLastAccruedDate());
+        assertNull(loaded.get(1).getNextBoundary());
+    }
 
+    @Test
+    void appendAndLoadOutbox_lastStateWins() {
+        FileStorage storage = newStorage();
+        Instant now = Instant.parse("2025-03-02T10:00:00Z");
+        OutboxEntry first = new OutboxEntry("M1", new EmailMessage("a@example.com", "Due; soon", "Line 1\nLine 2"),
+                OutboxEntry.Status.PENDING, 0, now);
+        OutboxEntry second = new OutboxEntry("M2", new EmailMessage("b@example.com", "S", "B"),
+                OutboxEntry.Status.PENDING, 0, now);
+        storage.appendOutbox(List.of(first, second));
+
+        first.retryAt(now.plusSeconds(60));
+        second.setStatus(OutboxEntry.Status.SENT);
+        storage.appendOutbox(List.of(first, second));
+
+        List<OutboxEntry> pending = storage.loadOutbox();
+        assertEquals(1, pending.size());
+        OutboxEntry loaded = pending.get(0);
+        assertEquals("M1", loaded.getId());
+        assertEquals(1, loaded.getAttempts());
+        assertEquals(now.plusSeconds(60), loaded.getNextAttemptAt());
+        assertEquals("Due; soon", loaded.getMessage().getSubject());
+        assertEquals("Line 1\nLine 2", loaded.getMessage().getBody());
+    }
+
+    @Test
+    void rewriteOutbox_keepsOnlyPendingEntries() throws IOException {
+        FileStorage storage = newStorage();
+        Instant now = Instant.now();
+        OutboxEntry sent = new OutboxEntry("M1", new EmailMessage("a@example.com", "S", "B"),
+                OutboxEntry.Status.PENDING, 0, now);
+        OutboxEntry waiting = new OutboxEntry("M2", new EmailMessage("b@example.com", "S", "B"),
+                OutboxEntry.Status.PENDING, 0, now);
+        storage.appendOutbox(List.of(sent, waiting));
+        sent.setStatus(OutboxEntry.Status.SENT);
+        storage.appendOutbox(List.of(sent));
+
+        storage.rewriteOutbox(List.of(waiting));
+
+        assertEquals(1, Files.readAllLines(tempDir.resolve("outbox.txt")).size());
+        assertEquals("M2", storage.loadOutbox().get(0).getId());
+    }
+
+    @Test
+    void appendAndLoadDeadLetters_roundTrip() {
+        FileStorage storage = newStorage();
+        OutboxEntry dead = new OutboxEntry("M1", new EmailMessage("a@example.com", "S", "B"),
+                OutboxEntry.Status.DEAD, 5, Instant.now());
+
+        storage.appendDeadLetter(dead, "550; mailbox\nunavailable");
+
+        List<OutboxEntry> loaded = storage.loadDeadLetters();
+        assertEquals(1, loaded.size());
+        assertEquals("M1", loaded.get(0).getId());
+        assertEquals(5, loaded.get(0).getAttempts());
+        assertEquals(OutboxEntry.Status.DEAD, loaded.get(0).getStatus());
+        assertEquals("a@example.com", loaded.get(0).getMessage().getTo());
+    }
+
+    @Test
+    void saveAndLoadReminderLog_roundTrip() {
+        FileStorage storage = newStorage();
+        LocalDate date = LocalDate.of(2025, 3, 10);
+
+        storage.saveReminderLog(List.of(new ReminderRecord("L1", date, 2)));
+        List<ReminderRecord> loaded = storage.loadReminderLog();
+
+        assertEquals(1, loaded.size());
+        assertEquals("L1", loaded.get(0).getLoanId());
+        assertEquals(date, loaded.get(0).getLastSentDate());
+        assertEquals(2, loaded.get(0).getCount());
+    }
+
+    @Test
+    void saveAndLoadWatermarks_roundTrip() {
+        FileStorage storage = newStorage();
+        assertTrue(storage.loadWatermarks().isEmpty());
+
+        Map<String, LocalDate> watermarks = new LinkedHashMap<>();
+        watermarks.put("overdue-reminders", LocalDate.of(2025, 3, 10));
+        storage.saveWatermarks(watermarks);
+
+        assertEquals(watermarks, storage.loadWatermarks());
+    }
 }
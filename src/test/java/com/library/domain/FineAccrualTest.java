@@ -0,0 +1,23 @@
+package com.library.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FineAccrualTest {
+
+    @Test
+    void accrue_updatesDateAmountAndBoundary() {
+        LocalDate day = LocalDate.of(2025, 3, 2);
+        FineAccrual a = new FineAccrual("L1", null, 0, day);
+
+        a.accrue(day, 50, day.plusDays(1));
+
+        assertEquals("L1", a.getLoanId());
+        assertEquals(day, a.getLastAccruedDate());
+        assertEquals(50, a.getAccruedCents());
+        assertEquals(day.plusDays(1), a.getNextBoundary());
+    }
+}
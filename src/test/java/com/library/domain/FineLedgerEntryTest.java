@@ -0,0 +1,30 @@
+package com.library.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FineLedgerEntryTest {
+
+    @Test
+    void constructorAndGetters_work() {
+        LocalDate date = LocalDate.of(2025, 3, 1);
+        FineLedgerEntry e = new FineLedgerEntry(FineLedgerEntry.Type.ASSESSED, "F1", "U1", 1250, "L4", date);
+
+        assertEquals(FineLedgerEntry.Type.ASSESSED, e.getType());
+        assertEquals("F1", e.getFineId());
+        assertEquals("U1", e.getUserId());
+        assertEquals(1250, e.getAmount());
+        assertEquals("L4", e.getLoanId());
+        assertEquals(date, e.getDate());
+    }
+
+    @Test
+    void paymentEntry_hasNoLoanId() {
+        FineLedgerEntry e = new FineLedgerEntry(FineLedgerEntry.Type.PAID, "F1", "U1", 500, null, LocalDate.now());
+
+        assertNull(e.getLoanId());
+    }
+}
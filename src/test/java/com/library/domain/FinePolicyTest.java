@@ -0,0 +1,73 @@
+package com.library.domain;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FinePolicyTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void defaults_matchFlatBookAndCdFees() {
+        Map<MediaType, FinePolicy> policies = FinePolicy.defaults();
+
+        assertEquals(1000, policies.get(MediaType.BOOK).getFlatFee());
+        assertEquals(2000, policies.get(MediaType.CD).getFlatFee());
+        assertEquals(0, policies.get(MediaType.CD).getRatePerDay());
+    }
+
+    @Test
+    void load_readsAllKeys() throws IOException {
+        Path config = tempDir.resolve("fine-policies.properties");
+        Files.write(config, List.of(
+                "BOOK.flatFee=1.50",
+                "BOOK.ratePerDay=0.25",
+                "BOOK.graceDays=2",
+                "BOOK.cap=15",
+                "BOOK.tiers=8:0.50, 30:1.00"
+        ));
+
+        Map<MediaType, FinePolicy> policies = FinePolicy.load(config);
+        FinePolicy book = policies.get(MediaType.BOOK);
+
+        assertEquals(150, book.getFlatFee());
+        assertEquals(25, book.getRatePerDay());
+        assertEquals(2, book.getGraceDays());
+        assertEquals(1500, book.getCap());
+        assertArrayEquals(new int[]{8, 30}, book.getTierStartDays());
+        assertArrayEquals(new long[]{50, 100}, book.getTierRates());
+        assertEquals(2000, policies.get(MediaType.CD).getFlatFee());
+    }
+
+    @Test
+    void load_malformedValue_throws() throws IOException {
+        Path config = tempDir.resolve("fine-policies.properties");
+        Files.write(config, List.of("CD.flatFee=lots"));
+
+        assertThrows(IllegalArgumentException.class, () -> FinePolicy.load(config));
+    }
+
+    @Test
+    void load_missingFile_throwsStorageException() {
+        assertThrows(StorageException.class, () -> FinePolicy.load(tempDir.resolve("missing.properties")));
+    }
+
+    @Test
+    void constructor_rejectsInvalidTiers() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new FinePolicy(0, 10, 0, 0, new int[]{5, 5}, new long[]{1, 2}));
+        assertThrows(IllegalArgumentException.class,
+                () -> new FinePolicy(0, 10, 0, 0, new int[]{0}, new long[]{1}));
+        assertThrows(IllegalArgumentException.class,
+                () -> new FinePolicy(-1, 10, 0, 0));
+    }
+}
@@ -0,0 +1,86 @@
+package com.library.domain;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FineScheduleTest {
+
+    @Test
+    void flatPolicy_chargesFeeOnceOverdue() {
+        FineSchedule s = new FinePolicy(1000, 0, 0, 0).compile();
+
+        assertEquals(0, s.calculateFine(0));
+        assertEquals(1000, s.calculateFine(1));
+        assertEquals(1000, s.calculateFine(100_000));
+    }
+
+    @Test
+    void dailyRate_skipsGraceDays() {
+        FineSchedule s = new FinePolicy(0, 50, 3, 0).compile();
+
+        assertEquals(0, s.calculateFine(3));
+        assertEquals(50, s.calculateFine(4));
+        assertEquals(350, s.calculateFine(10));
+    }
+
+    @Test
+    void tiers_changeRateFromTheirStartDay() {
+        // 0.25/day for charged days 1-7, 0.50/day for days 8-29, 1.00/day from day 30
+        FineSchedule s = new FinePolicy(100, 25, 0, 0, new int[]{8, 30}, new long[]{50, 100}).compile();
+
+        assertEquals(100 + 7 * 25, s.calculateFine(7));
+        assertEquals(100 + 7 * 25 + 50, s.calculateFine(8));
+        assertEquals(100 + 7 * 25 + 22 * 50 + 100, s.calculateFine(30));
+        assertEquals(100 + 7 * 25 + 22 * 50 + 71 * 100, s.calculateFine(100));
+    }
+
+    @Test
+    void cap_limitsTotalInsideAndPastTable() {
+        FineSchedule s = new FinePolicy(0, 100, 0, 500, new int[]{10}, new long[]{200}).compile();
+
+        assertEquals(500, s.calculateFine(5));
+        assertEquals(500, s.calculateFine(9));
+        assertEquals(500, s.calculateFine(Long.MAX_VALUE));
+    }
+
+    @Test
+    void uncappedLargeDuration_doesNotOverflow() {
+        FineSchedule s = new FinePolicy(0, 100, 0, 0).compile();
+
+        assertEquals(Long.MAX_VALUE, s.calculateFine(Long.MAX_VALUE));
+    }
+
+    @Test
+    void tableCoversGraceAndLastTier() {
+        FineSchedule s = new FinePolicy(0, 10, 5, 0, new int[]{20}, new long[]{30}).compile();
+
+        assertEquals(26, s.tableSize());
+    }
+
+    @Test
+    void calculateAll_fillsOnlyTheRequestedRange() {
+        FineSchedule s = new FinePolicy(0, 10, 1, 0, new int[]{5}, new long[]{20}).compile();
+        long[] days = {2, 0, 6, 1_000};
+        long[] out = {-1, -1, -1, -1};
+
+        s.calculateAll(days, out, 1, 4);
+
+        assertEquals(-1, out[0]);
+        assertEquals(0, out[1]);
+        assertEquals(s.calculateFine(6), out[2]);
+        assertEquals(s.calculateFine(1_000), out[3]);
+    }
+
+    @Test
+    void nextChangeAfter_findsNextDayTheFineMoves() {
+        FineSchedule flat = new FinePolicy(1000, 0, 2, 0).compile();
+        FineSchedule daily = new FinePolicy(0, 10, 0, 35).compile();
+
+        assertEquals(3, flat.nextChangeAfter(-4));
+        assertEquals(3, flat.nextChangeAfter(2));
+        assertEquals(-1, flat.nextChangeAfter(3));
+        assertEquals(4, daily.nextChangeAfter(3));
+        assertEquals(-1, daily.nextChangeAfter(4));
+    }
+}
@@ -7,22 +7,22 @@ class FineTest {
 
     @Test
     void constructor_setsFieldsAndGettersWork() {
-        Fine fine = new Fine("F1", "U1", 50.0, false);
+        Fine fine = new Fine("F1", "U1", 5000, false);
 
         assertEquals("F1", fine.getId());
         assertEquals("U1", fine.getUserId());
-        assertEquals(50.0, fine.getAmount());
+        assertEquals(5000, fine.getAmount());
         assertFalse(fine.isPaid());
     }
 
     @Test
     void setters_updateAmountAndPaid() {
-        Fine fine = new Fine("F1", "U1", 10.0, false);
+        Fine fine = new Fine("F1", "U1", 1000, false);
 
-        fine.setAmount(25.5);
+        fine.setAmount(2550);
         fine.setPaid(true);
 
-        assertEquals(25.5, fine.getAmount());
+        assertEquals(2550, fine.getAmount());
         assertTrue(fine.isPaid());
     }
 }
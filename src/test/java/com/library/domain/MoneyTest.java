@@ -0,0 +1,56 @@
+package com.library.domain;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    @Test
+    void parse_readsWholeAndDecimalAmounts() {
+        assertEquals(1000, Money.parse("10"));
+        assertEquals(1050, Money.parse("10.5"));
+        assertEquals(1055, Money.parse("10.55"));
+        assertEquals(-75, Money.parse("-0.75"));
+        assertEquals(50, Money.parse(".5"));
+    }
+
+    @Test
+    void parse_amountTooLarge_throwsNumberFormatException() {
+        assertThrows(NumberFormatException.class, () -> Money.parse("99999999999999999999"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("99999999999999999.99"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("1e30"));
+    }
+
+    @Test
+    void parse_roundsExtraDigitsHalfUp() {
+        assertEquals(1000, Money.parse("9.999999999"));
+        assertEquals(1234, Money.parse("12.344"));
+        assertEquals(1235, Money.parse("12.345"));
+    }
+
+    @Test
+    void parse_acceptsExponentForm() {
+        assertEquals(0, Money.parse("1.0E-4"));
+        assertEquals(1_000_000_000L, Money.parse("1.0E7"));
+    }
+
+    @Test
+    void parse_rejectsInvalidText() {
+        assertThrows(NumberFormatException.class, () -> Money.parse("abc"));
+        assertThrows(NumberFormatException.class, () -> Money.parse(""));
+        assertThrows(NumberFormatException.class, () -> Money.parse("1.2.3"));
+    }
+
+    @Test
+    void format_writesTwoDecimalPlaces() {
+        assertEquals("10.00", Money.format(1000));
+        assertEquals("0.05", Money.format(5));
+        assertEquals("-3.40", Money.format(-340));
+    }
+
+    @Test
+    void formatAndParse_roundTrip() {
+        assertEquals(123456, Money.parse(Money.format(123456)));
+    }
+}
@@ -0,0 +1,37 @@
+package com.library.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutboxEntryTest {
+
+    @Test
+    void retryAt_countsAttemptAndMovesNextAttempt() {
+        Instant now = Instant.parse("2025-03-02T10:00:00Z");
+        OutboxEntry e = new OutboxEntry("M1", new EmailMessage("a@example.com", "S", "B"),
+                OutboxEntry.Status.PENDING, 0, now);
+
+        e.retryAt(now.plusSeconds(30));
+
+        assertEquals("M1", e.getId());
+        assertEquals(1, e.getAttempts());
+        assertEquals(now.plusSeconds(30), e.getNextAttemptAt());
+        assertEquals(OutboxEntry.Status.PENDING, e.getStatus());
+        assertEquals("a@example.com", e.getMessage().getTo());
+    }
+
+    @Test
+    void deferTo_movesNextAttemptWithoutCountingOne() {
+        Instant now = Instant.parse("2025-03-02T10:00:00Z");
+        OutboxEntry e = new OutboxEntry("M1", new EmailMessage("a@example.com", "S", "B"),
+                OutboxEntry.Status.PENDING, 2, now);
+
+        e.deferTo(now.plusSeconds(30));
+
+        assertEquals(2, e.getAttempts());
+        assertEquals(now.plusSeconds(30), e.getNextAttemptAt());
+    }
+}
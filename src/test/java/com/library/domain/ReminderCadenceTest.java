@@ -0,0 +1,55 @@
+package com.library.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReminderCadenceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 10);
+
+    @Test
+    void isDue_neverRemindedLoan_isDue() {
+        assertTrue(ReminderCadence.defaults().isDue(null, DAY));
+    }
+
+    @Test
+    void isDue_waitsForIntervalAndRepeatsLastOne() {
+        ReminderCadence cadence = new ReminderCadence(new int[]{2, 5}, 0);
+        ReminderRecord r = new ReminderRecord("L1", DAY, 1);
+
+        assertFalse(cadence.isDue(r, DAY.plusDays(1)));
+        assertTrue(cadence.isDue(r, DAY.plusDays(2)));
+
+        r.sent(DAY.plusDays(2));
+        assertFalse(cadence.isDue(r, DAY.plusDays(6)));
+        assertTrue(cadence.isDue(r, DAY.plusDays(7)));
+
+        r.sent(DAY.plusDays(7));
+        assertFalse(cadence.isDue(r, DAY.plusDays(11)));
+        assertTrue(cadence.isDue(r, DAY.plusDays(12)));
+    }
+
+    @Test
+    void isDue_stopsAtMaximum() {
+        ReminderCadence cadence = new ReminderCadence(new int[]{1}, 2);
+
+        assertFalse(cadence.isDue(new ReminderRecord("L1", DAY, 2), DAY.plusDays(30)));
+    }
+
+    @Test
+    void parse_readsCommaSeparatedIntervals() {
+        ReminderCadence cadence = ReminderCadence.parse(" 1, 3 ,7", 4);
+
+        assertArrayEquals(new int[]{1, 3, 7}, cadence.getIntervalDays());
+        assertEquals(4, cadence.getMaxReminders());
+    }
+
+    @Test
+    void parse_rejectsMalformedOrZeroIntervals() {
+        assertThrows(IllegalArgumentException.class, () -> ReminderCadence.parse("3,x", 0));
+        assertThrows(IllegalArgumentException.class, () -> ReminderCadence.parse("0", 0));
+    }
+}
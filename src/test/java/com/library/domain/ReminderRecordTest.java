@@ -0,0 +1,22 @@
+package com.library.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReminderRecordTest {
+
+    @Test
+    void sent_updatesDateAndCount() {
+        LocalDate day = LocalDate.of(2025, 3, 10);
+        ReminderRecord r = new ReminderRecord("L1", day, 1);
+
+        r.sent(day.plusDays(3));
+
+        assertEquals("L1", r.getLoanId());
+        assertEquals(day.plusDays(3), r.getLastSentDate());
+        assertEquals(2, r.getCount());
+    }
+}
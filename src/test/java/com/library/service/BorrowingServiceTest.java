@@ -59,6 +59,8 @@ class BorrowingServiceTest {
         Files.write(tempDir.resolve("loans.txt"), List.of());
         Files.write(tempDir.resolve("fines.txt"), List.of());
 
+        Files.write(tempDir.resolve("cds.txt"), List.of("CD1;Thriller;Michael Jackson;false"));
+
         Files.write(
                 tempDir.resolve("books.txt"),
                 List.of("B1;Test Book;Author;111;false")
@@ -67,7 +69,7 @@ class BorrowingServiceTest {
         storage = new FileStorage(tempDir.toString());
         loanService = new LoanService(storage);
         fineService = new FineService(storage);
-        borrowingService = new BorrowingService(loanService, fineService);
+        borrowingService = new BorrowingService(loanService, new EligibilityService(loanService, fineService));
     }
 
     /**
@@ -123,7 +125,7 @@ class BorrowingServiceTest {
      */
     @Test
     void borrowBook_whenUserHasUnpaidFines_throwsException() {
-        fineService.createFine(USER_ID, 20.0);
+        fineService.createFine(USER_ID, 2000);
 
         IllegalStateException ex = assertThrows(
                 IllegalStateException.class,
@@ -152,7 +154,7 @@ class BorrowingServiceTest {
 
     @Test
     void borrowCd_whenUserHasUnpaidFines_throwsException() {
-        fineService.createFine(USER_ID, 30.0); // Fine > 0
+        fineService.createFine(USER_ID, 3000); // Fine > 0
 
         IllegalStateException ex = assertThrows(
                 IllegalStateException.class,
@@ -180,5 +182,46 @@ class BorrowingServiceTest {
         assertTrue(ex.getMessage().toLowerCase().contains("overdue"));
     }
 
+    /**
+     * Verifies that a clean user can borrow several books in one batch.
+     */
+    @Test
+    void borrowMany_whenUserIsClean_createsAllLoans() throws IOException {
+        Files.write(
+                tempDir.resolve("books.txt"),
+                List.of("B1;Test Book;Author;111;false",
+                        "B2;Other Book;Author;222;false")
+        );
+
+        List<Loan> loans = borrowingService.borrowMany(USER_ID, List.of("B1", "B2"));
+
+        assertEquals(2, loans.size());
+        assertEquals(2, storage.loadLoans().size());
+    }
+
+    /**
+     * Ensures that unpaid fines block the whole batch.
+     */
+    @Test
+    void borrowMany_whenUserHasUnpaidFines_throwsException() {
+        fineService.createFine(USER_ID, 2000);
 
+        assertThrows(IllegalStateException.class,
+                () -> borrowingService.borrowMany(USER_ID, List.of(BOOK_ID)));
+        assertTrue(storage.loadLoans().isEmpty());
+    }
+
+    /**
+     * Ensures that paying all fines immediately restores borrowing rights.
+     */
+    @Test
+    void borrowBook_afterFinesPaid_succeeds() {
+        fineService.createFine(USER_ID, 2000);
+        assertThrows(IllegalStateException.class,
+                () -> borrowingService.borrowBook(USER_ID, BOOK_ID));
+
+        fineService.payFine(USER_ID, 2000);
+
+        assertNotNull(borrowingService.borrowBook(USER_ID, BOOK_ID));
+    }
 }
@@ -0,0 +1,95 @@
+package com.library.service;
+
+import com.library.domain.Book;
+import com.library.domain.FileStorage;
+import com.library.domain.Loan;
+import com.library.domain.StorageException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link BulkReturnProcessor}.
+ *
+ * <p>Verifies that scanned loan IDs and item IDs are resolved, returned
+ * in one commit, and that unresolved lines are reported.</p>
+ */
+class BulkReturnProcessorTest {
+
+    /** Temporary directory used for file-based storage during tests. */
+    @TempDir
+    Path tempDir;
+
+    private FileStorage storage;
+    private LoanService loanService;
+    private BulkReturnProcessor processor;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.write(tempDir.resolve("loans.txt"), List.of());
+        Files.write(
+                tempDir.resolve("books.txt"),
+                List.of("B1;Harry Potter;Rowling;111;false",
+                        "B2;Dune;Herbert;222;false",
+                        "B3;Emma;Austen;333;false")
+        );
+
+        storage = new FileStorage(tempDir.toString());
+        loanService = new LoanService(storage);
+        processor = new BulkReturnProcessor(loanService);
+    }
+
+    /**
+     * Loan IDs and item IDs are both accepted; everything is returned.
+     */
+    @Test
+    void process_resolvesLoanAndItemIds() throws IOException {
+        List<Loan> loans = loanService.borrowMany("U1", List.of("B1", "B2", "B3"));
+        Path scan = tempDir.resolve("dropbox.txt");
+        Files.write(scan, List.of(loans.get(0).getId(), "", "B2", " B3 "));
+
+        BulkReturnReport report = processor.process(scan);
+
+        assertTrue(report.isSuccessful());
+        assertEquals(3, report.getReturned().size());
+        assertTrue(loanService.getActiveLoans().isEmpty());
+        assertTrue(storage.loadBooks().stream().noneMatch(Book::isBorrowed));
+    }
+
+    /**
+     * Unknown and repeated IDs are reported with their line numbers,
+     * while the valid entries are still returned.
+     */
+    @Test
+    void process_reportsUnknownAndDuplicateIds() throws IOException {
+        Loan loan = loanService.borrowBook("U1", "B1");
+        loanService.borrowBook("U2", "B2");
+        Path scan = tempDir.resolve("dropbox.txt");
+        Files.write(scan, List.of("B1", "X99", loan.getId()));
+
+        BulkReturnReport report = processor.process(scan);
+
+        assertEquals(1, report.getReturned().size());
+        assertEquals(2, report.getFailures().size());
+        assertEquals(2, report.getFailures().get(0).getLineNumber());
+        assertEquals("X99", report.getFailures().get(0).getScannedId());
+        assertEquals(3, report.getFailures().get(1).getLineNumber());
+        assertEquals(1, loanService.getActiveLoans().size());
+    }
+
+    /**
+     * A missing scan file is reported as a storage error.
+     */
+    @Test
+    void process_missingFile_throwsStorageException() {
+        assertThrows(StorageException.class,
+                () -> processor.process(tempDir.resolve("missing.txt")));
+    }
+}
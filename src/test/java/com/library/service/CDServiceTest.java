@@ -0,0 +1,66 @@
+package com.library.service;
+
+import com.library.domain.CD;
+import com.library.domain.FileStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link CDService}.
+ *
+ * <p>Verifies adding CDs, duplicate detection and searching by
+ * title and artist against a temporary storage directory.</p>
+ */
+class CDServiceTest {
+
+    /** Temporary directory used for file-based storage during tests. */
+    @TempDir
+    Path tempDir;
+
+    private FileStorage storage;
+    private CDService cdService;
+
+    @BeforeEach
+    void setUp() {
+        storage = new FileStorage(tempDir.toString());
+        cdService = new CDService(storage);
+    }
+
+    @Test
+    void addCd_persistsNewCd() {
+        CD cd = cdService.addCd("Thriller", "Michael Jackson");
+
+        assertNotNull(cd);
+        assertEquals("CD1", cd.getId());
+        assertFalse(cd.isBorrowed());
+        assertEquals(1, storage.loadCds().size());
+    }
+
+    @Test
+    void addCd_duplicateTitleAndArtist_returnsNull() {
+        cdService.addCd("Thriller", "Michael Jackson");
+
+        assertNull(cdService.addCd("thriller", "MICHAEL JACKSON"));
+        assertEquals(1, cdService.getAllCds().size());
+    }
+
+    @Test
+    void search_byTitleAndArtist_isCaseInsensitive() {
+        cdService.addCd("Thriller", "Michael Jackson");
+        cdService.addCd("Bad", "Michael Jackson");
+        cdService.addCd("Abbey Road", "The Beatles");
+
+        List<CD> byTitle = cdService.searchByTitle("road");
+        List<CD> byArtist = cdService.searchByArtist("jackson");
+
+        assertEquals(1, byTitle.size());
+        assertEquals("Abbey Road", byTitle.get(0).getTitle());
+        assertEquals(2, byArtist.size());
+    }
+}
@@ -0,0 +1,122 @@
+package com.library.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link CircuitBreaker}.
+ */
+class CircuitBreakerTest {
+
+    private static void fail(CircuitBreaker breaker) {
+        long permit = breaker.tryAcquire();
+        assertNotEquals(CircuitBreaker.NO_PERMIT, permit);
+        breaker.recordFailure(permit);
+    }
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        CircuitBreaker breaker = new CircuitBreaker(3, Duration.ofHours(1));
+
+        for (int i = 0; i < 2; i++) {
+            fail(breaker);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        fail(breaker);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(CircuitBreaker.NO_PERMIT, breaker.tryAcquire());
+        assertTrue(breaker.getRetryAfter().compareTo(Duration.ofMinutes(59)) > 0);
+    }
+
+    @Test
+    void successResetsFailureCount() {
+        CircuitBreaker breaker = new CircuitBreaker(2, Duration.ofHours(1));
+
+        fail(breaker);
+        breaker.recordSuccess(breaker.tryAcquire());
+        fail(breaker);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(Duration.ZERO, breaker.getRetryAfter());
+    }
+
+    @Test
+    void halfOpen_allowsOneTrialThatClosesOnSuccess() {
+        CircuitBreaker breaker = new CircuitBreaker(1, Duration.ZERO);
+        fail(breaker);
+
+        long trial = breaker.tryAcquire();
+        assertNotEquals(CircuitBreaker.NO_PERMIT, trial);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertEquals(CircuitBreaker.NO_PERMIT, breaker.tryAcquire());
+
+        breaker.recordSuccess(trial);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertNotEquals(CircuitBreaker.NO_PERMIT, breaker.tryAcquire());
+    }
+
+    @Test
+    void halfOpen_failedTrialOpensAgain() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker(5, Duration.ofMillis(50));
+        for (int i = 0; i < 5; i++) {
+            fail(breaker);
+        }
+        assertEquals(CircuitBreaker.NO_PERMIT, breaker.tryAcquire());
+
+        Thread.sleep(80);
+        fail(breaker);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(CircuitBreaker.NO_PERMIT, breaker.tryAcquire());
+    }
+
+    @Test
+    void release_freesTheTrialWithoutClosing() {
+        CircuitBreaker breaker = new CircuitBreaker(1, Duration.ZERO);
+        fail(breaker);
+        long trial = breaker.tryAcquire();
+        assertNotEquals(CircuitBreaker.NO_PERMIT, trial);
+
+        breaker.release(trial);
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertNotEquals(CircuitBreaker.NO_PERMIT, breaker.tryAcquire());
+    }
+
+    @Test
+    void lateSuccessFromBeforeOpening_doesNotCloseBreaker() {
+        CircuitBreaker breaker = new CircuitBreaker(1, Duration.ofHours(1));
+        long slow = breaker.tryAcquire();
+
+        fail(breaker);
+        breaker.recordSuccess(slow);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(CircuitBreaker.NO_PERMIT, breaker.tryAcquire());
+    }
+
+    @Test
+    void lateSuccessDuringHalfOpen_leavesTrialToDecide() {
+        CircuitBreaker breaker = new CircuitBreaker(1, Duration.ZERO);
+        long slow = breaker.tryAcquire();
+        fail(breaker);
+        long trial = breaker.tryAcquire();
+
+        breaker.recordSuccess(slow);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        breaker.recordFailure(trial);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void constructor_rejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new CircuitBreaker(0, Duration.ofSeconds(1)));
+        assertThrows(IllegalArgumentException.class, () -> new CircuitBreaker(1, Duration.ofSeconds(-1)));
+    }
+}
@@ -0,0 +1,118 @@
+package com.library.service;
+
+import com.library.domain.FileStorage;
+import com.library.domain.Loan;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link DueDateIndex}.
+ *
+ * <p>Verifies that window queries return only active loans due in the
+ * window, in due-date order, and that loan events keep the index current.</p>
+ */
+class DueDateIndexTest {
+
+    /** Temporary directory used for file-based storage during tests. */
+    @TempDir
+    Path tempDir;
+
+    private FileStorage storage;
+    private LoanService loanService;
+    private DueDateIndex index;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.write(tempDir.resolve("loans.txt"), List.of());
+        Files.write(
+                tempDir.resolve("books.txt"),
+                List.of("B1;Harry Potter;Rowling;111;false",
+                        "B2;Dune;Herbert;222;false")
+        );
+
+        storage = new FileStorage(tempDir.toString());
+        loanService = new LoanService(storage);
+        index = new DueDateIndex(loanService);
+    }
+
+    @Test
+    void getLoansDueBetween_returnsActiveLoansInWindowByDueDate() {
+        LocalDate today = LocalDate.now();
+        storage.saveLoans(List.of(
+                new Loan("L1", "U1", "B1", today.minusDays(20), today.plusDays(3), null),
+                new Loan("L2", "U2", "B2", today.minusDays(20), today.plusDays(1), null),
+                new Loan("L3", "U3", "B3", today.minusDays(20), today.plusDays(10), null),
+                new Loan("L4", "U4", "B4", today.minusDays(20), today.minusDays(1), null),
+                new Loan("L5", "U5", "B5", today.minusDays(40), today.plusDays(2), today.minusDays(30))
+        ));
+
+        List<Loan> due = index.getLoansDueBetween(today, today.plusDays(3));
+
+        assertEquals(2, due.size());
+        assertEquals("L2", due.get(0).getId());
+        assertEquals("L1", due.get(1).getId());
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void getLoansDueBetween_emptyWhenWindowReversed() {
+        LocalDate today = LocalDate.now();
+        storage.saveLoans(List.of(
+                new Loan("L1", "U1", "B1", today.minusDays(20), today.plusDays(1), null)
+        ));
+
+        assertTrue(index.getLoansDueBetween(today.plusDays(2), today).isEmpty());
+    }
+
+    @Test
+    void loanEvents_keepIndexCurrent() {
+        LocalDate today = LocalDate.now();
+        assertEquals(0, index.size());
+
+        Loan loan = loanService.borrowBook("U1", "B1");
+        List<Loan> due = index.getLoansDueBetween(today, loan.getDueDate());
+        assertEquals(1, due.size());
+        assertEquals(loan.getId(), due.get(0).getId());
+
+        loanService.returnBook(loan.getId());
+        assertTrue(index.getLoansDueBetween(today, loan.getDueDate()).isEmpty());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void refresh_rebuildsFromStorage() {
+        LocalDate today = LocalDate.now();
+        assertEquals(0, index.size());
+
+        storage.saveLoans(List.of(
+                new Loan("L1", "U1", "B1", today.minusDays(20), today.plusDays(1), null)
+        ));
+        assertEquals(0, index.size());
+
+        index.refresh();
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void getLoans_returnsOnlyActiveLoansById() {
+        LocalDate today = LocalDate.now();
+        storage.saveLoans(List.of(
+                new Loan("L1", "U1", "B1", today.minusDays(20), today.plusDays(1), null),
+                new Loan("L2", "U2", "B2", today.minusDays(40), today.minusDays(5), today.minusDays(1))
+        ));
+
+        List<Loan> loans = index.getLoans(List.of("L2", "L1", "L9"));
+
+        assertEquals(1, loans.size());
+        assertEquals("L1", loans.get(0).getId());
+    }
+}
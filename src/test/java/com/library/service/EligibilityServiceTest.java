@@ -0,0 +1,152 @@
+package com.library.service;
+
+import com.library.domain.BorrowEligibility;
+import com.library.domain.FileStorage;
+import com.library.domain.Fine;
+import com.library.domain.Loan;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link EligibilityService}.
+ *
+ * <p>Verifies that the per-user records are built from storage and then
+ * kept current by loan and fine events.</p>
+ */
+class EligibilityServiceTest {
+
+    /** Temporary directory used for file-based storage during tests. */
+    @TempDir
+    Path tempDir;
+
+    private FileStorage storage;
+    private LoanService loanService;
+    private FineService fineService;
+    private EligibilityService eligibilityService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.write(tempDir.resolve("loans.txt"), List.of());
+        Files.write(tempDir.resolve("fines.txt"), List.of());
+        Files.write(
+                tempDir.resolve("books.txt"),
+                List.of("B1;Harry Potter;Rowling;111;false",
+                        "B2;Dune;Herbert;222;false")
+        );
+
+        storage = new FileStorage(tempDir.toString());
+        loanService = new LoanService(storage);
+        fineService = new FineService(storage);
+        eligibilityService = new EligibilityService(loanService, fineService);
+    }
+
+    /**
+     * The first lookup builds the records from existing loans and fines.
+     */
+    @Test
+    void getEligibility_buildsFromStoredData() {
+        LocalDate today = LocalDate.now();
+        storage.saveLoans(List.of(
+                new Loan("L1", "U1", "B1", today.minusDays(20), today.minusDays(2), null),
+                new Loan("L2", "U1", "B2", today.minusDays(3), today.plusDays(5), null),
+                new Loan("L3", "U1", "B3", today.minusDays(40), today.minusDays(30), today.minusDays(31))
+        ));
+        fineService.createFine("U1", 1500);
+
+        BorrowEligibility e = eligibilityService.getEligibility("U1");
+
+        assertEquals(1500, e.getOutstandingBalance());
+        assertEquals(2, e.getActiveLoanCount());
+        assertEquals(today.minusDays(2), e.getEarliestActiveDueDate());
+        assertTrue(e.hasOverdueLoans(today));
+    }
+
+    /**
+     * Loan and fine events update an already built record.
+     */
+    @Test
+    void events_keepRecordCurrent() {
+        assertEquals(0, eligibilityService.getEligibility("U1").getActiveLoanCount());
+
+        Loan loan = loanService.borrowBook("U1", "B1");
+        loanService.borrowBook("U1", "B2");
+        fineService.createFine("U1", 3000);
+
+        BorrowEligibility afterBorrow = eligibilityService.getEligibility("U1");
+        assertEquals(2, afterBorrow.getActiveLoanCount());
+        assertEquals(loan.getDueDate(), afterBorrow.getEarliestActiveDueDate());
+        assertEquals(3000, afterBorrow.getOutstandingBalance());
+
+        loanService.returnBook(loan.getId());
+        fineService.payFine("U1", 3000);
+
+        BorrowEligibility afterReturn = eligibilityService.getEligibility("U1");
+        assertEquals(1, afterReturn.getActiveLoanCount());
+        assertFalse(afterReturn.hasUnpaidFines());
+    }
+
+    /**
+     * Waiving a fine clears it from the record.
+     */
+    @Test
+    void fineWaived_reducesBalance() {
+        eligibilityService.getEligibility("U1");
+        Fine fine = fineService.createFine("U1", 2500);
+
+        fineService.waiveFine(fine.getId());
+
+        assertFalse(eligibilityService.getEligibility("U1").hasUnpaidFines());
+    }
+
+    /**
+     * Unknown users get an empty record.
+     */
+    @Test
+    void getEligibility_unknownUser_returnsEmptyRecord() {
+        BorrowEligibility e = eligibilityService.getEligibility("U404");
+
+        assertEquals(0, e.getOutstandingBalance());
+        assertNull(e.getEarliestActiveDueDate());
+        assertEquals(0, e.getActiveLoanCount());
+    }
+
+    /**
+     * A refresh picks up changes written directly to storage.
+     */
+    @Test
+    void refresh_rebuildsFromStorage() {
+        eligibilityService.getEligibility("U1");
+        storage.saveLoans(List.of(
+                new Loan("L1", "U1", "B1", LocalDate.now(), LocalDate.now().plusDays(28), null)
+        ));
+
+        eligibilityService.refresh();
+
+        assertEquals(1, eligibilityService.getEligibility("U1").getActiveLoanCount());
+    }
+
+    /**
+     * The balance is the one {@link FineService} keeps, including partial payments.
+     */
+    @Test
+    void getEligibility_balanceMatchesFineService() {
+        eligibilityService.getEligibility("U1");
+        fineService.createFine("U1", 2000);
+        fineService.createFine("U1", 500);
+
+        fineService.payFine("U1", 1200);
+
+        assertEquals(fineService.getUserOutstandingBalance("U1"),
+                eligibilityService.getEligibility("U1").getOutstandingBalance());
+        assertEquals(1300, eligibilityService.getEligibility("U1").getOutstandingBalance());
+    }
+}
@@ -0,0 +1,275 @@
+package com.library.service;
+
+import com.library.domain.EmailMessage;
+import com.library.domain.FileStorage;
+import com.library.domain.OutboxEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link EmailOutbox}.
+ *
+ * <p>Verifies that queued messages are persisted before delivery, that
+ * failures are retried with backoff and finally dead-lettered, and that
+ * background dispatch delivers queued messages within the concurrency cap.</p>
+ */
+class EmailOutboxTest {
+
+    /** Temporary directory used for file-based storage during tests. */
+    @TempDir
+    Path tempDir;
+
+    private FileStorage storage;
+    private ScriptedEmailService emailService;
+
+    /**
+     * Email service that fails a set number of times before succeeding.
+     */
+    static class ScriptedEmailService extends EmailService {
+
+        /** Recipients of the messages sent. */
+        final List<String> sent = new CopyOnWriteArrayList<>();
+
+        /** Remaining failures before sends succeed; negative fails forever. */
+        int failures;
+
+        /** Number of send attempts. */
+        int calls;
+
+        /** Counted down on each successful send. */
+        CountDownLatch latch = new CountDownLatch(0);
+
+        /** Sends currently in progress, and the highest number seen. */
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger maxActive = new AtomicInteger();
+
+        /** Time each send takes. */
+        long sendMillis;
+
+        ScriptedEmailService() {
+            super("test@example.com", "dummy-password");
+        }
+
+        @Override
+        public void sendEmail(String to, String subject, String body) {
+            synchronized (this) {
+                calls++;
+                if (failures != 0) {
+                    failures--;
+                    throw new RuntimeException("Failed to send email", new Exception("SMTP down"));
+                }
+            }
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(sendMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                active.decrementAndGet();
+            }
+            sent.add(to);
+            latch.countDown();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        storage = new FileStorage(tempDir.toString());
+        emailService = new ScriptedEmailService();
+    }
+
+    private EmailOutbox newOutbox(int maxAttempts, Duration baseDelay) {
+        return new EmailOutbox(storage, emailService, 2, new RateLimiter(100_000), maxAttempts, baseDelay);
+    }
+
+    @Test
+    void enqueue_persistsWithoutSending() {
+        EmailOutbox outbox = newOutbox(3, Duration.ZERO);
+
+        outbox.enqueue(new EmailMessage("a@example.com", "S", "B"));
+
+        assertEquals(0, emailService.calls);
+        assertEquals(1, outbox.getPendingCount());
+        assertEquals(1, newOutbox(3, Duration.ZERO).getPendingCount());
+    }
+
+    @Test
+    void dispatch_whenExecutorRejects_keepsEntryPendingAndReleasesSlot() {
+        EmailOutbox outbox = new EmailOutbox(storage, emailService, 1, new RateLimiter(100_000), 3, Duration.ZERO);
+        outbox.enqueue(new EmailMessage("a@example.com", "S", "B"));
+        ExecutorService closed = Executors.newVirtualThreadPerTaskExecutor();
+        closed.shutdown();
+
+        // a leaked send slot would block the second dispatch forever
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            outbox.dispatch(closed);
+            outbox.dispatch(closed);
+        });
+
+        assertEquals(1, outbox.getPendingCount());
+        assertEquals(1, outbox.flush());
+        assertEquals(List.of("a@example.com"), emailService.sent);
+    }
+
+    @Test
+    void flush_sendsAndRemovesFromJournal() {
+        EmailOutbox outbox = newOutbox(3, Duration.ZERO);
+        outbox.enqueueAll(List.of(
+                new EmailMessage("a@example.com", "S", "B"),
+                new EmailMessage("b@example.com", "S", "B")
+        ));
+
+        assertEquals(2, outbox.flush());
+
+        assertEquals(List.of("a@example.com", "b@example.com"), emailService.sent);
+        assertEquals(0, outbox.getPendingCount());
+        assertEquals(0, newOutbox(3, Duration.ZERO).getPendingCount());
+    }
+
+    @Test
+    void failedSend_isRetriedUntilItSucceeds() {
+        emailService.failures = 2;
+        EmailOutbox outbox = newOutbox(5, Duration.ZERO);
+        outbox.enqueue(new EmailMessage("a@example.com", "S", "B"));
+
+        assertEquals(1, outbox.flush());
+
+        assertEquals(3, emailService.calls);
+        assertEquals(0, outbox.getPendingCount());
+        assertTrue(outbox.getDeadLetters().isEmpty());
+    }
+
+    @Test
+    void failedSend_waitsForBackoffBeforeRetry() {
+        emailService.failures = 1;
+        EmailOutbox outbox = newOutbox(5, Duration.ofHours(1));
+        outbox.enqueue(new EmailMessage("a@example.com", "S", "B"));
+
+        assertEquals(0, outbox.flush());
+
+        assertEquals(1, emailService.calls);
+        List<OutboxEntry> pending = storage.loadOutbox();
+        assertEquals(1, pending.size());
+        assertEquals(1, pending.get(0).getAttempts());
+    }
+
+    @Test
+    void failedSend_outOfAttempts_movesToDeadLetters() {
+        emailService.failures = -1;
+        EmailOutbox outbox = newOutbox(3, Duration.ZERO);
+        outbox.enqueue(new EmailMessage("a@example.com", "S", "B"));
+
+        assertEquals(0, outbox.flush());
+
+        assertEquals(3, emailService.calls);
+        assertEquals(0, outbox.getPendingCount());
+        List<OutboxEntry> dead = outbox.getDeadLetters();
+        assertEquals(1, dead.size());
+        assertEquals(3, dead.get(0).getAttempts());
+        assertEquals("a@example.com", dead.get(0).getMessage().getTo());
+    }
+
+    @Test
+    void start_workersDeliverInBackground() throws InterruptedException {
+        emailService.latch = new CountDownLatch(2);
+        EmailOutbox outbox = newOutbox(3, Duration.ZERO);
+        outbox.enqueue(new EmailMessage("a@example.com", "S", "B"));
+
+        outbox.start();
+        try {
+            outbox.enqueue(new EmailMessage("b@example.com", "S", "B"));
+            assertTrue(emailService.latch.await(5, TimeUnit.SECONDS));
+        } finally {
+            outbox.close();
+        }
+        assertEquals(2, emailService.sent.size());
+    }
+
+    @Test
+    void start_sendsConcurrentlyUpToCap() throws InterruptedException {
+        emailService.sendMillis = 50;
+        emailService.latch = new CountDownLatch(8);
+        EmailOutbox outbox = newOutbox(3, Duration.ZERO);
+        List<EmailMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            messages.add(new EmailMessage("u" + i + "@example.com", "S", "B"));
+        }
+        outbox.enqueueAll(messages);
+
+        outbox.start();
+        try {
+            assertTrue(emailService.latch.await(5, TimeUnit.SECONDS));
+        } finally {
+            outbox.close();
+        }
+        assertEquals(8, emailService.sent.size());
+        assertTrue(emailService.maxActive.get() <= 2);
+    }
+
+    @Test
+    void flush_respectsRateLimit() {
+        EmailOutbox outbox = new EmailOutbox(storage, emailService, 2, new RateLimiter(50, 1), 3, Duration.ZERO);
+        List<EmailMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            messages.add(new EmailMessage("u" + i + "@example.com", "S", "B"));
+        }
+        outbox.enqueueAll(messages);
+
+        long start = System.nanoTime();
+        assertEquals(6, outbox.flush());
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsedMillis >= 90, "6 sends at 50/s with burst 1 take at least 100ms, took " + elapsedMillis);
+    }
+
+    @Test
+    void finishedEntries_compactJournal() throws IOException {
+        EmailOutbox outbox = newOutbox(3, Duration.ZERO);
+        List<EmailMessage> messages = new ArrayList<>();
+        for (int i = 0; i < EmailOutbox.COMPACT_INTERVAL; i++) {
+            messages.add(new EmailMessage("u" + i + "@example.com", "S", "B"));
+        }
+        outbox.enqueueAll(messages);
+
+        outbox.flush();
+
+        assertTrue(Files.readAllLines(tempDir.resolve("outbox.txt")).isEmpty());
+    }
+
+    @Test
+    void constructor_rejectsNoWorkers() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new EmailOutbox(storage, emailService, 0, new RateLimiter(10), 3, Duration.ZERO));
+    }
+
+    @Test
+    void unavailableSend_isDeferredWithoutUsingAnAttempt() {
+        EmailService refusing = new EmailService(message -> {
+            throw new EmailUnavailableException("Email relay circuit is open", Duration.ofHours(1));
+        });
+        EmailOutbox outbox = new EmailOutbox(storage, refusing, 2, new RateLimiter(100_000), 1, Duration.ZERO);
+        outbox.enqueue(new EmailMessage("a@example.com", "S", "B"));
+
+        assertEquals(0, outbox.flush());
+
+        assertEquals(1, outbox.getPendingCount());
+        assertTrue(outbox.getDeadLetters().isEmpty());
+        assertEquals(0, storage.loadOutbox().get(0).getAttempts());
+    }
+}
@@ -1,77 +1,53 @@
 package com.library.service;
 
+import com.library.domain.EmailMessage;
 import org.junit.jupiter.api.Test;
-import org.mockito.MockedStatic;
 
-import javax.mail.Message;
-import javax.mail.MessagingException;
-import javax.mail.Transport;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.mockStatic;
 
 /**
- * Unit tests for the {@link EmailService} class.
+ * Unit tests for {@link EmailService}.
  *
- * <p>This test suite verifies the behavior of the email-sending logic by
- * mocking the JavaMail {@link Transport} class. No real network operation
- * is performed; instead, the static send method is intercepted to validate
- * correct invocation and exception handling.</p>
- *
- * <p>The tests ensure:</p>
- * <ul>
- *   <li>Email sending succeeds when Transport.send executes normally.</li>
- *   <li>MessagingException thrown by Transport.send is wrapped into a RuntimeException.</li>
- * </ul>
- *
- * @author Maram
- * @version 1.0
+ * <p>Verifies that the service hands messages to its transport unchanged
+ * and reports the failures the transport returns.</p>
  */
 class EmailServiceTest {
 
-    /**
-     * Ensures that {@link EmailService#sendEmail(String, String, String)}
-     * successfully invokes {@link Transport#send(Message)} without throwing
-     * exceptions. Uses Mockito's {@link MockedStatic} to mock the static method.
-     */
     @Test
-    void sendEmail_invokesTransportSendSuccessfully() {
-        EmailService service = new EmailService("sender@example.com", "password");
+    void sendEmail_handsMessageToTransport() {
+        InMemoryEmailTransport transport = new InMemoryEmailTransport();
+        EmailService service = new EmailService(transport);
 
-        try (MockedStatic<Transport> transportMock = mockStatic(Transport.class)) {
+        service.sendEmail("to@example.com", "Subject", "Body");
 
-            assertDoesNotThrow(() ->
-                    service.sendEmail("to@example.com", "Subject", "Body")
-            );
+        List<EmailMessage> sent = transport.getMessages();
+        assertEquals(1, sent.size());
+        assertEquals("to@example.com", sent.get(0).getTo());
+        assertEquals("Subject", sent.get(0).getSubject());
+        assertEquals("Body", sent.get(0).getBody());
+    }
 
-            transportMock.verify(() ->
-                    Transport.send(any(Message.class))
-            );
-        }
+    @Test
+    void sendAll_returnsMessagesTheTransportRejected() {
+        EmailMessage good = new EmailMessage("ok@example.com", "S", "B");
+        EmailMessage bad = new EmailMessage("bad@example.com", "S", "B");
+        EmailService service = new EmailService(message -> {
+            if (message == bad) {
+                throw new RuntimeException("rejected");
+            }
+        });
+
+        assertEquals(List.of(bad), service.sendAll(List.of(good, bad)));
     }
 
-    /**
-     * Verifies that when {@link Transport#send(Message)} throws a
-     * {@link MessagingException}, the EmailService correctly wraps it
-     * inside a {@link RuntimeException}. This ensures consistent error
-     * propagation and prevents checked exceptions from leaking outward.
-     */
     @Test
-    void sendEmail_whenTransportFails_wrapsMessagingException() {
+    void credentialsConstructor_usesSmtpTransport() {
         EmailService service = new EmailService("sender@example.com", "password");
 
-        try (MockedStatic<Transport> transportMock = mockStatic(Transport.class)) {
-
-            transportMock.when(() ->
-                    Transport.send(any(Message.class))
-            ).thenThrow(new MessagingException("SMTP error"));
-
-            RuntimeException ex = assertThrows(RuntimeException.class,
-                    () -> service.sendEmail("to@example.com", "Subject", "Body")
-            );
-
-            assertTrue(ex.getCause() instanceof MessagingException);
-        }
+        SmtpEmailTransport smtp = assertInstanceOf(SmtpEmailTransport.class, service.getTransport());
+        assertEquals(EmailService.DEFAULT_HOST, smtp.getHost());
+        assertEquals(EmailService.DEFAULT_PORT, smtp.getPort());
     }
 }
@@ -0,0 +1,202 @@
+package com.library.service;
+
+import com.library.domain.FileStorage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures email throughput against a {@link LocalSmtpServer}.
+ * <p>
+ * Two scenarios run for each message count:
+ * </p>
+ * <ul>
+ *   <li><b>EmailService</b>: several threads call
+ *   {@link EmailService#sendEmail(String, String, String)} over a pooled
+ *   {@link SmtpEmailTransport}.</li>
+ *   <li><b>ReminderService</b>: one overdue loan per user is written to a
+ *   temporary store and {@link ReminderService#sendOverdueReminders(LocalDate)}
+ *   sends the digests inline.</li>
+ * </ul>
+ * <p>
+ * Each scenario reports messages per second, p50 and p99 send latency,
+ * connections opened and failed sends. The class name does not end in
+ * {@code Test}, so it is not run by the normal build. To run it:
+ * </p>
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/classes:target/test-classes:$(cat target/cp.txt) \
+ *     com.library.service.EmailThroughputBenchmark [messages,...] [threads] [latencyMillis]
+ * </pre>
+ * <p>
+ * The defaults are {@code 10000,100000} messages, 4 threads and no added
+ * latency.
+ * </p>
+ *
+ * @author Maram
+ * @version 1.0
+ */
+public final class EmailThroughputBenchmark {
+
+    private static final int WARMUP_MESSAGES = 1_000;
+
+    private EmailThroughputBenchmark() {
+    }
+
+    /**
+     * Email service that records how long each send takes.
+     */
+    static final class TimedEmailService extends EmailService {
+
+        private final long[] latencies;
+        private final AtomicInteger recorded = new AtomicInteger();
+        private final AtomicLong failed = new AtomicLong();
+
+        TimedEmailService(EmailTransport transport, int capacity) {
+            super(transport);
+            this.latencies = new long[capacity];
+        }
+
+        @Override
+        public void sendEmail(String to, String subject, String body) {
+            long start = System.nanoTime();
+            try {
+                super.sendEmail(to, subject, body);
+            } catch (RuntimeException e) {
+                failed.incrementAndGet();
+            } finally {
+                int i = recorded.getAndIncrement();
+                if (i < latencies.length) {
+                    latencies[i] = System.nanoTime() - start;
+                }
+            }
+        }
+
+        /**
+         * @return the recorded latencies, sorted
+         */
+        long[] sortedLatencies() {
+            long[] sorted = Arrays.copyOf(latencies, Math.min(recorded.get(), latencies.length));
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args message counts separated by commas, thread count, added server latency in milliseconds
+     * @throws Exception if the server or the temporary store cannot be set up
+     */
+    public static void main(String[] args) throws Exception {
+        int[] counts = Arrays.stream((args.length > 0 ? args[0] : "10000,100000").split(","))
+                .map(String::trim).mapToInt(Integer::parseInt).toArray();
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        Duration latency = Duration.ofMillis(args.length > 2 ? Long.parseLong(args[2]) : 0);
+
+        try (LocalSmtpServer server = new LocalSmtpServer()) {
+            System.out.printf("Local SMTP server on port %d, %d thread(s), %d ms added latency%n",
+                    server.getPort(), threads, latency.toMillis());
+
+            sendDirect(server, WARMUP_MESSAGES, threads, Duration.ZERO);
+            for (int count : counts) {
+                report("EmailService", count, server, sendDirect(server, count, threads, latency));
+                report("ReminderService", count, server, sendReminders(server, count, latency));
+            }
+        }
+    }
+
+    /**
+     * Sends messages from several threads through one email service.
+     */
+    private static Result sendDirect(LocalSmtpServer server, int count, int threads, Duration latency)
+            throws InterruptedException {
+        server.reset();
+        server.setLatency(latency);
+        TimedEmailService service = new TimedEmailService(transport(server, threads), count);
+        AtomicInteger next = new AtomicInteger();
+
+        long start = System.nanoTime();
+        try (ExecutorService pool = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                pool.execute(() -> {
+                    int i;
+                    while ((i = next.getAndIncrement()) < count) {
+                        service.sendEmail("user" + i + "@example.com", "Benchmark " + i, "Message body " + i);
+                    }
+                });
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        service.close();
+        return new Result(elapsed, service);
+    }
+
+    /**
+     * Writes one overdue loan per user and sends the overdue digests.
+     */
+    private static Result sendReminders(LocalSmtpServer server, int count, Duration latency) throws IOException {
+        Path dir = Files.createTempDirectory("email-benchmark");
+        LocalDate today = LocalDate.now();
+        List<String> users = new ArrayList<>(count);
+        List<String> loans = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            users.add("U" + i + ";User " + i + ";user" + i + "@example.com;password");
+            loans.add("L" + i + ";U" + i + ";B" + i + ";" + today.minusDays(30) + ";" + today.minusDays(2) + ";");
+        }
+        Files.write(dir.resolve("users.txt"), users);
+        Files.write(dir.resolve("loans.txt"), loans);
+
+        server.reset();
+        server.setLatency(latency);
+        FileStorage storage = new FileStorage(dir.toString());
+        TimedEmailService service = new TimedEmailService(transport(server, 1), count);
+        ReminderService reminders = new ReminderService(new LoanService(storage), new UserService(storage), service);
+
+        long start = System.nanoTime();
+        reminders.sendOverdueReminders(today);
+        long elapsed = System.nanoTime() - start;
+        service.close();
+
+        try (var files = Files.walk(dir)) {
+            files.sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+        }
+        return new Result(elapsed, service);
+    }
+
+    private static SmtpEmailTransport transport(LocalSmtpServer server, int poolSize) {
+        return new SmtpEmailTransport("localhost", server.getPort(), "benchmark@example.com", "password", poolSize);
+    }
+
+    /**
+     * Elapsed time and recorded sends of one scenario.
+     */
+    private record Result(long elapsedNanos, TimedEmailService service) {
+    }
+
+    private static void report(String scenario, int count, LocalSmtpServer server, Result result) {
+        long[] sorted = result.service().sortedLatencies();
+        double seconds = result.elapsedNanos() / 1e9;
+        System.out.printf("%-16s %,9d msgs %,10.0f msg/s  p50 %7.3f ms  p99 %7.3f ms  %,d connection(s)  %,d failed%n",
+                scenario, count, sorted.length / seconds,
+                percentile(sorted, 0.50) / 1e6, percentile(sorted, 0.99) / 1e6,
+                server.getConnectionCount(), result.service().failed.get());
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+}
@@ -0,0 +1,105 @@
+package com.library.service;
+
+import com.library.domain.EmailMessage;
+import com.library.domain.StorageException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link FileSpoolEmailTransport}.
+ *
+ * <p>Verifies that every message is on disk as a complete {@code .eml}
+ * file when the call returns, and that failures are reported without
+ * leaving temporary files behind.</p>
+ */
+class FileSpoolEmailTransportTest {
+
+    /** Temporary directory used as the spool directory. */
+    @TempDir
+    Path tempDir;
+
+    private static EmailMessage message(int i) {
+        return new EmailMessage("user" + i + "@example.com", "Subject " + i, "Body " + i);
+    }
+
+    private List<Path> spooled() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.toList();
+        }
+    }
+
+    @Test
+    void send_writesEachMessageBeforeReturning() throws IOException {
+        FileSpoolEmailTransport transport = new FileSpoolEmailTransport(tempDir, "library@example.com", 3);
+
+        transport.send(message(1));
+        assertEquals(1, spooled().size());
+
+        transport.send(message(2));
+        assertEquals(2, spooled().size());
+    }
+
+    @Test
+    void send_writesCompleteMessage() throws IOException {
+        FileSpoolEmailTransport transport = new FileSpoolEmailTransport(tempDir, "library@example.com", 10);
+
+        transport.send(message(1));
+
+        List<Path> files = spooled();
+        assertEquals(1, files.size());
+        assertTrue(files.get(0).getFileName().toString().endsWith(".eml"));
+        String content = Files.readString(files.get(0));
+        assertTrue(content.contains("To: user1@example.com"));
+        assertTrue(content.contains("From: library@example.com"));
+        assertTrue(content.contains("Subject: Subject 1"));
+        assertTrue(content.contains("Body 1"));
+    }
+
+    @Test
+    void sendAll_writesWholeBatchAndCreatesDirectory() throws IOException {
+        Path spool = tempDir.resolve("spool");
+        FileSpoolEmailTransport transport = new FileSpoolEmailTransport(spool, "library@example.com", 50);
+
+        List<EmailMessage> failed = transport.sendAll(List.of(message(1), message(2)));
+
+        assertTrue(failed.isEmpty());
+        try (Stream<Path> files = Files.list(spool)) {
+            assertEquals(2, files.filter(p -> p.toString().endsWith(".eml")).count());
+        }
+    }
+
+    @Test
+    void send_whenMessageCannotBeWritten_throwsAndLeavesNoTempFile() throws IOException {
+        FileSpoolEmailTransport transport = new FileSpoolEmailTransport(tempDir, "library@example.com", 10);
+
+        assertThrows(StorageException.class,
+                () -> transport.send(new EmailMessage("not an <address", "Subject", "Body")));
+        assertTrue(spooled().isEmpty());
+    }
+
+    @Test
+    void sendAll_reportsUnwritableMessagesAndWritesTheRest() throws IOException {
+        FileSpoolEmailTransport transport = new FileSpoolEmailTransport(tempDir, "library@example.com", 1);
+        EmailMessage bad = new EmailMessage("not an <address", "Subject", "Body");
+
+        List<EmailMessage> failed = transport.sendAll(List.of(message(1), bad, message(2)));
+
+        assertEquals(List.of(bad), failed);
+        assertEquals(2, spooled().size());
+        assertTrue(spooled().stream().allMatch(p -> p.toString().endsWith(".eml")));
+    }
+
+    @Test
+    void constructor_rejectsEmptyBatch() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new FileSpoolEmailTransport(tempDir, "library@example.com", 0));
+    }
+}
@@ -0,0 +1,177 @@
+package com.library.service;
+
+import com.library.domain.FileStorage;
+import com.library.domain.Fine;
+import com.library.domain.FineCalculator;
+import com.library.domain.FinePolicy;
+import com.library.domain.Loan;
+import com.library.domain.MediaType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link FineAccrualService}.
+ *
+ * <p>Verifies that only loans whose boundary has passed are accrued, that
+ * deltas rather than totals are posted, and that the accrual state survives
+ * a restart and follows loan events.</p>
+ */
+class FineAccrualServiceTest {
+
+    /** Temporary directory used for file-based storage during tests. */
+    @TempDir
+    Path tempDir;
+
+    private static final LocalDate DUE = LocalDate.of(2025, 3, 1);
+
+    private FileStorage storage;
+    private LoanService loanService;
+    private FineService fineService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.write(tempDir.resolve("books.txt"), List.of("B1;Dune;Herbert;222;false"));
+        storage = new FileStorage(tempDir.toString());
+        loanService = new LoanService(storage);
+    }
+
+    private FineAccrualService newService(FineCalculator calculator) {
+        fineService = new FineService(storage, calculator);
+        return new FineAccrualService(storage, loanService, fineService);
+    }
+
+    private static FineCalculator dailyBookRate() {
+        return new FineCalculator(Map.of(
+                MediaType.BOOK, new FinePolicy(0, 50, 0, 0),
+                MediaType.CD, new FinePolicy(2000, 0, 0, 0)));
+    }
+
+    @Test
+    void run_flatFee_isPostedOnceAndNeverRevisited() {
+        storage.saveLoans(List.of(new Loan("L1", "U1", "B1", DUE.minusDays(28), DUE, null)));
+        FineAccrualService service = newService(new FineCalculator());
+
+        List<Fine> first = service.run(DUE.plusDays(1));
+        List<Fine> later = service.run(DUE.plusDays(30));
+
+        assertEquals(1, first.size());
+        assertEquals(1000, first.get(0).getAmount());
+        assertEquals("L1", first.get(0).getLoanId());
+        assertTrue(later.isEmpty());
+        assertNull(service.getAccrual("L1").getNextBoundary());
+    }
+
+    @Test
+    void run_dailyRate_postsOnlyTheDelta() {
+        storage.saveLoans(List.of(new Loan("L1", "U1", "B1", DUE.minusDays(28), DUE, null)));
+        FineAccrualService service = newService(dailyBookRate());
+
+        assertEquals(150, service.run(DUE.plusDays(3)).get(0).getAmount());
+        assertEquals(100, service.run(DUE.plusDays(5)).get(0).getAmount());
+        assertTrue(service.run(DUE.plusDays(5)).isEmpty());
+
+        assertEquals(250, fineService.getUserOutstandingBalance("U1"));
+        assertEquals(DUE.plusDays(6), service.getAccrual("L1").getNextBoundary());
+    }
+
+    @Test
+    void run_loanNotYetOverdue_isNotCharged() {
+        storage.saveLoans(List.of(new Loan("L1", "U1", "B1", DUE.minusDays(28), DUE, null)));
+        FineAccrualService service = newService(dailyBookRate());
+
+        assertTrue(service.run(DUE).isEmpty());
+        assertEquals(DUE.plusDays(1), service.getAccrual("L1").getNextBoundary());
+    }
+
+    @Test
+    void run_existingAssessment_isNotChargedAgain() {
+        storage.saveLoans(List.of(new Loan("L1", "U1", "B1", DUE.minusDays(28), DUE, null)));
+        FineService assessed = new FineService(storage);
+        new FineAssessmentJob(loanService, assessed).run(DUE.plusDays(2));
+
+        FineAccrualService service = newService(new FineCalculator());
+
+        assertTrue(service.run(DUE.plusDays(3)).isEmpty());
+        assertEquals(1, storage.loadFines().size());
+    }
+
+    @Test
+    void state_survivesRestart() {
+        storage.saveLoans(List.of(new Loan("L1", "U1", "B1", DUE.minusDays(28), DUE, null)));
+        newService(dailyBookRate()).run(DUE.plusDays(2));
+
+        FineAccrualService restarted = newService(dailyBookRate());
+
+        assertEquals(100, restarted.getAccrual("L1").getAccruedCents());
+        assertEquals(50, restarted.run(DUE.plusDays(3)).get(0).getAmount());
+    }
+
+    @Test
+    void loanEvents_trackNewLoansAndDropReturnedOnes() {
+        FineAccrualService service = newService(dailyBookRate());
+        service.run(DUE);
+
+        Loan loan = loanService.borrowBook("U1", "B1");
+        assertNotNull(service.getAccrual(loan.getId()));
+        assertEquals(loan.getDueDate().plusDays(1), service.getAccrual(loan.getId()).getNextBoundary());
+
+        loanService.returnBook(loan.getId());
+
+        assertNull(service.getAccrual(loan.getId()));
+        assertTrue(service.run(loan.getDueDate().plusDays(10)).isEmpty());
+    }
+
+    @Test
+    void run_afterAssessmentJob_doesNotChargeTheLoanAgain() {
+        storage.saveLoans(List.of(new Loan("L1", "U1", "B1", DUE.minusDays(28), DUE, null)));
+        FineAccrualService service = newService(new FineCalculator());
+        LocalDate today = DUE.plusDays(3);
+        service.getAccrual("L1");
+
+        List<Fine> assessed = new FineAssessmentJob(loanService, fineService).run(today);
+        List<Fine> accrued = service.run(today);
+
+        assertEquals(1, assessed.size());
+        assertTrue(accrued.isEmpty());
+        assertEquals(1000, fineService.getUserOutstandingBalance("U1"));
+        assertEquals(1000, service.getAccrual("L1").getAccruedCents());
+    }
+
+    @Test
+    void run_afterAssessmentBeforeFirstUse_countsFineAgainstSavedRecord() {
+        storage.saveLoans(List.of(new Loan("L1", "U1", "B1", DUE.minusDays(28), DUE, null)));
+        newService(new FineCalculator()).run(DUE);
+        FineAccrualService restarted = newService(new FineCalculator());
+        LocalDate today = DUE.plusDays(3);
+
+        new FineAssessmentJob(loanService, fineService).run(today);
+        List<Fine> accrued = restarted.run(today);
+
+        assertTrue(accrued.isEmpty());
+        assertEquals(1000, fineService.getUserOutstandingBalance("U1"));
+        assertEquals(1000, restarted.getAccrual("L1").getAccruedCents());
+    }
+
+    @Test
+    void run_afterAssessmentBeforeFirstUse_withoutSavedRecord_countsFineOnce() {
+        storage.saveLoans(List.of(new Loan("L1", "U1", "B1", DUE.minusDays(28), DUE, null)));
+        FineAccrualService service = newService(new FineCalculator());
+        LocalDate today = DUE.plusDays(3);
+
+        new FineAssessmentJob(loanService, fineService).run(today);
+        List<Fine> accrued = service.run(today);
+
+        assertTrue(accrued.isEmpty());
+        assertEquals(1000, service.getAccrual("L1").getAccruedCents());
+    }
+}
@@ -0,0 +1,100 @@
+package com.library.service;
+
+import com.library.domain.FileStorage;
+import com.library.domain.Fine;
+import com.library.domain.FineCalculator;
+import com.library.domain.Loan;
+import com.library.domain.MediaType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link FineAssessmentJob}.
+ *
+ * <p>Verifies that overdue loans are fined once with the media-type amount,
+ * that re-running the job creates no duplicates, and that large batches
+ * split across the pool produce one fine per loan.</p>
+ */
+class FineAssessmentJobTest {
+
+    /** Temporary directory used for file-based storage during tests. */
+    @TempDir
+    Path tempDir;
+
+    private FileStorage storage;
+    private LoanService loanService;
+    private FineService fineService;
+    private FineAssessmentJob job;
+
+    @BeforeEach
+    void setUp() {
+        storage = new FileStorage(tempDir.toString());
+        loanService = new LoanService(storage);
+        fineService = new FineService(storage);
+        job = new FineAssessmentJob(loanService, fineService);
+    }
+
+    @Test
+    void run_finesOverdueLoansByMediaType() {
+        LocalDate today = LocalDate.now();
+        storage.saveLoans(List.of(
+                new Loan("L1", "U1", "B1", today.minusDays(40), today.minusDays(3), null, MediaType.BOOK),
+                new Loan("L2", "U2", "CD1", today.minusDays(10), today.minusDays(1), null, MediaType.CD),
+                new Loan("L3", "U3", "B2", today.minusDays(2), today.plusDays(20), null, MediaType.BOOK)
+        ));
+
+        List<Fine> created = job.run(today);
+
+        assertEquals(2, created.size());
+        assertEquals("L1", created.get(0).getLoanId());
+        assertEquals(1000, created.get(0).getAmount());
+        assertEquals("L2", created.get(1).getLoanId());
+        assertEquals(2000, created.get(1).getAmount());
+        assertEquals(2, storage.loadFines().size());
+    }
+
+    @Test
+    void run_twiceOnSameDay_createsNoDuplicates() {
+        LocalDate today = LocalDate.now();
+        storage.saveLoans(List.of(
+                new Loan("L1", "U1", "B1", today.minusDays(40), today.minusDays(3), null)
+        ));
+
+        job.run(today);
+        List<Fine> second = job.run(today);
+
+        assertTrue(second.isEmpty());
+        assertEquals(1, storage.loadFines().size());
+    }
+
+    @Test
+    void run_largeBatch_splitsAcrossPoolAndFinesEachLoanOnce() {
+        LocalDate today = LocalDate.now();
+        List<Loan> loans = new ArrayList<>();
+        for (int i = 1; i <= 2000; i++) {
+            loans.add(new Loan("L" + i, "U" + (i % 50), "B" + i,
+                    today.minusDays(40), today.minusDays(1 + i % 5), null));
+        }
+        storage.saveLoans(loans);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            FineAssessmentJob parallelJob =
+                    new FineAssessmentJob(loanService, fineService, new FineCalculator(), pool);
+
+            assertEquals(2000, parallelJob.run(today).size());
+            assertEquals(2000, fineService.getFinedLoanIds().size());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -1,8 +1,16 @@
 package com.library.service;
 
 import com.library.domain.FineCalculator;
+import com.library.domain.FinePolicy;
 import com.library.domain.MediaType;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -29,44 +37,113 @@ import static org.junit.jupiter.api.Assertions.*;
  */
 class FineCalculatorTest {
 
+    /** Temporary directory for policy config files. */
+    @TempDir
+    Path tempDir;
+
     /**
      * Verifies that when calculating fines for {@link MediaType#BOOK},
      * the calculator returns:
      * <ul>
-     *     <li>0.0 when the book is not overdue.</li>
-     *     <li>10.0 when the book is overdue by any positive number of days.</li>
+     *     <li>0 when the book is not overdue.</li>
+     *     <li>1000 cents (10.00) when the book is overdue by any positive number of days.</li>
      * </ul>
      */
     @Test
     void calculate_bookFine_is10WhenOverdue() {
         FineCalculator calc = new FineCalculator();
 
-        assertEquals(0.0, calc.calculate(MediaType.BOOK, 0));
-        assertEquals(10.0, calc.calculate(MediaType.BOOK, 1));
-        assertEquals(10.0, calc.calculate(MediaType.BOOK, 5));
+        assertEquals(0, calc.calculate(MediaType.BOOK, 0));
+        assertEquals(1000, calc.calculate(MediaType.BOOK, 1));
+        assertEquals(1000, calc.calculate(MediaType.BOOK, 5));
     }
 
     /**
      * Verifies that when calculating fines for {@link MediaType#CD},
      * the calculator returns:
      * <ul>
-     *     <li>0.0 when the CD is not overdue.</li>
-     *     <li>20.0 when the CD is overdue by any positive number of days.</li>
+     *     <li>0 when the CD is not overdue.</li>
+     *     <li>2000 cents (20.00) when the CD is overdue by any positive number of days.</li>
      * </ul>
      */
     @Test
     void calculate_cdFine_is20WhenOverdue() {
         FineCalculator calc = new FineCalculator();
 
-        assertEquals(0.0, calc.calculate(MediaType.CD, 0));
-        assertEquals(20.0, calc.calculate(MediaType.CD, 1));
-        assertEquals(20.0, calc.calculate(MediaType.CD, 10));
+        assertEquals(0, calc.calculate(MediaType.CD, 0));
+        assertEquals(2000, calc.calculate(MediaType.CD, 1));
+        assertEquals(2000, calc.calculate(MediaType.CD, 10));
     }
 
 
 
 
 
+    /**
+     * Verifies that a calculator built from a config file uses the
+     * configured policy and keeps defaults for unconfigured media types.
+     */
+    @Test
+    void load_usesConfiguredPolicies() throws IOException {
+        Path config = tempDir.resolve("fine-policies.properties");
+        Files.write(config, List.of(
+                "BOOK.flatFee=0",
+                "BOOK.ratePerDay=0.50",
+                "BOOK.graceDays=1"
+        ));
+
+        FineCalculator calc = FineCalculator.load(config);
+
+        assertEquals(0, calc.calculate(MediaType.BOOK, 1));
+        assertEquals(150, calc.calculate(MediaType.BOOK, 4));
+        assertEquals(2000, calc.calculate(MediaType.CD, 4));
+    }
+
+    /**
+     * Verifies that a media type without a policy cannot be priced.
+     */
+    @Test
+    void calculate_throwsException_whenPolicyMissing() {
+        FineCalculator calc = new FineCalculator(Map.of(MediaType.BOOK, new FinePolicy(1000, 0, 0, 0)));
+
+        assertThrows(IllegalArgumentException.class, () -> calc.calculate(MediaType.CD, 3));
+    }
+
+    /**
+     * Verifies that batch calculation matches per-item calculation
+     * for mixed media types.
+     */
+    @Test
+    void calculateAll_matchesSingleCalculations() {
+        FineCalculator calc = new FineCalculator();
+        MediaType[] types = {MediaType.BOOK, MediaType.CD, MediaType.CD, MediaType.BOOK};
+        long[] days = {0, 3, -1, 12};
+        long[] out = new long[4];
+
+        calc.calculateAll(types, days, out);
+
+        for (int i = 0; i < types.length; i++) {
+            assertEquals(calc.calculate(types[i], days[i]), out[i]);
+        }
+    }
+
+    /**
+     * Verifies the single-type columnar variant and argument checks.
+     */
+    @Test
+    void calculateAll_columnar_pricesEveryRow() {
+        FineCalculator calc = new FineCalculator();
+        long[] out = new long[3];
+
+        calc.calculateAll(MediaType.CD, new long[]{1, 0, 40}, out);
+
+        assertArrayEquals(new long[]{2000, 0, 2000}, out);
+        assertThrows(IllegalArgumentException.class,
+                () -> calc.calculateAll(MediaType.CD, new long[2], new long[3]));
+        assertThrows(IllegalArgumentException.class,
+                () -> calc.calculateAll(new MediaType[1], new long[1], new long[1]));
+    }
+
     /**
      * Verifies that the calculator throws an exception
      * when calculating a fine for an unsupported media type.
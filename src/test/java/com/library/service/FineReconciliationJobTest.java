@@ -0,0 +1,181 @@
+package com.library.service;
+
+import com.library.domain.FileStorage;
+import com.library.domain.Fine;
+import com.library.domain.FineCalculator;
+import com.library.domain.FinePolicy;
+import com.library.domain.Loan;
+import com.library.domain.MediaType;
+import com.library.service.FineReconciliationReport.Discrepancy;
+import com.library.service.FineReconciliationReport.Type;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link FineReconciliationJob}.
+ *
+ * <p>Verifies that missing, duplicate and orphaned fines are reported and
+ * that correctly fined loans, including those fined in several accrual
+ * steps, are not.</p>
+ */
+class FineReconciliationJobTest {
+
+    /** Temporary directory used for file-based storage during tests. */
+    @TempDir
+    Path tempDir;
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 6, 1);
+
+    private FileStorage storage;
+    private LoanService loanService;
+    private FineService fineService;
+
+    @BeforeEach
+    void setUp() {
+        storage = new FileStorage(tempDir.toString());
+        loanService = new LoanService(storage);
+        fineService = new FineService(storage);
+    }
+
+    private FineReconciliationReport reconcile() {
+        return new FineReconciliationJob(loanService, fineService, new FineCalculator(), new ForkJoinPool(4))
+                .run(TODAY);
+    }
+
+    private void fine(Loan loan, long amount) {
+        Map<Loan, Long> amounts = new LinkedHashMap<>();
+        amounts.put(loan, amount);
+        fineService.createLoanFines(amounts);
+    }
+
+    @Test
+    void run_correctlyFinedHistory_isClean() {
+        Loan late = new Loan("L1", "U1", "B1", TODAY.minusDays(40), TODAY.minusDays(12), TODAY.minusDays(5));
+        Loan onTime = new Loan("L2", "U2", "B2", TODAY.minusDays(30), TODAY.minusDays(2), TODAY.minusDays(3));
+        storage.saveLoans(List.of(late, onTime));
+        fine(late, 1000);
+
+        FineReconciliationReport report = reconcile();
+
+        assertTrue(report.isClean());
+        assertEquals(2, report.getLoansChecked());
+        assertEquals(1, report.getFinesChecked());
+    }
+
+    @Test
+    void run_overdueReturnWithoutFine_isMissing() {
+        storage.saveLoans(List.of(
+                new Loan("L1", "U1", "CD1", TODAY.minusDays(20), TODAY.minusDays(10), TODAY.minusDays(1), MediaType.CD)
+        ));
+
+        List<Discrepancy> missing = reconcile().getDiscrepancies(Type.MISSING);
+
+        assertEquals(1, missing.size());
+        assertEquals("L1", missing.get(0).getLoanId());
+        assertEquals(2000, missing.get(0).getExpectedCents());
+    }
+
+    @Test
+    void run_loanFinedTwice_isDuplicate() {
+        Loan loan = new Loan("L1", "U1", "B1", TODAY.minusDays(40), TODAY.minusDays(12), null);
+        storage.saveLoans(List.of(loan));
+        fine(loan, 1000);
+        fine(loan, 1000);
+        fineService.payFine("U1", 2000);
+
+        List<Discrepancy> duplicates = reconcile().getDiscrepancies(Type.DUPLICATE);
+
+        assertEquals(1, duplicates.size());
+        assertEquals(List.of("F1", "F2"), duplicates.get(0).getFineIds());
+        assertEquals(2000, duplicates.get(0).getAssessedCents());
+        assertEquals(1000, duplicates.get(0).getExpectedCents());
+    }
+
+    @Test
+    void run_singleFineAboveSchedule_isOvercharged() {
+        Loan loan = new Loan("L1", "U1", "B1", TODAY.minusDays(40), TODAY.minusDays(12), TODAY.minusDays(5));
+        storage.saveLoans(List.of(loan));
+        fine(loan, 1500);
+
+        List<Discrepancy> overcharged = reconcile().getDiscrepancies(Type.OVERCHARGED);
+
+        assertEquals(1, overcharged.size());
+        assertEquals(List.of("F1"), overcharged.get(0).getFineIds());
+        assertEquals(1500, overcharged.get(0).getAssessedCents());
+        assertEquals(1000, overcharged.get(0).getExpectedCents());
+    }
+
+    @Test
+    void run_fineBelowSchedule_isUndercharged() {
+        Loan loan = new Loan("L1", "U1", "B1", TODAY.minusDays(40), TODAY.minusDays(12), TODAY.minusDays(5));
+        storage.saveLoans(List.of(loan));
+        fine(loan, 400);
+
+        FineReconciliationReport report = reconcile();
+
+        assertEquals(1, report.getDiscrepancies(Type.UNDERCHARGED).size());
+        assertEquals(400, report.getDiscrepancies(Type.UNDERCHARGED).get(0).getAssessedCents());
+        assertTrue(report.getDiscrepancies(Type.MISSING).isEmpty());
+    }
+
+    @Test
+    void run_withAccrualService_judgesActiveLoansOnTheirLastAccrual() {
+        LocalDate due = TODAY.minusDays(10);
+        storage.saveLoans(List.of(new Loan("L1", "U1", "B1", due.minusDays(28), due, null)));
+        FineCalculator dailyRate = new FineCalculator(Map.of(
+                MediaType.BOOK, new FinePolicy(0, 50, 0, 0),
+                MediaType.CD, new FinePolicy(2000, 0, 0, 0)));
+        fineService = new FineService(storage, dailyRate);
+        FineAccrualService accruals = new FineAccrualService(storage, loanService, fineService);
+        accruals.run(due.plusDays(3));
+        accruals.run(due.plusDays(5));
+
+        FineReconciliationReport stale = new FineReconciliationJob(loanService, fineService, dailyRate,
+                new ForkJoinPool(2)).run(due.plusDays(3));
+        FineReconciliationReport report = new FineReconciliationJob(loanService, fineService, accruals,
+                dailyRate, new ForkJoinPool(2)).run(due.plusDays(3));
+
+        assertEquals(1, stale.getDiscrepancies(Type.DUPLICATE).size());
+        assertTrue(report.isClean());
+    }
+
+    @Test
+    void run_fineForUnknownOrForeignLoan_isOrphaned() {
+        Loan loan = new Loan("L1", "U1", "B1", TODAY.minusDays(40), TODAY.minusDays(12), TODAY.minusDays(1));
+        storage.saveLoans(List.of(loan));
+        fine(loan, 1000);
+        fine(new Loan("L1", "U2", "B1", TODAY, TODAY, null), 500);
+        fine(new Loan("L99", "U3", "B9", TODAY, TODAY, null), 700);
+
+        List<Discrepancy> orphaned = reconcile().getDiscrepancies(Type.ORPHANED);
+
+        assertEquals(2, orphaned.size());
+        assertTrue(orphaned.stream().anyMatch(d -> d.getUserId().equals("U2") && d.getLoanId().equals("L1")));
+        assertTrue(orphaned.stream().anyMatch(d -> d.getLoanId().equals("L99") && d.getAssessedCents() == 700));
+    }
+
+    @Test
+    void run_manyUsers_partitionsFindEveryMissingFine() {
+        List<Loan> loans = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            loans.add(new Loan("L" + i, "U" + i, "B" + i, TODAY.minusDays(30), TODAY.minusDays(2), null));
+        }
+        storage.saveLoans(loans);
+
+        FineReconciliationReport report = reconcile();
+
+        assertEquals(2_000, report.getLoansChecked());
+        assertEquals(2_000, report.getDiscrepancies(Type.MISSING).size());
+    }
+}
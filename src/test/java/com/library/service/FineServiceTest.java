@@ -2,6 +2,8 @@ package com.library.service;
 
 import com.library.domain.FileStorage;
 import com.library.domain.Fine;
+import com.library.domain.FineCalculator;
+import com.library.domain.FineLedgerEntry;
 import com.library.domain.MediaType;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -68,8 +70,8 @@ class FineServiceTest {
      */
     @Test
     void getUserOutstandingBalance_noFines_returnsZero() {
-        double balance = fineService.getUserOutstandingBalance("U1");
-        assertEquals(0.0, balance);
+        long balance = fineService.getUserOutstandingBalance("U1");
+        assertEquals(0, balance);
     }
 
     /**
@@ -82,15 +84,15 @@ class FineServiceTest {
      */
     @Test
     void createFine_addsFineAndPersistsIt() {
-        Fine fine = fineService.createFine("U1", 20.0);
+        Fine fine = fineService.createFine("U1", 2000);
 
         assertNotNull(fine);
         assertEquals("U1", fine.getUserId());
-        assertEquals(20.0, fine.getAmount());
+        assertEquals(2000, fine.getAmount());
 
         List<Fine> fines = storage.loadFines();
         assertEquals(1, fines.size());
-        assertEquals(20.0, fines.get(0).getAmount());
+        assertEquals(2000, fines.get(0).getAmount());
     }
 
     /**
@@ -100,16 +102,16 @@ class FineServiceTest {
     @Test
     void getUserOutstandingBalance_sumsOnlyUnpaidFinesForUser() {
 
-        fineService.createFine("U1", 30.0);
-        fineService.createFine("U1", 10.0);
+        fineService.createFine("U1", 3000);
+        fineService.createFine("U1", 1000);
 
-        fineService.createFine("U2", 50.0);
+        fineService.createFine("U2", 5000);
 
-        double u1Balance = fineService.getUserOutstandingBalance("U1");
-        double u2Balance = fineService.getUserOutstandingBalance("U2");
+        long u1Balance = fineService.getUserOutstandingBalance("U1");
+        long u2Balance = fineService.getUserOutstandingBalance("U2");
 
-        assertEquals(40.0, u1Balance);
-        assertEquals(50.0, u2Balance);
+        assertEquals(4000, u1Balance);
+        assertEquals(5000, u2Balance);
     }
 
     /**
@@ -123,21 +125,21 @@ class FineServiceTest {
     @Test
     void payFine_partialPayment_reducesBalanceButLeavesSomeUnpaid() {
 
-        fineService.createFine("U1", 30.0);
-        fineService.createFine("U1", 10.0);
+        fineService.createFine("U1", 3000);
+        fineService.createFine("U1", 1000);
 
-        double newBalance = fineService.payFine("U1", 25.0);
+        long newBalance = fineService.payFine("U1", 2500);
 
-        assertEquals(15.0, newBalance, 0.0001);
+        assertEquals(1500, newBalance);
 
         List<Fine> fines = storage.loadFines();
 
         assertEquals(2, fines.size());
 
-        assertEquals(5.0, fines.get(0).getAmount(), 0.0001);
+        assertEquals(500, fines.get(0).getAmount());
         assertFalse(fines.get(0).isPaid());
 
-        assertEquals(10.0, fines.get(1).getAmount(), 0.0001);
+        assertEquals(1000, fines.get(1).getAmount());
         assertFalse(fines.get(1).isPaid());
     }
 
@@ -151,19 +153,19 @@ class FineServiceTest {
      */
     @Test
     void payFine_fullPayment_marksAllFinesPaid() {
-        fineService.createFine("U1", 30.0);
-        fineService.createFine("U1", 10.0);
+        fineService.createFine("U1", 3000);
+        fineService.createFine("U1", 1000);
 
-        double newBalance = fineService.payFine("U1", 50.0);
+        long newBalance = fineService.payFine("U1", 5000);
 
-        assertEquals(0.0, newBalance, 0.0001);
+        assertEquals(0, newBalance);
 
         List<Fine> fines = storage.loadFines();
         assertEquals(2, fines.size());
         assertTrue(fines.get(0).isPaid());
         assertTrue(fines.get(1).isPaid());
-        assertEquals(0.0, fines.get(0).getAmount(), 0.0001);
-        assertEquals(0.0, fines.get(1).getAmount(), 0.0001);
+        assertEquals(0, fines.get(0).getAmount());
+        assertEquals(0, fines.get(1).getAmount());
     }
 
 
@@ -180,33 +182,168 @@ class FineServiceTest {
 
     @Test
     void payFine_zeroOrNegativeAmount_returnsCurrentBalance() {
-        fineService.createFine("U1", 20.0);
+        fineService.createFine("U1", 2000);
 
-        double balance = fineService.payFine("U1", 0);
+        long balance = fineService.payFine("U1", 0);
 
-        assertEquals(20.0, balance);
+        assertEquals(2000, balance);
     }
     @Test
     void payFine_skipsOtherUsersAndPaidFines() {
-        fineService.createFine("U1", 30.0);
-        Fine f2 = fineService.createFine("U2", 50.0);
-        Fine f3 = fineService.createFine("U1", 40.0);
+        fineService.createFine("U1", 3000);
+        Fine f2 = fineService.createFine("U2", 5000);
+        Fine f3 = fineService.createFine("U1", 4000);
         f3.setPaid(true);
         storage.saveFines(storage.loadFines());
 
-        double result = fineService.payFine("U1", 10);
+        long result = fineService.payFine("U1", 1000);
 
         // Only fine 1 should be reduced
         List<Fine> fines = storage.loadFines();
-        assertEquals(20.0, fines.get(0).getAmount()); // 30 - 10
-        assertEquals(50.0, fines.get(1).getAmount()); // untouched
-        assertEquals(40.0, fines.get(2).getAmount()); // paid → untouched
+        assertEquals(2000, fines.get(0).getAmount()); // 30.00 - 10.00
+        assertEquals(5000, fines.get(1).getAmount()); // untouched
+        assertEquals(4000, fines.get(2).getAmount()); // paid → untouched
     }
+    @Test
+    void getUserOutstandingBalance_loadsStoredFinesOnFirstUse() {
+        storage.saveFines(List.of(
+                new Fine("F1", "U1", 1500, false),
+                new Fine("F2", " U1 ", 500, false),
+                new Fine("F3", "U1", 9900, true)
+        ));
+
+        assertEquals(2000, fineService.getUserOutstandingBalance("U1"));
+    }
+
+    @Test
+    void getUserOutstandingBalance_tracksCreatesAndPayments() {
+        assertEquals(0, fineService.getUserOutstandingBalance("U1"));
+
+        fineService.createFine("U1", 3000);
+        fineService.createFine("U1", 2000);
+        assertEquals(5000, fineService.getUserOutstandingBalance("U1"));
+
+        assertEquals(1500, fineService.payFine("U1", 3500));
+        assertEquals(0, fineService.payFine("U1", 10000));
+        assertFalse(fineService.hasUnpaidFines("U1"));
+    }
+
+    @Test
+    void refresh_picksUpExternalChanges() {
+        fineService.createFine("U1", 3000);
+        storage.saveFines(List.of(new Fine("F1", "U1", 3000, true)));
+
+        fineService.refresh();
+
+        assertEquals(0, fineService.getUserOutstandingBalance("U1"));
+    }
+
+    @Test
+    void payFine_appendsToLedgerWithoutRewritingSnapshot() throws IOException {
+        fineService.createFine("U1", 3000);
+        fineService.createFine("U1", 2000);
+        Path snapshot = tempDir.resolve("fines.txt");
+        boolean hadSnapshot = Files.exists(snapshot);
+
+        fineService.payFine("U1", 3500);
+
+        assertEquals(hadSnapshot, Files.exists(snapshot));
+        List<FineLedgerEntry> ledger = storage.loadFineLedger();
+        assertEquals(4, ledger.size());
+        assertEquals(FineLedgerEntry.Type.PAID, ledger.get(2).getType());
+        assertEquals(3000, ledger.get(2).getAmount());
+        assertEquals(500, ledger.get(3).getAmount());
+
+        List<Fine> fines = storage.loadFines();
+        assertTrue(fines.get(0).isPaid());
+        assertEquals(1500, fines.get(1).getAmount());
+    }
+
+    @Test
+    void waiveFine_closesRemainderAndReducesBalance() {
+        Fine fine = fineService.createFine("U1", 3000);
+        fineService.createFine("U1", 1000);
+        fineService.payFine("U1", 1200);
+
+        long waived = fineService.waiveFine(fine.getId());
+
+        assertEquals(1800, waived);
+        assertEquals(1000, fineService.getUserOutstandingBalance("U1"));
+        assertTrue(storage.loadFines().get(0).isPaid());
+        assertEquals(FineLedgerEntry.Type.WAIVED,
+                storage.loadFineLedger().get(3).getType());
+    }
+
+    @Test
+    void waiveFine_unknownOrClosedFine_throws() {
+        Fine fine = fineService.createFine("U1", 1000);
+        fineService.payFine("U1", 1000);
+
+        assertThrows(IllegalArgumentException.class, () -> fineService.waiveFine(fine.getId()));
+        assertThrows(IllegalArgumentException.class, () -> fineService.waiveFine("F404"));
+    }
+
+    @Test
+    void payFine_manySmallPayments_leaveNoResidue() {
+        fineService.createFine("U1", 1000);
+
+        for (int i = 0; i < 99; i++) {
+            fineService.payFine("U1", 10);
+        }
+
+        assertEquals(10, fineService.getUserOutstandingBalance("U1"));
+        assertEquals(0, fineService.payFine("U1", 10));
+        assertTrue(storage.loadFines().get(0).isPaid());
+    }
+
+    @Test
+    void payFine_oldestFirst_followsFineNumberNotTextOrder() {
+        for (int i = 1; i <= 10; i++) {
+            fineService.createFine(i >= 9 ? "U1" : "U2", 100);
+        }
+
+        fineService.payFine("U1", 100);
+
+        List<Fine> fines = storage.loadFines();
+        assertTrue(fines.get(8).isPaid());
+        assertFalse(fines.get(9).isPaid());
+    }
+
+    @Test
+    void payFine_highestFirst_settlesLargestFineFirst() {
+        FineService service = new FineService(storage, new FineCalculator(),
+                FineService.PaymentOrder.HIGHEST_FIRST);
+        service.createFine("U1", 500);
+        service.createFine("U1", 2000);
+        service.createFine("U1", 2000);
+
+        service.payFine("U1", 2500);
+
+        List<Fine> fines = storage.loadFines();
+        assertEquals(500, fines.get(0).getAmount());
+        assertTrue(fines.get(1).isPaid());
+        assertEquals(1500, fines.get(2).getAmount());
+        assertEquals(2000, service.getUserOutstandingBalance("U1"));
+    }
+
+    @Test
+    void payFine_touchesOnlyTheFinesItSettles() {
+        for (int i = 0; i < 50; i++) {
+            fineService.createFine("U1", 100);
+        }
+
+        fineService.payFine("U1", 250);
+
+        List<FineLedgerEntry> ledger = storage.loadFineLedger();
+        assertEquals(53, ledger.size());
+        assertEquals(4750, fineService.getUserOutstandingBalance("U1"));
+    }
+
     @Test
     void getUserFines_returnsOnlyMatchingUserFines() {
-        fineService.createFine("U1", 10.0);
-        fineService.createFine("U2", 20.0);
-        fineService.createFine("U1", 5.0);
+        fineService.createFine("U1", 1000);
+        fineService.createFine("U2", 2000);
+        fineService.createFine("U1", 500);
 
         List<Fine> fines = fineService.getUserFines("U1");
 
@@ -0,0 +1,48 @@
+package com.library.service;
+
+import com.library.domain.EmailMessage;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link InMemoryEmailTransport}.
+ */
+class InMemoryEmailTransportTest {
+
+    private static final EmailMessage MESSAGE = new EmailMessage("to@example.com", "S", "B");
+
+    @Test
+    void send_keepsMessagesInOrder() {
+        InMemoryEmailTransport transport = new InMemoryEmailTransport();
+        EmailMessage second = new EmailMessage("other@example.com", "S", "B");
+
+        assertTrue(transport.sendAll(List.of(MESSAGE, second)).isEmpty());
+
+        assertEquals(List.of(MESSAGE, second), transport.getMessages());
+        assertEquals(2, transport.getCount());
+    }
+
+    @Test
+    void send_withoutRetain_onlyCounts() {
+        InMemoryEmailTransport transport = new InMemoryEmailTransport(false);
+
+        transport.send(MESSAGE);
+
+        assertTrue(transport.getMessages().isEmpty());
+        assertEquals(1, transport.getCount());
+    }
+
+    @Test
+    void clear_forgetsMessages() {
+        InMemoryEmailTransport transport = new InMemoryEmailTransport();
+        transport.send(MESSAGE);
+
+        transport.clear();
+
+        assertTrue(transport.getMessages().isEmpty());
+        assertEquals(0, transport.getCount());
+    }
+}
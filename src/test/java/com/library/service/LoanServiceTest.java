@@ -14,6 +14,11 @@ import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -55,6 +60,8 @@ class LoanServiceTest {
         Files.write(tempDir.resolve("loans.txt"), List.of());
         Files.write(tempDir.resolve("fines.txt.txt"), List.of());
 
+        Files.write(tempDir.resolve("cds.txt"), List.of("CD1;Thriller;Michael Jackson;false"));
+
         Files.write(
                 tempDir.resolve("books.txt"),
                 List.of("B1;Harry Potter;Rowling;111;false")
@@ -260,4 +267,214 @@ class LoanServiceTest {
         loanService.returnBook("L3");
         assertFalse(loanService.hasActiveLoans("U2"));
     }
+
+    /**
+     * Verifies that borrowing several books at once creates one loan per
+     * book with distinct IDs and marks every book as borrowed.
+     *
+     * @throws IOException if writing the test book file fails
+     */
+    @Test
+    void borrowMany_createsLoansForAllBooks() throws IOException {
+        Files.write(
+                tempDir.resolve("books.txt"),
+                List.of("B1;Harry Potter;Rowling;111;false",
+                        "B2;Dune;Herbert;222;false")
+        );
+
+        List<Loan> created = loanService.borrowMany("U1", List.of("B1", "B2"));
+
+        assertEquals(2, created.size());
+        assertEquals("L1", created.get(0).getId());
+        assertEquals("L2", created.get(1).getId());
+        assertEquals(2, storage.loadLoans().size());
+        assertTrue(storage.loadBooks().stream().allMatch(Book::isBorrowed));
+    }
+
+    /**
+     * Ensures that one unavailable book aborts the whole batch
+     * without creating any loan or changing any book.
+     *
+     * @throws IOException if writing the test book file fails
+     */
+    @Test
+    void borrowMany_whenOneBookBorrowed_changesNothing() throws IOException {
+        Files.write(
+                tempDir.resolve("books.txt"),
+                List.of("B1;Harry Potter;Rowling;111;false",
+                        "B2;Dune;Herbert;222;true")
+        );
+
+        assertThrows(IllegalStateException.class,
+                () -> loanService.borrowMany("U1", List.of("B1", "B2")));
+
+        assertTrue(storage.loadLoans().isEmpty());
+        assertFalse(storage.loadBooks().get(0).isBorrowed());
+    }
+
+    /**
+     * Ensures that the same book cannot be requested twice in one batch.
+     */
+    @Test
+    void borrowMany_duplicateItem_throwsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> loanService.borrowMany("U1", List.of("B1", "B1")));
+    }
+
+    /**
+     * Tests that returning several loans at once marks all of them returned
+     * and frees their books, skipping loans that were already returned.
+     *
+     * @throws IOException if writing the test book file fails
+     */
+    @Test
+    void returnMany_returnsAllLoansAndFreesBooks() throws IOException {
+        Files.write(
+                tempDir.resolve("books.txt"),
+                List.of("B1;Harry Potter;Rowling;111;false",
+                        "B2;Dune;Herbert;222;false")
+        );
+        List<Loan> created = loanService.borrowMany("U1", List.of("B1", "B2"));
+
+        List<Loan> returned = loanService.returnMany(
+                List.of(created.get(0).getId(), created.get(1).getId(), created.get(0).getId()));
+
+        assertEquals(2, returned.size());
+        assertTrue(storage.loadLoans().stream().allMatch(Loan::isReturned));
+        assertTrue(storage.loadBooks().stream().noneMatch(Book::isBorrowed));
+        assertTrue(loanService.returnMany(List.of(created.get(0).getId())).isEmpty());
+    }
+
+    /**
+     * Ensures that an unknown loan ID aborts the whole return batch.
+     */
+    @Test
+    void returnMany_unknownLoan_changesNothing() {
+        Loan loan = loanService.borrowBook("U1", "B1");
+
+        assertThrows(IllegalArgumentException.class,
+                () -> loanService.returnMany(List.of(loan.getId(), "L-404")));
+
+        assertFalse(storage.loadLoans().get(0).isReturned());
+        assertTrue(storage.loadBooks().get(0).isBorrowed());
+    }
+
+    /**
+     * Verifies that loan IDs keep increasing after returned loans
+     * have been moved out of the active partition.
+     */
+    @Test
+    void borrowBook_afterReturn_generatesUniqueLoanId() {
+        Loan first = loanService.borrowBook("U1", "B1");
+        loanService.returnBook(first.getId());
+
+        Loan second = loanService.borrowBook("U1", "B1");
+
+        assertNotEquals(first.getId(), second.getId());
+        assertEquals(1, loanService.getActiveLoans().size());
+        assertEquals(2, loanService.getAllLoans().size());
+    }
+
+    /**
+     * Ensures that returning an archived loan again is a no-op.
+     */
+    @Test
+    void returnBook_whenAlreadyArchived_doesNothing() {
+        Loan loan = loanService.borrowBook("U1", "B1");
+        loanService.returnBook(loan.getId());
+
+        assertDoesNotThrow(() -> loanService.returnBook(loan.getId()));
+        assertEquals(1, storage.loadLoans().size());
+    }
+
+    /**
+     * Tests that loan history can be queried by return date.
+     */
+    @Test
+    void getLoanHistory_returnsLoansReturnedInRange() {
+        Loan loan = loanService.borrowBook("U1", "B1");
+        loanService.returnBook(loan.getId());
+        LocalDate today = LocalDate.now();
+
+        assertEquals(1, loanService.getLoanHistory(today, today).size());
+        assertTrue(loanService.getLoanHistory(today.minusYears(1), today.minusMonths(2)).isEmpty());
+    }
+
+    /**
+     * Ensures that borrowing an unknown CD is rejected.
+     */
+    @Test
+    void borrowCd_whenCdIdNotFound_throwsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> loanService.borrowCd("U1", "CD-404"));
+        assertTrue(storage.loadLoans().isEmpty());
+    }
+
+    /**
+     * Ensures that a CD cannot be borrowed twice and becomes
+     * available again once returned.
+     */
+    @Test
+    void borrowCd_enforcesAvailability_andReturnFreesCd() {
+        Loan loan = loanService.borrowCd("U1", "CD1");
+        assertTrue(storage.loadCds().get(0).isBorrowed());
+
+        assertThrows(IllegalStateException.class,
+                () -> loanService.borrowCd("U2", "CD1"));
+
+        loanService.returnBook(loan.getId());
+        assertFalse(storage.loadCds().get(0).isBorrowed());
+        assertNotNull(loanService.borrowCd("U2", "CD1"));
+    }
+
+    /**
+     * Verifies that a mixed batch creates a 28-day book loan and a 7-day CD loan.
+     */
+    @Test
+    void borrowMany_mixedBooksAndCds_usesMediaTypeRules() {
+        List<Loan> loans = loanService.borrowMany("U1", List.of("B1", "CD1"));
+
+        assertEquals(MediaType.BOOK, loans.get(0).getMediaType());
+        assertEquals(loans.get(0).getBorrowDate().plusDays(28), loans.get(0).getDueDate());
+        assertEquals(MediaType.CD, loans.get(1).getMediaType());
+        assertEquals(loans.get(1).getBorrowDate().plusDays(7), loans.get(1).getDueDate());
+        assertTrue(storage.loadCds().get(0).isBorrowed());
+    }
+
+    /**
+     * Runs many concurrent checkouts of the same CD and verifies
+     * that exactly one of them succeeds.
+     *
+     * @throws Exception if a worker thread fails unexpectedly
+     */
+    @Test
+    void borrowCd_concurrentCheckouts_onlyOneSucceeds() throws Exception {
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger successes = new AtomicInteger();
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            String userId = "U" + i;
+            futures.add(pool.submit(() -> {
+                start.await();
+                try {
+                    loanService.borrowCd(userId, "CD1");
+                    successes.incrementAndGet();
+                } catch (IllegalStateException expected) {
+                    // someone else got it first
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : futures) {
+            f.get();
+        }
+        pool.shutdown();
+
+        assertEquals(1, successes.get());
+        assertEquals(1, storage.loadLoans().size());
+    }
 }
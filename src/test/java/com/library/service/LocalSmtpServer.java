@@ -0,0 +1,257 @@
+package com.library.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Minimal in-process SMTP server for tests and benchmarks.
+ * <p>
+ * The server speaks just enough SMTP for JavaMail to deliver to it: it
+ * does not advertise STARTTLS or AUTH, so the client skips both. Every
+ * message is counted and discarded. Latency can be added to each
+ * accepted message, and every n-th message can be rejected with a
+ * {@code 554} reply, and every n-th transaction can be answered by
+ * dropping the connection, to exercise the client's failure handling. Each connection is served on its own
+ * virtual thread.
+ * </p>
+ *
+ * @author Maram
+ * @version 1.0
+ */
+class LocalSmtpServer implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections = Executors.newVirtualThreadPerTaskExecutor();
+    private final Thread acceptor;
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong opened = new AtomicLong();
+
+    /** Number of MAIL commands seen, used to pick connections to drop. */
+    private final AtomicLong mails = new AtomicLong();
+
+    /** Number of DATA transactions seen, used to pick rejections. */
+    private final AtomicLong transactions = new AtomicLong();
+
+    private volatile long latencyNanos;
+    private volatile int rejectEvery;
+    private volatile int dropEvery;
+
+    /**
+     * Starts a server on a free loopback port.
+     *
+     * @throws IOException if the port cannot be bound
+     */
+    LocalSmtpServer() throws IOException {
+        serverSocket = new ServerSocket(0, 200, InetAddress.getLoopbackAddress());
+        acceptor = new Thread(this::acceptLoop, "local-smtp-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * @return the port the server listens on
+     */
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * @param latency delay added before each message is acknowledged
+     */
+    void setLatency(Duration latency) {
+        this.latencyNanos = latency.toNanos();
+    }
+
+    /**
+     * @param n reject every n-th message with a permanent error, 0 to never reject
+     */
+    void setRejectEvery(int n) {
+        this.rejectEvery = n;
+    }
+
+    /**
+     * @param n drop the connection when every n-th transaction starts, 0 to never drop
+     */
+    void setDropEvery(int n) {
+        this.dropEvery = n;
+    }
+
+    /**
+     * @return number of messages accepted
+     */
+    long getAcceptedCount() {
+        return accepted.get();
+    }
+
+    /**
+     * @return number of messages rejected
+     */
+    long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * @return number of connections dropped on purpose
+     */
+    long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * @return number of client connections opened
+     */
+    long getConnectionCount() {
+        return opened.get();
+    }
+
+    /**
+     * Resets all counters and injected faults.
+     */
+    void reset() {
+        accepted.set(0);
+        rejected.set(0);
+        dropped.set(0);
+        opened.set(0);
+        mails.set(0);
+        transactions.set(0);
+        latencyNanos = 0;
+        rejectEvery = 0;
+        dropEvery = 0;
+    }
+
+    /**
+     * Stops accepting connections and closes those still open.
+     */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        connections.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                opened.incrementAndGet();
+                connections.execute(() -> serve(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Runs one SMTP session until the client quits or disconnects.
+     */
+    private void serve(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.ISO_8859_1));
+             Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.ISO_8859_1)) {
+            socket.setTcpNoDelay(true);
+            reply(out, "220 localhost ESMTP ready");
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() < 4 ? line.toUpperCase() : line.substring(0, 4).toUpperCase();
+                switch (command) {
+                    case "EHLO", "HELO" -> reply(out, "250 localhost");
+                    case "MAIL" -> {
+                        if (dropNow()) {
+                            return;
+                        }
+                        reply(out, "250 OK");
+                    }
+                    case "RCPT", "RSET", "NOOP" -> reply(out, "250 OK");
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        if (!readData(in) || !finishData(out)) {
+                            return;
+                        }
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (IOException e) {
+            // client went away
+        }
+    }
+
+    /**
+     * Reads and discards message data up to the terminating dot.
+     *
+     * @return false if the client disconnected first
+     */
+    private static boolean readData(BufferedReader in) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.equals(".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Decides whether the transaction starting now is answered by dropping
+     * the connection, as a relay does with a connection it has timed out.
+     */
+    private boolean dropNow() {
+        long n = mails.incrementAndGet();
+        int drop = dropEvery;
+        if (drop > 0 && n % drop == 0) {
+            dropped.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Acknowledges or rejects a received message.
+     *
+     * @return false if the server was interrupted
+     */
+    private boolean finishData(Writer out) throws IOException {
+        long n = transactions.incrementAndGet();
+        if (latencyNanos > 0) {
+            try {
+                Thread.sleep(Duration.ofNanos(latencyNanos));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        int reject = rejectEvery;
+        if (reject > 0 && n % reject == 0) {
+            rejected.incrementAndGet();
+            reply(out, "554 Transaction failed");
+            return true;
+        }
+        accepted.incrementAndGet();
+        reply(out, "250 OK queued");
+        return true;
+    }
+
+    private static void reply(Writer out, String line) throws IOException {
+        out.write(line);
+        out.write("\r\n");
+        out.flush();
+    }
+}
@@ -0,0 +1,42 @@
+package com.library.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link RateLimiter}.
+ */
+class RateLimiterTest {
+
+    @Test
+    void tryAcquire_allowsBurstThenRefuses() {
+        RateLimiter limiter = new RateLimiter(1, 3);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+    }
+
+    @Test
+    void acquire_waitsForRefill() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(20, 1);
+        limiter.acquire();
+
+        long start = System.nanoTime();
+        limiter.acquire();
+        limiter.acquire();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsedMillis >= 90, "two permits at 20/s take about 100ms, took " + elapsedMillis);
+    }
+
+    @Test
+    void constructor_rejectsNonPositiveRate() {
+        assertThrows(IllegalArgumentException.class, () -> new RateLimiter(0));
+        assertThrows(IllegalArgumentException.class, () -> new RateLimiter(5, 0));
+    }
+}
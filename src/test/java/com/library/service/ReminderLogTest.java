@@ -0,0 +1,136 @@
+package com.library.service;
+
+import com.library.domain.FileStorage;
+import com.library.domain.ReminderCadence;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link ReminderLog}.
+ *
+ * <p>Verifies that sent reminders are recorded and persisted, that the
+ * cadence decides when a loan is due again, and that records of loans no
+ * longer overdue are dropped.</p>
+ */
+class ReminderLogTest {
+
+    /** Temporary directory used for file-based storage during tests. */
+    @TempDir
+    Path tempDir;
+
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 10);
+
+    private FileStorage storage;
+    private ReminderLog log;
+
+    @BeforeEach
+    void setUp() {
+        storage = new FileStorage(tempDir.toString());
+        log = new ReminderLog(storage, new ReminderCadence(new int[]{3}, 0));
+    }
+
+    @Test
+    void recordSent_suppressesUntilIntervalPasses() {
+        assertTrue(log.isDue("L1", DAY));
+
+        log.recordSent(List.of("L1"), DAY);
+
+        assertFalse(log.isDue("L1", DAY));
+        assertFalse(log.isDue("L1", DAY.plusDays(2)));
+        assertTrue(log.isDue("L1", DAY.plusDays(3)));
+        assertEquals(1, log.get("L1").getCount());
+    }
+
+    @Test
+    void save_persistsRecords() {
+        log.recordSent(List.of("L1", "L2"), DAY);
+        log.recordSent(List.of("L1"), DAY.plusDays(3));
+        log.save();
+
+        ReminderLog reloaded = new ReminderLog(storage);
+        assertEquals(2, reloaded.get("L1").getCount());
+        assertEquals(DAY.plusDays(3), reloaded.get("L1").getLastSentDate());
+        assertEquals(1, reloaded.get("L2").getCount());
+    }
+
+    @Test
+    void recordDueSoonSent_persistsOnlyTodaysReminders() {
+        log.recordDueSoonSent(List.of("L1"), DAY);
+        log.recordDueSoonSent(List.of("L2"), DAY.plusDays(1));
+        log.save();
+
+        ReminderLog reloaded = new ReminderLog(storage);
+        assertTrue(reloaded.wasDueSoonSent("L2", DAY.plusDays(1)));
+        assertFalse(reloaded.wasDueSoonSent("L2", DAY.plusDays(2)));
+        assertEquals(Map.of("L2", DAY.plusDays(1)), storage.loadDueSoonReminders());
+    }
+
+    @Test
+    void loanReturned_dropsRecordOfCappedLoan() throws IOException {
+        LocalDate due = DAY.minusDays(10);
+        Files.write(tempDir.resolve("books.txt"), List.of("B1;Dune;Herbert;222;true"));
+        Files.write(tempDir.resolve("loans.txt"), List.of("L1;U1;B1;" + due.minusDays(28) + ";" + due + ";"));
+        LoanService loanService = new LoanService(storage);
+        ReminderLog capped = new ReminderLog(storage, new ReminderCadence(new int[]{3}, 1), loanService);
+        capped.recordSent(List.of("L1"), DAY);
+        capped.save();
+        assertFalse(capped.isDue("L1", DAY.plusDays(30)));
+        assertTrue(capped.getDueRepeats(DAY.plusDays(30)).isEmpty());
+
+        loanService.returnBook("L1");
+        capped.save();
+
+        assertNull(capped.get("L1"));
+        assertTrue(storage.loadReminderLog().isEmpty());
+    }
+
+    @Test
+    void load_dropsRecordsOfLoansNoLongerActive() throws IOException {
+        Files.write(tempDir.resolve("loans.txt"), List.of(
+                "L1;U1;B1;" + DAY.minusDays(40) + ";" + DAY.minusDays(10) + ";",
+                "L2;U1;B2;" + DAY.minusDays(40) + ";" + DAY.minusDays(10) + ";" + DAY.minusDays(1)));
+        log.recordSent(List.of("L1", "L2", "L3"), DAY.minusDays(5));
+        log.save();
+
+        ReminderLog reloaded = new ReminderLog(storage, ReminderCadence.defaults(), new LoanService(storage));
+
+        assertNotNull(reloaded.get("L1"));
+        assertNull(reloaded.get("L2"));
+        assertNull(reloaded.get("L3"));
+    }
+
+    @Test
+    void retainOnly_dropsOtherLoans() {
+        log.recordSent(List.of("L1", "L2"), DAY);
+
+        log.retainOnly(Set.of("L2"));
+        log.save();
+
+        assertEquals(1, storage.loadReminderLog().size());
+        assertNull(log.get("L1"));
+        assertTrue(log.isDue("L1", DAY));
+    }
+
+    @Test
+    void getDueRepeats_listsRemindedLoansWhoseIntervalPassed() {
+        log.recordSent(List.of("L1"), DAY);
+        log.recordSent(List.of("L2"), DAY.plusDays(1));
+
+        assertEquals(List.of("L1"), log.getDueRepeats(DAY.plusDays(3)));
+
+        log.forget(List.of("L1"));
+        assertTrue(log.getDueRepeats(DAY.plusDays(3)).isEmpty());
+        assertNull(log.get("L1"));
+    }
+}
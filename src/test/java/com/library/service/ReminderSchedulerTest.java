@@ -0,0 +1,112 @@
+package com.library.service;
+
+import com.library.domain.FileStorage;
+import com.library.domain.FineCalculator;
+import com.library.domain.ReminderCadence;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link ReminderScheduler}.
+ *
+ * <p>Verifies that the first run covers the full overdue set, that later
+ * runs only reach loans that became overdue since the persisted watermark,
+ * and that fines are accrued on each run.</p>
+ */
+class ReminderSchedulerTest {
+
+    /** Temporary directory used for file-based storage during tests. */
+    @TempDir
+    Path tempDir;
+
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 10);
+
+    private FileStorage storage;
+    private LoanService loanService;
+    private ReminderServiceTest.CapturingEmailService emailService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.write(tempDir.resolve("loans.txt"), List.of(
+                "L1;U1;B1;" + DAY.minusDays(40) + ";" + DAY.minusDays(20) + ";",
+                "L2;U2;B2;" + DAY.minusDays(30) + ";" + DAY + ";",
+                "L3;U3;B3;" + DAY.minusDays(30) + ";" + DAY.plusDays(1) + ";"
+        ));
+        storage = new FileStorage(tempDir.toString());
+        loanService = new LoanService(storage);
+        emailService = new ReminderServiceTest.CapturingEmailService();
+    }
+
+    private ReminderScheduler newScheduler(FineAccrualService fines) {
+        ReminderService reminders = new ReminderService(loanService, new ReminderServiceTest.FakeUserService(),
+                emailService, null, new ReminderLog(storage, new ReminderCadence(new int[]{7}, 0)));
+        return new ReminderScheduler(storage, reminders, fines, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void runOnce_firstRunCoversOverdueSetThenOnlyNewlyOverdue() {
+        ReminderScheduler scheduler = newScheduler(null);
+
+        assertEquals(1, scheduler.runOnce(DAY));
+        assertEquals(DAY, scheduler.getWatermark());
+        assertEquals(0, scheduler.runOnce(DAY));
+
+        assertEquals(1, scheduler.runOnce(DAY.plusDays(1)));
+        assertEquals(1, scheduler.runOnce(DAY.plusDays(2)));
+        assertEquals(List.of("U1@example.com", "U2@example.com", "U3@example.com"), emailService.toList);
+    }
+
+    @Test
+    void runOnce_resumesFromPersistedWatermark() {
+        newScheduler(null).runOnce(DAY);
+
+        ReminderScheduler restarted = newScheduler(null);
+        assertEquals(DAY, restarted.getWatermark());
+        assertEquals(1, restarted.runOnce(DAY.plusDays(1)));
+        assertEquals(List.of("U1@example.com", "U2@example.com"), emailService.toList);
+    }
+
+    @Test
+    void runOnce_accruesFines() {
+        FineService fineService = new FineService(storage, new FineCalculator());
+        ReminderScheduler scheduler = newScheduler(new FineAccrualService(storage, loanService, fineService));
+
+        scheduler.runOnce(DAY);
+
+        assertEquals(1, storage.loadFines().size());
+        assertEquals("L1", storage.loadFines().get(0).getLoanId());
+    }
+
+    @Test
+    void runOnce_assessesFinesOncePerDayWithoutDoubleCharging() {
+        FineService fineService = new FineService(storage, new FineCalculator());
+        FineAccrualService accruals = new FineAccrualService(storage, loanService, fineService);
+        ReminderService reminders = new ReminderService(loanService, new ReminderServiceTest.FakeUserService(),
+                emailService, null, new ReminderLog(storage, new ReminderCadence(new int[]{7}, 0)));
+        ReminderScheduler scheduler = new ReminderScheduler(storage, reminders,
+                new FineAssessmentJob(loanService, fineService), accruals, Duration.ofMinutes(1));
+
+        scheduler.runOnce(DAY);
+        scheduler.runOnce(DAY);
+
+        assertEquals(1, storage.loadFines().size());
+        assertEquals(1000, fineService.getUserOutstandingBalance("U1"));
+        assertEquals(DAY, storage.loadWatermarks().get(ReminderScheduler.FINE_ASSESSMENT));
+    }
+
+    @Test
+    void constructor_rejectsNonPositiveInterval() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ReminderScheduler(storage, null, null, Duration.ZERO));
+    }
+}
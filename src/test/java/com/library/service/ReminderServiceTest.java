@@ -1,6 +1,9 @@
 package com.library.service;
 
+import com.library.domain.EmailTemplates;
 import com.library.domain.FileStorage;
+import com.library.domain.MediaType;
+import com.library.domain.ReminderCadence;
 import com.library.domain.User;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,9 +14,16 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Unit tests for {@link ReminderService}.
@@ -159,6 +169,10 @@ class ReminderServiceTest {
      * without accessing real storage.
      */
     static class FakeUserService extends UserService {
+
+        /** Number of batch lookups made. */
+        int lookups;
+
         /**
          * Creates a fake user service with no storage backend.
          */
@@ -176,6 +190,22 @@ class ReminderServiceTest {
         public User findById(String userId) {
             return new User(userId, "TestUser", userId + "@example.com", "pass");
         }
+
+        /**
+         * Returns a fabricated user for every requested ID and counts the call.
+         *
+         * @param userIds the IDs being queried
+         * @return a dummy {@link User} per ID
+         */
+        @Override
+        public Map<String, User> findByIds(Collection<String> userIds) {
+            lookups++;
+            Map<String, User> users = new HashMap<>();
+            for (String id : userIds) {
+                users.put(id, findById(id));
+            }
+            return users;
+        }
     }
     @Test
     void sendOverdueReminders_skipsLoansWhenUserNotFound() throws IOException {
@@ -196,6 +226,11 @@ class ReminderServiceTest {
             public User findById(String userId) {
                 return null;   // simulate NOT FOUND
             }
+
+            @Override
+            public Map<String, User> findByIds(Collection<String> userIds) {
+                return Map.of();   // simulate NOT FOUND
+            }
         };
 
         reminderService = new ReminderService(loanService, userService, emailService);
@@ -206,4 +241,226 @@ class ReminderServiceTest {
         assertEquals(0, emailService.toList.size(), "Email list must remain empty");
     }
 
+    /**
+     * Tests that due-soon reminders cover only loans due inside the window.
+     *
+     * @throws IOException if loan file writing fails
+     */
+    @Test
+    void sendDueSoonReminders_sendsOneEmailPerLoanInWindow() throws IOException {
+        LocalDate today = LocalDate.of(2025, 3, 10);
+
+        List<String> loansLines = List.of(
+                "L1;U1;B1;" + today.minusDays(20) + ";" + today.plusDays(2) + ";",
+                "L2;U2;B2;" + today.minusDays(20) + ";" + today.plusDays(5) + ";",
+                "L3;U3;B3;" + today.minusDays(20) + ";" + today.minusDays(1) + ";"
+        );
+        Files.write(tempDir.resolve("loans.txt"), loansLines);
+
+        int count = reminderService.sendDueSoonReminders(3, today);
+
+        assertEquals(1, count);
+        assertEquals("U1@example.com", emailService.toList.get(0));
+        assertEquals("Library Due Date Reminder", emailService.subjectList.get(0));
+    }
+
+    /**
+     * Tests that with a reminder log, loans reminded as due soon are not
+     * reminded again on the same day after a restart.
+     *
+     * @throws IOException if loan file writing fails
+     */
+    @Test
+    void sendDueSoonReminders_withReminderLog_survivesRestart() throws IOException {
+        LocalDate today = LocalDate.of(2025, 3, 10);
+        Files.write(tempDir.resolve("loans.txt"), List.of(
+                "L1;U1;B1;" + today.minusDays(20) + ";" + today.plusDays(2) + ";"
+        ));
+        reminderService = new ReminderService(loanService, new FakeUserService(), emailService,
+                null, new ReminderLog(storage));
+        assertEquals(1, reminderService.sendDueSoonReminders(3, today));
+
+        ReminderService restarted = new ReminderService(new LoanService(storage), new FakeUserService(),
+                emailService, null, new ReminderLog(storage));
+
+        assertEquals(0, restarted.sendDueSoonReminders(3, today));
+        assertEquals(1, restarted.sendDueSoonReminders(3, today.plusDays(1)));
+        assertEquals(2, emailService.toList.size());
+    }
+
+    /**
+     * Tests that repeated runs on one day remind each loan once, and the
+     * next day reminds it again.
+     *
+     * @throws IOException if loan file writing fails
+     */
+    @Test
+    void sendDueSoonReminders_remindsEachLoanOncePerDay() throws IOException {
+        LocalDate today = LocalDate.of(2025, 3, 10);
+
+        Files.write(tempDir.resolve("loans.txt"), List.of(
+                "L1;U1;B1;" + today.minusDays(20) + ";" + today.plusDays(2) + ";"
+        ));
+
+        assertEquals(1, reminderService.sendDueSoonReminders(3, today));
+        assertEquals(0, reminderService.sendDueSoonReminders(3, today));
+        assertEquals(1, reminderService.sendDueSoonReminders(3, today.plusDays(1)));
+        assertEquals(2, emailService.toList.size());
+    }
+
+    @Test
+    void sendDueSoonReminders_rejectsNegativeWindow() {
+        assertThrows(IllegalArgumentException.class,
+                () -> reminderService.sendDueSoonReminders(-1, LocalDate.now()));
+    }
+
+    /**
+     * Tests that with an outbox, reminders are queued instead of sent inline.
+     *
+     * @throws IOException if loan file writing fails
+     */
+    @Test
+    void sendOverdueReminders_withOutbox_queuesWithoutSending() throws IOException {
+        LocalDate today = LocalDate.now();
+        Files.write(tempDir.resolve("loans.txt"), List.of(
+                "L1;U1;B1;" + today.minusDays(40) + ";" + today.minusDays(5) + ";"
+        ));
+        EmailOutbox outbox = new EmailOutbox(storage, emailService);
+        reminderService = new ReminderService(loanService, new FakeUserService(), emailService, outbox);
+
+        int count = reminderService.sendOverdueReminders();
+
+        assertEquals(1, count);
+        assertEquals(0, emailService.toList.size());
+        assertEquals(1, outbox.getPendingCount());
+
+        outbox.flush();
+        assertEquals(List.of("U1@example.com"), emailService.toList);
+    }
+
+    /**
+     * Tests that a user with several overdue loans gets one digest listing
+     * all of them, and that users are resolved in a single lookup.
+     *
+     * @throws IOException if loan file writing fails
+     */
+    @Test
+    void sendOverdueReminders_sendsOneDigestPerUser() throws IOException {
+        LocalDate today = LocalDate.now();
+        Files.write(tempDir.resolve("loans.txt"), List.of(
+                "L1;U1;B1;" + today.minusDays(40) + ";" + today.minusDays(5) + ";",
+                "L2;U2;B2;" + today.minusDays(40) + ";" + today.minusDays(4) + ";",
+                "L3;U1;B3;" + today.minusDays(40) + ";" + today.minusDays(3) + ";"
+        ));
+        FakeUserService users = new FakeUserService();
+        reminderService = new ReminderService(loanService, users, emailService);
+
+        int count = reminderService.sendOverdueReminders();
+
+        assertEquals(2, count);
+        assertEquals(1, users.lookups);
+        assertEquals(List.of("U1@example.com", "U2@example.com"), emailService.toList);
+        String digest = emailService.bodyList.get(0);
+        assertTrue(digest.contains("Item ID: B1"));
+        assertTrue(digest.contains("Item ID: B3"));
+    }
+
+    /**
+     * Tests that with a reminder log, rerunning on the same day sends nothing
+     * and the next reminder follows the cadence.
+     *
+     * @throws IOException if loan file writing fails
+     */
+    @Test
+    void sendOverdueReminders_withReminderLog_suppressesReruns() throws IOException {
+        LocalDate today = LocalDate.of(2025, 3, 10);
+        Files.write(tempDir.resolve("loans.txt"), List.of(
+                "L1;U1;B1;" + today.minusDays(40) + ";" + today.minusDays(5) + ";"
+        ));
+        ReminderLog log = new ReminderLog(storage, new ReminderCadence(new int[]{3}, 0));
+        reminderService = new ReminderService(loanService, new FakeUserService(), emailService, null, log);
+
+        assertEquals(1, reminderService.sendOverdueReminders(today));
+        assertEquals(0, reminderService.sendOverdueReminders(today));
+        assertEquals(0, reminderService.sendOverdueReminders(today.plusDays(2)));
+        assertEquals(1, reminderService.sendOverdueReminders(today.plusDays(3)));
+
+        assertEquals(2, emailService.toList.size());
+        assertEquals(2, storage.loadReminderLog().get(0).getCount());
+    }
+
+    /**
+     * Tests that digests for loans of a single media type use that type's template.
+     *
+     * @throws IOException if loan file writing fails
+     */
+    @Test
+    void sendOverdueReminders_usesMediaTypeTemplate() throws IOException {
+        LocalDate today = LocalDate.now();
+        Files.write(tempDir.resolve("loans.txt"), List.of(
+                "L1;U1;CD1;" + today.minusDays(40) + ";" + today.minusDays(5) + ";;CD",
+                "L2;U2;B2;" + today.minusDays(40) + ";" + today.minusDays(5) + ";;BOOK"
+        ));
+        EmailTemplates templates = EmailTemplates.defaults();
+        templates.register(EmailTemplates.OVERDUE, MediaType.CD, EmailTemplates.DEFAULT_LANGUAGE,
+                "Subject: CD overdue\n\n{{#loans}}{{itemId}}{{/loans}}");
+        reminderService = new ReminderService(loanService, new FakeUserService(), emailService,
+                null, null, templates);
+
+        reminderService.sendOverdueReminders();
+
+        assertEquals(List.of("CD overdue", "Library Overdue Book Reminder"), emailService.subjectList);
+        assertEquals("CD1", emailService.bodyList.get(0));
+    }
+
+    /**
+     * Tests that an incremental run only reminds loans that became overdue
+     * since the given date, plus repeats the reminder log says are due.
+     *
+     * @throws IOException if loan file writing fails
+     */
+    @Test
+    void sendOverdueRemindersSince_remindsNewlyOverdueAndDueRepeats() throws IOException {
+        LocalDate today = LocalDate.of(2025, 3, 10);
+        Files.write(tempDir.resolve("loans.txt"), List.of(
+                "L1;U1;B1;" + today.minusDays(40) + ";" + today.minusDays(20) + ";",
+                "L2;U2;B2;" + today.minusDays(30) + ";" + today.minusDays(1) + ";",
+                "L3;U3;B3;" + today.minusDays(30) + ";" + today + ";",
+                "L4;U4;B4;" + today.minusDays(40) + ";" + today.minusDays(15) + ";"
+        ));
+        ReminderLog log = new ReminderLog(storage, new ReminderCadence(new int[]{3}, 0));
+        log.recordSent(List.of("L4"), today.minusDays(3));
+        reminderService = new ReminderService(loanService, new FakeUserService(), emailService, null, log);
+
+        int count = reminderService.sendOverdueRemindersSince(today.minusDays(1), today);
+
+        assertEquals(2, count);
+        assertEquals(List.of("U2@example.com", "U4@example.com"), emailService.toList.stream().sorted().toList());
+        assertEquals(2, log.get("L4").getCount());
+        assertEquals(0, reminderService.sendOverdueRemindersSince(today, today));
+    }
+
+    /**
+     * Tests that an incremental run drops the records of returned loans even
+     * when the cadence cap keeps them out of the due repeats.
+     *
+     * @throws IOException if loan file writing fails
+     */
+    @Test
+    void sendOverdueRemindersSince_dropsRecordsOfReturnedLoans() throws IOException {
+        LocalDate today = LocalDate.of(2025, 3, 10);
+        Files.write(tempDir.resolve("loans.txt"), List.of(
+                "L1;U1;B1;" + today.minusDays(40) + ";" + today.minusDays(20) + ";" + today.minusDays(2),
+                "L2;U2;B2;" + today.minusDays(40) + ";" + today.minusDays(20) + ";"
+        ));
+        ReminderLog log = new ReminderLog(storage, new ReminderCadence(new int[]{3}, 1));
+        log.recordSent(List.of("L1", "L2"), today.minusDays(10));
+        reminderService = new ReminderService(loanService, new FakeUserService(), emailService, null, log);
+
+        assertEquals(0, reminderService.sendOverdueRemindersSince(today.minusDays(1), today));
+
+        assertNull(log.get("L1"));
+        assertNotNull(log.get("L2"));
+        assertEquals(List.of("L2"), storage.loadReminderLog().stream().map(r -> r.getLoanId()).toList());
+    }
 }
@@ -0,0 +1,168 @@
+package com.library.service;
+
+import com.library.domain.EmailMessage;
+import org.junit.jupiter.api.Test;
+
+import javax.mail.SendFailedException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link ResilientEmailTransport}.
+ *
+ * <p>Verifies that sends are bounded by a timeout and a bulkhead, that
+ * relay failures open the circuit so later sends fail at once, and that
+ * rejected addresses do not count against the relay.</p>
+ */
+class ResilientEmailTransportTest {
+
+    private static final EmailMessage MESSAGE = new EmailMessage("to@example.com", "S", "B");
+
+    private static ResilientEmailTransport resilient(EmailTransport delegate, int threshold,
+                                                     int maxConcurrent, int queue, Duration timeout) {
+        return new ResilientEmailTransport(delegate, new CircuitBreaker(threshold, Duration.ofHours(1)),
+                maxConcurrent, queue, timeout);
+    }
+
+    @Test
+    void send_deliversThroughDelegate() {
+        InMemoryEmailTransport delegate = new InMemoryEmailTransport();
+        try (ResilientEmailTransport transport = resilient(delegate, 3, 2, 4, Duration.ofSeconds(5))) {
+            transport.send(MESSAGE);
+        }
+
+        assertEquals(1, delegate.getCount());
+    }
+
+    @Test
+    void send_afterRepeatedFailures_isRefusedWithoutCallingDelegate() {
+        AtomicInteger calls = new AtomicInteger();
+        EmailTransport failing = message -> {
+            calls.incrementAndGet();
+            throw new RuntimeException("Failed to send email");
+        };
+        try (ResilientEmailTransport transport = resilient(failing, 2, 2, 4, Duration.ofSeconds(5))) {
+            assertThrows(RuntimeException.class, () -> transport.send(MESSAGE));
+            assertThrows(RuntimeException.class, () -> transport.send(MESSAGE));
+
+            EmailUnavailableException refused =
+                    assertThrows(EmailUnavailableException.class, () -> transport.send(MESSAGE));
+
+            assertEquals(2, calls.get());
+            assertTrue(refused.getRetryAfter().compareTo(Duration.ZERO) > 0);
+            assertEquals(CircuitBreaker.State.OPEN, transport.getCircuitBreaker().getState());
+        }
+    }
+
+    @Test
+    void send_whenDelegateHangs_timesOut() {
+        CountDownLatch release = new CountDownLatch(1);
+        EmailTransport hanging = message -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        try (ResilientEmailTransport transport = resilient(hanging, 1, 1, 0, Duration.ofMillis(50))) {
+            long start = System.nanoTime();
+            RuntimeException e = assertThrows(RuntimeException.class, () -> transport.send(MESSAGE));
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            assertInstanceOf(TimeoutException.class, e.getCause());
+            assertTrue(elapsedMillis < 2_000, "send should give up after the timeout, took " + elapsedMillis);
+            assertEquals(CircuitBreaker.State.OPEN, transport.getCircuitBreaker().getState());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void send_whenBulkheadFull_isRefused() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        EmailTransport slow = message -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        try (ResilientEmailTransport transport = resilient(slow, 3, 1, 0, Duration.ofSeconds(5))) {
+            Thread first = new Thread(() -> transport.send(MESSAGE));
+            first.start();
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            assertThrows(EmailUnavailableException.class, () -> transport.send(MESSAGE));
+            assertEquals(CircuitBreaker.State.CLOSED, transport.getCircuitBreaker().getState());
+
+            release.countDown();
+            first.join(5_000);
+        }
+    }
+
+    @Test
+    void send_rejectedAddress_doesNotOpenCircuit() {
+        EmailTransport rejecting = message -> {
+            throw new RuntimeException("Failed to send email", new SendFailedException("unknown user"));
+        };
+        try (ResilientEmailTransport transport = resilient(rejecting, 1, 1, 0, Duration.ofSeconds(5))) {
+            assertThrows(RuntimeException.class, () -> transport.send(MESSAGE));
+
+            assertEquals(CircuitBreaker.State.CLOSED, transport.getCircuitBreaker().getState());
+        }
+    }
+
+    @Test
+    void sendAll_passesBatchThroughBreakerOnce() {
+        AtomicInteger batches = new AtomicInteger();
+        InMemoryEmailTransport sink = new InMemoryEmailTransport();
+        EmailTransport delegate = new EmailTransport() {
+            @Override
+            public void send(EmailMessage message) {
+                throw new AssertionError("batch should not be split into sends");
+            }
+
+            @Override
+            public List<EmailMessage> sendAll(List<EmailMessage> messages) {
+                batches.incrementAndGet();
+                messages.forEach(sink::send);
+                return new ArrayList<>();
+            }
+        };
+        try (ResilientEmailTransport transport = resilient(delegate, 1, 1, 0, Duration.ofSeconds(5))) {
+            List<EmailMessage> failed = transport.sendAll(List.of(MESSAGE, MESSAGE, MESSAGE));
+
+            assertTrue(failed.isEmpty());
+        }
+
+        assertEquals(1, batches.get());
+        assertEquals(3, sink.getCount());
+    }
+
+    @Test
+    void sendAll_whenWholeBatchFails_countsOneFailureAndThenRefuses() {
+        AtomicInteger calls = new AtomicInteger();
+        EmailTransport failing = message -> {
+            calls.incrementAndGet();
+            throw new RuntimeException("Failed to send email");
+        };
+        try (ResilientEmailTransport transport = resilient(failing, 1, 1, 0, Duration.ofSeconds(5))) {
+            List<EmailMessage> batch = List.of(MESSAGE, MESSAGE);
+
+            assertEquals(batch, transport.sendAll(batch));
+            assertEquals(CircuitBreaker.State.OPEN, transport.getCircuitBreaker().getState());
+
+            assertEquals(batch, transport.sendAll(batch));
+            assertEquals(2, calls.get());
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.library.service;
+
+import com.library.domain.EmailMessage;
+import org.junit.jupiter.api.Test;
+
+import javax.mail.Address;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.SendFailedException;
+import javax.mail.Transport;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit tests for the {@link SmtpEmailTransport} class.
+ *
+ * <p>This test suite verifies the behavior of the email-sending logic by
+ * replacing the SMTP connection with mocked JavaMail {@link Transport}
+ * objects, and end to end against a {@link LocalSmtpServer} on the loopback
+ * interface. No external network operation is performed.</p>
+ *
+ * <p>The tests ensure:</p>
+ * <ul>
+ *   <li>Messages are sent over pooled connections that are reused.</li>
+ *   <li>A failed connection is replaced and the message retried once.</li>
+ *   <li>A MessagingException that survives the retry is wrapped into a RuntimeException.</li>
+ *   <li>Batches are sent over one connection and report the messages that failed.</li>
+ *   <li>No more connections than the pool size are open, and none survive {@link SmtpEmailTransport#close()}.</li>
+ * </ul>
+ *
+ * @author Maram
+ * @version 1.0
+ */
+class SmtpEmailTransportTest {
+
+    /**
+     * SMTP transport whose connections are Mockito mocks handed out in order.
+     */
+    static class StubSmtpTransport extends SmtpEmailTransport {
+
+        /** Transports returned by successive connection attempts. */
+        final List<Transport> transports = new ArrayList<>();
+
+        /** Number of connections opened so far. */
+        int opened;
+
+        StubSmtpTransport(Transport... transports) {
+            this(2, transports);
+        }
+
+        StubSmtpTransport(int poolSize, Transport... transports) {
+            super("smtp.example.com", 587, "sender@example.com", "password", poolSize);
+            this.transports.addAll(List.of(transports));
+        }
+
+        @Override
+        protected Transport openTransport() {
+            return transports.get(opened++);
+        }
+    }
+
+    /**
+     * Ensures that {@link SmtpEmailTransport#send(EmailMessage)}
+     * sends the message over an opened transport without throwing.
+     */
+    @Test
+    void send_sendsOverTransportSuccessfully() throws MessagingException {
+        Transport transport = mock(Transport.class);
+        StubSmtpTransport smtp = new StubSmtpTransport(transport);
+
+        assertDoesNotThrow(() ->
+                smtp.send(new EmailMessage("to@example.com", "Subject", "Body"))
+        );
+
+        verify(transport).sendMessage(any(Message.class), any(Address[].class));
+    }
+
+    /**
+     * Consecutive sends reuse the pooled connection instead of opening a new one.
+     */
+    @Test
+    void send_reusesPooledConnection() throws MessagingException {
+        Transport transport = mock(Transport.class);
+        StubSmtpTransport smtp = new StubSmtpTransport(transport);
+
+        smtp.send(new EmailMessage("a@example.com", "Subject", "Body"));
+        smtp.send(new EmailMessage("b@example.com", "Subject", "Body"));
+
+        assertEquals(1, smtp.opened);
+        verify(transport, times(2)).sendMessage(any(Message.class), any(Address[].class));
+    }
+
+    /**
+     * A connection that fails is closed and the message is retried on a new one.
+     */
+    @Test
+    void send_whenConnectionFails_reconnectsAndRetries() throws MessagingException {
+        Transport broken = mock(Transport.class);
+        Transport fresh = mock(Transport.class);
+        doThrow(new MessagingException("connection reset"))
+                .when(broken).sendMessage(any(Message.class), any(Address[].class));
+        StubSmtpTransport smtp = new StubSmtpTransport(broken, fresh);
+
+        smtp.send(new EmailMessage("to@example.com", "Subject", "Body"));
+
+        assertEquals(2, smtp.opened);
+        verify(broken).close();
+        verify(fresh).sendMessage(any(Message.class), any(Address[].class));
+    }
+
+    /**
+     * Verifies that when sending still fails after a reconnect, the
+     * transport wraps the {@link MessagingException} inside a
+     * {@link RuntimeException}. This ensures consistent error propagation
+     * and prevents checked exceptions from leaking outward.
+     */
+    @Test
+    void send_whenTransportFails_wrapsMessagingException() throws MessagingException {
+        Transport first = mock(Transport.class);
+        Transport second = mock(Transport.class);
+        doThrow(new MessagingException("SMTP error"))
+                .when(first).sendMessage(any(Message.class), any(Address[].class));
+        doThrow(new MessagingException("SMTP error"))
+                .when(second).sendMessage(any(Message.class), any(Address[].class));
+        StubSmtpTransport smtp = new StubSmtpTransport(first, second);
+
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> smtp.send(new EmailMessage("to@example.com", "Subject", "Body"))
+        );
+
+        assertTrue(ex.getCause() instanceof MessagingException);
+        verify(second).close();
+    }
+
+    /**
+     * A batch is sent over a single connection.
+     */
+    @Test
+    void sendAll_sendsBatchOverOneConnection() throws MessagingException {
+        Transport transport = mock(Transport.class);
+        StubSmtpTransport smtp = new StubSmtpTransport(transport);
+
+        List<EmailMessage> failed = smtp.sendAll(List.of(
+                new EmailMessage("a@example.com", "S", "B"),
+                new EmailMessage("b@example.com", "S", "B"),
+                new EmailMessage("c@example.com", "S", "B")
+        ));
+
+        assertTrue(failed.isEmpty());
+        assertEquals(1, smtp.opened);
+        verify(transport, times(3)).sendMessage(any(Message.class), any(Address[].class));
+    }
+
+    /**
+     * A rejected address is reported without retrying or dropping the connection.
+     */
+    @Test
+    void sendAll_reportsRejectedMessagesAndKeepsConnection() throws MessagingException {
+        Transport transport = mock(Transport.class);
+        EmailMessage rejected = new EmailMessage("bad@example.com", "S", "B");
+        doThrow(new SendFailedException("rejected"))
+                .doNothing()
+                .when(transport).sendMessage(any(Message.class), any(Address[].class));
+        StubSmtpTransport smtp = new StubSmtpTransport(transport);
+
+        List<EmailMessage> failed = smtp.sendAll(List.of(
+                rejected,
+                new EmailMessage("ok@example.com", "S", "B")
+        ));
+
+        assertEquals(List.of(rejected), failed);
+        assertEquals(1, smtp.opened);
+        verify(transport, never()).close();
+    }
+
+    /**
+     * After close, sending fails and no connection is opened.
+     */
+    @Test
+    void send_afterClose_throwsWithoutConnecting() {
+        StubSmtpTransport smtp = new StubSmtpTransport(mock(Transport.class));
+        smtp.close();
+
+        assertThrows(IllegalStateException.class,
+                () -> smtp.send(new EmailMessage("to@example.com", "Subject", "Body")));
+        assertEquals(0, smtp.opened);
+    }
+
+    /**
+     * A connection in use while the transport is closed is closed when it is
+     * returned instead of going back to the pool.
+     */
+    @Test
+    void close_whileConnectionInUse_closesItOnReturn() throws MessagingException {
+        Transport transport = mock(Transport.class);
+        StubSmtpTransport smtp = new StubSmtpTransport(transport);
+        doAnswer(invocation -> {
+            smtp.close();
+            return null;
+        }).when(transport).sendMessage(any(Message.class), any(Address[].class));
+
+        smtp.send(new EmailMessage("to@example.com", "Subject", "Body"));
+
+        verify(transport).close();
+    }
+
+    /**
+     * When every connection is busy, a sender waits for one to be returned
+     * instead of opening another.
+     */
+    @Test
+    void send_whenPoolIsBusy_waitsForAConnection() throws Exception {
+        Transport transport = mock(Transport.class);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            entered.countDown();
+            proceed.await();
+            return null;
+        }).doNothing().when(transport).sendMessage(any(Message.class), any(Address[].class));
+        StubSmtpTransport smtp = new StubSmtpTransport(1, transport);
+
+        Thread first = new Thread(() -> smtp.send(new EmailMessage("a@example.com", "S", "B")));
+        first.start();
+        entered.await();
+        List<Throwable> errors = new CopyOnWriteArrayList<>();
+        Thread second = new Thread(() -> {
+            try {
+                smtp.send(new EmailMessage("b@example.com", "S", "B"));
+            } catch (RuntimeException e) {
+                errors.add(e);
+            }
+        });
+        second.start();
+        while (second.getState() != Thread.State.TIMED_WAITING && second.isAlive()) {
+            Thread.onSpinWait();
+        }
+        proceed.countDown();
+        first.join();
+        second.join();
+
+        assertTrue(errors.isEmpty());
+        assertEquals(1, smtp.opened);
+        verify(transport, times(2)).sendMessage(any(Message.class), any(Address[].class));
+    }
+
+    @Test
+    void constructor_rejectsEmptyPool() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new SmtpEmailTransport("smtp.example.com", 587, "sender@example.com", "password", 0));
+    }
+
+    /**
+     * A batch sent to a real SMTP server travels over a single connection.
+     */
+    @Test
+    void sendAll_againstLocalServer_usesOneConnection() throws IOException {
+        try (LocalSmtpServer server = new LocalSmtpServer();
+             SmtpEmailTransport smtp = localTransport(server)) {
+            List<EmailMessage> messages = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                messages.add(new EmailMessage("user" + i + "@example.com", "S", "B"));
+            }
+
+            assertTrue(smtp.sendAll(messages).isEmpty());
+
+            assertEquals(20, server.getAcceptedCount());
+            assertEquals(1, server.getConnectionCount());
+        }
+    }
+
+    /**
+     * A message the server rejects fails without costing the connection.
+     */
+    @Test
+    void send_whenLocalServerRejects_throwsAndKeepsConnection() throws IOException {
+        try (LocalSmtpServer server = new LocalSmtpServer();
+             SmtpEmailTransport smtp = localTransport(server)) {
+            server.setRejectEvery(2);
+
+            smtp.send(new EmailMessage("a@example.com", "S", "B"));
+            assertThrows(RuntimeException.class,
+                    () -> smtp.send(new EmailMessage("b@example.com", "S", "B")));
+            smtp.send(new EmailMessage("c@example.com", "S", "B"));
+
+            assertEquals(2, server.getAcceptedCount());
+            assertEquals(1, server.getRejectedCount());
+            assertEquals(1, server.getConnectionCount());
+        }
+    }
+
+    /**
+     * A connection the server drops is replaced and the message is retried.
+     */
+    @Test
+    void send_whenLocalServerDropsConnection_reconnectsAndRetries() throws IOException {
+        try (LocalSmtpServer server = new LocalSmtpServer();
+             SmtpEmailTransport smtp = localTransport(server)) {
+            server.setDropEvery(2);
+
+            smtp.send(new EmailMessage("a@example.com", "S", "B"));
+            smtp.send(new EmailMessage("b@example.com", "S", "B"));
+
+            assertEquals(1, server.getDroppedCount());
+            assertEquals(2, server.getAcceptedCount());
+            assertEquals(2, server.getConnectionCount());
+        }
+    }
+
+    private static SmtpEmailTransport localTransport(LocalSmtpServer server) {
+        return new SmtpEmailTransport("localhost", server.getPort(), "sender@example.com", "password", 2);
+    }
+}
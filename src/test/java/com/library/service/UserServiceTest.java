@@ -14,6 +14,7 @@ import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -181,7 +182,7 @@ class UserServiceTest {
         storage.saveLoans(Collections.emptyList());
 
         storage.saveFines(List.of(
-                new Fine("F1", "U1", 20.0, false)
+                new Fine("F1", "U1", 2000, false)
         ));
 
         assertThrows(IllegalStateException.class,
@@ -227,6 +228,19 @@ class UserServiceTest {
         assertFalse(userService.isUserLoggedIn());
     }
 
+    @Test
+    void findByIds_returnsOnlyExistingUsers() {
+        User lana = userService.register("Lana", "lana@mail.com", VALID_PASSWORD);
+        User omar = userService.register("Omar", "omar@mail.com", VALID_PASSWORD);
+
+        Map<String, User> found = userService.findByIds(List.of(lana.getId(), omar.getId(), "U999"));
+
+        assertEquals(2, found.size());
+        assertEquals("Lana", found.get(lana.getId()).getName());
+        assertEquals("Omar", found.get(omar.getId()).getName());
+        assertFalse(found.containsKey("U999"));
+    }
+
     @Test
     void findById_whenUserNotFound_returnsNull() {
         storage.saveUsers(List.of());